@@ -0,0 +1,199 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.glassfish.grizzly.utils.HashedWheelDelayedExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The scanning {@link DelayedExecutor} vs. {@link HashedWheelDelayedExecutor}.
+ *
+ * The executors are not started, the benchmark drives their ticks
+ * explicitly, advancing the time by one check interval per tick, so the
+ * results don't depend on the executor thread scheduling.
+ * <tt>timeouts</tt> elements (for example, idle connections) with
+ * the timeouts far in the future are registered, so:
+ * <ul>
+ *   <li><tt>tick</tt> measures the cost of a single executor tick;</li>
+ *   <li><tt>addRemove</tt> measures the cost of adding and removing
+ *   an element (for example, the connection keep-alive timeout), the
+ *   executor ticks once per 1024 operations.</li>
+ * </ul>
+ *
+ * @since 2.3.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DelayedExecutorBenchmark {
+    private static final long CHECK_INTERVAL_MILLIS = 1000;
+
+    @Param({"scanning", "wheel"})
+    public String executor;
+
+    @Param({"1000", "100000"})
+    public int timeouts;
+
+    private Ticker ticker;
+    private DelayedExecutor.DelayQueue<Element> queue;
+    private Element element;
+    private long currentTimeMillis;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        ticker = "wheel".equals(executor)
+                ? new WheelTicker()
+                : new ScanningTicker();
+
+        queue = ((DelayedExecutor) ticker).createDelayQueue(
+                new DelayedExecutor.Worker<Element>() {
+                    @Override
+                    public boolean doWork(final Element element) {
+                        return true;
+                    }
+                },
+                new DelayedExecutor.Resolver<Element>() {
+                    @Override
+                    public boolean removeTimeout(final Element element) {
+                        element.timeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+                        return true;
+                    }
+
+                    @Override
+                    public long getTimeoutMillis(final Element element) {
+                        return element.timeoutMillis;
+                    }
+
+                    @Override
+                    public void setTimeoutMillis(final Element element,
+                            final long timeoutMillis) {
+                        element.timeoutMillis = timeoutMillis;
+                    }
+                });
+
+        // the timeouts are spread over the day, far beyond the
+        // benchmark virtual time
+        final Random random = new Random(0);
+        for (int i = 0; i < timeouts; i++) {
+            queue.add(new Element(),
+                    TimeUnit.DAYS.toMillis(1000) + random.nextInt(86400000),
+                    TimeUnit.MILLISECONDS);
+        }
+
+        element = new Element();
+        currentTimeMillis = System.currentTimeMillis();
+        ticker.tick(currentTimeMillis);
+    }
+
+    @Benchmark
+    public long tick() {
+        currentTimeMillis += CHECK_INTERVAL_MILLIS;
+        ticker.tick(currentTimeMillis);
+        return currentTimeMillis;
+    }
+
+    @Benchmark
+    public long addRemove() {
+        queue.add(element, 30, TimeUnit.SECONDS);
+        final long timeout = element.timeoutMillis;
+        queue.remove(element);
+
+        if ((++counter & 1023) == 0) {
+            currentTimeMillis += CHECK_INTERVAL_MILLIS;
+            ticker.tick(currentTimeMillis);
+        }
+
+        return timeout;
+    }
+
+    private interface Ticker {
+        void tick(long currentTimeMillis);
+    }
+
+    private static final class ScanningTicker extends DelayedExecutor
+            implements Ticker {
+
+        private ScanningTicker() {
+            super(null, CHECK_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void tick(final long currentTimeMillis) {
+            checkQueues(currentTimeMillis);
+        }
+    }
+
+    private static final class WheelTicker extends HashedWheelDelayedExecutor
+            implements Ticker {
+
+        private WheelTicker() {
+            super(null, CHECK_INTERVAL_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void tick(final long currentTimeMillis) {
+            checkQueues(currentTimeMillis);
+        }
+    }
+
+    private static final class Element {
+        private volatile long timeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+    }
+}
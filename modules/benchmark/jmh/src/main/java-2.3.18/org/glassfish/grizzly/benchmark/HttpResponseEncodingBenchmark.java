@@ -0,0 +1,171 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.HeadersTemplate;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.HttpServerFilter;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpStatus;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link HttpServerFilter} serialization of a small JSON response with a few
+ * static headers, which are either set on each response or come from
+ * a pre-encoded {@link HeadersTemplate}.
+ *
+ * Each operation parses a request (the cost is the same for both modes) and
+ * passes the response to {@link HttpServerFilter#handleWrite(FilterChainContext)}
+ * directly, no network I/O is involved.
+ *
+ * @since 2.3.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpResponseEncodingBenchmark {
+
+    private static final Charset ASCII = Charset.forName("ASCII");
+
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+    private static final String SERVER = "Grizzly/2.3";
+    private static final String CACHE_CONTROL = "no-cache, no-store, must-revalidate";
+    private static final String CONTENT_TYPE_OPTIONS = "nosniff";
+
+    private static final HeadersTemplate TEMPLATE = HeadersTemplate.builder()
+            .header(Header.Server, SERVER)
+            .header(Header.CacheControl, CACHE_CONTROL)
+            .header("X-Content-Type-Options", CONTENT_TYPE_OPTIONS)
+            .build();
+
+    /**
+     * <tt>true</tt> to serialize the static headers using {@link HeadersTemplate}.
+     */
+    @Param({"false", "true"})
+    public boolean template;
+
+    private TCPNIOTransport transport;
+    private StandaloneConnection connection;
+    private HttpServerFilter filter;
+    private MemoryManager mm;
+    private byte[] request;
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        transport = TCPNIOTransportBuilder.newInstance().build();
+        connection = new StandaloneConnection(transport);
+        filter = new HttpServerFilter();
+        mm = transport.getMemoryManager();
+        request = HttpCodecBenchmark.createRequest(0).getBytes(ASCII);
+        json = "{\"id\":12345,\"name\":\"item\",\"available\":true}".getBytes(ASCII);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        transport.shutdownNow();
+    }
+
+    @Benchmark
+    public int encodeResponse() throws IOException {
+        final FilterChainContext readCtx = FilterChainContext.create(connection);
+        readCtx.setMessage(Buffers.wrap(mm, request));
+        filter.handleRead(readCtx);
+
+        final HttpContent requestContent = readCtx.getMessage();
+        final HttpRequestPacket httpRequest =
+                (HttpRequestPacket) requestContent.getHttpHeader();
+        readCtx.completeAndRecycle();
+
+        final HttpResponsePacket response = httpRequest.getResponse();
+        HttpStatus.OK_200.setValues(response);
+        response.setContentType(CONTENT_TYPE);
+        if (template) {
+            response.setHeadersTemplate(TEMPLATE);
+        } else {
+            response.setHeader(Header.Server, SERVER);
+            response.setHeader(Header.CacheControl, CACHE_CONTROL);
+            response.setHeader("X-Content-Type-Options", CONTENT_TYPE_OPTIONS);
+        }
+
+        final HttpContent responseContent = response.httpContentBuilder()
+                .content(Buffers.wrap(mm, json))
+                .last(true)
+                .build();
+
+        final FilterChainContext writeCtx = FilterChainContext.create(connection);
+        writeCtx.setMessage(responseContent);
+        filter.handleWrite(writeCtx);
+
+        final Buffer output = writeCtx.getMessage();
+        final int size = output.remaining();
+        output.tryDispose();
+        writeCtx.completeAndRecycle();
+
+        httpRequest.recycle();
+        return size;
+    }
+}
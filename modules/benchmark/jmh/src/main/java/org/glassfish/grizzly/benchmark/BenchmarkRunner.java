@@ -0,0 +1,336 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.glassfish.grizzly.Grizzly;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the Grizzly JMH benchmarks with the GC profiler enabled
+ * (ops/s and allocation rate per operation get reported) and
+ * optionally saves the results as a baseline, or compares them
+ * with a baseline saved by an earlier run.
+ *
+ * Typical usage: run the benchmarks against the currently deployed
+ * Grizzly version with <tt>-save=baseline.txt</tt>, rebuild the benchmarks
+ * against the new Grizzly version and run them with
+ * <tt>-baseline=baseline.txt</tt>.
+ *
+ * @since 2.3.18
+ */
+public class BenchmarkRunner {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String ALLOC_RATE_NORM = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws Exception {
+        final Settings settings = Settings.parse(args);
+        System.out.println(settings);
+
+        final Map<String, Score> current = run(settings);
+
+        if (settings.savePath != null) {
+            save(current, new File(settings.savePath));
+            System.out.println("Results saved to: " + settings.savePath);
+        }
+
+        if (settings.baselinePath != null) {
+            final Map<String, Score> baseline = load(new File(settings.baselinePath));
+            final int regressions = compare(baseline, current,
+                    settings.threshold);
+            if (regressions > 0) {
+                System.out.println(regressions + " regression(s) found");
+                System.exit(1);
+            }
+        }
+    }
+
+    private static Map<String, Score> run(final Settings settings)
+            throws RunnerException {
+        final ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(settings.include)
+                .addProfiler(GCProfiler.class);
+
+        if (settings.forks >= 0) {
+            builder.forks(settings.forks);
+        }
+        if (settings.warmupIterations >= 0) {
+            builder.warmupIterations(settings.warmupIterations);
+        }
+        if (settings.measurementIterations >= 0) {
+            builder.measurementIterations(settings.measurementIterations);
+        }
+
+        final Collection<RunResult> results = new Runner(builder.build()).run();
+
+        final Map<String, Score> scores = new LinkedHashMap<String, Score>();
+        for (RunResult runResult : results) {
+            final Result primary = runResult.getPrimaryResult();
+
+            double allocNorm = Double.NaN;
+            for (Map.Entry<String, Result> entry :
+                    runResult.getSecondaryResults().entrySet()) {
+                // JMH versions differ in the secondary result prefix
+                if (entry.getKey().endsWith(ALLOC_RATE_NORM)) {
+                    allocNorm = entry.getValue().getScore();
+                }
+            }
+
+            scores.put(key(runResult.getParams()),
+                    new Score(primary.getScore(), primary.getScoreError(),
+                    primary.getScoreUnit(), allocNorm));
+        }
+
+        return scores;
+    }
+
+    private static int compare(final Map<String, Score> baseline,
+            final Map<String, Score> current, final double threshold) {
+
+        System.out.println();
+        System.out.println("Comparison with the baseline (threshold "
+                + threshold + "%):");
+        System.out.println(String.format("%-70s %14s %14s %9s %12s %12s",
+                "Benchmark", "Baseline", "Current", "Delta", "B/op base",
+                "B/op now"));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            final Score now = entry.getValue();
+            final Score base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.println(String.format("%-70s %14s %14.2f",
+                        entry.getKey(), "n/a", now.score));
+                continue;
+            }
+
+            // all the benchmarks are throughput based, so lower is worse
+            final double delta = (now.score - base.score) * 100 / base.score;
+            final boolean isScoreRegression = delta < -threshold;
+            final boolean isAllocRegression = !Double.isNaN(base.allocNorm)
+                    && !Double.isNaN(now.allocNorm)
+                    && now.allocNorm > base.allocNorm * (1 + threshold / 100)
+                    // ignore noise for (almost) allocation-free benchmarks
+                    && now.allocNorm - base.allocNorm > 1;
+
+            final boolean isRegression = isScoreRegression || isAllocRegression;
+            if (isRegression) {
+                regressions++;
+            }
+
+            System.out.println(String.format("%-70s %14.2f %14.2f %+8.2f%% %12.1f %12.1f%s",
+                    entry.getKey(), base.score, now.score, delta,
+                    base.allocNorm, now.allocNorm,
+                    isRegression ? "  <-- REGRESSION" : ""));
+        }
+
+        return regressions;
+    }
+
+    private static String key(final BenchmarkParams params) {
+        final StringBuilder sb = new StringBuilder(params.getBenchmark());
+        final Collection<String> paramKeys = params.getParamsKeys();
+        if (!paramKeys.isEmpty()) {
+            sb.append('(');
+            boolean isFirst = true;
+            for (String paramKey : paramKeys) {
+                if (!isFirst) {
+                    sb.append(',');
+                }
+                sb.append(paramKey).append('=').append(params.getParam(paramKey));
+                isFirst = false;
+            }
+            sb.append(')');
+        }
+
+        return sb.toString();
+    }
+
+    private static void save(final Map<String, Score> scores, final File file)
+            throws IOException {
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), UTF8));
+        try {
+            writer.println("# Grizzly " + Grizzly.getDotedVersion()
+                    + " JMH baseline");
+            for (Map.Entry<String, Score> entry : scores.entrySet()) {
+                final Score score = entry.getValue();
+                writer.println(entry.getKey() + '\t' + score.score + '\t'
+                        + score.error + '\t' + score.unit + '\t'
+                        + score.allocNorm);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static Map<String, Score> load(final File file) throws IOException {
+        final Map<String, Score> scores = new LinkedHashMap<String, Score>();
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), UTF8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() == 0 || line.startsWith("#")) {
+                    if (line.startsWith("#")) {
+                        System.out.println("Baseline: " + line.substring(1).trim());
+                    }
+                    continue;
+                }
+
+                final String[] fields = line.split("\t");
+                if (fields.length != 5) {
+                    throw new IOException("Malformed baseline line: " + line);
+                }
+
+                scores.put(fields[0], new Score(Double.parseDouble(fields[1]),
+                        Double.parseDouble(fields[2]), fields[3],
+                        Double.parseDouble(fields[4])));
+            }
+        } finally {
+            reader.close();
+        }
+
+        return scores;
+    }
+
+    private static final class Score {
+        private final double score;
+        private final double error;
+        private final String unit;
+        private final double allocNorm;
+
+        private Score(final double score, final double error,
+                final String unit, final double allocNorm) {
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+            this.allocNorm = allocNorm;
+        }
+    }
+
+    private static final class Settings {
+        private String include = ".*Benchmark.*";
+        private String savePath;
+        private String baselinePath;
+        private double threshold = 5;
+        private int forks = -1;
+        private int warmupIterations = -1;
+        private int measurementIterations = -1;
+
+        private Settings() {
+        }
+
+        public static Settings parse(String[] args) {
+            Settings settings = new Settings();
+            for (int i = 0; i < args.length; i++) {
+                String unit = args[i].trim();
+
+                if (!unit.startsWith("-")) continue;
+
+                if (unit.equalsIgnoreCase("-help")) {
+                    help();
+                    System.exit(0);
+                }
+
+                String[] paramValue = unit.split("=", 2);
+                String param = paramValue[0].trim();
+                String value = paramValue[1].trim();
+
+                if ("-include".equalsIgnoreCase(param)) {
+                    settings.include = value;
+                } else if ("-save".equalsIgnoreCase(param)) {
+                    settings.savePath = value;
+                } else if ("-baseline".equalsIgnoreCase(param)) {
+                    settings.baselinePath = value;
+                } else if ("-threshold".equalsIgnoreCase(param)) {
+                    settings.threshold = Double.parseDouble(value);
+                } else if ("-forks".equalsIgnoreCase(param)) {
+                    settings.forks = Integer.parseInt(value);
+                } else if ("-warmupIterations".equalsIgnoreCase(param)) {
+                    settings.warmupIterations = Integer.parseInt(value);
+                } else if ("-iterations".equalsIgnoreCase(param)) {
+                    settings.measurementIterations = Integer.parseInt(value);
+                }
+            }
+
+            return settings;
+        }
+
+        public static void help() {
+            System.out.println("Use BenchmarkRunner -include=<BENCHMARK_REGEXP> -save=<FILE> -baseline=<FILE> -threshold=<PERCENT> -forks=<N> -warmupIterations=<N> -iterations=<N>");
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Configuration:");
+            sb.append("\nGrizzly version: ").append(Grizzly.getDotedVersion());
+            sb.append("\nInclude: ").append(include);
+            sb.append("\nSave results to: ").append(savePath);
+            sb.append("\nBaseline: ").append(baselinePath);
+            sb.append("\nRegression threshold: ").append(threshold).append('%');
+
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.BuffersBuffer;
+import org.glassfish.grizzly.memory.ByteBufferArray;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BuffersBuffer} (composite buffer) append, split and
+ * toByteBufferArray operations.
+ *
+ * @since 2.3.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompositeBufferBenchmark {
+
+    @Param({"heap", "bytebuffer-direct"})
+    public String manager;
+
+    @Param({"4", "32"})
+    public int buffersCount;
+
+    @Param({"1024"})
+    public int bufferSize;
+
+    private MemoryManager mm;
+    private Buffer[] buffers;
+    private CompositeBuffer composite;
+
+    @Setup
+    public void setup() {
+        mm = MemoryManagers.create(manager);
+
+        buffers = new Buffer[buffersCount];
+        for (int i = 0; i < buffersCount; i++) {
+            buffers[i] = mm.allocate(bufferSize);
+        }
+
+        composite = newComposite(false);
+    }
+
+    @Benchmark
+    public CompositeBuffer append() {
+        return newComposite(false);
+    }
+
+    @Benchmark
+    public Buffer split() {
+        // split() changes the capacity of the buffer it cuts through,
+        // so work on duplicates to keep the source buffers intact
+        final CompositeBuffer cb = newComposite(true);
+        return cb.split(cb.capacity() / 2 + 1);
+    }
+
+    @Benchmark
+    public int toByteBufferArray() {
+        final ByteBufferArray array = composite.toByteBufferArray();
+        final int size = array.size();
+        array.restore();
+        array.recycle();
+
+        return size;
+    }
+
+    private CompositeBuffer newComposite(final boolean duplicate) {
+        final CompositeBuffer cb = CompositeBuffer.newBuffer(mm);
+        for (int i = 0; i < buffers.length; i++) {
+            final Buffer b = buffers[i];
+            b.clear();
+            cb.append(duplicate ? b.duplicate() : b);
+        }
+
+        return cb;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.IOEvent;
+import org.glassfish.grizzly.ProcessorResult;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.Filter;
+import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link FilterChain} {@link IOEvent#READ} processing, where each
+ * {@link Filter} returns {@link FilterChainContext#getInvokeAction()}.
+ *
+ * The {@link Filter}s in the chain are instances of different classes,
+ * so the filter invocation is megamorphic like in real chains.
+ * Run with the GC profiler (see {@link BenchmarkRunner}) to get the
+ * allocation rate per event.
+ *
+ * @since 2.3.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterChainBenchmark {
+
+    @Param({"4", "8"})
+    public int filters;
+
+    private TCPNIOTransport transport;
+    private StandaloneConnection connection;
+    private FilterChain filterChain;
+    private final Object message = new Object();
+
+    @Setup
+    public void setup() {
+        transport = TCPNIOTransportBuilder.newInstance().build();
+        connection = new StandaloneConnection(transport);
+
+        final FilterChainBuilder builder = FilterChainBuilder.stateless();
+        for (int i = 0; i < filters; i++) {
+            builder.add(createFilter(i));
+        }
+
+        filterChain = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        transport.shutdownNow();
+    }
+
+    @Benchmark
+    public ProcessorResult read() {
+        final FilterChainContext ctx =
+                filterChain.obtainFilterChainContext(connection);
+        ctx.getInternalContext().setIoEvent(IOEvent.READ);
+        ctx.setMessage(message);
+
+        final ProcessorResult result =
+                filterChain.process(ctx.getInternalContext());
+        ctx.completeAndRecycle();
+        return result;
+    }
+
+    private static Filter createFilter(final int i) {
+        switch (i % 4) {
+            case 0: return new PassFilter0();
+            case 1: return new PassFilter1();
+            case 2: return new PassFilter2();
+            default: return new PassFilter3();
+        }
+    }
+
+    private static final class PassFilter0 extends BaseFilter {
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx) {
+            return ctx.getInvokeAction();
+        }
+    }
+
+    private static final class PassFilter1 extends BaseFilter {
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx) {
+            return ctx.getInvokeAction();
+        }
+    }
+
+    private static final class PassFilter2 extends BaseFilter {
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx) {
+            return ctx.getInvokeAction();
+        }
+    }
+
+    private static final class PassFilter3 extends BaseFilter {
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx) {
+            return ctx.getInvokeAction();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.http.HttpCodecFilter;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpServerFilter;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link HttpCodecFilter} HTTP request header parsing.
+ *
+ * The request is passed to {@link HttpServerFilter#handleRead(FilterChainContext)}
+ * directly, no network I/O is involved.
+ *
+ * @since 2.3.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpCodecBenchmark {
+
+    private static final Charset ASCII = Charset.forName("ASCII");
+
+    /**
+     * The number of "extra" headers, in addition to the few headers
+     * every request has.
+     */
+    @Param({"0", "60"})
+    public int extraHeaders;
+
+    private TCPNIOTransport transport;
+    private StandaloneConnection connection;
+    private HttpServerFilter filter;
+    private MemoryManager mm;
+    private byte[] request;
+
+    @Setup
+    public void setup() {
+        transport = TCPNIOTransportBuilder.newInstance().build();
+        connection = new StandaloneConnection(transport);
+        filter = new HttpServerFilter();
+        mm = transport.getMemoryManager();
+        request = createRequest(extraHeaders).getBytes(ASCII);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        transport.shutdownNow();
+    }
+
+    @Benchmark
+    public HttpRequestPacket parseRequest() throws IOException {
+        final Buffer input = Buffers.wrap(mm, request);
+
+        final FilterChainContext ctx = FilterChainContext.create(connection);
+        ctx.setMessage(input);
+        filter.handleRead(ctx);
+
+        final HttpContent content = ctx.getMessage();
+        final HttpRequestPacket httpRequest =
+                (HttpRequestPacket) content.getHttpHeader();
+        if (httpRequest.getHeader("Host") == null) {
+            throw new IllegalStateException("Host header is not parsed");
+        }
+
+        ctx.completeAndRecycle();
+        httpRequest.recycle();
+        return httpRequest;
+    }
+
+    static String createRequest(final int extraHeaders) {
+        final StringBuilder sb = new StringBuilder(256 + extraHeaders * 64);
+        sb.append("GET /api/v1/items?id=12345 HTTP/1.1\r\n")
+                .append("Host: localhost:8080\r\n")
+                .append("User-Agent: Mozilla/5.0 (X11; Linux x86_64)\r\n")
+                .append("Accept: application/json\r\n")
+                .append("Accept-Encoding: gzip, deflate\r\n")
+                .append("Connection: keep-alive\r\n");
+
+        for (int i = 0; i < extraHeaders; i++) {
+            sb.append("X-Forwarded-Header-").append(i).append(": ")
+                    .append("value-").append(i).append("-0123456789abcdef\r\n");
+        }
+
+        return sb.append("\r\n").toString();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Allocate/release cycle of the {@link MemoryManager} implementations.
+ *
+ * Please note, JMH threads are not Grizzly worker threads, so
+ * thread-local pools of {@link org.glassfish.grizzly.memory.HeapMemoryManager}
+ * and {@link org.glassfish.grizzly.memory.ByteBufferManager} are not used here,
+ * the benchmark measures the fallback (non-worker thread) path.
+ *
+ * @since 2.3.18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryManagerBenchmark {
+
+    @Param({"heap", "pooled", "pooled-direct", "slab", "slab-direct",
+        "bytebuffer", "bytebuffer-direct"})
+    public String manager;
+
+    @Param({"128", "4096", "65536"})
+    public int size;
+
+    private MemoryManager mm;
+
+    @Setup
+    public void setup() {
+        mm = MemoryManagers.create(manager);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Buffer allocateRelease() {
+        final Buffer buffer = mm.allocate(size);
+        buffer.put(0, (byte) 1);
+        mm.release(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Buffer allocateAtLeastDispose() {
+        final Buffer buffer = mm.allocateAtLeast(size);
+        buffer.put(0, (byte) 1);
+        buffer.tryDispose();
+        return buffer;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Buffer reallocateGrow() {
+        final Buffer buffer = mm.allocate(size / 2);
+        final Buffer grown = mm.reallocate(buffer, size);
+        grown.put(size - 1, (byte) 1);
+        grown.tryDispose();
+        return grown;
+    }
+}
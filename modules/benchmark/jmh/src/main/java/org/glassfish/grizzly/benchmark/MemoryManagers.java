@@ -0,0 +1,128 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import org.glassfish.grizzly.memory.ByteBufferManager;
+import org.glassfish.grizzly.memory.HeapMemoryManager;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
+
+/**
+ * Maps the short {@link MemoryManager} names, used as benchmark parameters,
+ * to {@link MemoryManager} instances.
+ *
+ * @since 2.3.18
+ */
+public final class MemoryManagers {
+
+    /**
+     * The names of all the supported {@link MemoryManager}s.
+     */
+    public static final String[] NAMES = {
+        "heap", "pooled", "pooled-direct", "slab", "slab-direct",
+        "bytebuffer", "bytebuffer-direct"
+    };
+
+    /**
+     * SlabMemoryManager is available since 2.3.18, it's created using
+     * reflection, so the benchmarks could be compiled and run against
+     * older Grizzly versions for the baseline comparison.
+     */
+    private static final String SLAB_MEMORY_MANAGER =
+            "org.glassfish.grizzly.memory.SlabMemoryManager";
+
+    private MemoryManagers() {
+    }
+
+    /**
+     * Creates a new {@link MemoryManager} instance by its short name.
+     *
+     * @param name one of the {@link #NAMES}.
+     * @return {@link MemoryManager}
+     * @throws IllegalArgumentException if the name is unknown
+     * @throws UnsupportedOperationException if the {@link MemoryManager}
+     *         isn't available in the Grizzly version the benchmarks run against
+     */
+    public static MemoryManager create(final String name) {
+        if ("heap".equals(name)) {
+            return new HeapMemoryManager();
+        } else if ("pooled".equals(name)) {
+            return new PooledMemoryManager();
+        } else if ("pooled-direct".equals(name)) {
+            return new PooledMemoryManager(true);
+        } else if ("slab".equals(name)) {
+            return createSlab(false);
+        } else if ("slab-direct".equals(name)) {
+            return createSlab(true);
+        } else if ("bytebuffer".equals(name)) {
+            return new ByteBufferManager();
+        } else if ("bytebuffer-direct".equals(name)) {
+            return new ByteBufferManager(true);
+        }
+
+        throw new IllegalArgumentException("Unknown MemoryManager: " + name);
+    }
+
+    private static MemoryManager createSlab(final boolean isDirect) {
+        final Constructor<?> constructor;
+        try {
+            constructor = Class.forName(SLAB_MEMORY_MANAGER)
+                    .getConstructor(boolean.class);
+        } catch (ClassNotFoundException e) {
+            throw new UnsupportedOperationException(
+                    "SlabMemoryManager requires Grizzly 2.3.18+");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try {
+            return (MemoryManager) constructor.newInstance(isDirect);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
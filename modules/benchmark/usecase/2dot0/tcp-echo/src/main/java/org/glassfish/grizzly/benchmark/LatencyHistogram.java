@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+/**
+ * Simple log-linear latency histogram.
+ *
+ * Values are recorded in nanoseconds, every power of two range is split into
+ * {@link #SUB_BUCKETS} linear sub-buckets, so the relative error of the
+ * reported percentiles doesn't exceed 1/{@link #SUB_BUCKETS}.
+ *
+ * The histogram isn't thread-safe, usually every connection records into its
+ * own histogram and the histograms are {@link #add(LatencyHistogram) merged}
+ * once the test is over.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // covers values up to 2^(SUB_BUCKET_BITS + RANGES) ns, which is > 1 hour
+    private static final int RANGES = 36;
+
+    private final long[] counts = new long[(RANGES + 1) * SUB_BUCKETS];
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private double sum;
+
+    public void record(final long valueNanos) {
+        final long value = Math.max(0, valueNanos);
+        counts[index(value)]++;
+        totalCount++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public void add(final LatencyHistogram histogram) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += histogram.counts[i];
+        }
+
+        totalCount += histogram.totalCount;
+        sum += histogram.sum;
+        min = Math.min(min, histogram.min);
+        max = Math.max(max, histogram.max);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * @param percentile the percentile [0..100]
+     * @return the (upper bound) value at the given percentile in nanoseconds
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final long countAtPercentile = Math.max(1,
+                (long) Math.ceil(percentile / 100 * totalCount));
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= countAtPercentile) {
+                return Math.min(max, highestEquivalentValue(i));
+            }
+        }
+
+        return max;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    private static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        // value is in [2^(SUB_BUCKET_BITS + range - 1), 2^(SUB_BUCKET_BITS + range))
+        final int range = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (range > RANGES) {
+            return (RANGES + 1) * SUB_BUCKETS - 1;
+        }
+
+        final int subBucket = (int) (value >>> (range - 1)) & (SUB_BUCKETS - 1);
+
+        return range * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestEquivalentValue(final int index) {
+        final int range = index >> SUB_BUCKET_BITS;
+        final int subBucket = index & (SUB_BUCKETS - 1);
+
+        if (range == 0) {
+            return subBucket;
+        }
+
+        final long lowest = ((long) (SUB_BUCKETS | subBucket)) << (range - 1);
+        return lowest + (1L << (range - 1)) - 1;
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.IOStrategy;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.ByteBufferManager;
+import org.glassfish.grizzly.memory.HeapMemoryManager;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
+import org.glassfish.grizzly.memory.SlabMemoryManager;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.LeaderFollowerNIOStrategy;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.glassfish.grizzly.strategies.SimpleDynamicNIOStrategy;
+import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.grizzly.utils.EchoFilter;
+
+/**
+ * Self-contained loopback load test: starts the echo server (the same
+ * filter chain as {@link TCPEchoServer}) and drives it with
+ * {@link TCPNIOTransport} client connections from the same JVM.
+ *
+ * Every (IOStrategy, MemoryManager, pipeline depth) combination runs in its
+ * own server instance and the throughput and p50/p99/p99.9 round-trip
+ * latencies get reported.
+ * Pipeline depth 1 means non-pipelined traffic: the next message is sent
+ * only after the previous one has been echoed back.
+ */
+public class LoadDriver {
+    private static final Attribute<ClientSession> SESSION_ATTR =
+            Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+            LoadDriver.class.getName() + ".session");
+
+    public static void main(String[] args) throws Exception {
+        final LoadDriverSettings settings = LoadDriverSettings.parse(args);
+        System.out.println(settings);
+
+        final List<RunResult> results = new ArrayList<RunResult>();
+
+        for (String strategy : settings.getStrategies()) {
+            for (String memoryManager : settings.getMemoryManagers()) {
+                for (int depth : settings.getPipelineDepths()) {
+                    final RunResult result =
+                            run(settings, strategy, memoryManager, depth);
+                    System.out.println(result);
+                    results.add(result);
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-16s %-11s %6s %12s %10s %10s %10s %10s %10s",
+                "IOStrategy", "Memory", "Depth", "msg/s", "MB/s",
+                "p50(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (RunResult result : results) {
+            System.out.println(result.toRow());
+        }
+    }
+
+    private static RunResult run(final LoadDriverSettings settings,
+            final String strategy, final String memoryManager,
+            final int pipelineDepth) throws Exception {
+
+        final TCPNIOTransport server = createServer(settings, strategy,
+                memoryManager);
+
+        final TCPNIOTransport client = TCPNIOTransportBuilder.newInstance()
+                .setIOStrategy(SameThreadIOStrategy.getInstance())
+                .setSelectorRunnersCount(settings.getClientSelectorThreads())
+                .setMemoryManager(new HeapMemoryManager())
+                .setMaxAsyncWriteQueueSizeInBytes(-1)
+                .setTcpNoDelay(true)
+                .build();
+        client.setProcessor(FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new ClientFilter())
+                .build());
+
+        final List<ClientSession> sessions = new ArrayList<ClientSession>();
+        try {
+            server.bind(settings.getHost(), settings.getPort());
+            server.start();
+            client.start();
+
+            final byte[] payload = new byte[settings.getMessageSize()];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = (byte) ('a' + i % 26);
+            }
+
+            for (int i = 0; i < settings.getConnections(); i++) {
+                final Connection connection = client.connect(
+                        settings.getHost(), settings.getPort())
+                        .get(10, TimeUnit.SECONDS);
+                final ClientSession session = new ClientSession(connection,
+                        payload, pipelineDepth);
+                SESSION_ATTR.set(connection, session);
+                sessions.add(session);
+            }
+
+            for (ClientSession session : sessions) {
+                session.start();
+            }
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(settings.getWarmupSeconds()));
+
+            for (ClientSession session : sessions) {
+                session.startRecording();
+            }
+
+            final long startNanos = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(settings.getDurationSeconds()));
+
+            final LatencyHistogram histogram = new LatencyHistogram();
+            for (ClientSession session : sessions) {
+                session.stopRecording(histogram);
+            }
+            final long elapsedNanos = System.nanoTime() - startNanos;
+
+            for (ClientSession session : sessions) {
+                session.stop();
+            }
+
+            return new RunResult(strategy, memoryManager, pipelineDepth,
+                    settings.getMessageSize(), histogram, elapsedNanos);
+        } finally {
+            for (ClientSession session : sessions) {
+                session.connection.closeSilently();
+            }
+
+            client.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    private static TCPNIOTransport createServer(
+            final LoadDriverSettings settings, final String strategy,
+            final String memoryManager) {
+
+        final int poolSize = settings.getWorkerThreads();
+        final ThreadPoolConfig tpc = ThreadPoolConfig.defaultConfig().copy().
+                setPoolName("Grizzly-BM").
+                setCorePoolSize(poolSize).setMaxPoolSize(poolSize);
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setIOStrategy(createStrategy(strategy))
+                .setMemoryManager(createMemoryManager(memoryManager))
+                .setWorkerThreadPoolConfig(tpc)
+                .setSelectorRunnersCount(settings.getSelectorThreads())
+                .setMaxAsyncWriteQueueSizeInBytes(-1)
+                .setTcpNoDelay(true)
+                .setReuseAddress(true)
+                .build();
+
+        transport.setProcessor(FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new EchoFilter())
+                .build());
+
+        return transport;
+    }
+
+    private static IOStrategy createStrategy(final String name) {
+        if ("worker".equalsIgnoreCase(name)) {
+            return WorkerThreadIOStrategy.getInstance();
+        } else if ("same".equalsIgnoreCase(name)) {
+            return SameThreadIOStrategy.getInstance();
+        } else if ("leader-follower".equalsIgnoreCase(name)) {
+            return LeaderFollowerNIOStrategy.getInstance();
+        } else if ("dynamic".equalsIgnoreCase(name)) {
+            return SimpleDynamicNIOStrategy.getInstance();
+        }
+
+        throw new IllegalArgumentException("Unknown IOStrategy: " + name);
+    }
+
+    private static MemoryManager createMemoryManager(final String name) {
+        if ("heap".equalsIgnoreCase(name)) {
+            return new HeapMemoryManager();
+        } else if ("pooled".equalsIgnoreCase(name)) {
+            return new PooledMemoryManager();
+        } else if ("pooled-direct".equalsIgnoreCase(name)) {
+            return new PooledMemoryManager(true);
+        } else if ("slab".equalsIgnoreCase(name)) {
+            return new SlabMemoryManager();
+        } else if ("slab-direct".equalsIgnoreCase(name)) {
+            return new SlabMemoryManager(true);
+        } else if ("bytebuffer".equalsIgnoreCase(name)) {
+            return new ByteBufferManager();
+        } else if ("bytebuffer-direct".equalsIgnoreCase(name)) {
+            return new ByteBufferManager(true);
+        }
+
+        throw new IllegalArgumentException("Unknown MemoryManager: " + name);
+    }
+
+    /**
+     * Client side {@link org.glassfish.grizzly.filterchain.Filter}, which
+     * passes the number of echoed bytes to the connection {@link ClientSession}.
+     */
+    private static final class ClientFilter extends BaseFilter {
+
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx)
+                throws IOException {
+            final Buffer buffer = ctx.getMessage();
+            final int received = buffer.remaining();
+            buffer.tryDispose();
+
+            final ClientSession session = SESSION_ATTR.get(ctx.getConnection());
+            if (session != null) {
+                session.onReceived(received);
+            }
+
+            return ctx.getStopAction();
+        }
+    }
+
+    /**
+     * Client connection state: keeps the send timestamps of the messages
+     * in flight and records the round-trip latencies.
+     */
+    private static final class ClientSession {
+        private final Connection connection;
+        private final byte[] payload;
+        private final int pipelineDepth;
+
+        // ring of send timestamps of the messages in flight
+        private final long[] sendTimes;
+        private int head;
+        private int inFlight;
+
+        private int receivedBytes;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private boolean isRecording;
+        private boolean isStopped;
+
+        private ClientSession(final Connection connection,
+                final byte[] payload, final int pipelineDepth) {
+            this.connection = connection;
+            this.payload = payload;
+            this.pipelineDepth = pipelineDepth;
+            this.sendTimes = new long[pipelineDepth];
+        }
+
+        void start() {
+            for (int i = 0; i < pipelineDepth; i++) {
+                send();
+            }
+        }
+
+        synchronized void startRecording() {
+            histogram.reset();
+            isRecording = true;
+        }
+
+        synchronized void stopRecording(final LatencyHistogram total) {
+            isRecording = false;
+            total.add(histogram);
+        }
+
+        synchronized void stop() {
+            isStopped = true;
+        }
+
+        void onReceived(final int bytes) {
+            int toSend = 0;
+
+            synchronized (this) {
+                receivedBytes += bytes;
+                while (receivedBytes >= payload.length && inFlight > 0) {
+                    receivedBytes -= payload.length;
+
+                    final long sendTime = sendTimes[head];
+                    head = (head + 1) % pipelineDepth;
+                    inFlight--;
+
+                    if (isRecording) {
+                        histogram.record(System.nanoTime() - sendTime);
+                    }
+
+                    if (!isStopped) {
+                        toSend++;
+                    }
+                }
+            }
+
+            for (int i = 0; i < toSend; i++) {
+                send();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void send() {
+            synchronized (this) {
+                sendTimes[(head + inFlight) % pipelineDepth] = System.nanoTime();
+                inFlight++;
+            }
+
+            connection.write(Buffers.wrap(
+                    connection.getTransport().getMemoryManager(), payload));
+        }
+    }
+
+    private static final class RunResult {
+        private final String strategy;
+        private final String memoryManager;
+        private final int pipelineDepth;
+        private final double messagesPerSecond;
+        private final double megabytesPerSecond;
+        private final LatencyHistogram histogram;
+
+        private RunResult(final String strategy, final String memoryManager,
+                final int pipelineDepth, final int messageSize,
+                final LatencyHistogram histogram, final long elapsedNanos) {
+            this.strategy = strategy;
+            this.memoryManager = memoryManager;
+            this.pipelineDepth = pipelineDepth;
+            this.histogram = histogram;
+
+            final double seconds = elapsedNanos / 1e9;
+            messagesPerSecond = histogram.getTotalCount() / seconds;
+            megabytesPerSecond = messagesPerSecond * messageSize / (1024 * 1024);
+        }
+
+        String toRow() {
+            return String.format("%-16s %-11s %6d %12.0f %10.2f %10.1f %10.1f %10.1f %10.1f",
+                    strategy, memoryManager, pipelineDepth,
+                    messagesPerSecond, megabytesPerSecond,
+                    micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(99)),
+                    micros(histogram.getValueAtPercentile(99.9)),
+                    micros(histogram.getMax()));
+        }
+
+        @Override
+        public String toString() {
+            return "IOStrategy=" + strategy
+                    + " MemoryManager=" + memoryManager
+                    + " pipeline=" + pipelineDepth
+                    + " messages=" + histogram.getTotalCount()
+                    + " msg/s=" + String.format("%.0f", messagesPerSecond)
+                    + " mean(us)=" + String.format("%.1f", micros(histogram.getMean()))
+                    + " p50(us)=" + micros(histogram.getValueAtPercentile(50))
+                    + " p99(us)=" + micros(histogram.getValueAtPercentile(99))
+                    + " p99.9(us)=" + micros(histogram.getValueAtPercentile(99.9));
+        }
+
+        private static double micros(final double nanos) {
+            return nanos / 1000;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * {@link LoadDriver} settings.
+ */
+public class LoadDriverSettings {
+
+    public static final String[] ALL_STRATEGIES = {
+        "worker", "same", "leader-follower", "dynamic"
+    };
+
+    public static final String[] ALL_MEMORY_MANAGERS = {
+        "heap", "pooled", "slab", "bytebuffer"
+    };
+
+    private String host = "127.0.0.1";
+    private int port = 9011;
+
+    private int workerThreads = 5;
+
+    private int selectorThreads = Runtime.getRuntime().availableProcessors();
+
+    private int clientSelectorThreads = Math.max(1,
+            Runtime.getRuntime().availableProcessors() / 2);
+
+    private int connections = 16;
+
+    private int messageSize = 128;
+
+    // 1 means non-pipelined request/response traffic
+    private int[] pipelineDepths = {1, 16};
+
+    private int warmupSeconds = 5;
+
+    private int durationSeconds = 15;
+
+    private String[] strategies = ALL_STRATEGIES;
+
+    private String[] memoryManagers = ALL_MEMORY_MANAGERS;
+
+    private LoadDriverSettings() {
+    }
+
+    public static LoadDriverSettings parse(String[] args) {
+        LoadDriverSettings settings = new LoadDriverSettings();
+        for(int i=0; i<args.length; i++) {
+            String unit = args[i].trim();
+
+            if (!unit.startsWith("-")) continue;
+
+            if (unit.equalsIgnoreCase("-help")) {
+                help();
+                System.exit(0);
+            }
+
+            String[] paramValue = unit.split("=");
+            String param = paramValue[0].trim();
+            String value = paramValue[1].trim();
+
+            if ("-host".equalsIgnoreCase(param)) {
+                settings.host = value;
+            } else if ("-port".equalsIgnoreCase(param)) {
+                settings.port = Integer.parseInt(value);
+            } else if ("-workerThreads".equalsIgnoreCase(param)) {
+                settings.workerThreads = Integer.parseInt(value);
+            } else if ("-selectorThreads".equalsIgnoreCase(param)) {
+                settings.selectorThreads = Integer.parseInt(value);
+            } else if ("-clientSelectorThreads".equalsIgnoreCase(param)) {
+                settings.clientSelectorThreads = Integer.parseInt(value);
+            } else if ("-connections".equalsIgnoreCase(param)) {
+                settings.connections = Integer.parseInt(value);
+            } else if ("-messageSize".equalsIgnoreCase(param)) {
+                settings.messageSize = Integer.parseInt(value);
+            } else if ("-pipeline".equalsIgnoreCase(param)) {
+                final String[] depths = value.split(",");
+                settings.pipelineDepths = new int[depths.length];
+                for (int j = 0; j < depths.length; j++) {
+                    settings.pipelineDepths[j] = Integer.parseInt(depths[j].trim());
+                }
+            } else if ("-warmup".equalsIgnoreCase(param)) {
+                settings.warmupSeconds = Integer.parseInt(value);
+            } else if ("-duration".equalsIgnoreCase(param)) {
+                settings.durationSeconds = Integer.parseInt(value);
+            } else if ("-strategy".equalsIgnoreCase(param)) {
+                settings.strategies = "all".equalsIgnoreCase(value) ?
+                        ALL_STRATEGIES : value.split(",");
+            } else if ("-memoryManager".equalsIgnoreCase(param)) {
+                settings.memoryManagers = "all".equalsIgnoreCase(value) ?
+                        ALL_MEMORY_MANAGERS : value.split(",");
+            }
+        }
+
+        return settings;
+    }
+
+    public static void help() {
+        System.out.println("Use LoadDriver -host=<HOST> -port=<PORT> -workerThreads=<WORKER_THREADS_NUMBER> -selectorThreads=<SELECTOR_THREADS_NUMBER>"
+                + " -clientSelectorThreads=<CLIENT_SELECTOR_THREADS_NUMBER> -connections=<CONNECTIONS_NUMBER>"
+                + " -messageSize=<BYTES> -pipeline=<MESSAGES_IN_FLIGHT_PER_CONNECTION[,...]>"
+                + " -warmup=<SECONDS> -duration=<SECONDS>"
+                + " -strategy=<all|" + join(ALL_STRATEGIES) + ">"
+                + " -memoryManager=<all|" + join(ALL_MEMORY_MANAGERS) + ">");
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public int getSelectorThreads() {
+        return selectorThreads;
+    }
+
+    public int getClientSelectorThreads() {
+        return clientSelectorThreads;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    public int[] getPipelineDepths() {
+        return pipelineDepths;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public String[] getStrategies() {
+        return strategies;
+    }
+
+    public String[] getMemoryManagers() {
+        return memoryManagers;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Configuration:");
+        sb.append("\nHost: ").append(host);
+        sb.append("\nPort: ").append(port);
+        sb.append("\nWorker threads: ").append(workerThreads);
+        sb.append("\nSelector threads: ").append(selectorThreads);
+        sb.append("\nClient selector threads: ").append(clientSelectorThreads);
+        sb.append("\nConnections: ").append(connections);
+        sb.append("\nMessage size: ").append(messageSize);
+        sb.append("\nPipeline depths: ").append(Arrays.toString(pipelineDepths));
+        sb.append("\nWarmup (sec): ").append(warmupSeconds);
+        sb.append("\nDuration (sec): ").append(durationSeconds);
+        sb.append("\nStrategies: ").append(Arrays.toString(strategies));
+        sb.append("\nMemory managers: ").append(Arrays.toString(memoryManagers));
+
+        return sb.toString();
+    }
+
+    private static String join(final String[] values) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append('|');
+            }
+            sb.append(values[i]);
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.epoll;
+
+import java.nio.channels.spi.SelectorProvider;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Utility class, which checks if the JDK's Linux epoll based
+ * {@link SelectorProvider} (<tt>sun.nio.ch.EPollSelectorProvider</tt>) is
+ * the default {@link SelectorProvider} in the current environment.
+ *
+ * Please note, this module doesn't provide a native epoll binding, it relies
+ * on the JDK {@link SelectorProvider}, which is epoll based on Linux by default.
+ * If the default provider is not epoll based (non-Linux OS, other JVM or
+ * the provider is overridden using the <tt>java.nio.channels.spi.SelectorProvider</tt>
+ * system property) - {@link EpollTransportBuilder} uses
+ * the default {@link SelectorProvider} as it is.
+ *
+ * @since 2.3.18
+ */
+public final class Epoll {
+    private static final Logger LOGGER = Grizzly.logger(Epoll.class);
+
+    private static final String EPOLL_SELECTOR_PROVIDER_CLASS =
+            "sun.nio.ch.EPollSelectorProvider";
+
+    private static final SelectorProvider PROVIDER;
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static {
+        SelectorProvider provider = null;
+        Throwable cause = null;
+
+        if (System.getProperty("os.name").equalsIgnoreCase("linux")) {
+            final SelectorProvider defaultProvider = SelectorProvider.provider();
+            if (EPOLL_SELECTOR_PROVIDER_CLASS.equals(
+                    defaultProvider.getClass().getName())) {
+                provider = defaultProvider;
+            } else {
+                cause = new UnsupportedOperationException(
+                        "the default SelectorProvider is not epoll based: "
+                        + defaultProvider.getClass().getName());
+            }
+        } else {
+            cause = new UnsupportedOperationException(
+                    "epoll is not supported by " + System.getProperty("os.name"));
+        }
+
+        if (cause != null && LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "epoll SelectorProvider is not available", cause);
+        }
+
+        PROVIDER = provider;
+        UNAVAILABILITY_CAUSE = cause;
+    }
+
+    private Epoll() {
+    }
+
+    /**
+     * Returns <tt>true</tt> if the default {@link SelectorProvider}
+     * is epoll based, or <tt>false</tt> otherwise.
+     */
+    public static boolean isAvailable() {
+        return PROVIDER != null;
+    }
+
+    /**
+     * Returns the cause, why the epoll based {@link SelectorProvider} is not
+     * available, or <tt>null</tt> if it is available.
+     */
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    /**
+     * Returns the epoll based {@link SelectorProvider}, or <tt>null</tt>
+     * if it is not available.
+     */
+    static SelectorProvider selectorProvider() {
+        return PROVIDER;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.epoll;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.nio.DefaultSelectorHandler;
+import org.glassfish.grizzly.nio.SelectorRunner;
+
+/**
+ * {@link org.glassfish.grizzly.nio.SelectorHandler} implementation, which
+ * replaces the JDK {@link Selector}'s selected keys {@link java.util.HashSet}
+ * with the array based {@link SelectedSelectionKeySet}, so processing
+ * the selected keys doesn't produce garbage per event.
+ *
+ * If the {@link Selector} internals can't be accessed (non-OpenJDK {@link Selector}
+ * implementation or restricted reflective access) - the handler behaves
+ * exactly like {@link DefaultSelectorHandler} and a warning is logged once.
+ * On JDK 9+ the <tt>sun.nio.ch</tt> package has to be opened to Grizzly:
+ * <pre>
+ * --add-opens java.base/sun.nio.ch=ALL-UNNAMED
+ * </pre>
+ *
+ * @since 2.3.18
+ */
+public class EpollSelectorHandler extends DefaultSelectorHandler {
+    private static final Logger LOGGER = Grizzly.logger(EpollSelectorHandler.class);
+
+    // the fallback is logged once per JVM, not per handler or Selector
+    private static final AtomicBoolean IS_FALLBACK_LOGGED = new AtomicBoolean();
+
+    private static final Class<?> SELECTOR_IMPL_CLASS;
+    private static final Field SELECTED_KEYS_FIELD;
+    private static final Field PUBLIC_SELECTED_KEYS_FIELD;
+
+    static {
+        Class<?> selectorImplClass = null;
+        Field selectedKeysField = null;
+        Field publicSelectedKeysField = null;
+
+        try {
+            selectorImplClass = Class.forName("sun.nio.ch.SelectorImpl");
+            selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+            publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+        } catch (Throwable t) {
+            logFallback(t);
+            selectorImplClass = null;
+            selectedKeysField = null;
+            publicSelectedKeysField = null;
+        }
+
+        SELECTOR_IMPL_CLASS = selectorImplClass;
+        SELECTED_KEYS_FIELD = selectedKeysField;
+        PUBLIC_SELECTED_KEYS_FIELD = publicSelectedKeysField;
+    }
+
+    private volatile boolean isSelectedKeysReplaceable =
+            SELECTOR_IMPL_CLASS != null;
+
+    public EpollSelectorHandler() {
+        super();
+    }
+
+    public EpollSelectorHandler(final long selectTimeout, final TimeUnit timeunit) {
+        super(selectTimeout, timeunit);
+    }
+
+    /**
+     * Returns <tt>true</tt> if the {@link Selector}s' selected keys are
+     * replaced with the array based {@link Set}, or <tt>false</tt> if the
+     * handler falls back to the {@link DefaultSelectorHandler} behavior.
+     */
+    public boolean isSelectedKeysReplaceable() {
+        return isSelectedKeysReplaceable;
+    }
+
+    @Override
+    public Set<SelectionKey> select(final SelectorRunner selectorRunner)
+            throws IOException {
+        if (isSelectedKeysReplaceable) {
+            final Selector selector = selectorRunner.getSelector();
+
+            // the Selector might have been replaced by the spin workaround
+            if (!(selector.selectedKeys() instanceof SelectedSelectionKeySet)) {
+                replaceSelectedKeys(selector);
+            }
+        }
+
+        return super.select(selectorRunner);
+    }
+
+    private void replaceSelectedKeys(final Selector selector) {
+        if (!SELECTOR_IMPL_CLASS.isInstance(selector)) {
+            isSelectedKeysReplaceable = false;
+            return;
+        }
+
+        final SelectedSelectionKeySet selectedKeys = new SelectedSelectionKeySet();
+        Object oldSelectedKeys = null;
+        Object oldPublicSelectedKeys = null;
+        try {
+            oldSelectedKeys = SELECTED_KEYS_FIELD.get(selector);
+            oldPublicSelectedKeys = PUBLIC_SELECTED_KEYS_FIELD.get(selector);
+            SELECTED_KEYS_FIELD.set(selector, selectedKeys);
+            PUBLIC_SELECTED_KEYS_FIELD.set(selector, selectedKeys);
+        } catch (Exception e) {
+            logFallback(e);
+            isSelectedKeysReplaceable = false;
+
+            // both fields have to point to the same Set, restore the original ones
+            try {
+                if (oldSelectedKeys != null) {
+                    SELECTED_KEYS_FIELD.set(selector, oldSelectedKeys);
+                }
+                if (oldPublicSelectedKeys != null) {
+                    PUBLIC_SELECTED_KEYS_FIELD.set(selector, oldPublicSelectedKeys);
+                }
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private static void logFallback(final Throwable cause) {
+        if (IS_FALLBACK_LOGGED.compareAndSet(false, true)) {
+            LOGGER.log(Level.WARNING,
+                    LogMessages.WARNING_GRIZZLY_EPOLL_SELECTEDKEYS_UNAVAILABLE(),
+                    cause);
+        } else if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Can not replace Selector's selected keys", cause);
+        }
+    }
+}
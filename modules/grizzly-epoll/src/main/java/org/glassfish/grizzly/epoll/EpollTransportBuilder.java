@@ -0,0 +1,96 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.epoll;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+
+/**
+ * {@link TCPNIOTransportBuilder}, which creates {@link TCPNIOTransport}s
+ * tuned for the JDK's Linux epoll {@link java.nio.channels.spi.SelectorProvider}.
+ *
+ * The created transport is a regular NIO {@link TCPNIOTransport} (it is not
+ * a native epoll transport), which uses {@link EpollSelectorHandler} to
+ * process the selected keys without producing garbage, so the existing
+ * {@link org.glassfish.grizzly.filterchain.FilterChain}s run on it unchanged.
+ *
+ * If the default {@link java.nio.channels.spi.SelectorProvider} is not epoll
+ * based (see {@link Epoll#isAvailable()}) the builder creates a transport
+ * with the default settings.
+ *
+ * Example usage:
+ * <pre>
+ *     TCPNIOTransport transport = EpollTransportBuilder.newInstance().build();
+ * </pre>
+ *
+ * @since 2.3.18
+ */
+public class EpollTransportBuilder extends TCPNIOTransportBuilder {
+    private static final Logger LOGGER = Grizzly.logger(EpollTransportBuilder.class);
+
+    // ------------------------------------------------------------ Constructors
+
+
+    protected EpollTransportBuilder(Class<? extends TCPNIOTransport> transportClass) {
+        super(transportClass);
+
+        if (Epoll.isAvailable()) {
+            selectorProvider = Epoll.selectorProvider();
+            selectorHandler = new EpollSelectorHandler();
+        } else {
+            LOGGER.log(Level.WARNING,
+                    LogMessages.WARNING_GRIZZLY_EPOLL_UNAVAILABLE(),
+                    Epoll.unavailabilityCause());
+        }
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    public static EpollTransportBuilder newInstance() {
+        return new EpollTransportBuilder(TCPNIOTransport.class);
+    }
+}
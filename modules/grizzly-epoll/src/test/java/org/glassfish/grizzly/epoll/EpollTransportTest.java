@@ -0,0 +1,203 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.epoll;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.SocketConnectorHandler;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.utils.EchoFilter;
+import org.glassfish.grizzly.utils.JdkVersion;
+import org.glassfish.grizzly.utils.StringFilter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link EpollTransportBuilder} and {@link EpollSelectorHandler}.
+ */
+public class EpollTransportTest {
+    public static final int PORT = 17410;
+    public static final Charset CHARSET = Charset.forName("UTF-8");
+
+    @Test
+    public void testEcho() throws Exception {
+        final TCPNIOTransport transport = EpollTransportBuilder.newInstance().build();
+        if (Epoll.isAvailable()) {
+            assertSame(Epoll.selectorProvider(), transport.getSelectorProvider());
+            assertTrue(transport.getSelectorHandler() instanceof EpollSelectorHandler);
+        }
+
+        transport.setProcessor(FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new StringFilter(CHARSET))
+                .add(new EchoFilter())
+                .build());
+
+        Connection<?> connection = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final BlockingQueue<String> resultQueue =
+                    new LinkedBlockingQueue<String>();
+            final FilterChain clientFilterChain = FilterChainBuilder.stateless()
+                    .add(new TransportFilter())
+                    .add(new StringFilter(CHARSET))
+                    .add(new BaseFilter() {
+                        @Override
+                        public NextAction handleRead(final FilterChainContext ctx)
+                                throws IOException {
+                            resultQueue.add((String) ctx.getMessage());
+                            return ctx.getStopAction();
+                        }
+                    })
+                    .build();
+
+            final SocketConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .processor(clientFilterChain)
+                    .build();
+
+            final Future<Connection> future =
+                    connectorHandler.connect("localhost", PORT);
+            connection = future.get(10, TimeUnit.SECONDS);
+            assertTrue(connection != null);
+
+            for (int i = 0; i < 100; i++) {
+                final String message = "Hello " + i;
+                connection.write(message);
+                assertEquals(message, resultQueue.poll(10, TimeUnit.SECONDS));
+            }
+
+            if (Epoll.isAvailable()
+                    && JdkVersion.getJdkVersion().compareTo("1.9.0") < 0) {
+                // JDK 9+ may restrict the reflective access to the Selector internals
+                assertTrue(((EpollSelectorHandler) transport.getSelectorHandler())
+                        .isSelectedKeysReplaceable());
+            }
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSelectedSelectionKeySet() throws Exception {
+        final SelectedSelectionKeySet set = new SelectedSelectionKeySet();
+        final SelectionKey[] keys = new SelectionKey[2048];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new TestSelectionKey();
+            assertTrue(set.add(keys[i]));
+        }
+
+        assertEquals(keys.length, set.size());
+        assertFalse(set.add(null));
+
+        assertTrue(set.remove(keys[10]));
+        assertFalse(set.remove(keys[10]));
+        assertEquals(keys.length - 1, set.size());
+
+        final Iterator<SelectionKey> it = set.iterator();
+        for (int i = 0; i < keys.length; i++) {
+            if (i != 10) {
+                assertSame(keys[i], it.next());
+            }
+        }
+        assertFalse(it.hasNext());
+
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    private static final class TestSelectionKey extends SelectionKey {
+        @Override
+        public java.nio.channels.SelectableChannel channel() {
+            return null;
+        }
+
+        @Override
+        public java.nio.channels.Selector selector() {
+            return null;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public int interestOps() {
+            return 0;
+        }
+
+        @Override
+        public SelectionKey interestOps(final int ops) {
+            return this;
+        }
+
+        @Override
+        public int readyOps() {
+            return 0;
+        }
+    }
+}
@@ -647,6 +647,31 @@ public abstract class AbstractTransport implements Transport {
             }
         }
     }
+
+    /**
+     * Notify registered {@link TransportProbe}s about the read buffer size
+     * changed event.
+     *
+     * @param transport the <tt>Transport</tt> event occurred on.
+     * @param connection the <tt>Connection</tt> the read buffer size was changed for.
+     * @param readBufferSize the new read buffer size.
+     *
+     * @since 2.3.18
+     */
+    protected static void notifyProbesReadBufferSizeChanged(
+            final AbstractTransport transport, final Connection connection,
+            final int readBufferSize) {
+        final TransportProbe[] probes =
+                transport.transportMonitoringConfig.getProbesUnsafe();
+        if (probes != null) {
+            for (TransportProbe probe : probes) {
+                if (probe instanceof TransportProbe.Ext) {
+                    ((TransportProbe.Ext) probe).onReadBufferSizeChangeEvent(
+                            transport, connection, readBufferSize);
+                }
+            }
+        }
+    }
     
     /**
      * {@inheritDoc}
@@ -46,6 +46,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 
@@ -152,6 +153,40 @@ public class FileTransfer implements WritableMessage {
     }
     
     
+    /**
+     * Reads the content of the File backing this <code>FileTransfer</code>
+     * into the specified {@link ByteBuffer}, starting at the current transfer
+     * position. The transfer position advances by the number of bytes read.
+     * This method may be used by the layers, which can't pass the File
+     * content to the channel directly, for example when the content has to
+     * be encrypted.
+     *
+     * @param dst the {@link ByteBuffer}
+     * @return the number of bytes read, or <code>-1</code> if the end of
+     *  the File has been reached
+     * @throws IOException
+     *
+     * @since 2.3.18
+     */
+    public int readTo(final ByteBuffer dst) throws IOException {
+        final int oldLimit = dst.limit();
+        if (dst.remaining() > len) {
+            dst.limit(dst.position() + (int) len);
+        }
+        
+        try {
+            final int read = fileChannel.read(dst, pos);
+            if (read > 0) {
+                pos += read;
+                len -= read;
+            }
+            
+            return read;
+        } finally {
+            dst.limit(oldLimit);
+        }
+    }
+
     // ------------------------------------------ Methods from WritableMessage
 
 
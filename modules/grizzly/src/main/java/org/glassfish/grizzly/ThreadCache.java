@@ -41,11 +41,17 @@
 package org.glassfish.grizzly;
 
 import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * The per-thread cache of the objects, which are expensive to create.
+ *
+ * Virtual threads (see {@link VirtualThreads}) are not cached,
+ * because a virtual thread normally runs a single task, so the objects
+ * cached on it would never be reused.
  *
  * @author oleksiys
  */
@@ -87,6 +93,8 @@ public final class ThreadCache {
             final CachedTypeIndex<E> index, final E o) {
         if (currentThread instanceof DefaultWorkerThread) {
             return ((DefaultWorkerThread) currentThread).putToCache(index, o);
+        } else if (VirtualThreads.isVirtual(currentThread)) {
+            return false;
         } else {
             ObjectCache genericCache = genericCacheAttr.get();
             if (genericCache == null) {
@@ -127,6 +135,8 @@ public final class ThreadCache {
         
         if (currentThread instanceof DefaultWorkerThread) {
             return ((DefaultWorkerThread) currentThread).getFromCache(index);
+        } else if (VirtualThreads.isVirtual(currentThread)) {
+            return null;
         } else {
             final ObjectCache genericCache = genericCacheAttr.get();
             if (genericCache != null) {
@@ -164,6 +174,8 @@ public final class ThreadCache {
             final CachedTypeIndex<E> index) {
         if (currentThread instanceof DefaultWorkerThread) {
             return ((DefaultWorkerThread) currentThread).takeFromCache(index);
+        } else if (VirtualThreads.isVirtual(currentThread)) {
+            return null;
         } else {
             final ObjectCache genericCache = genericCacheAttr.get();
             if (genericCache != null) {
@@ -132,6 +132,43 @@ public interface TransportProbe {
 
     // ---------------------------------------------------------- Nested Classes
 
+    /**
+     * The {@link TransportProbe} extension, which is notified about the
+     * events introduced after the {@link TransportProbe} interface was
+     * published. The {@link Transport} checks if a registered probe
+     * implements this interface before notifying it about these events.
+     *
+     * @since 2.3.18
+     */
+    public interface Ext extends TransportProbe {
+
+        /**
+         * Method will be called, when the adaptive read buffer sizing
+         * changes the size of the buffers allocated to read the
+         * {@link Connection}'s data.
+         *
+         * @param transport {@link Transport}, the event belongs to.
+         * @param connection {@link Connection}, the read buffer size was changed for.
+         * @param readBufferSize the new read buffer size.
+         */
+        void onReadBufferSizeChangeEvent(Transport transport,
+                Connection connection, int readBufferSize);
+
+        /**
+         * Method will be called, when the adaptive {@link IOStrategy}
+         * (see {@link org.glassfish.grizzly.strategies.AdaptiveIOStrategy})
+         * changes the way the {@link Processor}'s {@link IOEvent}s are dispatched.
+         *
+         * @param transport {@link Transport}, the event belongs to.
+         * @param processor {@link Processor}, the dispatch mode was changed for.
+         * @param isWorkerThread <tt>true</tt>, if the {@link Processor}'s
+         *          {@link IOEvent}s will be processed in a worker thread, or
+         *          <tt>false</tt>, if they will be processed in the selector thread.
+         */
+        void onDispatchModeChangeEvent(Transport transport, Processor processor,
+                boolean isWorkerThread);
+    }
+
     /**
      * {@link TransportProbe} adapter that provides no-op implementations for
      * all interface methods allowing easy extension by the developer.
@@ -139,10 +176,10 @@ public interface TransportProbe {
      * @since 2.1.9
      */
     @SuppressWarnings("UnusedDeclaration")
-    public class Adapter implements TransportProbe {
+    public class Adapter implements Ext {
 
 
-        // ----------------------------------------- Methods from TransportProbe
+        // ------------------------------------ Methods from TransportProbe.Ext
 
 
         /**
@@ -199,6 +236,20 @@ public interface TransportProbe {
         @Override
         public void onConfigChangeEvent(Transport transport) {}
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onReadBufferSizeChangeEvent(Transport transport,
+                Connection connection, int readBufferSize) {}
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDispatchModeChangeEvent(Transport transport,
+                Processor processor, boolean isWorkerThread) {}
+
         /**
          * {@inheritDoc}
          */
@@ -0,0 +1,164 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.attributes;
+
+import org.glassfish.grizzly.utils.NullaryFunction;
+
+/**
+ * {@link AttributeBuilder}, which creates {@link LockFreeAttributeHolder}s as
+ * thread-safe {@link AttributeHolder}s.
+ *
+ * Once the builder's attribute layout is frozen, either explicitly via
+ * {@link #freezeLayout()}, or automatically after
+ * {@link #FREEZE_THRESHOLD} {@link AttributeHolder}s have been created
+ * without any new {@link Attribute} being registered, new
+ * {@link LockFreeAttributeHolder}s are pre-sized to store all the registered
+ * {@link Attribute}s, so they never have to be grown.
+ * {@link Attribute}s could still be registered after the layout is frozen,
+ * in which case the size of new holders is adjusted.
+ *
+ * The builder could be enabled as {@link AttributeBuilder#DEFAULT_ATTRIBUTE_BUILDER}
+ * by setting <tt>org.glassfish.grizzly.DEFAULT_ATTRIBUTE_BUILDER</tt>
+ * system property to
+ * <tt>org.glassfish.grizzly.attributes.LockFreeAttributeBuilder</tt>.
+ *
+ * @since 2.3.18
+ */
+public class LockFreeAttributeBuilder extends DefaultAttributeBuilder {
+    
+    /**
+     * The number of {@link AttributeHolder}s to be created without any new
+     * {@link Attribute} being registered, after which the layout gets frozen.
+     */
+    public static final int FREEZE_THRESHOLD = 1024;
+    
+    private static final int DEFAULT_INITIAL_CAPACITY = 4;
+    
+    // the number of holders a thread creates before adding them to
+    // stableHoldersCount
+    private static final int HOLDERS_COUNT_BATCH = 64;
+    
+    // the number of registered attributes
+    private volatile int attributesCount;
+    // the number of holders created since the last attribute registration
+    private volatile int stableHoldersCount;
+    // the number of holders created by the current thread, which haven't
+    // been added to stableHoldersCount yet
+    private final ThreadLocal<int[]> localHoldersCount = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+    
+    private volatile boolean isLayoutFrozen;
+
+    /**
+     * Freezes the attribute layout, so new {@link LockFreeAttributeHolder}s
+     * get pre-sized to store all the registered {@link Attribute}s.
+     */
+    public void freezeLayout() {
+        isLayoutFrozen = true;
+    }
+
+    /**
+     * Returns <tt>true</tt>, if the attribute layout is frozen,
+     * or <tt>false</tt> otherwise.
+     */
+    public boolean isLayoutFrozen() {
+        return isLayoutFrozen;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized <T> Attribute<T> createAttribute(final String name,
+            final T defaultValue) {
+        final Attribute<T> attribute = super.createAttribute(name, defaultValue);
+        onAttributeCreated();
+        return attribute;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized <T> Attribute<T> createAttribute(final String name,
+            final NullaryFunction<T> initializer) {
+        final Attribute<T> attribute = super.createAttribute(name, initializer);
+        onAttributeCreated();
+        return attribute;
+    }
+
+    /**
+     * Creates {@link LockFreeAttributeHolder}.
+     */
+    @Override
+    public AttributeHolder createSafeAttributeHolder() {
+        if (isLayoutFrozen) {
+            return new LockFreeAttributeHolder(this, attributesCount);
+        }
+        
+        // the shared count is updated once per batch of holders created by
+        // the thread; it might be updated concurrently, it's just a hint
+        final int[] localCount = localHoldersCount.get();
+        if (++localCount[0] == HOLDERS_COUNT_BATCH) {
+            localCount[0] = 0;
+            
+            final int count = stableHoldersCount + HOLDERS_COUNT_BATCH;
+            stableHoldersCount = count;
+            if (count >= FREEZE_THRESHOLD) {
+                isLayoutFrozen = true;
+            }
+        }
+        
+        return new LockFreeAttributeHolder(this, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    private void onAttributeCreated() {
+        final int size = attributes.size();
+        if (size != attributesCount) {
+            attributesCount = size;
+            stableHoldersCount = 0;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.attributes;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.glassfish.grizzly.utils.NullaryFunction;
+
+/**
+ * Thread-safe {@link AttributeHolder}, which stores the {@link Attribute}
+ * values in a flat array indexed by {@link Attribute#index()}.
+ *
+ * Unlike {@link IndexedAttributeHolder}, the values are read and written
+ * without locking and without copying the holder state: each value is set
+ * using a compare-and-set operation on the array element.
+ * Once an {@link Attribute} with an index beyond the array length is set,
+ * the array is grown: the thread, which wins the resize CAS, moves
+ * the values to the new array, other threads, accessing the holder
+ * meanwhile, wait for the new array to be published.
+ *
+ * Please note, the {@link NullaryFunction} initializer, passed to
+ * {@link IndexedAttributeAccessor#getAttribute(int, org.glassfish.grizzly.utils.NullaryFunction)},
+ * might be called by several threads in parallel, but only one of the
+ * evaluated values gets stored and returned.
+ *
+ * @see LockFreeAttributeBuilder
+ * 
+ * @since 2.3.18
+ */
+public final class LockFreeAttributeHolder implements AttributeHolder {
+    
+    // the marker of the array element, which has been moved to the new array
+    private static final Object MOVED = new Object();
+    
+    private static final AtomicIntegerFieldUpdater<LockFreeAttributeHolder> RESIZING_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(LockFreeAttributeHolder.class, "resizing");
+    
+    private final DefaultAttributeBuilder attributeBuilder;
+    private final IndexedAttributeAccessor indexedAttributeAccessor =
+            new IndexedAttributeAccessorImpl();
+    
+    private volatile AtomicReferenceArray<Object> values;
+    
+    @SuppressWarnings("UnusedDeclaration")
+    private volatile int resizing;
+
+    LockFreeAttributeHolder(final DefaultAttributeBuilder attributeBuilder,
+            final int initialCapacity) {
+        this.attributeBuilder = attributeBuilder;
+        values = new AtomicReferenceArray<Object>(Math.max(1, initialCapacity));
+    }
+
+    /**
+     * Returns the current length of the values array.
+     */
+    int capacity() {
+        return values.length();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getAttribute(final String name) {
+        return getAttribute(name, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getAttribute(final String name,
+            final NullaryFunction initializer) {
+        final Attribute attribute = attributeBuilder.getAttributeByName(name);
+        if (attribute != null) {
+            return indexedAttributeAccessor.getAttribute(
+                    attribute.index(), initializer);
+        }
+        
+        return initializer != null ? initializer.evaluate() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAttribute(final String name, final Object value) {
+        Attribute attribute = attributeBuilder.getAttributeByName(name);
+        if (attribute == null) {
+            attribute = attributeBuilder.createAttribute(name);
+        }
+
+        indexedAttributeAccessor.setAttribute(attribute.index(), value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object removeAttribute(final String name) {
+        final Attribute attribute = attributeBuilder.getAttributeByName(name);
+        if (attribute != null) {
+            return indexedAttributeAccessor.removeAttribute(attribute.index());
+        }
+        
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getAttributeNames() {
+        Set<String> result = null;
+        
+        final int length = values.length();
+        for (int i = 0; i < length; i++) {
+            if (get(i) != null) {
+                if (result == null) {
+                    result = new HashSet<String>();
+                }
+                
+                result.add(attributeBuilder.getAttributeByIndex(i).name());
+            }
+        }
+        
+        return result != null ? result : Collections.<String>emptySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void copyFrom(final AttributeHolder srcAttributes) {
+        if (srcAttributes == null) {
+            throw new NullPointerException("srcAttributes can't be null");
+        }
+        
+        if (srcAttributes instanceof LockFreeAttributeHolder) {
+            final LockFreeAttributeHolder src =
+                    (LockFreeAttributeHolder) srcAttributes;
+            
+            final int length = Math.max(values.length(), src.values.length());
+            for (int i = 0; i < length; i++) {
+                set(i, src.get(i));
+            }
+        } else {
+            clear();
+
+            for (String name : srcAttributes.getAttributeNames()) {
+                setAttribute(name, srcAttributes.getAttribute(name));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void copyTo(final AttributeHolder dstAttributes) {
+        if (dstAttributes == null) {
+            throw new NullPointerException("dstAttributes can't be null");
+        }
+        
+        if (dstAttributes instanceof LockFreeAttributeHolder) {
+            dstAttributes.copyFrom(this);
+        } else {
+            dstAttributes.clear();
+            
+            final int length = values.length();
+            for (int i = 0; i < length; i++) {
+                final Object value = get(i);
+                if (value != null) {
+                    dstAttributes.setAttribute(
+                            attributeBuilder.getAttributeByIndex(i).name(), value);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recycle() {
+        clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        final int length = values.length();
+        for (int i = 0; i < length; i++) {
+            set(i, null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AttributeBuilder getAttributeBuilder() {
+        return attributeBuilder;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IndexedAttributeAccessor getIndexedAttributeAccessor() {
+        return indexedAttributeAccessor;
+    }
+
+    private Object get(final int index) {
+        AtomicReferenceArray<Object> array = values;
+        
+        while (true) {
+            if (index >= array.length()) {
+                return null;
+            }
+            
+            final Object value = array.get(index);
+            if (value != MOVED) {
+                return value;
+            }
+            
+            array = awaitResize(array);
+        }
+    }
+    
+    /**
+     * Sets the value, if the current value is equal to <tt>expectedValue</tt>,
+     * or <tt>expectedValue</tt> is {@link #MOVED}.
+     * Returns the value, which was set before the operation.
+     */
+    private Object compareAndSet(final int index, final Object expectedValue,
+            final Object value) {
+        AtomicReferenceArray<Object> array = values;
+        
+        while (true) {
+            if (index >= array.length()) {
+                if (value == null) {
+                    return null;
+                }
+                
+                array = grow(array, index + 1);
+                continue;
+            }
+            
+            final Object currentValue = array.get(index);
+            if (currentValue == MOVED) {
+                array = awaitResize(array);
+                continue;
+            }
+            
+            if (expectedValue != MOVED && currentValue != expectedValue) {
+                return currentValue;
+            }
+            
+            if (array.compareAndSet(index, currentValue, value)) {
+                return currentValue;
+            }
+        }
+    }
+    
+    private Object set(final int index, final Object value) {
+        return compareAndSet(index, MOVED, value);
+    }
+    
+    /**
+     * Grows the values array, so it's able to store at least
+     * <tt>minCapacity</tt> values and returns the new array.
+     */
+    private AtomicReferenceArray<Object> grow(
+            final AtomicReferenceArray<Object> array, final int minCapacity) {
+        
+        while (values == array) {
+            if (RESIZING_UPDATER.compareAndSet(this, 0, 1)) {
+                try {
+                    if (values == array) {
+                        final int length = array.length();
+                        final AtomicReferenceArray<Object> newArray =
+                                new AtomicReferenceArray<Object>(
+                                        Math.max(minCapacity, (length * 3) / 2 + 1));
+                        
+                        for (int i = 0; i < length; i++) {
+                            newArray.lazySet(i, array.getAndSet(i, MOVED));
+                        }
+                        
+                        values = newArray;
+                    }
+                } finally {
+                    resizing = 0;
+                }
+            } else {
+                Thread.yield();
+            }
+        }
+        
+        return values;
+    }
+
+    /**
+     * Waits until the values are moved from the array to the new one
+     * and returns the new array.
+     */
+    private AtomicReferenceArray<Object> awaitResize(
+            final AtomicReferenceArray<Object> array) {
+        AtomicReferenceArray<Object> newArray;
+        while ((newArray = values) == array) {
+            Thread.yield();
+        }
+        
+        return newArray;
+    }
+    
+    /**
+     * {@link IndexedAttributeAccessor} implementation.
+     */
+    private final class IndexedAttributeAccessorImpl implements IndexedAttributeAccessor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object getAttribute(final int index) {
+            return get(index);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object getAttribute(final int index,
+                final NullaryFunction initializer) {
+            final Object value = get(index);
+            if (value != null || initializer == null) {
+                return value;
+            }
+            
+            final Object newValue = initializer.evaluate();
+            if (newValue == null) {
+                return null;
+            }
+            
+            final Object currentValue = compareAndSet(index, null, newValue);
+            return currentValue != null ? currentValue : newValue;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setAttribute(final int index, final Object value) {
+            set(index, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object removeAttribute(final int index) {
+            return set(index, null);
+        }
+    }
+}
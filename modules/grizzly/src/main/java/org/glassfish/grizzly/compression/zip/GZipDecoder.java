@@ -110,6 +110,19 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
         return new GZipInputState();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(final AttributeStorage storage) {
+        final GZipInputState state = (GZipInputState) stateAttr.get(storage);
+        if (state != null) {
+            state.releaseInflater();
+        }
+        
+        super.release(storage);
+    }
+
     @Override
     protected TransformationResult<Buffer, Buffer> transformImpl(
             AttributeStorage storage, Buffer input) throws TransformationException {
@@ -135,6 +148,7 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
             if (decodeTrailer(input, state)) {
                 state.setDecodeStatus(DecodeStatus.DONE);
                 state.setInitialized(false);
+                state.releaseInflater();
             }
         }
 
@@ -233,16 +247,16 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
     private boolean initializeInput(final Buffer buffer,
             final GZipInputState state) {
 
-        Inflater inflater = state.getInflater();
-        if (inflater == null) {
-            inflater = new Inflater(true);
+        if (state.getInflater() == null) {
+            state.setInflater(ZipCodecPool.takeInflater());
+        }
+        
+        if (state.getCrc32() == null) {
             final CRC32 crc32 = new CRC32();
             crc32.reset();
-            state.setInflater(inflater);
             state.setCrc32(crc32);
         } else if (state.getDecodeStatus() == DecodeStatus.DONE) {
             state.setDecodeStatus(DecodeStatus.INITIAL);
-            inflater.reset();
             state.getCrc32().reset();
         }
         if (!parseHeader(buffer, state)) {
@@ -457,6 +471,16 @@ public class GZipDecoder extends AbstractTransformer<Buffer, Buffer> {
             this.inflater = inflater;
         }
 
+        /**
+         * Returns the {@link Inflater} to the {@link ZipCodecPool}.
+         */
+        void releaseInflater() {
+            if (inflater != null) {
+                ZipCodecPool.releaseInflater(inflater);
+                inflater = null;
+            }
+        }
+
         public CRC32 getCrc32() {
             return crc32;
         }
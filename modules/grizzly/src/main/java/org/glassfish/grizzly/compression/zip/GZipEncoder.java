@@ -202,6 +202,44 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         return resultBuffer;
     }
     
+    /**
+     * Sets the compression level to be used for the stream associated with
+     * the given {@link AttributeStorage}. The level is applied only if the
+     * stream compression hasn't been started yet, otherwise the call is
+     * ignored. Once the stream is finished, the level is reset to
+     * {@link Deflater#DEFAULT_COMPRESSION}.
+     * 
+     * @param storage {@link AttributeStorage}
+     * @param level the compression level (0-9) or
+     *        {@link Deflater#DEFAULT_COMPRESSION}
+     * 
+     * @since 2.3.18
+     */
+    public void setCompressionLevel(final AttributeStorage storage,
+            final int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        
+        final GZipOutputState state = (GZipOutputState) obtainStateObject(storage);
+        if (!state.isInitialized) {
+            state.compressionLevel = level;
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(final AttributeStorage storage) {
+        final GZipOutputState state = (GZipOutputState) stateAttr.get(storage);
+        if (state != null) {
+            state.reset();
+        }
+        
+        super.release(storage);
+    }
+    
     private Buffer getHeader() {
         final Buffer headerToWrite = header.duplicate();
         headerToWrite.allowBufferDispose(false);
@@ -309,6 +347,8 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         private boolean isInitialized;
         private boolean isHeaderWritten;
         
+        private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        
         /**
          * CRC-32 of uncompressed data.
          */
@@ -320,7 +360,8 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         private Deflater deflater;
 
         private void initialize() {
-            final Deflater newDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            final Deflater newDeflater =
+                    ZipCodecPool.takeDeflater(compressionLevel);
             final CRC32 newCrc32 = new CRC32();
             newCrc32.reset();
             deflater = newDeflater;
@@ -331,9 +372,13 @@ public class GZipEncoder extends AbstractTransformer<Buffer, Buffer> {
         private void reset() {
             isInitialized = false;
             isHeaderWritten = false;
+            compressionLevel = Deflater.DEFAULT_COMPRESSION;
             
             crc32 = null;
-            deflater = null;
+            if (deflater != null) {
+                ZipCodecPool.releaseDeflater(deflater);
+                deflater = null;
+            }
         }
     }
 }
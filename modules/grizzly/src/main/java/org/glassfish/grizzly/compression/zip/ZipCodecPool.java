@@ -0,0 +1,239 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.compression.zip;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.glassfish.grizzly.ThreadCache;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
+import org.glassfish.grizzly.utils.StripedLongCounter;
+
+/**
+ * Per-thread cache of {@link Deflater} and {@link Inflater} instances, which
+ * operate on raw deflate data (<tt>nowrap</tt> mode), shared by the GZIP
+ * {@link org.glassfish.grizzly.Transformer}s.
+ * Each {@link Deflater}/{@link Inflater} holds native zlib memory, which
+ * is released either explicitly by <tt>end()</tt> or by the finalizer, so
+ * reusing the instances reduces both native memory usage and finalizer
+ * pressure, when lots of short compressed streams are processed.
+ * 
+ * The number of instances cached per thread is bounded by the
+ * <tt>org.glassfish.grizzly.compression.zip.ZipCodecPool.size</tt> system
+ * property (default is 4). The instances, which don't fit the cache, are
+ * ended immediately.
+ * 
+ * Virtual threads don't have the thread-local cache (see {@link ThreadCache}),
+ * so they share a pool of the same size per CPU.
+ *
+ * @since 2.3.18
+ */
+public final class ZipCodecPool {
+    private static final int DEFAULT_SIZE = 4;
+    
+    private static final int SIZE = Integer.getInteger(
+            ZipCodecPool.class.getName() + ".size", DEFAULT_SIZE);
+    
+    private static final ThreadCache.CachedTypeIndex<Deflater> DEFLATER_CACHE_IDX =
+            ThreadCache.obtainIndex(ZipCodecPool.class.getName() + ".deflater",
+            Deflater.class, SIZE);
+    
+    private static final ThreadCache.CachedTypeIndex<Inflater> INFLATER_CACHE_IDX =
+            ThreadCache.obtainIndex(ZipCodecPool.class.getName() + ".inflater",
+            Inflater.class, SIZE);
+    
+    private static final SharedPool<Deflater> SHARED_DEFLATERS =
+            new SharedPool<Deflater>();
+    private static final SharedPool<Inflater> SHARED_INFLATERS =
+            new SharedPool<Inflater>();
+    
+    private static final StripedLongCounter DEFLATER_HITS = new StripedLongCounter();
+    private static final StripedLongCounter DEFLATER_MISSES = new StripedLongCounter();
+    private static final StripedLongCounter INFLATER_HITS = new StripedLongCounter();
+    private static final StripedLongCounter INFLATER_MISSES = new StripedLongCounter();
+    
+    private ZipCodecPool() {
+    }
+    
+    /**
+     * Returns the {@link Deflater} with the given compression level, which
+     * produces raw deflate data. The {@link Deflater} is taken from
+     * the current thread's cache, if possible, or created otherwise.
+     * 
+     * @param level the compression level (0-9)
+     * @return the {@link Deflater}
+     */
+    public static Deflater takeDeflater(final int level) {
+        final Thread currentThread = Thread.currentThread();
+        final Deflater deflater = VirtualThreads.isVirtual(currentThread)
+                ? SHARED_DEFLATERS.take()
+                : ThreadCache.takeFromCache(currentThread, DEFLATER_CACHE_IDX);
+        if (deflater != null) {
+            DEFLATER_HITS.increment();
+            deflater.setLevel(level);
+            return deflater;
+        }
+        
+        DEFLATER_MISSES.increment();
+        return new Deflater(level, true);
+    }
+    
+    /**
+     * Resets the {@link Deflater} and returns it to the current thread's
+     * cache. If the cache is full - the {@link Deflater} is ended.
+     * 
+     * @param deflater the {@link Deflater} obtained by {@link #takeDeflater(int)}
+     */
+    public static void releaseDeflater(final Deflater deflater) {
+        deflater.reset();
+        
+        final Thread currentThread = Thread.currentThread();
+        final boolean isCached = VirtualThreads.isVirtual(currentThread)
+                ? SHARED_DEFLATERS.offer(deflater)
+                : ThreadCache.putToCache(currentThread, DEFLATER_CACHE_IDX, deflater);
+        if (!isCached) {
+            deflater.end();
+        }
+    }
+    
+    /**
+     * Returns the {@link Inflater}, which expects raw deflate data.
+     * The {@link Inflater} is taken from the current thread's cache,
+     * if possible, or created otherwise.
+     * 
+     * @return the {@link Inflater}
+     */
+    public static Inflater takeInflater() {
+        final Thread currentThread = Thread.currentThread();
+        final Inflater inflater = VirtualThreads.isVirtual(currentThread)
+                ? SHARED_INFLATERS.take()
+                : ThreadCache.takeFromCache(currentThread, INFLATER_CACHE_IDX);
+        if (inflater != null) {
+            INFLATER_HITS.increment();
+            return inflater;
+        }
+        
+        INFLATER_MISSES.increment();
+        return new Inflater(true);
+    }
+    
+    /**
+     * Resets the {@link Inflater} and returns it to the current thread's
+     * cache. If the cache is full - the {@link Inflater} is ended.
+     * 
+     * @param inflater the {@link Inflater} obtained by {@link #takeInflater()}
+     */
+    public static void releaseInflater(final Inflater inflater) {
+        inflater.reset();
+        
+        final Thread currentThread = Thread.currentThread();
+        final boolean isCached = VirtualThreads.isVirtual(currentThread)
+                ? SHARED_INFLATERS.offer(inflater)
+                : ThreadCache.putToCache(currentThread, INFLATER_CACHE_IDX, inflater);
+        if (!isCached) {
+            inflater.end();
+        }
+    }
+    
+    /**
+     * Returns the number of {@link Deflater}s, which have been taken from
+     * the cache.
+     */
+    public static long getDeflaterHits() {
+        return DEFLATER_HITS.get();
+    }
+
+    /**
+     * Returns the number of {@link Deflater}s, which have been created,
+     * because the cache was empty.
+     */
+    public static long getDeflaterMisses() {
+        return DEFLATER_MISSES.get();
+    }
+
+    /**
+     * Returns the number of {@link Inflater}s, which have been taken from
+     * the cache.
+     */
+    public static long getInflaterHits() {
+        return INFLATER_HITS.get();
+    }
+
+    /**
+     * Returns the number of {@link Inflater}s, which have been created,
+     * because the cache was empty.
+     */
+    public static long getInflaterMisses() {
+        return INFLATER_MISSES.get();
+    }
+    
+    /**
+     * The pool shared by the virtual threads.
+     */
+    private static final class SharedPool<E> {
+        private static final int MAX_SIZE =
+                SIZE * Runtime.getRuntime().availableProcessors();
+        
+        private final Queue<E> queue = new ConcurrentLinkedQueue<E>();
+        private final AtomicInteger size = new AtomicInteger();
+        
+        E take() {
+            final E e = queue.poll();
+            if (e != null) {
+                size.decrementAndGet();
+            }
+            
+            return e;
+        }
+        
+        boolean offer(final E e) {
+            if (size.incrementAndGet() > MAX_SIZE) {
+                size.decrementAndGet();
+                return false;
+            }
+            
+            queue.offer(e);
+            return true;
+        }
+    }
+}
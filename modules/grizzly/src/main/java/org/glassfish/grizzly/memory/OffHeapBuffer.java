@@ -0,0 +1,107 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link org.glassfish.grizzly.Buffer} implementation backed by the off-heap
+ * memory allocated by {@link OffHeapMemoryManager}.
+ *
+ * The memory is reference counted: the buffer returned by the
+ * {@link OffHeapMemoryManager} and every buffer derived from it
+ * ({@link #split(int)}, {@link #slice()}, {@link #duplicate()},
+ * {@link #asReadOnlyBuffer()}) hold one reference, which is released,
+ * when the buffer is {@link #dispose() disposed}.
+ * Once all the references are released, the memory is freed immediately,
+ * without waiting for the garbage collector.
+ *
+ * @since 2.3.18
+ */
+public class OffHeapBuffer extends ByteBufferWrapper {
+
+    private final OffHeapMemoryManager.Region region;
+
+    OffHeapBuffer(final ByteBuffer underlyingByteBuffer,
+            final OffHeapMemoryManager.Region region) {
+        super(underlyingByteBuffer);
+        this.region = region;
+        allowBufferDispose = true;
+    }
+
+    /**
+     * @return the address of the element at index zero of this buffer, or
+     *  <tt>0</tt> if the address is not available on this JVM
+     */
+    public long address() {
+        checkDispose();
+        return OffHeapMemory.address(visible);
+    }
+
+    /**
+     * @return the number of live buffers sharing this buffer's memory
+     */
+    public int refCount() {
+        return region.refCount();
+    }
+
+    @Override
+    public void dispose() {
+        prepareDispose();
+        visible = null;
+        region.release();
+    }
+
+    @Override
+    protected ByteBufferWrapper wrapByteBuffer(final ByteBuffer byteBuffer) {
+        region.retain();
+        return new OffHeapBuffer(byteBuffer, region);
+    }
+
+    @Override
+    protected void checkDispose() {
+        if (visible == null) {
+            throw new IllegalStateException(
+                    "OffHeapBuffer has already been disposed",
+                    disposeStackTrace);
+        }
+    }
+}
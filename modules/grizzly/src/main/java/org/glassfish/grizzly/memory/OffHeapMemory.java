@@ -0,0 +1,216 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.AccessController;
+import java.security.PrivilegedExceptionAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.utils.JdkVersion;
+
+/**
+ * Raw off-heap memory access based on <tt>sun.misc.Unsafe</tt>.
+ *
+ * The memory is allocated using <tt>Unsafe.allocateMemory()</tt> and exposed
+ * as a direct {@link ByteBuffer}, which doesn't have a cleaner, so the memory
+ * is released only by an explicit {@link #free(long)} call.
+ * If either <tt>Unsafe</tt> or the direct {@link ByteBuffer} constructor
+ * is not accessible on the running JVM, the memory is allocated using
+ * {@link ByteBuffer#allocateDirect(int)} and is released by the JVM.
+ *
+ * <tt>Unsafe</tt> is accessed only via reflection (it's used to allocate and
+ * release memory blocks, not per byte), so the class doesn't depend on
+ * the proprietary API at compile time.
+ *
+ * @since 2.3.18
+ */
+final class OffHeapMemory {
+    private static final Logger LOGGER = Grizzly.logger(OffHeapMemory.class);
+
+    private static final Object UNSAFE;
+    private static final Method ALLOCATE_MEMORY_METHOD;
+    private static final Method FREE_MEMORY_METHOD;
+    private static final Field ADDRESS_FIELD;
+    private static final Constructor<?> DIRECT_BUFFER_CONSTRUCTOR;
+
+    static {
+        Object unsafe = null;
+        Method allocateMemoryMethod = null;
+        Method freeMemoryMethod = null;
+        Field addressField = null;
+        Constructor<?> constructor = null;
+
+        if (JdkVersion.getJdkVersion().isUnsafeSupported()) {
+            try {
+                final Object[] handles = AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<Object[]>() {
+                    @Override
+                    public Object[] run() throws Exception {
+                        final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                        final Field f = unsafeClass.getDeclaredField("theUnsafe");
+                        f.setAccessible(true);
+
+                        final Field address = java.nio.Buffer.class.getDeclaredField("address");
+                        address.setAccessible(true);
+
+                        final Constructor<?> c = Class.forName("java.nio.DirectByteBuffer")
+                                .getDeclaredConstructor(long.class, int.class);
+                        c.setAccessible(true);
+
+                        return new Object[] {
+                            f.get(null),
+                            unsafeClass.getMethod("allocateMemory", long.class),
+                            unsafeClass.getMethod("freeMemory", long.class),
+                            address,
+                            c
+                        };
+                    }
+                });
+
+                unsafe = handles[0];
+                allocateMemoryMethod = (Method) handles[1];
+                freeMemoryMethod = (Method) handles[2];
+                addressField = (Field) handles[3];
+                constructor = (Constructor<?>) handles[4];
+            } catch (Throwable t) {
+                LOGGER.log(Level.FINE, "Unsafe raw memory access is not available", t);
+            }
+        }
+
+        if (constructor == null) {
+            LOGGER.log(Level.WARNING,
+                    LogMessages.WARNING_GRIZZLY_MEMORY_OFFHEAP_UNSAFE_UNAVAILABLE());
+        }
+
+        UNSAFE = unsafe;
+        ALLOCATE_MEMORY_METHOD = allocateMemoryMethod;
+        FREE_MEMORY_METHOD = freeMemoryMethod;
+        ADDRESS_FIELD = addressField;
+        DIRECT_BUFFER_CONSTRUCTOR = constructor;
+    }
+
+    private OffHeapMemory() {
+    }
+
+    /**
+     * @return <tt>true</tt>, if the raw memory could be allocated and has to
+     * be released explicitly, or <tt>false</tt> if the JVM manages the memory.
+     */
+    static boolean isRaw() {
+        return DIRECT_BUFFER_CONSTRUCTOR != null;
+    }
+
+    /**
+     * Allocates the memory of the given size.
+     *
+     * @param size the memory size in bytes
+     * @return the direct {@link ByteBuffer} representing the allocated memory
+     */
+    static ByteBuffer allocate(final int size) {
+        if (!isRaw()) {
+            return ByteBuffer.allocateDirect(size);
+        }
+
+        final long address;
+        try {
+            // allocate at least one byte to get a unique address
+            address = (Long) ALLOCATE_MEMORY_METHOD.invoke(UNSAFE,
+                    (long) Math.max(1, size));
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof OutOfMemoryError) {
+                throw (OutOfMemoryError) cause;
+            }
+            throw new IllegalStateException("Can not allocate memory", cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Can not allocate memory", e);
+        }
+
+        try {
+            return ((ByteBuffer) DIRECT_BUFFER_CONSTRUCTOR.newInstance(
+                    address, size)).order(ByteOrder.BIG_ENDIAN);
+        } catch (Exception e) {
+            free(address);
+            throw new IllegalStateException("Can not create a direct ByteBuffer", e);
+        }
+    }
+
+    /**
+     * @param byteBuffer direct {@link ByteBuffer}
+     * @return the address of the {@link ByteBuffer}'s first element, or
+     *  <tt>0</tt> if the address can not be retrieved
+     */
+    static long address(final ByteBuffer byteBuffer) {
+        if (ADDRESS_FIELD == null || !byteBuffer.isDirect()) {
+            return 0;
+        }
+
+        try {
+            return ADDRESS_FIELD.getLong(byteBuffer);
+        } catch (IllegalAccessException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Releases the memory, allocated by {@link #allocate(int)}.
+     * Does nothing, if the memory is managed by JVM.
+     *
+     * @param address the memory address
+     */
+    static void free(final long address) {
+        if (isRaw()) {
+            try {
+                FREE_MEMORY_METHOD.invoke(UNSAFE, address);
+            } catch (Exception e) {
+                throw new IllegalStateException("Can not release memory", e);
+            }
+        }
+    }
+}
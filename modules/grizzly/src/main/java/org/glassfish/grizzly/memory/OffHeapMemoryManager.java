@@ -0,0 +1,390 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.localization.LogMessages;
+import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
+import org.glassfish.grizzly.monitoring.MonitoringConfig;
+import org.glassfish.grizzly.monitoring.MonitoringUtils;
+
+/**
+ * {@link MemoryManager}, which allocates {@link OffHeapBuffer}s backed by the
+ * off-heap memory with explicit lifetime.
+ *
+ * Unlike the direct {@link ByteBuffer}s allocated by {@link ByteBufferManager},
+ * the memory is not released by the garbage collector, but as soon as the
+ * last {@link OffHeapBuffer} sharing the memory is disposed
+ * (see {@link Buffer#tryDispose()}, {@link Buffer#dispose()}).
+ * So big amounts of data could be kept outside of the heap without affecting
+ * GC pauses.
+ *
+ * The memory of the buffers, which were garbage collected without being
+ * disposed, is released by the leak detector, which also logs a warning.
+ * If the leak detection sampling is on (see
+ * {@link #setLeakDetectionSamplingInterval(int)}), the allocation stack trace of
+ * every n-th buffer is recorded and is logged with the warning.
+ * The default sampling interval could be set using the
+ * <tt>org.glassfish.grizzly.memory.OffHeapMemoryManager.leak-detection-sampling</tt>
+ * system property.
+ *
+ * @since 2.3.18
+ */
+public class OffHeapMemoryManager implements MemoryManager<Buffer>, WrapperAware {
+    private static final Logger LOGGER = Grizzly.logger(OffHeapMemoryManager.class);
+
+    public static final int DEFAULT_LEAK_DETECTION_SAMPLING_INTERVAL =
+            Integer.getInteger(OffHeapMemoryManager.class.getName()
+            + ".leak-detection-sampling", 0);
+
+    /**
+     * Basic monitoring support.  Concrete implementations of this class need
+     * only to implement the {@link #createJmxManagementObject()}  method
+     * to plug into the Grizzly 2.0 JMX framework.
+     */
+    protected final DefaultMonitoringConfig<MemoryProbe> monitoringConfig =
+            new DefaultMonitoringConfig<MemoryProbe>(MemoryProbe.class) {
+
+                @Override
+                public Object createManagementObject() {
+                    return createJmxManagementObject();
+                }
+
+            };
+
+    private final AtomicLong allocatedMemory = new AtomicLong();
+
+    private final AtomicInteger allocationsCounter = new AtomicInteger();
+
+    private volatile int leakDetectionSamplingInterval =
+            DEFAULT_LEAK_DETECTION_SAMPLING_INTERVAL;
+
+    // the regions, which haven't been released yet
+    private final Set<LeakTracker> trackers = Collections.newSetFromMap(
+            new ConcurrentHashMap<LeakTracker, Boolean>());
+    private final ReferenceQueue<Object> leaksQueue = new ReferenceQueue<Object>();
+
+
+    // ---------------------------------------------- Methods from MemoryManager
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer allocate(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Requested allocation size must be greater than or equal to zero.");
+        }
+
+        if (size == 0) {
+            return Buffers.EMPTY_BUFFER;
+        }
+
+        releaseLeaks();
+
+        final ByteBuffer byteBuffer = OffHeapMemory.allocate(size);
+        final Region region = new Region(byteBuffer, size);
+
+        allocatedMemory.addAndGet(size);
+        ProbeNotifier.notifyBufferAllocated(monitoringConfig, size);
+
+        return new OffHeapBuffer(byteBuffer, region);
+    }
+
+    /**
+     * For this implementation, this method simply calls through to
+     * {@link #allocate(int)}.
+     */
+    @Override
+    public Buffer allocateAtLeast(final int size) {
+        return allocate(size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer reallocate(final Buffer oldBuffer, final int newSize) {
+        if (newSize == 0) {
+            oldBuffer.tryDispose();
+            return Buffers.EMPTY_BUFFER;
+        }
+
+        if (oldBuffer.capacity() >= newSize) {
+            if (oldBuffer.limit() > newSize) {
+                oldBuffer.limit(newSize);
+            }
+            if (oldBuffer.position() > newSize) {
+                oldBuffer.position(newSize);
+            }
+
+            return oldBuffer;
+        }
+
+        final int pos = oldBuffer.position();
+        final int lim = oldBuffer.limit();
+
+        final Buffer newBuffer = allocate(newSize);
+        Buffers.setPositionLimit(oldBuffer, 0, oldBuffer.capacity());
+        newBuffer.put(oldBuffer);
+        Buffers.setPositionLimit(newBuffer, pos, lim);
+
+        oldBuffer.tryDispose();
+
+        return newBuffer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(final Buffer buffer) {
+        buffer.tryDispose();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean willAllocateDirect(final int size) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MonitoringConfig<MemoryProbe> getMonitoringConfig() {
+        return monitoringConfig;
+    }
+
+
+    // ----------------------------------------------- Methods from WrapperAware
+
+
+    @Override
+    public Buffer wrap(final byte[] data) {
+        return wrap(ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public Buffer wrap(byte[] data, int offset, int length) {
+        return wrap(ByteBuffer.wrap(data, offset, length));
+    }
+
+    @Override
+    public Buffer wrap(final String s) {
+        return wrap(s.getBytes(Charset.defaultCharset()));
+    }
+
+    @Override
+    public Buffer wrap(final String s, final Charset charset) {
+        return wrap(s.getBytes(charset));
+    }
+
+    @Override
+    public Buffer wrap(final ByteBuffer byteBuffer) {
+        return new ByteBufferWrapper(byteBuffer);
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * @return the number of off-heap bytes currently allocated by this
+     * <tt>MemoryManager</tt>
+     */
+    public long getAllocatedMemory() {
+        return allocatedMemory.get();
+    }
+
+    /**
+     * @return the leak detection sampling interval, <tt>0</tt> means the
+     * allocation stack traces are not recorded
+     */
+    public int getLeakDetectionSamplingInterval() {
+        return leakDetectionSamplingInterval;
+    }
+
+    /**
+     * Sets the leak detection sampling interval: the allocation stack trace of
+     * every n-th allocated buffer will be recorded and logged, if the buffer
+     * is garbage collected without being disposed.
+     * <tt>0</tt> turns the sampling off, <tt>1</tt> records the stack trace of
+     * every allocated buffer.
+     *
+     * @param leakDetectionSamplingInterval the sampling interval
+     */
+    public void setLeakDetectionSamplingInterval(
+            final int leakDetectionSamplingInterval) {
+        if (leakDetectionSamplingInterval < 0) {
+            throw new IllegalArgumentException("leakDetectionSamplingInterval can't be negative");
+        }
+
+        this.leakDetectionSamplingInterval = leakDetectionSamplingInterval;
+    }
+
+    /**
+     * Releases the memory of the {@link OffHeapBuffer}s, which have been
+     * garbage collected without being disposed.
+     * This method is called on every allocation, so usually there is no need
+     * to call it explicitly.
+     *
+     * @return the number of the leaked memory regions released
+     */
+    public int releaseLeaks() {
+        int count = 0;
+        LeakTracker tracker;
+        while ((tracker = (LeakTracker) leaksQueue.poll()) != null) {
+            if (trackers.remove(tracker)) {
+                count++;
+                LOGGER.log(Level.WARNING,
+                        LogMessages.WARNING_GRIZZLY_MEMORY_OFFHEAP_LEAK(tracker.size),
+                        tracker.allocationRecord);
+                free(tracker);
+            }
+        }
+
+        return count;
+    }
+
+
+    // ------------------------------------------------------- Protected Methods
+
+
+    protected Object createJmxManagementObject() {
+        return MonitoringUtils.loadJmxObject(
+                "org.glassfish.grizzly.memory.jmx.MemoryManager", this,
+                MemoryManager.class);
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private void free(final LeakTracker tracker) {
+        tracker.clear();
+        OffHeapMemory.free(tracker.address);
+        allocatedMemory.addAndGet(-tracker.size);
+    }
+
+    /**
+     * The off-heap memory shared by {@link OffHeapBuffer}s.
+     */
+    final class Region {
+        private final AtomicInteger refCount = new AtomicInteger(1);
+        private final LeakTracker tracker;
+
+        private Region(final ByteBuffer byteBuffer, final int size) {
+            final int samplingInterval = leakDetectionSamplingInterval;
+            final Throwable allocationRecord = samplingInterval > 0 &&
+                    allocationsCounter.incrementAndGet() % samplingInterval == 0 ?
+                    new Throwable("OffHeapBuffer allocation") :
+                    null;
+
+            // the original ByteBuffer is reachable from all its slices and
+            // duplicates, so its reachability tells if the memory could be
+            // freed safely
+            tracker = new LeakTracker(byteBuffer, leaksQueue,
+                    OffHeapMemory.address(byteBuffer), size, allocationRecord);
+            trackers.add(tracker);
+        }
+
+        int refCount() {
+            return refCount.get();
+        }
+
+        void retain() {
+            for (;;) {
+                final int count = refCount.get();
+                if (count <= 0) {
+                    throw new IllegalStateException("OffHeapBuffer memory has already been released");
+                }
+
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return;
+                }
+            }
+        }
+
+        void release() {
+            final int count = refCount.decrementAndGet();
+            if (count == 0) {
+                if (trackers.remove(tracker)) {
+                    free(tracker);
+                }
+            } else if (count < 0) {
+                throw new IllegalStateException("OffHeapBuffer memory has already been released");
+            }
+        }
+    }
+
+    private static final class LeakTracker extends PhantomReference<Object> {
+        private final long address;
+        private final int size;
+        private final Throwable allocationRecord;
+
+        private LeakTracker(final ByteBuffer referent,
+                final ReferenceQueue<Object> queue,
+                final long address, final int size,
+                final Throwable allocationRecord) {
+            super(referent, queue);
+            this.address = address;
+            this.size = size;
+            this.allocationRecord = allocationRecord;
+        }
+    }
+}
@@ -0,0 +1,1213 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.monitoring.DefaultMonitoringConfig;
+import org.glassfish.grizzly.monitoring.MonitoringConfig;
+import org.glassfish.grizzly.monitoring.MonitoringUtils;
+
+/**
+ * A {@link MemoryManager} implementation based on thread-affine slabs.
+ *
+ * Similar to {@link PooledMemoryManager}, the buffers are grouped by a set of
+ * size classes, but instead of striping the allocation requests across the
+ * shared pool slices, every thread works with its own <tt>magazine</tt>,
+ * which keeps a free list per size class.
+ * Allocation and release on the thread, which owns the buffer, don't
+ * require any atomic operation.
+ * A {@link Buffer} released by a thread other than its owner is not put into
+ * the releasing thread's magazine; it's collected into a batch, which is
+ * returned to the owner thread with a single CAS once it's full.
+ * So buffers stay on the thread (and its memory node), which allocated them,
+ * and the shared state is only touched every {@link #DEFAULT_RETURN_BATCH_SIZE}
+ * cross-thread releases.
+ *
+ * There are several tuning options for this {@link MemoryManager} implementation.
+ * <ul>
+ *     <li>The base size of the buffer for the 1st size class, every next size class n will have buffer size equal to bufferSize(n-1) * 2^growthFactor</li>
+ *     <li>The number of size classes</li>
+ *     <li>The buffer size growth factor, that defines 2^x multiplier, used to calculate buffer size for next size class</li>
+ *     <li>The magazine size, the max number of free buffers every thread keeps per size class</li>
+ *     <li>The return batch size, the number of buffers released by other threads, which are returned to the owner thread at once</li>
+ *     <li>The arena cap, the max number of bytes (split evenly across the size classes) this manager will keep pooled</li>
+ *     <li>The flag indicating whether direct or heap based {@link Buffer}s will be allocated</li>
+ * </ul>
+ *
+ * If no explicit configuration is provided, the following defaults will be used:
+ * <ul>
+ *     <li>Base buffer size: 4 KiB ({@link #DEFAULT_BASE_BUFFER_SIZE})</li>
+ *     <li>Number of size classes: 3 ({@link #DEFAULT_NUMBER_OF_SIZE_CLASSES})</li>
+ *     <li>Growth factor: 2 ({@link #DEFAULT_GROWTH_FACTOR}), which means the size classes are 4 KiB, 16 KiB and 64 KiB</li>
+ *     <li>Magazine size: 32 ({@link #DEFAULT_MAGAZINE_SIZE})</li>
+ *     <li>Return batch size: 16 ({@link #DEFAULT_RETURN_BATCH_SIZE})</li>
+ *     <li>Arena cap: 10% of the heap ({@link #DEFAULT_HEAP_USAGE_PERCENTAGE})</li>
+ *     <li>Heap based {@link Buffer}s will be allocated</li>
+ * </ul>
+ *
+ * Once the arena cap is reached, the buffers are still allocated, but they
+ * are not pooled and will be reclaimed by the garbage collector.
+ * Buffers pooled by threads, which are not alive anymore, are released
+ * back to the arena lazily, when the arena cap is reached.
+ *
+ * This <tt>MemoryManager</tt> could be used as the default one either by
+ * setting the <tt>org.glassfish.grizzly.DEFAULT_MEMORY_MANAGER</tt> system
+ * property to this class name, or via {@link SlabMemoryManagerFactory}.
+ *
+ * @since 2.3.18
+ */
+public class SlabMemoryManager implements MemoryManager<Buffer>, WrapperAware {
+
+    public static final int DEFAULT_BASE_BUFFER_SIZE = 4 * 1024;
+    public static final int DEFAULT_NUMBER_OF_SIZE_CLASSES = 3;
+    public static final int DEFAULT_GROWTH_FACTOR = 2;
+    public static final int DEFAULT_MAGAZINE_SIZE = 32;
+    public static final int DEFAULT_RETURN_BATCH_SIZE = 16;
+
+    public static final float DEFAULT_HEAP_USAGE_PERCENTAGE = 0.1f;
+
+    // the number of owner threads a thread collects the release batches for
+    // (per size class) at the same time
+    private static final int PENDING_BATCHES_PER_SIZE_CLASS = 4;
+
+    // the min delay between two attempts to release buffers pooled by
+    // the terminated threads
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // the head of the inbound batch stack of a magazine, whose thread
+    // is not alive anymore
+    private static final Batch CLOSED = new Batch(null, 0);
+
+    /**
+     * Basic monitoring support.  Concrete implementations of this class need
+     * only to implement the {@link #createJmxManagementObject()}  method
+     * to plug into the Grizzly 2.0 JMX framework.
+     */
+    protected final DefaultMonitoringConfig<MemoryProbe> monitoringConfig =
+            new DefaultMonitoringConfig<MemoryProbe>(MemoryProbe.class) {
+
+                @Override
+                public Object createManagementObject() {
+                    return createJmxManagementObject();
+                }
+
+            };
+
+    private final SizeClass[] sizeClasses;
+
+    // the max buffer size pooled by this memory manager
+    private final int maxPooledBufferSize;
+
+    private final int magazineSize;
+
+    private final int returnBatchSize;
+
+    private final boolean isDirect;
+
+    // all the magazines ever created by this memory manager, which haven't been
+    // released yet
+    private final ConcurrentLinkedQueue<Magazine> magazines =
+            new ConcurrentLinkedQueue<Magazine>();
+
+    private final ThreadLocal<Magazine> threadMagazine =
+            new ThreadLocal<Magazine>() {
+
+                @Override
+                protected Magazine initialValue() {
+                    final Magazine magazine = new Magazine(Thread.currentThread());
+                    magazines.add(magazine);
+                    return magazine;
+                }
+            };
+
+    private final AtomicBoolean isSweeping = new AtomicBoolean();
+    private volatile long lastSweepTime =
+            System.nanoTime() - SWEEP_INTERVAL_NANOS;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    /**
+     * Creates a new <code>SlabMemoryManager</code> using the following defaults:
+     * <ul>
+     *     <li>4 KiB base buffer size</li>
+     *     <li>3 size classes</li>
+     *     <li>2 growth factor, which means 1st size class will contain buffers of size 4KiB, the 2nd - 16KiB, the 3rd - 64KiB</li>
+     *     <li>32 free buffers per size class in the thread magazine</li>
+     *     <li>16 buffers per release batch</li>
+     *     <li>The arena is capped at 10% of the heap</li>
+     * </ul>
+     */
+    public SlabMemoryManager() {
+        this(false);
+    }
+
+    /**
+     * Creates a new <code>SlabMemoryManager</code> using the specified parameters for configuration.
+     *
+     * @param isDirect flag, indicating whether direct or heap based {@link Buffer}s will be allocated
+     */
+    public SlabMemoryManager(final boolean isDirect) {
+        this(DEFAULT_BASE_BUFFER_SIZE,
+                DEFAULT_NUMBER_OF_SIZE_CLASSES,
+                DEFAULT_GROWTH_FACTOR,
+                DEFAULT_MAGAZINE_SIZE,
+                DEFAULT_RETURN_BATCH_SIZE,
+                (long) (Runtime.getRuntime().maxMemory() * DEFAULT_HEAP_USAGE_PERCENTAGE),
+                isDirect);
+    }
+
+    /**
+     * Creates a new <code>SlabMemoryManager</code> using the specified parameters for configuration.
+     *
+     * @param baseBufferSize the base size of the buffer for the 1st size class, every next size class n will have buffer size equal to bufferSize(n-1) * 2^growthFactor
+     * @param numberOfSizeClasses the number of size classes
+     * @param growthFactor the buffer size growth factor, that defines 2^x multiplier, used to calculate buffer size for next size class
+     * @param magazineSize the max number of free buffers every thread keeps per size class
+     * @param returnBatchSize the number of buffers, released by other threads, which are returned to the owner thread at once
+     * @param maxArenaSize the max number of bytes this manager will keep pooled (split evenly across the size classes)
+     * @param isDirect flag, indicating whether direct or heap based {@link Buffer}s will be allocated
+     */
+    public SlabMemoryManager(
+            final int baseBufferSize,
+            final int numberOfSizeClasses,
+            final int growthFactor,
+            final int magazineSize,
+            final int returnBatchSize,
+            final long maxArenaSize,
+            final boolean isDirect) {
+        if (baseBufferSize <= 0) {
+            throw new IllegalArgumentException("baseBufferSize must be greater than zero");
+        }
+        if (numberOfSizeClasses <= 0) {
+            throw new IllegalArgumentException("numberOfSizeClasses must be greater than zero");
+        }
+        if (growthFactor == 0 && numberOfSizeClasses > 1) {
+            throw new IllegalArgumentException("if numberOfSizeClasses is greater than 1 - growthFactor must be greater than zero");
+        }
+        if (growthFactor < 0) {
+            throw new IllegalArgumentException("growthFactor must be greater or equal to zero");
+        }
+        if (!isPowerOfTwo(baseBufferSize) || !isPowerOfTwo(growthFactor)) {
+            throw new IllegalArgumentException("baseBufferSize and growthFactor must be a power of two");
+        }
+        if (magazineSize <= 0) {
+            throw new IllegalArgumentException("magazineSize must be greater than zero");
+        }
+        if (returnBatchSize <= 0 || returnBatchSize > magazineSize) {
+            throw new IllegalArgumentException("returnBatchSize must be greater than zero and less or equal to magazineSize");
+        }
+        if (maxArenaSize < 0) {
+            throw new IllegalArgumentException("maxArenaSize must be greater or equal to zero");
+        }
+
+        this.magazineSize = magazineSize;
+        this.returnBatchSize = returnBatchSize;
+        this.isDirect = isDirect;
+
+        final long memoryPerSizeClass = maxArenaSize / numberOfSizeClasses;
+
+        sizeClasses = new SizeClass[numberOfSizeClasses];
+        for (int i = 0, bufferSize = baseBufferSize; i < numberOfSizeClasses; i++, bufferSize <<= growthFactor) {
+            sizeClasses[i] = new SizeClass(i, bufferSize,
+                    (int) Math.min(Integer.MAX_VALUE, memoryPerSizeClass / bufferSize));
+        }
+        maxPooledBufferSize = sizeClasses[numberOfSizeClasses - 1].bufferSize;
+    }
+
+
+    // ---------------------------------------------- Methods from MemoryManager
+
+
+    /**
+     * For this implementation, this method simply calls through to
+     * {@link #allocateAtLeast(int)};
+     */
+    @Override
+    public Buffer allocate(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Requested allocation size must be greater than or equal to zero.");
+        }
+        return allocateAtLeast(size).limit(size);
+    }
+
+    /**
+     * Allocates a buffer of at least the size requested.
+     * <p/>
+     * Keep in mind that the capacity of the buffer may be greater than the
+     * allocation request.  The limit however, will be set to the specified
+     * size.  The memory beyond the limit, is available for use.
+     *
+     * @param size the min {@link Buffer} size to be allocated.
+     * @return a buffer with a limit of the specified <tt>size</tt>.
+     */
+    @Override
+    public Buffer allocateAtLeast(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Requested allocation size must be greater than or equal to zero.");
+        }
+
+        if (size == 0) {
+            return Buffers.EMPTY_BUFFER;
+        }
+
+        return size <= maxPooledBufferSize ?
+                allocate(getSizeClassFor(size)) :
+                allocateToCompositeBuffer(newCompositeBuffer(), size);
+    }
+
+    /**
+     * Reallocates an existing buffer to at least the specified size.
+     *
+     * @param oldBuffer old {@link Buffer} to be reallocated.
+     * @param newSize   new {@link Buffer} required size.
+     *
+     * @return potentially a new buffer of at least the specified size.
+     */
+    @Override
+    public Buffer reallocate(final Buffer oldBuffer, final int newSize) {
+        if (newSize == 0) {
+            oldBuffer.tryDispose();
+            return Buffers.EMPTY_BUFFER;
+        }
+
+        final int curBufSize = oldBuffer.capacity();
+
+        if (oldBuffer instanceof SlabBuffer) {
+            if (curBufSize >= newSize) {
+                final SizeClass newSizeClass = getSizeClassFor(newSize);
+                if (newSizeClass.bufferSize < curBufSize) {
+                    // the buffer could be moved to a smaller size class
+                    final int pos = Math.min(oldBuffer.position(), newSize);
+
+                    final Buffer newSlabBuffer = allocate(newSizeClass);
+                    Buffers.setPositionLimit(oldBuffer, 0, newSize);
+                    newSlabBuffer.put(oldBuffer);
+                    Buffers.setPositionLimit(newSlabBuffer, pos, newSize);
+
+                    oldBuffer.tryDispose();
+
+                    return newSlabBuffer;
+                }
+
+                return oldBuffer.limit(newSize);
+            } else {
+                final int pos = oldBuffer.position();
+                Buffers.setPositionLimit(oldBuffer, 0, curBufSize);
+
+                if (newSize <= maxPooledBufferSize) {
+                    final Buffer newSlabBuffer =
+                            allocate(getSizeClassFor(newSize));
+                    newSlabBuffer.put(oldBuffer);
+                    Buffers.setPositionLimit(newSlabBuffer, pos, newSize);
+
+                    oldBuffer.tryDispose();
+
+                    return newSlabBuffer;
+                } else {
+                    final CompositeBuffer cb = newCompositeBuffer();
+                    cb.append(oldBuffer);
+                    allocateToCompositeBuffer(cb, newSize - curBufSize);
+                    Buffers.setPositionLimit(cb, pos, newSize);
+                    return cb;
+                }
+            }
+        } else {
+            assert oldBuffer.isComposite();
+            final CompositeBuffer oldCompositeBuffer = (CompositeBuffer) oldBuffer;
+            if (curBufSize > newSize) {
+                final int oldPos = oldCompositeBuffer.position();
+                Buffers.setPositionLimit(oldBuffer, newSize, newSize);
+                oldCompositeBuffer.trim();
+                oldCompositeBuffer.position(Math.min(oldPos, newSize));
+
+                return oldCompositeBuffer;
+            } else {
+                return allocateToCompositeBuffer(oldCompositeBuffer,
+                        newSize - curBufSize);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(final Buffer buffer) {
+        buffer.tryDispose();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean willAllocateDirect(final int size) {
+        return isDirect;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MonitoringConfig<MemoryProbe> getMonitoringConfig() {
+        return monitoringConfig;
+    }
+
+
+    // ----------------------------------------------- Methods from WrapperAware
+
+
+    @Override
+    public Buffer wrap(final byte[] data) {
+        return wrap(ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public Buffer wrap(byte[] data, int offset, int length) {
+        return wrap(ByteBuffer.wrap(data, offset, length));
+    }
+
+    @Override
+    public Buffer wrap(final String s) {
+        return wrap(s.getBytes(Charset.defaultCharset()));
+    }
+
+    @Override
+    public Buffer wrap(final String s, final Charset charset) {
+        return wrap(s.getBytes(charset));
+    }
+
+    @Override
+    public Buffer wrap(final ByteBuffer byteBuffer) {
+        return new ByteBufferWrapper(byteBuffer);
+    }
+
+
+    // ------------------------------------------------------- Protected Methods
+
+
+    protected Object createJmxManagementObject() {
+        return MonitoringUtils.loadJmxObject(
+                "org.glassfish.grizzly.memory.jmx.MemoryManager", this,
+                MemoryManager.class);
+    }
+
+
+    // ------------------------------------------------- Package-Private Methods
+
+
+    SizeClass[] getSizeClasses() {
+        return Arrays.copyOf(sizeClasses, sizeClasses.length);
+    }
+
+    int getMagazineSize() {
+        return magazineSize;
+    }
+
+    int getReturnBatchSize() {
+        return returnBatchSize;
+    }
+
+    /**
+     * @return the number of free buffers of the given size class pooled by
+     * the current thread.
+     */
+    int localElementsCount(final int sizeClassIdx) {
+        return threadMagazine.get().tops[sizeClassIdx];
+    }
+
+    /**
+     * Releases the buffers pooled by the threads, which are not alive anymore.
+     *
+     * @return <tt>true</tt> if at least one magazine has been released,
+     *  or <tt>false</tt> otherwise.
+     */
+    boolean releaseDeadMagazines() {
+        if (!isSweeping.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            lastSweepTime = System.nanoTime();
+
+            boolean isReleased = false;
+            for (Iterator<Magazine> it = magazines.iterator(); it.hasNext(); ) {
+                final Magazine magazine = it.next();
+                // Thread.isAlive() returning false guarantees the magazine's
+                // thread-local state is visible here
+                if (!magazine.thread.isAlive()) {
+                    it.remove();
+                    magazine.close();
+                    isReleased = true;
+                }
+            }
+
+            return isReleased;
+        } finally {
+            isSweeping.set(false);
+        }
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private Buffer allocate(final SizeClass sizeClass) {
+        final Magazine magazine = threadMagazine.get();
+
+        SlabBuffer b = magazine.poll(sizeClass.index);
+        if (b != null) {
+            ProbeNotifier.notifyBufferAllocatedFromPool(monitoringConfig,
+                    sizeClass.bufferSize);
+            return b.prepare();
+        }
+
+        final boolean isPooled = sizeClass.reserve() ||
+                (System.nanoTime() - lastSweepTime >= SWEEP_INTERVAL_NANOS
+                        && releaseDeadMagazines() && sizeClass.reserve());
+
+        // if the arena is exhausted - the buffer will not be pooled
+        b = newBuffer(sizeClass, isPooled ? magazine : null);
+        ProbeNotifier.notifyBufferAllocated(monitoringConfig,
+                sizeClass.bufferSize);
+
+        return b.prepare();
+    }
+
+    private SlabBuffer newBuffer(final SizeClass sizeClass,
+            final Magazine owner) {
+        final int bufferSize = sizeClass.bufferSize;
+        return isDirect ?
+                new SlabByteBufferWrapper(
+                        ByteBuffer.allocateDirect(bufferSize), sizeClass, owner) :
+                new SlabHeapBuffer(new byte[bufferSize], sizeClass, owner);
+    }
+
+    /**
+     * Returns the pooled {@link SlabBuffer}, which is not in use anymore,
+     * back to its owner's magazine.
+     */
+    private void recycle(final SlabBuffer buffer) {
+        final Magazine owner = buffer.owner();
+        final SizeClass sizeClass = buffer.sizeClass();
+        final Magazine current = threadMagazine.get();
+
+        if (owner == current) {
+            if (current.offer(buffer)) {
+                ProbeNotifier.notifyBufferReleasedToPool(monitoringConfig,
+                        sizeClass.bufferSize);
+            } else {
+                // the magazine is full - let GC reclaim the buffer
+                sizeClass.release(1);
+            }
+        } else if (owner.isClosed) {
+            sizeClass.release(1);
+        } else {
+            current.returnRemote(buffer);
+            ProbeNotifier.notifyBufferReleasedToPool(monitoringConfig,
+                    sizeClass.bufferSize);
+        }
+    }
+
+    private SizeClass getSizeClassFor(final int size) {
+        for (int i = 0; i < sizeClasses.length; i++) {
+            final SizeClass sizeClass = sizeClasses[i];
+            if (sizeClass.bufferSize >= size) {
+                return sizeClass;
+            }
+        }
+
+        throw new IllegalStateException(
+                "There is no size class big enough to allocate " + size + " bytes");
+    }
+
+    private CompositeBuffer allocateToCompositeBuffer(
+            final CompositeBuffer cb, int size) {
+
+        assert size >= 0;
+
+        if (size >= maxPooledBufferSize) {
+            final SizeClass maxSizeClass = sizeClasses[sizeClasses.length - 1];
+
+            do {
+                cb.append(allocate(maxSizeClass));
+                size -= maxPooledBufferSize;
+            } while (size >= maxPooledBufferSize);
+        }
+
+        if (size > 0) {
+            cb.append(allocate(getSizeClassFor(size)));
+        }
+
+        return cb;
+    }
+
+    private CompositeBuffer newCompositeBuffer() {
+        final CompositeBuffer cb = CompositeBuffer.newBuffer(this);
+        cb.allowInternalBuffersDispose(true);
+        cb.allowBufferDispose(true);
+        return cb;
+    }
+
+    private static boolean isPowerOfTwo(final int valueToCheck) {
+        return ((valueToCheck & (valueToCheck - 1)) == 0);
+    }
+
+    /**
+     * The buffer size class and its arena cap.
+     * The arena counts all the pooled buffers of the size class, either
+     * in use or free, so the counter is only touched when a pooled buffer
+     * is created or is dropped.
+     */
+    static final class SizeClass {
+        private final int index;
+        private final int bufferSize;
+        private final int maxBuffersCount;
+
+        private final AtomicInteger buffersCount = new AtomicInteger();
+
+        SizeClass(final int index, final int bufferSize,
+                final int maxBuffersCount) {
+            this.index = index;
+            this.bufferSize = bufferSize;
+            this.maxBuffersCount = maxBuffersCount;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        /**
+         * @return the max number of {@link Buffer}s, that could be pooled for
+         * this <tt>SizeClass</tt>
+         */
+        public int getMaxBuffersCount() {
+            return maxBuffersCount;
+        }
+
+        /**
+         * @return the number of pooled {@link Buffer}s of this
+         * <tt>SizeClass</tt>, either in use or free
+         */
+        public int getBuffersCount() {
+            return buffersCount.get();
+        }
+
+        private boolean reserve() {
+            for (;;) {
+                final int count = buffersCount.get();
+                if (count >= maxBuffersCount) {
+                    return false;
+                }
+
+                if (buffersCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release(final int count) {
+            if (count > 0) {
+                buffersCount.addAndGet(-count);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "SizeClass[" + Integer.toHexString(hashCode()) + "] {" +
+                    "buffer size=" + bufferSize +
+                    ", buffers count=" + buffersCount.get() +
+                    ", max buffers count=" + maxBuffersCount +
+                    '}';
+        }
+    }
+
+    /**
+     * The set of buffers released by a thread other than the owner.
+     * Once pushed to the owner's inbound stack, the batch is never changed by
+     * the releasing thread.
+     */
+    private static final class Batch {
+        private final Magazine owner;
+        private final SlabBuffer[] buffers;
+        private int size;
+
+        // the next batch in the owner's inbound stack
+        private Batch next;
+
+        // the number of buffers in this and all the next batches
+        private int total;
+
+        Batch(final Magazine owner, final int capacity) {
+            this.owner = owner;
+            this.buffers = new SlabBuffer[capacity];
+        }
+
+        private boolean add(final SlabBuffer buffer) {
+            buffers[size++] = buffer;
+            return size == buffers.length;
+        }
+    }
+
+    /**
+     * The thread's free lists, one per size class.
+     * Everything except the inbound stacks is accessed by the owner thread only.
+     */
+    private final class Magazine {
+        private final Thread thread;
+
+        private final SlabBuffer[][] stacks;
+        private final int[] tops;
+
+        // the batches returned by other threads, Treiber stack per size class
+        private final AtomicReferenceArray<Batch> inbound;
+
+        // the batches this thread collects for other owners, per size class
+        private final Batch[][] pending;
+        private final int[] nextVictim;
+
+        private volatile boolean isClosed;
+
+        Magazine(final Thread thread) {
+            this.thread = thread;
+
+            final int sizeClassesCount = sizeClasses.length;
+            stacks = new SlabBuffer[sizeClassesCount][magazineSize];
+            tops = new int[sizeClassesCount];
+            inbound = new AtomicReferenceArray<Batch>(sizeClassesCount);
+            pending = new Batch[sizeClassesCount][PENDING_BATCHES_PER_SIZE_CLASS];
+            nextVictim = new int[sizeClassesCount];
+        }
+
+        private SlabBuffer poll(final int idx) {
+            if (tops[idx] == 0 && !drainInbound(idx)) {
+                return null;
+            }
+
+            final SlabBuffer[] stack = stacks[idx];
+            final SlabBuffer b = stack[--tops[idx]];
+            stack[tops[idx]] = null;
+
+            return b;
+        }
+
+        private boolean offer(final SlabBuffer buffer) {
+            final int idx = buffer.sizeClass().index;
+            final int top = tops[idx];
+            if (top == magazineSize) {
+                return false;
+            }
+
+            stacks[idx][top] = buffer;
+            tops[idx] = top + 1;
+
+            return true;
+        }
+
+        private boolean drainInbound(final int idx) {
+            if (inbound.get(idx) == null) {
+                return false;
+            }
+
+            Batch batch = inbound.getAndSet(idx, null);
+            int dropped = 0;
+            while (batch != null) {
+                for (int i = 0; i < batch.size; i++) {
+                    if (!offer(batch.buffers[i])) {
+                        dropped++;
+                    }
+                }
+                batch = batch.next;
+            }
+
+            sizeClasses[idx].release(dropped);
+
+            return tops[idx] > 0;
+        }
+
+        private void returnRemote(final SlabBuffer buffer) {
+            final Magazine owner = buffer.owner();
+            final int idx = buffer.sizeClass().index;
+            final Batch[] batches = pending[idx];
+
+            int slot = -1;
+            for (int i = 0; i < batches.length; i++) {
+                final Batch batch = batches[i];
+                if (batch == null) {
+                    if (slot == -1) {
+                        slot = i;
+                    }
+                } else if (batch.owner == owner) {
+                    slot = i;
+                    break;
+                }
+            }
+
+            if (slot == -1) {
+                // all the slots are taken by other owners, return the victim's
+                // batch even though it's not full
+                slot = nextVictim[idx];
+                nextVictim[idx] = (slot + 1) % batches.length;
+                flush(batches[slot]);
+                batches[slot] = null;
+            }
+
+            Batch batch = batches[slot];
+            if (batch == null) {
+                batch = new Batch(owner, returnBatchSize);
+                batches[slot] = batch;
+            }
+
+            if (batch.add(buffer)) {
+                flush(batch);
+                batches[slot] = null;
+            }
+        }
+
+        private void flush(final Batch batch) {
+            if (!batch.owner.offerBatch(batch)) {
+                batch.buffers[0].sizeClass().release(batch.size);
+            }
+        }
+
+        private boolean offerBatch(final Batch batch) {
+            final int idx = batch.buffers[0].sizeClass().index;
+            for (;;) {
+                final Batch head = inbound.get(idx);
+                if (head == CLOSED) {
+                    return false;
+                }
+
+                final int total = head != null ?
+                        head.total + batch.size :
+                        batch.size;
+                if (total > magazineSize) {
+                    // the owner doesn't poll fast enough
+                    return false;
+                }
+
+                batch.next = head;
+                batch.total = total;
+                if (inbound.compareAndSet(idx, head, batch)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Releases all the buffers pooled by this magazine to the arena.
+         * Must be called once the magazine's thread is not alive.
+         */
+        private void close() {
+            isClosed = true;
+
+            for (int idx = 0; idx < sizeClasses.length; idx++) {
+                int count = tops[idx];
+                Arrays.fill(stacks[idx], null);
+                tops[idx] = 0;
+
+                final Batch head = inbound.getAndSet(idx, CLOSED);
+                if (head != null) {
+                    count += head.total;
+                }
+
+                final Batch[] batches = pending[idx];
+                for (int i = 0; i < batches.length; i++) {
+                    if (batches[i] != null) {
+                        count += batches[i].size;
+                        batches[i] = null;
+                    }
+                }
+
+                sizeClasses[idx].release(count);
+            }
+        }
+    }
+
+    private static interface SlabBuffer extends Buffer {
+
+        public SlabBuffer prepare();
+
+        public SizeClass sizeClass();
+
+        /**
+         * @return the {@link Magazine} this buffer has to be returned to, or
+         *  <tt>null</tt> if the buffer is not pooled.
+         */
+        public Magazine owner();
+    }
+
+    private final class SlabHeapBuffer extends HeapBuffer
+            implements SlabBuffer {
+
+        private final SizeClass sizeClass;
+
+        // The magazine to which this Buffer instance will be returned.
+        private final Magazine owner;
+
+        // When this Buffer instance resides in the pool, this flag will
+        // be true.
+        boolean free;
+
+        // represents the number of 'child' buffers that have been created using
+        // this as the foundation.  This source buffer can't be returned
+        // to the pool unless this value is zero.
+        protected final AtomicInteger shareCount;
+
+        // represents the original buffer from the pool.  This value will be
+        // non-null in any 'child' buffers created from the original.
+        protected final SlabHeapBuffer source;
+
+
+        // ------------------------------------------------------------ Constructors
+
+
+        private SlabHeapBuffer(final byte[] heap, final SizeClass sizeClass,
+                final Magazine owner) {
+            this(heap, 0, heap.length, sizeClass, owner, null, new AtomicInteger());
+        }
+
+        private SlabHeapBuffer(final byte[] heap, final int offs, final int cap,
+                final SizeClass sizeClass,
+                final Magazine owner,
+                final SlabHeapBuffer source,
+                final AtomicInteger shareCount) {
+            super(heap, offs, cap);
+            this.sizeClass = sizeClass;
+            this.owner = owner;
+            this.shareCount = shareCount;
+            this.source = source != null ? source : this;
+        }
+
+        @Override
+        public SlabBuffer prepare() {
+            allowBufferDispose = true;
+            free = false;
+            return this;
+        }
+
+        @Override
+        public SizeClass sizeClass() {
+            return sizeClass;
+        }
+
+        @Override
+        public Magazine owner() {
+            return owner;
+        }
+
+
+        // ------------------------------------------ Methods from HeapBuffer
+
+
+        @Override
+        public HeapBuffer asReadOnlyBuffer() {
+            final HeapBuffer b = asReadOnlyBuffer(offset, cap);
+            b.pos = pos;
+            b.lim = lim;
+            return b;
+        }
+
+        private HeapBuffer asReadOnlyBuffer(final int offset, final int cap) {
+            checkDispose();
+            onShareHeap();
+            final HeapBuffer b = new ReadOnlyHeapBuffer(heap, offset, cap) {
+                @Override
+                public void dispose() {
+                    super.dispose();
+                    SlabHeapBuffer.this.dispose0();
+                }
+
+                @Override
+                protected void onShareHeap() {
+                    SlabHeapBuffer.this.onShareHeap();
+                }
+
+                @Override
+                protected HeapBuffer createHeapBuffer(final int offset,
+                        final int capacity) {
+                    return SlabHeapBuffer.this.asReadOnlyBuffer(offset, capacity);
+                }
+            };
+
+            b.allowBufferDispose(true);
+
+            return b;
+        }
+
+        @Override
+        public void dispose() {
+            if (free) {
+                return;
+            }
+            free = true;
+            dispose0();
+        }
+
+        private void dispose0() {
+            // check shared counter optimistically
+            boolean isNotShared = shareCount.get() == 0;
+            if (!isNotShared) {
+                // try pessimistic check using CAS loop
+                isNotShared = (shareCount.getAndDecrement() == 0);
+                if (isNotShared) {
+                    // if the former check is true - the shared counter is negative,
+                    // so we have to reset it
+                    shareCount.set(0);
+                }
+            }
+
+            if (isNotShared) {
+                // we can now safely return source back to the magazine
+                source.returnToPool();
+            }
+        }
+
+        private void returnToPool() {
+            if (owner == null) {
+                // not pooled
+                return;
+            }
+
+            // restore capacity
+            cap = heap.length;
+            // clear
+            clear();
+            recycle(this);
+        }
+
+
+        // ----------------------------------------------------- Protected Methods
+
+
+        /**
+         * Override the default implementation to check the <tt>free</tt> status
+         * of this buffer (i.e., once released, operations on the buffer will no
+         * longer succeed).
+         */
+        @Override
+        protected final void checkDispose() {
+            if (free) {
+                throw new IllegalStateException(
+                        "SlabBuffer has already been disposed",
+                        disposeStackTrace);
+            }
+        }
+
+        @Override
+        protected HeapBuffer createHeapBuffer(final int offs, final int capacity) {
+            onShareHeap();
+            final SlabHeapBuffer b =
+                    new SlabHeapBuffer(heap, offs + offset, capacity,
+                            sizeClass,
+                            null, // don't keep track of the owner for child buffers
+                            source, // pass the 'parent' buffer along
+                            shareCount); // pass the shareCount
+            b.allowBufferDispose(true);
+
+            return b;
+        }
+
+        @Override
+        protected void onShareHeap() {
+            super.onShareHeap();
+            shareCount.incrementAndGet();
+        }
+
+    } // END SlabHeapBuffer
+
+    private final class SlabByteBufferWrapper extends ByteBufferWrapper
+            implements SlabBuffer {
+
+        private final SizeClass sizeClass;
+
+        // The magazine to which this Buffer instance will be returned.
+        private final Magazine owner;
+
+        // When this Buffer instance resides in the pool, this flag will
+        // be true.
+        boolean free;
+
+        // represents the number of 'child' buffers that have been created using
+        // this as the foundation.  This source buffer can't be returned
+        // to the pool unless this value is zero.
+        protected final AtomicInteger shareCount;
+
+        // represents the original buffer from the pool.  This value will be
+        // non-null in any 'child' buffers created from the original.
+        protected final SlabByteBufferWrapper source;
+
+        // Used for the special case of the split() method.  This maintains
+        // the original wrapper from the pool which must ultimately be returned.
+        private final ByteBuffer origVisible;
+
+
+        // ------------------------------------------------------------ Constructors
+
+
+        private SlabByteBufferWrapper(final ByteBuffer underlyingByteBuffer,
+                final SizeClass sizeClass, final Magazine owner) {
+            this(underlyingByteBuffer, sizeClass, owner, null, new AtomicInteger());
+        }
+
+        private SlabByteBufferWrapper(final ByteBuffer underlyingByteBuffer,
+                final SizeClass sizeClass,
+                final Magazine owner,
+                final SlabByteBufferWrapper source,
+                final AtomicInteger shareCount) {
+            super(underlyingByteBuffer);
+            this.sizeClass = sizeClass;
+            this.owner = owner;
+            this.shareCount = shareCount;
+            this.source = source != null ? source : this;
+            this.origVisible = this.source.visible;
+        }
+
+        @Override
+        public SlabBuffer prepare() {
+            allowBufferDispose = true;
+            free = false;
+            return this;
+        }
+
+        @Override
+        public SizeClass sizeClass() {
+            return sizeClass;
+        }
+
+        @Override
+        public Magazine owner() {
+            return owner;
+        }
+
+
+        // ------------------------------------------ Methods from ByteBufferWrapper
+
+
+        @Override
+        public void dispose() {
+            if (free) {
+                return;
+            }
+            free = true;
+            dispose0();
+        }
+
+        private void dispose0() {
+            // check shared counter optimistically
+            boolean isNotShared = shareCount.get() == 0;
+            if (!isNotShared) {
+                // try pessimistic check using CAS loop
+                isNotShared = (shareCount.getAndDecrement() == 0);
+                if (isNotShared) {
+                    // if the former check is true - the shared counter is negative,
+                    // so we have to reset it
+                    shareCount.set(0);
+                }
+            }
+
+            if (isNotShared) {
+                // we can now safely return source back to the magazine
+                source.returnToPool();
+            }
+        }
+
+
+        // ----------------------------------------------------- Protected Methods
+
+
+        @Override
+        protected ByteBufferWrapper wrapByteBuffer(final ByteBuffer buffer) {
+            final SlabByteBufferWrapper b =
+                    new SlabByteBufferWrapper(buffer,
+                            sizeClass,
+                            null, // don't keep track of the owner for child buffers
+                            source, // pass the 'parent' buffer along
+                            shareCount); // pass the shareCount
+            b.allowBufferDispose(true);
+            shareCount.incrementAndGet();
+
+            return b;
+        }
+
+        /**
+         * Override the default implementation to check the <tt>free</tt> status
+         * of this buffer (i.e., once released, operations on the buffer will no
+         * longer succeed).
+         */
+        @Override
+        protected final void checkDispose() {
+            if (free) {
+                throw new IllegalStateException(
+                        "SlabBuffer has already been disposed",
+                        disposeStackTrace);
+            }
+        }
+
+
+        // ----------------------------------------------------- Private Methods
+
+
+        private void returnToPool() {
+            if (owner == null) {
+                // not pooled
+                return;
+            }
+
+            // should be called on "source" only
+            visible = origVisible;
+            visible.clear();
+            recycle(this);
+        }
+
+    } // END SlabByteBufferWrapper
+}
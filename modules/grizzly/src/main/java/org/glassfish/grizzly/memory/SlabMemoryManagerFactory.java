@@ -0,0 +1,86 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+/**
+ * {@link DefaultMemoryManagerFactory}, which creates {@link SlabMemoryManager}.
+ *
+ * Set the {@value #DMMF_PROP_NAME} system property to this class name in order
+ * to use {@link SlabMemoryManager} as the
+ * {@link MemoryManager#DEFAULT_MEMORY_MANAGER}.
+ * The {@link SlabMemoryManager} settings could be customized using the
+ * following system properties (the prefix is this class name):
+ * <ul>
+ *     <li><tt>.base-buffer-size</tt> - the buffer size of the 1st size class</li>
+ *     <li><tt>.size-classes</tt> - the number of size classes</li>
+ *     <li><tt>.growth-factor</tt> - the buffer size growth factor</li>
+ *     <li><tt>.magazine-size</tt> - the max number of free buffers every thread keeps per size class</li>
+ *     <li><tt>.return-batch-size</tt> - the number of buffers returned to the owner thread at once</li>
+ *     <li><tt>.max-arena-size</tt> - the max number of bytes to be pooled</li>
+ *     <li><tt>.direct</tt> - <tt>true</tt>, if direct {@link org.glassfish.grizzly.Buffer}s have to be allocated</li>
+ * </ul>
+ *
+ * @since 2.3.18
+ */
+public class SlabMemoryManagerFactory implements DefaultMemoryManagerFactory {
+
+    private static final String PROP_PREFIX =
+            SlabMemoryManagerFactory.class.getName();
+
+    @Override
+    public MemoryManager createMemoryManager() {
+        return new SlabMemoryManager(
+                Integer.getInteger(PROP_PREFIX + ".base-buffer-size",
+                        SlabMemoryManager.DEFAULT_BASE_BUFFER_SIZE),
+                Integer.getInteger(PROP_PREFIX + ".size-classes",
+                        SlabMemoryManager.DEFAULT_NUMBER_OF_SIZE_CLASSES),
+                Integer.getInteger(PROP_PREFIX + ".growth-factor",
+                        SlabMemoryManager.DEFAULT_GROWTH_FACTOR),
+                Integer.getInteger(PROP_PREFIX + ".magazine-size",
+                        SlabMemoryManager.DEFAULT_MAGAZINE_SIZE),
+                Integer.getInteger(PROP_PREFIX + ".return-batch-size",
+                        SlabMemoryManager.DEFAULT_RETURN_BATCH_SIZE),
+                Long.getLong(PROP_PREFIX + ".max-arena-size",
+                        (long) (Runtime.getRuntime().maxMemory() *
+                        SlabMemoryManager.DEFAULT_HEAP_USAGE_PERCENTAGE)),
+                Boolean.getBoolean(PROP_PREFIX + ".direct"));
+    }
+}
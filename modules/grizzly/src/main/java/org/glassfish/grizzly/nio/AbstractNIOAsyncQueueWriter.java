@@ -254,6 +254,22 @@ public abstract class AbstractNIOAsyncQueueWriter
                 return;
             }
 
+            if (isCorked(nioConnection)) {
+                // Cork mode: postpone the write, so the record will be
+                // written together with the following ones
+                queueRecord.setMessage(
+                        cloneRecordIfNeeded(nioConnection, cloner, message));
+
+                if (isCurrent) {
+                    writeTaskQueue.setCurrentElement(queueRecord);
+                } else {
+                    writeTaskQueue.offer(queueRecord);
+                }
+
+                onCorkedWrite(nioConnection, isCurrent, pendingBytes);
+                return;
+            }
+
             if (isCurrent && isAllowDirectWrite) {
 
                 // If we can write directly - do it w/o creating queue record (simple)
@@ -523,6 +539,76 @@ public abstract class AbstractNIOAsyncQueueWriter
     protected abstract void onReadyToWrite(NIOConnection connection)
             throws IOException;
 
+    /**
+     * Returns <tt>true</tt>, if the writes to the {@link NIOConnection},
+     * initiated by the current thread, have to be postponed and
+     * written later by {@link #flushCorked(org.glassfish.grizzly.nio.NIOConnection)},
+     * or <tt>false</tt> otherwise.
+     */
+    protected boolean isCorked(final NIOConnection connection) {
+        return false;
+    }
+
+    /**
+     * The method is called, when a record was added to the corked
+     * {@link NIOConnection}'s write queue.
+     * 
+     * @param connection the corked {@link NIOConnection}
+     * @param isCurrent <tt>true</tt>, if the record became the current record
+     *          of the write queue, so the caller is responsible for flushing it
+     * @param pendingBytes the number of bytes pending in the write queue
+     */
+    protected void onCorkedWrite(final NIOConnection connection,
+            final boolean isCurrent, final int pendingBytes) {
+    }
+
+    /**
+     * Writes the records, postponed while the {@link NIOConnection} was corked,
+     * aggregating them with {@link #aggregate(org.glassfish.grizzly.asyncqueue.TaskQueue)}
+     * so they are written using as few write operations as possible.
+     * The caller has to be responsible for the write queue's current record.
+     */
+    protected final void flushCorked(final NIOConnection nioConnection) {
+        final TaskQueue<AsyncWriteQueueRecord> writeTaskQueue =
+                nioConnection.getAsyncWriteQueue();
+
+        int bytesReleased = 0;
+        AsyncWriteQueueRecord queueRecord = null;
+        try {
+            while ((queueRecord = aggregate(writeTaskQueue)) != null) {
+                final RecordWriteResult writeResult = write0(nioConnection, queueRecord);
+                bytesReleased += (int) writeResult.bytesToReleaseAfterLastWrite();
+
+                if (!queueRecord.isFinished()) {
+                    queueRecord.notifyIncomplete();
+                    writeTaskQueue.setCurrentElement(queueRecord);
+                    writeTaskQueue.releaseSpaceAndNotify(bytesReleased);
+                    onReadyToWrite(nioConnection);
+                    return;
+                }
+
+                finishQueueRecord(nioConnection, queueRecord);
+            }
+
+            if (writeTaskQueue.releaseSpaceAndNotify(bytesReleased) != 0) {
+                // records were added by other threads after the last aggregation
+                nioConnection.simulateIOEvent(IOEvent.WRITE);
+            }
+        } catch (IOException e) {
+            if (LOGGER.isLoggable(Level.FINEST)) {
+                LOGGER.log(Level.FINEST,
+                        "AsyncQueueWriter.flushCorked exception. connection=" +
+                        nioConnection + " record=" + queueRecord, e);
+            }
+
+            if (queueRecord != null) {
+                onWriteFailure(nioConnection, queueRecord, e);
+            } else {
+                nioConnection.closeSilently();
+            }
+        }
+    }
+
     /**
      * Aggregates records in a queue to be written as one chunk.
      */
@@ -43,12 +43,20 @@ package org.glassfish.grizzly.nio;
 import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.glassfish.grizzly.ThreadCache;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 
 /**
  * Thread-local Direct {@link ByteBuffer} storage.
  *
+ * Virtual threads don't have the thread-local cache (see {@link ThreadCache}),
+ * so they take the records from the small shared pool, bounded by the number
+ * of the carrier threads, and return them on {@link #release()}.
+ *
  * @author Alexey Stashok
  */
 public final class DirectByteBufferRecord {
@@ -56,17 +64,54 @@ public final class DirectByteBufferRecord {
     private static final ThreadCache.CachedTypeIndex<DirectByteBufferRecord> CACHE_IDX =
             ThreadCache.obtainIndex("direct-buffer-cache", DirectByteBufferRecord.class, 1);
 
+    private static final int MAX_SHARED_POOL_SIZE =
+            Runtime.getRuntime().availableProcessors() * 2;
+    private static final Queue<DirectByteBufferRecord> SHARED_POOL =
+            new ConcurrentLinkedQueue<DirectByteBufferRecord>();
+    private static final AtomicInteger SHARED_POOL_SIZE = new AtomicInteger();
+
     public static DirectByteBufferRecord get() {
+        final Thread currentThread = Thread.currentThread();
+        if (VirtualThreads.isVirtual(currentThread)) {
+            return takeShared();
+        }
+        
         final DirectByteBufferRecord record =
-                ThreadCache.getFromCache(CACHE_IDX);
+                ThreadCache.getFromCache(currentThread, CACHE_IDX);
         if (record != null) {
             return record;
         }
         final DirectByteBufferRecord recordLocal = new DirectByteBufferRecord();
-        ThreadCache.putToCache(CACHE_IDX, recordLocal);
+        ThreadCache.putToCache(currentThread, CACHE_IDX, recordLocal);
         return recordLocal;
     }
     
+    private static DirectByteBufferRecord takeShared() {
+        final DirectByteBufferRecord record = SHARED_POOL.poll();
+        if (record == null) {
+            final DirectByteBufferRecord recordLocal = new DirectByteBufferRecord();
+            recordLocal.isShared = true;
+            return recordLocal;
+        }
+        
+        SHARED_POOL_SIZE.decrementAndGet();
+        record.isInSharedPool = false;
+        return record;
+    }
+    
+    private static void returnShared(final DirectByteBufferRecord record) {
+        if (record.isInSharedPool) {
+            return;
+        }
+        
+        if (SHARED_POOL_SIZE.incrementAndGet() <= MAX_SHARED_POOL_SIZE) {
+            record.isInSharedPool = true;
+            SHARED_POOL.offer(record);
+        } else {
+            SHARED_POOL_SIZE.decrementAndGet();
+        }
+    }
+    
     
     private ByteBuffer directBuffer;
     private int sliceOffset;
@@ -74,6 +119,10 @@ public final class DirectByteBufferRecord {
     private SoftReference<ByteBuffer> softRef;
     private ByteBuffer array[];
     private int arraySize;
+    
+    // true, if the record belongs to the virtual threads shared pool
+    private boolean isShared;
+    private boolean isInSharedPool;
 
     DirectByteBufferRecord() {
         array = new ByteBuffer[8];
@@ -92,7 +141,11 @@ public final class DirectByteBufferRecord {
         if ((byteBuffer = switchToStrong()) != null && byteBuffer.remaining() >= size) {
             return byteBuffer;
         } else {
-            byteBuffer = ByteBuffer.allocateDirect(size);
+            // grow geometrically, so the staging buffer is reused across
+            // the writes of slightly different sizes
+            byteBuffer = ByteBuffer.allocateDirect(byteBuffer != null
+                    ? Math.max(size, byteBuffer.capacity() + (byteBuffer.capacity() >> 1))
+                    : size);
             reset(byteBuffer);
             return byteBuffer;
         }
@@ -137,6 +190,10 @@ public final class DirectByteBufferRecord {
         arraySize = 0;
         directBufferSlice = null;
         sliceOffset = 0;
+        
+        if (isShared) {
+            returnShared(this);
+        }
     }
 
     ByteBuffer switchToStrong() {
@@ -0,0 +1,210 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.nio.transport;
+
+import java.net.SocketAddress;
+import java.util.Arrays;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.asyncqueue.WritableMessage;
+
+/**
+ * The batch of datagrams, each of them associated with a peer address.
+ *
+ * In the batched read mode (see {@link UDPNIOTransport#setReadBatchSize(int)})
+ * {@link UDPNIOTransport} passes the datagrams, received during one
+ * {@link org.glassfish.grizzly.IOEvent#READ} event, to the
+ * {@link org.glassfish.grizzly.filterchain.FilterChain} as a <tt>DatagramBatch</tt>,
+ * where each datagram is associated with its source address.
+ *
+ * A <tt>DatagramBatch</tt> could be written as well, in which case each
+ * datagram is sent to its associated address, or, if the address is
+ * <tt>null</tt>, to the destination address of the write operation.
+ *
+ * @since 2.3.18
+ */
+public final class DatagramBatch implements WritableMessage {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Buffer[] datagrams;
+    private SocketAddress[] addresses;
+    private int size;
+    // the index of the first datagram, which hasn't been written completely
+    private int writeIndex;
+
+    public DatagramBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DatagramBatch(final int initialCapacity) {
+        final int capacity = Math.max(1, initialCapacity);
+        datagrams = new Buffer[capacity];
+        addresses = new SocketAddress[capacity];
+    }
+
+    /**
+     * Adds the datagram to the batch.
+     *
+     * @param datagram the datagram content
+     * @param address the peer address (source address for the received
+     *          datagrams, destination address for the datagrams to be sent)
+     */
+    public void add(final Buffer datagram, final SocketAddress address) {
+        if (datagram == null) {
+            throw new IllegalArgumentException("datagram can't be null");
+        }
+
+        if (size == datagrams.length) {
+            final int newCapacity = size << 1;
+            datagrams = Arrays.copyOf(datagrams, newCapacity);
+            addresses = Arrays.copyOf(addresses, newCapacity);
+        }
+
+        datagrams[size] = datagram;
+        addresses[size] = address;
+        size++;
+    }
+
+    /**
+     * Returns the number of datagrams in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the batch doesn't contain any datagram.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the content of the datagram with the given index.
+     */
+    public Buffer getDatagram(final int index) {
+        checkIndex(index);
+        return datagrams[index];
+    }
+
+    /**
+     * Returns the peer address associated with the datagram with the given index.
+     */
+    public SocketAddress getAddress(final int index) {
+        checkIndex(index);
+        return addresses[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasRemaining() {
+        for (int i = writeIndex; i < size; i++) {
+            if (datagrams[i].hasRemaining()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int remaining() {
+        int remaining = 0;
+        for (int i = writeIndex; i < size; i++) {
+            remaining += datagrams[i].remaining();
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Disposes the datagrams' {@link Buffer}s and clears the batch.
+     */
+    @Override
+    public boolean release() {
+        for (int i = 0; i < size; i++) {
+            datagrams[i].tryDispose();
+            datagrams[i] = null;
+            addresses[i] = null;
+        }
+
+        size = 0;
+        writeIndex = 0;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isExternal() {
+        return false;
+    }
+
+    /**
+     * Returns the index of the first datagram, which hasn't been sent yet.
+     */
+    int getWriteIndex() {
+        return writeIndex;
+    }
+
+    /**
+     * Marks the datagram with the current write index as sent.
+     */
+    void onDatagramWritten() {
+        writeIndex++;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + " size=" + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DatagramBatch{size=" + size + ", remaining=" + remaining() + '}';
+    }
+}
@@ -59,6 +59,7 @@ import org.glassfish.grizzly.IOEvent;
 import org.glassfish.grizzly.WriteResult;
 import org.glassfish.grizzly.asyncqueue.AsyncQueueWriter;
 import org.glassfish.grizzly.asyncqueue.AsyncWriteQueueRecord;
+import org.glassfish.grizzly.asyncqueue.ChannelWritableMessage;
 import org.glassfish.grizzly.asyncqueue.RecordWriteResult;
 import org.glassfish.grizzly.asyncqueue.TaskQueue;
 import org.glassfish.grizzly.asyncqueue.WritableMessage;
@@ -83,6 +84,70 @@ public final class TCPNIOAsyncQueueWriter extends AbstractNIOAsyncQueueWriter {
         super(transport);
     }
 
+    /**
+     * Corks the {@link TCPNIOConnection}, so the writes initiated by the
+     * current thread are postponed until {@link #uncork(org.glassfish.grizzly.nio.transport.TCPNIOConnection)}
+     * is called, and then written using gathering writes.
+     * The postponed writes are flushed earlier, if their size exceeds the
+     * connection's write buffer size.
+     * 
+     * @return <tt>true</tt> if the connection was corked, so the caller
+     *          has to uncork it, or <tt>false</tt> if the connection has
+     *          already been corked by another thread
+     */
+    boolean cork(final TCPNIOConnection connection) {
+        final Thread currentThread = Thread.currentThread();
+        if (connection.corkThread == currentThread) {
+            connection.corkDepth++;
+            return true;
+        }
+        
+        if (!TCPNIOConnection.CORK_THREAD_UPDATER.compareAndSet(
+                connection, null, currentThread)) {
+            return false;
+        }
+        
+        connection.corkDepth = 1;
+        return true;
+    }
+
+    /**
+     * Uncorks the {@link TCPNIOConnection} and flushes the postponed writes.
+     */
+    void uncork(final TCPNIOConnection connection) {
+        if (--connection.corkDepth > 0) {
+            return;
+        }
+        
+        connection.corkThread = null;
+        
+        if (connection.hasCorkedWrites) {
+            connection.hasCorkedWrites = false;
+            flushCorked(connection);
+        }
+    }
+
+    @Override
+    protected boolean isCorked(final NIOConnection connection) {
+        return ((TCPNIOConnection) connection).corkThread == Thread.currentThread();
+    }
+
+    @Override
+    protected void onCorkedWrite(final NIOConnection connection,
+            final boolean isCurrent, final int pendingBytes) {
+        final TCPNIOConnection tcpConnection = (TCPNIOConnection) connection;
+        if (isCurrent) {
+            tcpConnection.hasCorkedWrites = true;
+        }
+        
+        if (tcpConnection.hasCorkedWrites
+                && pendingBytes >= tcpConnection.getWriteBufferSize()) {
+            // don't accumulate more than the socket is able to take at once
+            tcpConnection.hasCorkedWrites = false;
+            flushCorked(connection);
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected RecordWriteResult write0(final NIOConnection connection,
@@ -140,6 +205,10 @@ public final class TCPNIOAsyncQueueWriter extends AbstractNIOAsyncQueueWriter {
         } else if (message instanceof FileTransfer) {
             written = ((FileTransfer) message).writeTo((SocketChannel) connection.getChannel());
             ((TCPNIOConnection) connection).onWrite(null, written);
+        } else if (message instanceof ChannelWritableMessage) {
+            written = ((ChannelWritableMessage) message).writeTo(
+                    (SocketChannel) connection.getChannel());
+            ((TCPNIOConnection) connection).onWrite(null, written);
         } else {
             throw new IllegalStateException("Unhandled message type");
         }
@@ -179,7 +248,8 @@ public final class TCPNIOAsyncQueueWriter extends AbstractNIOAsyncQueueWriter {
             try {
                 final SocketChannel socketChannel = (SocketChannel) connection.getChannel();
 
-                fill(queueRecord, bufferSize, directByteBufferRecord);
+                final int copied = fill(queueRecord, bufferSize,
+                        directByteBufferRecord);
                 directByteBufferRecord.finishBufferSlice();
 
                 final int arraySize = directByteBufferRecord.getArraySize();
@@ -191,6 +261,8 @@ public final class TCPNIOAsyncQueueWriter extends AbstractNIOAsyncQueueWriter {
 
                         TCPNIOUtils.flushByteBuffers(
                         socketChannel, directByteBufferRecord.getArray(), 0, arraySize) ;
+                
+                TCPNIOUtils.onWrite((TCPNIOConnection) connection, copied, written);
 
             } catch (IOException e) {
                 // Mark connection as closed remotely.
@@ -205,7 +277,7 @@ public final class TCPNIOAsyncQueueWriter extends AbstractNIOAsyncQueueWriter {
         return update(queueRecord, written);
     }
     
-    private static void fill(final CompositeQueueRecord queueRecord,
+    private static int fill(final CompositeQueueRecord queueRecord,
             final int totalBufferSize,            
             final DirectByteBufferRecord ioRecord) {
         
@@ -214,6 +286,7 @@ public final class TCPNIOAsyncQueueWriter extends AbstractNIOAsyncQueueWriter {
 //        dstByteBuffer.limit(0);
 
         int totalRemaining = totalBufferSize;
+        int copied = 0;
         final Deque<AsyncWriteQueueRecord> queue = queueRecord.queue;
         final ArrayList<BufferArray> savedBufferStates = queueRecord.savedBufferStates;
         
@@ -237,10 +310,12 @@ public final class TCPNIOAsyncQueueWriter extends AbstractNIOAsyncQueueWriter {
                     message.toBufferArray(pos, pos + totalRemaining);
 
             savedBufferStates.add(bufferArray);
-            TCPNIOUtils.fill(bufferArray, totalRemaining, ioRecord);
+            copied += TCPNIOUtils.fill(bufferArray, totalRemaining, ioRecord);
             
             totalRemaining -= messageRemaining;
         }
+        
+        return copied;
     }
     
     private RecordWriteResult update(final CompositeQueueRecord queueRecord,
@@ -41,14 +41,24 @@
 package org.glassfish.grizzly.nio.transport;
 
 import org.glassfish.grizzly.AbstractBindingHandler;
+import org.glassfish.grizzly.CloseListener;
+import org.glassfish.grizzly.CloseType;
+import org.glassfish.grizzly.Closeable;
 import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.localization.LogMessages;
 import org.glassfish.grizzly.utils.Exceptions;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.ServerSocket;
 import java.net.SocketAddress;
 import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This class may be used to apply a custom {@link org.glassfish.grizzly.Processor} and/or {@link org.glassfish.grizzly.ProcessorSelector}
@@ -64,6 +74,34 @@ import java.util.concurrent.locks.Lock;
  */
 public class TCPNIOBindingHandler extends AbstractBindingHandler {
 
+    private static final Logger LOGGER = Grizzly.logger(TCPNIOBindingHandler.class);
+
+    /**
+     * JDK 9+ StandardSocketOptions.SO_REUSEPORT and
+     * ServerSocketChannel.setOption(SocketOption, Object), resolved via reflection
+     * to keep the JDK 1.6 compatibility.
+     */
+    private static final Object SO_REUSEPORT_OPTION;
+    private static final Method SET_OPTION_METHOD;
+
+    static {
+        Object reusePortOption = null;
+        Method setOptionMethod = null;
+        try {
+            reusePortOption = Class.forName("java.net.StandardSocketOptions")
+                    .getField("SO_REUSEPORT").get(null);
+            setOptionMethod = ServerSocketChannel.class.getMethod("setOption",
+                    Class.forName("java.net.SocketOption"), Object.class);
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, "SO_REUSEPORT option is not available", t);
+            reusePortOption = null;
+            setOptionMethod = null;
+        }
+
+        SO_REUSEPORT_OPTION = reusePortOption;
+        SET_OPTION_METHOD = setOptionMethod;
+    }
+
     private final TCPNIOTransport tcpTransport;
 
     // ------------------------------------------------------------ Constructors
@@ -85,10 +123,16 @@ public class TCPNIOBindingHandler extends AbstractBindingHandler {
 
     @Override
     public TCPNIOServerConnection bind(SocketAddress socketAddress, int backlog) throws IOException {
+        final int acceptorChannelsCount = tcpTransport.getAcceptorChannelsCount();
+        if (acceptorChannelsCount > 1) {
+            return bindReusePort(socketAddress, backlog, acceptorChannelsCount);
+        }
+        
         return bindToChannelAndAddress(
                 tcpTransport.getSelectorProvider().openServerSocketChannel(),
                 socketAddress,
-                backlog);
+                backlog,
+                -1);
     }
 
     @Override
@@ -96,6 +140,7 @@ public class TCPNIOBindingHandler extends AbstractBindingHandler {
         return bindToChannelAndAddress(
                 this.<ServerSocketChannel>getSystemInheritedChannel(ServerSocketChannel.class),
                 null,
+                -1,
                 -1);
     }
 
@@ -112,9 +157,100 @@ public class TCPNIOBindingHandler extends AbstractBindingHandler {
     // --------------------------------------------------------- Private Methods
 
 
+    /**
+     * Binds <tt>acceptorChannelsCount</tt> server channels to the same address
+     * using SO_REUSEPORT. The first channel is returned as the server
+     * {@link Connection} representing the binding, the rest of the channels
+     * are closed together with it.
+     * If SO_REUSEPORT is not supported - falls back to a single server channel.
+     */
+    private TCPNIOServerConnection bindReusePort(final SocketAddress socketAddress,
+                                                 final int backlog,
+                                                 final int acceptorChannelsCount)
+    throws IOException {
+        final ServerSocketChannel serverSocketChannel =
+                tcpTransport.getSelectorProvider().openServerSocketChannel();
+        
+        if (!enableReusePort(serverSocketChannel)) {
+            LOGGER.log(Level.WARNING,
+                    LogMessages.WARNING_GRIZZLY_SOCKET_REUSEPORT_UNSUPPORTED(socketAddress));
+            return bindToChannelAndAddress(serverSocketChannel,
+                    socketAddress, backlog, -1);
+        }
+        
+        final Lock lock = tcpTransport.getState().getStateLocker().writeLock();
+        lock.lock();
+        try {
+            final TCPNIOServerConnection serverConnection =
+                    bindToChannelAndAddress(serverSocketChannel,
+                    socketAddress, backlog, 0);
+            
+            // use the actual address, the port might have been chosen by the OS
+            final SocketAddress boundAddress =
+                    serverSocketChannel.socket().getLocalSocketAddress();
+            
+            final List<TCPNIOServerConnection> acceptors =
+                    new ArrayList<TCPNIOServerConnection>(acceptorChannelsCount - 1);
+            try {
+                for (int i = 1; i < acceptorChannelsCount; i++) {
+                    final ServerSocketChannel acceptorChannel =
+                            tcpTransport.getSelectorProvider().openServerSocketChannel();
+                    if (!enableReusePort(acceptorChannel)) {
+                        acceptorChannel.close();
+                        throw new IOException("Can not set SO_REUSEPORT");
+                    }
+
+                    acceptors.add(bindToChannelAndAddress(acceptorChannel,
+                            boundAddress, backlog, i));
+                }
+            } catch (IOException e) {
+                for (TCPNIOServerConnection acceptor : acceptors) {
+                    tcpTransport.unbind(acceptor);
+                }
+                tcpTransport.unbind(serverConnection);
+                
+                throw e;
+            }
+            
+            serverConnection.addCloseListener(new CloseListener<Closeable, CloseType>() {
+                @Override
+                public void onClosed(final Closeable closeable,
+                        final CloseType type) throws IOException {
+                    for (TCPNIOServerConnection acceptor : acceptors) {
+                        if (tcpTransport.serverConnections.remove(acceptor)) {
+                            acceptor.closeSilently();
+                        }
+                    }
+                }
+            });
+            
+            return serverConnection;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean enableReusePort(
+            final ServerSocketChannel serverSocketChannel) {
+        if (SET_OPTION_METHOD == null) {
+            return false;
+        }
+        
+        try {
+            SET_OPTION_METHOD.invoke(serverSocketChannel,
+                    SO_REUSEPORT_OPTION, Boolean.TRUE);
+            return true;
+        } catch (Exception e) {
+            // UnsupportedOperationException on platforms without SO_REUSEPORT
+            LOGGER.log(Level.FINE, "Can not set SO_REUSEPORT", e);
+            return false;
+        }
+    }
+
     private TCPNIOServerConnection bindToChannelAndAddress(final ServerSocketChannel serverSocketChannel,
                                                            final SocketAddress socketAddress,
-                                                           final int backlog)
+                                                           final int backlog,
+                                                           final int acceptorIndex)
     throws IOException {
         TCPNIOServerConnection serverConnection = null;
 
@@ -137,6 +273,7 @@ public class TCPNIOBindingHandler extends AbstractBindingHandler {
             serverConnection = tcpTransport.obtainServerNIOConnection(serverSocketChannel);
             serverConnection.setProcessor(getProcessor());
             serverConnection.setProcessorSelector(getProcessorSelector());
+            serverConnection.acceptorIndex = acceptorIndex;
             tcpTransport.serverConnections.add(serverConnection);
             serverConnection.resetProperties();
 
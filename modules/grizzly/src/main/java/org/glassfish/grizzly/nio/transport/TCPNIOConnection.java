@@ -46,6 +46,7 @@ import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.glassfish.grizzly.*;
@@ -66,12 +67,30 @@ import org.glassfish.grizzly.utils.NullaryFunction;
 public class TCPNIOConnection extends NIOConnection {
     private static final Logger LOGGER = Grizzly.logger(TCPNIOConnection.class);
 
+    private static final int INITIAL_ADAPTIVE_READ_BUFFER_SIZE = 2048;
+
+    static final AtomicReferenceFieldUpdater<TCPNIOConnection, Thread> CORK_THREAD_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(TCPNIOConnection.class,
+            Thread.class, "corkThread");
+
     Holder<SocketAddress> localSocketAddressHolder;
     Holder<SocketAddress> peerSocketAddressHolder;
 
     private int readBufferSize = -1;
     private int writeBufferSize = -1;
 
+    // the adaptive read buffer size, 0 if not initialized yet
+    private int adaptiveReadBufferSize;
+    // true, if the previous read was small enough to shrink the read buffer
+    private boolean isReadBufferShrinkPending;
+
+    // the thread, which corked the connection writes, or null if not corked
+    volatile Thread corkThread;
+    // the cork nesting level, accessed by the corkThread only
+    int corkDepth;
+    // true, if the corkThread is responsible for flushing the postponed writes
+    boolean hasCorkedWrites;
+
     private AtomicReference<ConnectResultHandler> connectHandlerRef;
 
     public TCPNIOConnection(TCPNIOTransport transport,
@@ -198,6 +217,73 @@ public class TCPNIOConnection extends NIOConnection {
         }
     }
 
+    /**
+     * Returns the size of the buffer to be allocated for the next read.
+     * If the adaptive read buffer sizing is on
+     * (see {@link TCPNIOTransport#isAdaptiveReadBufferSizing()}), the size
+     * depends on the sizes of the recent reads, otherwise it's
+     * {@link #getReadBufferSize()}.
+     * The result never exceeds {@link TCPNIOTransport#MAX_RECEIVE_BUFFER_SIZE}.
+     */
+    int getReadAllocationSize() {
+        final int maxSize = Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
+                getReadBufferSize());
+        
+        final TCPNIOTransport tcpTransport = (TCPNIOTransport) transport;
+        if (!tcpTransport.isAdaptiveReadBufferSizing()) {
+            return maxSize;
+        }
+        
+        if (adaptiveReadBufferSize == 0) {
+            adaptiveReadBufferSize = Math.max(
+                    tcpTransport.getMinAdaptiveReadBufferSize(),
+                    Math.min(INITIAL_ADAPTIVE_READ_BUFFER_SIZE, maxSize));
+        }
+        
+        return Math.min(adaptiveReadBufferSize, maxSize);
+    }
+
+    /**
+     * Adjusts the adaptive read buffer size according to the last read
+     * result: the size grows fast, if the buffer was filled up completely,
+     * and shrinks by half, if two reads in a row used less than half of
+     * the buffer.
+     * 
+     * @param allocationSize the size returned by {@link #getReadAllocationSize()}
+     * @param read the number of bytes read
+     */
+    void onReadAllocation(final int allocationSize, final int read) {
+        final TCPNIOTransport tcpTransport = (TCPNIOTransport) transport;
+        if (!tcpTransport.isAdaptiveReadBufferSizing() || read < 0) {
+            return;
+        }
+        
+        final int oldSize = adaptiveReadBufferSize;
+        int newSize = oldSize;
+        
+        if (read >= allocationSize) {
+            isReadBufferShrinkPending = false;
+            newSize = Math.min(oldSize << 2,
+                    Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
+                            getReadBufferSize()));
+        } else if (read <= (allocationSize >> 1)) {
+            if (isReadBufferShrinkPending) {
+                isReadBufferShrinkPending = false;
+                newSize = Math.max(oldSize >> 1,
+                        tcpTransport.getMinAdaptiveReadBufferSize());
+            } else {
+                isReadBufferShrinkPending = true;
+            }
+        } else {
+            isReadBufferShrinkPending = false;
+        }
+        
+        if (newSize != oldSize && newSize > 0) {
+            adaptiveReadBufferSize = newSize;
+            tcpTransport.onReadBufferSizeChanged(this, newSize);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -70,6 +70,12 @@ public final class TCPNIOServerConnection extends TCPNIOConnection {
     private FutureImpl<Connection> acceptListener;
     private final RegisterAcceptedChannelCompletionHandler defaultCompletionHandler;
     private final Object acceptSync = new Object();
+    /**
+     * The index of the acceptor channel, if the connection is one of the
+     * server channels bound to the same address using SO_REUSEPORT,
+     * or <tt>-1</tt> otherwise.
+     */
+    int acceptorIndex = -1;
 
     public TCPNIOServerConnection(TCPNIOTransport transport,
             ServerSocketChannel serverSocketChannel) {
@@ -85,10 +91,20 @@ public final class TCPNIOServerConnection extends TCPNIOConnection {
         final FutureImpl<RegisterChannelResult> future =
                 SafeFutureImpl.create();
         
-        transport.getNIOChannelDistributor().registerServiceChannelAsync(
-                channel, SelectionKey.OP_ACCEPT, this,
+        final CompletionHandler<RegisterChannelResult> completionHandler =
                 new CompletionHandlerAdapter<RegisterChannelResult, RegisterChannelResult>(
-                future, registerCompletionHandler));
+                future, registerCompletionHandler);
+        
+        if (acceptorIndex == -1) {
+            transport.getNIOChannelDistributor().registerServiceChannelAsync(
+                    channel, SelectionKey.OP_ACCEPT, this, completionHandler);
+        } else {
+            // SO_REUSEPORT acceptor channels are pinned to different selector
+            // threads, otherwise they'd compete for the same accept loop
+            transport.getSelectorHandler().registerChannelAsync(
+                    ((TCPNIOTransport) transport).getAcceptorSelectorRunner(acceptorIndex),
+                    channel, SelectionKey.OP_ACCEPT, this, completionHandler);
+        }
         try {
             future.get(10, TimeUnit.SECONDS);
         } catch (ExecutionException e) {
@@ -76,6 +76,7 @@ import org.glassfish.grizzly.monitoring.MonitoringUtils;
 import org.glassfish.grizzly.nio.*;
 import org.glassfish.grizzly.nio.tmpselectors.TemporarySelectorIO;
 import org.glassfish.grizzly.nio.tmpselectors.TemporarySelectorsEnabledTransport;
+import org.glassfish.grizzly.utils.StripedLongCounter;
 
 /**
  * TCP Transport NIO implementation
@@ -108,6 +109,10 @@ public final class TCPNIOTransport extends NIOTransport implements
     public static final boolean DEFAULT_KEEP_ALIVE = true;
     public static final int DEFAULT_LINGER = -1;
     public static final int DEFAULT_SERVER_CONNECTION_BACKLOG = 4096;
+    public static final boolean DEFAULT_ADAPTIVE_READ_BUFFER_SIZING = false;
+    public static final int DEFAULT_MIN_ADAPTIVE_READ_BUFFER_SIZE = 256;
+    public static final int DEFAULT_ACCEPTOR_CHANNELS_COUNT = 1;
+    public static final boolean DEFAULT_WRITE_CORKING = false;
 
     private static final String DEFAULT_TRANSPORT_NAME = "TCPNIOTransport";
     /**
@@ -137,6 +142,22 @@ public final class TCPNIOTransport extends NIOTransport implements
      * The socket keepAlive mode.
      */
     boolean isKeepAlive = DEFAULT_KEEP_ALIVE;
+    /**
+     * Adaptive read buffer sizing mode.
+     */
+    boolean isAdaptiveReadBufferSizing = DEFAULT_ADAPTIVE_READ_BUFFER_SIZING;
+    /**
+     * The min read buffer size in the adaptive read buffer sizing mode.
+     */
+    int minAdaptiveReadBufferSize = DEFAULT_MIN_ADAPTIVE_READ_BUFFER_SIZE;
+    /**
+     * The number of server channels bound to the same address using SO_REUSEPORT.
+     */
+    int acceptorChannelsCount = DEFAULT_ACCEPTOR_CHANNELS_COUNT;
+    /**
+     * Write corking mode.
+     */
+    boolean isWriteCorking = DEFAULT_WRITE_CORKING;
 
     private final Filter defaultTransportFilter;
     final RegisterChannelCompletionHandler selectorRegistrationHandler;
@@ -150,6 +171,16 @@ public final class TCPNIOTransport extends NIOTransport implements
     private final TCPNIOBindingHandler bindingHandler =
             new TCPNIOBindingHandler(this);
 
+    /**
+     * The copied vs. zero-copy written bytes statistics. The counters are
+     * striped, so the write path mostly doesn't update memory shared by
+     * the threads.
+     */
+    private final StripedLongCounter writtenBytesCopied =
+            new StripedLongCounter();
+    private final StripedLongCounter writtenBytesZeroCopy =
+            new StripedLongCounter();
+
     public TCPNIOTransport() {
         this(DEFAULT_TRANSPORT_NAME);
     }
@@ -202,6 +233,16 @@ public final class TCPNIOTransport extends NIOTransport implements
         serverConnection.listen();
     }
 
+    /**
+     * Returns the {@link SelectorRunner} to be used by the acceptor channel
+     * with the given index, so the server channels bound with SO_REUSEPORT
+     * are spread among the transport's selector threads.
+     */
+    SelectorRunner getAcceptorSelectorRunner(final int acceptorIndex) {
+        final SelectorRunner[] runners = getSelectorRunners();
+        return runners[acceptorIndex % runners.length];
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -498,6 +539,159 @@ public final class TCPNIOTransport extends NIOTransport implements
         this.serverConnectionBackLog = serverConnectionBackLog;
     }
 
+    /**
+     * Returns <tt>true</tt>, if the adaptive read buffer sizing mode is on,
+     * or <tt>false</tt> otherwise.
+     * In the adaptive mode each {@link TCPNIOConnection} tracks the sizes of
+     * the recent reads and adjusts the size of the buffer allocated for the
+     * next read between {@link #getMinAdaptiveReadBufferSize()} and
+     * {@link #getReadBufferSize()}.
+     * Otherwise the read buffer size is always {@link #getReadBufferSize()}.
+     * <p>
+     * Please note, the mode reduces the memory footprint only if the
+     * {@link org.glassfish.grizzly.memory.MemoryManager} allocates direct
+     * read buffers. Otherwise the data is read into the thread's direct
+     * staging buffer and copied to a heap buffer of exactly the read size,
+     * so the mode only changes the staging buffer size.
+     */
+    public boolean isAdaptiveReadBufferSizing() {
+        return isAdaptiveReadBufferSizing;
+    }
+
+    /**
+     * Turns the adaptive read buffer sizing mode on/off.
+     * 
+     * @see #isAdaptiveReadBufferSizing()
+     */
+    public void setAdaptiveReadBufferSizing(final boolean isAdaptiveReadBufferSizing) {
+        this.isAdaptiveReadBufferSizing = isAdaptiveReadBufferSizing;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns the min read buffer size, used in the adaptive read buffer
+     * sizing mode.
+     * 
+     * @see #isAdaptiveReadBufferSizing()
+     */
+    public int getMinAdaptiveReadBufferSize() {
+        return minAdaptiveReadBufferSize;
+    }
+
+    /**
+     * Sets the min read buffer size, used in the adaptive read buffer
+     * sizing mode.
+     * 
+     * @see #isAdaptiveReadBufferSizing()
+     */
+    public void setMinAdaptiveReadBufferSize(final int minAdaptiveReadBufferSize) {
+        if (minAdaptiveReadBufferSize <= 0) {
+            throw new IllegalArgumentException("minAdaptiveReadBufferSize has to be positive");
+        }
+        
+        this.minAdaptiveReadBufferSize = minAdaptiveReadBufferSize;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns the number of server channels, which will be bound to the same
+     * address, when the transport binds a server {@link Connection}.
+     * If the value is greater than <tt>1</tt> - the channels are bound with
+     * SO_REUSEPORT option enabled, so the operating system balances incoming
+     * connections between the channels' accept queues, and every channel is
+     * registered with its own {@link SelectorRunner}.
+     * SO_REUSEPORT is available on Linux starting with JDK 9, on other
+     * platforms the transport falls back to a single server channel.
+     */
+    public int getAcceptorChannelsCount() {
+        return acceptorChannelsCount;
+    }
+
+    /**
+     * Sets the number of server channels, which will be bound to the same
+     * address, when the transport binds a server {@link Connection}.
+     * The value will be applied to the server {@link Connection}s bound after
+     * this method call.
+     * 
+     * @see #getAcceptorChannelsCount()
+     */
+    public void setAcceptorChannelsCount(final int acceptorChannelsCount) {
+        if (acceptorChannelsCount <= 0) {
+            throw new IllegalArgumentException("acceptorChannelsCount has to be positive");
+        }
+        
+        this.acceptorChannelsCount = acceptorChannelsCount;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns <tt>true</tt>, if the write corking mode is on, or <tt>false</tt>
+     * otherwise.
+     * In the write corking mode the asynchronous writes, made while a
+     * {@link Connection}'s {@link IOEvent#READ} event is being processed by the
+     * {@link Processor} in the same thread, are postponed until the processing
+     * is finished, and then written together using gathering writes.
+     * This way the messages, written separately during one
+     * {@link org.glassfish.grizzly.filterchain.FilterChain} processing cycle
+     * (for example a response header and body), cost fewer system calls and
+     * network packets.
+     * Note, in this mode a {@link Processor} must not block waiting for
+     * an asynchronous write completion while processing the READ event.
+     */
+    public boolean isWriteCorking() {
+        return isWriteCorking;
+    }
+
+    /**
+     * Turns the write corking mode on/off.
+     * 
+     * @see #isWriteCorking()
+     */
+    public void setWriteCorking(final boolean isWriteCorking) {
+        this.isWriteCorking = isWriteCorking;
+        notifyProbesConfigChanged(this);
+    }
+
+    /**
+     * Returns the number of bytes, which were copied from heap {@link Buffer}s
+     * to the direct staging buffers before being written to a channel.
+     * Compared with {@link #getWrittenBytesZeroCopy()} it shows how much
+     * memory bandwidth is spent on the heap to direct memory copying.
+     * 
+     * @return the number of bytes copied before being written.
+     */
+    public long getWrittenBytesCopied() {
+        return writtenBytesCopied.get();
+    }
+
+    /**
+     * Returns the number of bytes, which were written to a channel directly
+     * from direct {@link Buffer}s, without any intermediate copying.
+     * 
+     * @return the number of bytes written without copying.
+     */
+    public long getWrittenBytesZeroCopy() {
+        return writtenBytesZeroCopy.get();
+    }
+
+    /**
+     * Updates the copied vs. zero-copy written bytes statistics.
+     */
+    void onWriteCopyStats(final int copied, final int zeroCopied) {
+        if (copied > 0) {
+            writtenBytesCopied.add(copied);
+        }
+        
+        if (zeroCopied > 0) {
+            writtenBytesZeroCopy.add(zeroCopied);
+        }
+    }
+
+    void onReadBufferSizeChanged(final TCPNIOConnection connection,
+            final int readBufferSize) {
+        notifyProbesReadBufferSizeChanged(this, connection, readBufferSize);
+    }
+
     @Override
     public Filter getTransportFilter() {
         return defaultTransportFilter;
@@ -533,6 +727,27 @@ public final class TCPNIOTransport extends NIOTransport implements
             return;
         }
 
+        if (ioEvent == IOEvent.READ && isWriteCorking) {
+            final TCPNIOAsyncQueueWriter asyncQueueWriter =
+                    (TCPNIOAsyncQueueWriter) asyncQueueIO.getWriter();
+            final TCPNIOConnection tcpConnection = (TCPNIOConnection) connection;
+            
+            if (asyncQueueWriter.cork(tcpConnection)) {
+                try {
+                    ProcessorExecutor.execute(
+                            Context.create(
+                                    connection,
+                                    connection.obtainProcessor(ioEvent),
+                                    ioEvent,
+                                    listener));
+                } finally {
+                    asyncQueueWriter.uncork(tcpConnection);
+                }
+                
+                return;
+            }
+        }
+        
         ProcessorExecutor.execute(
                 Context.create(
                         connection,
@@ -679,6 +894,25 @@ public final class TCPNIOTransport extends NIOTransport implements
         } else if (message instanceof FileTransfer) {
             written = (int) ((FileTransfer) message).writeTo((SocketChannel)
                                   connection.getChannel());
+            
+            if (currentResult != null) {
+                currentResult.setMessage(message);
+                currentResult.setWrittenSize(currentResult.getWrittenSize()
+                        + written);
+                currentResult.setDstAddressHolder(
+                        connection.peerSocketAddressHolder);
+            }
+        } else if (message instanceof ChannelWritableMessage) {
+            written = (int) ((ChannelWritableMessage) message).writeTo((SocketChannel)
+                                  connection.getChannel());
+            
+            if (currentResult != null) {
+                currentResult.setMessage(message);
+                currentResult.setWrittenSize(currentResult.getWrittenSize()
+                        + written);
+                currentResult.setDstAddressHolder(
+                        connection.peerSocketAddressHolder);
+            }
         } else {
             throw new IllegalStateException("Unhandled message type");
         }
@@ -56,6 +56,10 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
     protected int serverConnectionBackLog = TCPNIOTransport.DEFAULT_SERVER_CONNECTION_BACKLOG;
     protected int serverSocketSoTimeout = TCPNIOTransport.DEFAULT_SERVER_SOCKET_SO_TIMEOUT;
     protected boolean tcpNoDelay = TCPNIOTransport.DEFAULT_TCP_NO_DELAY;
+    protected boolean adaptiveReadBufferSizing = TCPNIOTransport.DEFAULT_ADAPTIVE_READ_BUFFER_SIZING;
+    protected int minAdaptiveReadBufferSize = TCPNIOTransport.DEFAULT_MIN_ADAPTIVE_READ_BUFFER_SIZE;
+    protected int acceptorChannelsCount = TCPNIOTransport.DEFAULT_ACCEPTOR_CHANNELS_COUNT;
+    protected boolean writeCorking = TCPNIOTransport.DEFAULT_WRITE_CORKING;
 
     // ------------------------------------------------------------ Constructors
 
@@ -157,6 +161,74 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
         return getThis();
     }
 
+    /**
+     * @see TCPNIOTransport#isAdaptiveReadBufferSizing()
+     */
+    public boolean isAdaptiveReadBufferSizing() {
+        return adaptiveReadBufferSizing;
+    }
+
+    /**
+     * @see TCPNIOTransport#setAdaptiveReadBufferSizing(boolean)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     */
+    public TCPNIOTransportBuilder setAdaptiveReadBufferSizing(boolean adaptiveReadBufferSizing) {
+        this.adaptiveReadBufferSizing = adaptiveReadBufferSizing;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#getMinAdaptiveReadBufferSize()
+     */
+    public int getMinAdaptiveReadBufferSize() {
+        return minAdaptiveReadBufferSize;
+    }
+
+    /**
+     * @see TCPNIOTransport#setMinAdaptiveReadBufferSize(int)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     */
+    public TCPNIOTransportBuilder setMinAdaptiveReadBufferSize(int minAdaptiveReadBufferSize) {
+        this.minAdaptiveReadBufferSize = minAdaptiveReadBufferSize;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#getAcceptorChannelsCount()
+     */
+    public int getAcceptorChannelsCount() {
+        return acceptorChannelsCount;
+    }
+
+    /**
+     * @see TCPNIOTransport#setAcceptorChannelsCount(int)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     */
+    public TCPNIOTransportBuilder setAcceptorChannelsCount(int acceptorChannelsCount) {
+        this.acceptorChannelsCount = acceptorChannelsCount;
+        return getThis();
+    }
+
+    /**
+     * @see TCPNIOTransport#isWriteCorking()
+     */
+    public boolean isWriteCorking() {
+        return writeCorking;
+    }
+
+    /**
+     * @see TCPNIOTransport#setWriteCorking(boolean)
+     *
+     * @return this <code>TCPNIOTransportBuilder</code>
+     */
+    public TCPNIOTransportBuilder setWriteCorking(boolean writeCorking) {
+        this.writeCorking = writeCorking;
+        return getThis();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -168,6 +240,10 @@ public class TCPNIOTransportBuilder extends NIOTransportBuilder<TCPNIOTransportB
         transport.setServerConnectionBackLog(serverConnectionBackLog);
         transport.setTcpNoDelay(tcpNoDelay);
         transport.setServerSocketSoTimeout(serverSocketSoTimeout);
+        transport.setAdaptiveReadBufferSizing(adaptiveReadBufferSizing);
+        transport.setMinAdaptiveReadBufferSize(minAdaptiveReadBufferSize);
+        transport.setAcceptorChannelsCount(acceptorChannelsCount);
+        transport.setWriteCorking(writeCorking);
         return transport;
     }
 
@@ -78,7 +78,7 @@ public class TCPNIOUtils {
         final BufferArray bufferArray = buffer.toBufferArray();
         int written = 0;
         
-        fill(bufferArray, bufferSize, ioRecord);
+        final int copied = fill(bufferArray, bufferSize, ioRecord);
         ioRecord.finishBufferSlice();
         
         final int arraySize = ioRecord.getArraySize();
@@ -87,6 +87,7 @@ public class TCPNIOUtils {
             written = arraySize != 1
                     ? flushByteBuffers(socketChannel, ioRecord.getArray(), 0, arraySize)
                     : flushByteBuffer(socketChannel, ioRecord.getArray()[0]);
+            onWrite(connection, copied, written);
 
             if (LOGGER.isLoggable(Level.FINE)) {
                 LOGGER.log(Level.FINE, "TCPNIOConnection ({0}) (composite) write {1} bytes", new Object[]{
@@ -120,6 +121,8 @@ public class TCPNIOUtils {
             } finally {
                 directByteBuffer.position(pos);
             }
+            
+            onWrite(connection, 0, written);
         } else {
             final int bufferSize = calcWriteBufferSize(connection, buffer.remaining());
             buffer.limit(oldPos + bufferSize);
@@ -134,6 +137,8 @@ public class TCPNIOUtils {
             } finally {
                 ioRecord.release();
             }
+            
+            onWrite(connection, bufferSize, written);
         }
 
         Buffers.setPositionLimit(buffer, oldPos + written, oldLim);
@@ -164,13 +169,21 @@ public class TCPNIOUtils {
         src.position(oldPos);
     }
 
-    static void fill(final BufferArray bufferArray,
+    /**
+     * Prepares the {@link BufferArray} content to be written using a gathering
+     * write: direct {@link Buffer}s are passed as they are, heap
+     * {@link Buffer}s are copied to the thread's direct staging buffer.
+     * 
+     * @return the number of bytes copied to the direct staging buffer
+     */
+    static int fill(final BufferArray bufferArray,
             final int totalBufferSize, final DirectByteBufferRecord ioRecord) {
         
         final Buffer buffers[] = bufferArray.getArray();
         final int size = bufferArray.size();
         
         int remaining = totalBufferSize;
+        int copied = 0;
         
         for (int i = 0; i < size; i++) {
             
@@ -200,11 +213,25 @@ public class TCPNIOUtils {
                 currentDirectBufferSlice.limit(currentDirectBufferSlice.position() + bufferSize);
                 buffer.get(currentDirectBufferSlice);
                 currentDirectBufferSlice.limit(oldLim);
+                copied += bufferSize;
             }
             
             remaining -= bufferSize;
         }
 
+        return copied;
+    }
+
+    /**
+     * Updates the transport's copied vs. zero-copy written bytes statistics.
+     * In a gathering write the bytes copied to the staging buffer are counted
+     * as written first, so the zero-copy part might be underestimated
+     * if the write was incomplete.
+     */
+    static void onWrite(final TCPNIOConnection connection,
+            final int copied, final int written) {
+        ((TCPNIOTransport) connection.getTransport()).onWriteCopyStats(
+                copied, written - copied);
     }
 
     private static int calcWriteBufferSize(final TCPNIOConnection connection,
@@ -223,9 +250,7 @@ public class TCPNIOUtils {
         Buffer buffer = null;
         
         try {
-            final int receiveBufferSize =
-                    Math.min(TCPNIOTransport.MAX_RECEIVE_BUFFER_SIZE,
-                            connection.getReadBufferSize());
+            final int receiveBufferSize = connection.getReadAllocationSize();
         
             if (!memoryManager.willAllocateDirect(receiveBufferSize)) {
                 final DirectByteBufferRecord ioRecord = 
@@ -247,6 +272,8 @@ public class TCPNIOUtils {
                 buffer = memoryManager.allocateAtLeast(receiveBufferSize);
                 read = readBuffer(connection, buffer);
             }
+            
+            connection.onReadAllocation(receiveBufferSize, read);
         } catch (Throwable e) {
             error = e;
             read = -1;
@@ -55,6 +55,12 @@ import org.glassfish.grizzly.nio.NIOConnection;
  * The UDP transport {@link AsyncQueueWriter} implementation, based on
  * the Java NIO
  *
+ * Besides {@link org.glassfish.grizzly.Buffer}s the writer accepts
+ * {@link DatagramBatch}es, which let a set of datagrams, possibly addressed to
+ * different peers, be queued as a single record. The datagrams of the batch
+ * are sent one by one, as long as the socket send buffer has space,
+ * and the rest are sent once the channel becomes writable again.
+ *
  * @author Alexey Stashok
  */
 public final class UDPNIOAsyncQueueWriter extends AbstractNIOAsyncQueueWriter {
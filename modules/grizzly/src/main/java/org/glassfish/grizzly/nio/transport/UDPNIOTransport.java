@@ -80,6 +80,12 @@ public final class UDPNIOTransport extends NIOTransport
     public static final ChannelConfigurator DEFAULT_CHANNEL_CONFIGURATOR =
             new DefaultChannelConfigurator();
 
+    /**
+     * Default max number of datagrams to be read during one
+     * {@link IOEvent#READ} event.
+     */
+    public static final int DEFAULT_READ_BATCH_SIZE = 1;
+
     static final Logger LOGGER = Grizzly.logger(UDPNIOTransport.class);
     private static final String DEFAULT_TRANSPORT_NAME = "UDPNIOTransport";
     /**
@@ -104,6 +110,13 @@ public final class UDPNIOTransport extends NIOTransport
     private final UDPNIOBindingHandler bindingHandler =
             new UDPNIOBindingHandler(this);
 
+    /**
+     * The max number of datagrams to be read during one {@link IOEvent#READ}
+     * event. If the value is greater than 1 - the received datagrams are
+     * passed to the {@link org.glassfish.grizzly.filterchain.FilterChain}
+     * as a {@link DatagramBatch}.
+     */
+    int readBatchSize = DEFAULT_READ_BATCH_SIZE;
 
     public UDPNIOTransport() {
         this(DEFAULT_TRANSPORT_NAME);
@@ -572,6 +585,59 @@ public final class UDPNIOTransport extends NIOTransport
         return read;
     }
 
+    /**
+     * Reads up to {@link #getReadBatchSize()} datagrams, available on the
+     * connection's channel, into the passed {@link DatagramBatch}.
+     * Each datagram is read into its own {@link Buffer} and associated with
+     * its source address.
+     *
+     * @param connection the {@link UDPNIOConnection}
+     * @param batch the {@link DatagramBatch} to add the datagrams to
+     * @return the number of bytes read, or <tt>-1</tt> if the read failed
+     * @throws IOException
+     * @since 2.3.18
+     */
+    public int readBatch(final UDPNIOConnection connection,
+            final DatagramBatch batch) throws IOException {
+        final DatagramChannel channel = (DatagramChannel) connection.getChannel();
+        final int maxDatagrams = readBatchSize;
+        int read = 0;
+
+        // all the datagrams are received into the same direct staging buffer
+        final DirectByteBufferRecord ioRecord = DirectByteBufferRecord.get();
+        try {
+            final ByteBuffer directByteBuffer =
+                    ioRecord.allocate(connection.getReadBufferSize());
+
+            for (int i = 0; i < maxDatagrams; i++) {
+                directByteBuffer.clear();
+                final SocketAddress peerAddress = channel.receive(directByteBuffer);
+                if (peerAddress == null) {
+                    break;
+                }
+
+                directByteBuffer.flip();
+                final int datagramSize = directByteBuffer.remaining();
+                final Buffer buffer = memoryManager.allocate(datagramSize);
+                buffer.put(directByteBuffer);
+                buffer.flip();
+                buffer.allowBufferDispose(true);
+
+                batch.add(buffer, peerAddress);
+                connection.onRead(buffer, datagramSize);
+                read += datagramSize;
+            }
+        } catch (Exception e) {
+            if (batch.isEmpty()) {
+                return -1;
+            }
+        } finally {
+            ioRecord.release();
+        }
+
+        return read;
+    }
+
     public long write(final UDPNIOConnection connection,
             final SocketAddress dstAddress, final WritableMessage message)
             throws IOException {
@@ -612,6 +678,8 @@ public final class UDPNIOTransport extends NIOTransport
             }
 
             connection.onWrite(buffer, (int) written);
+        } else if (message instanceof DatagramBatch) {
+            written = writeBatch(connection, dstAddress, (DatagramBatch) message);
         } else if (message instanceof FileTransfer) {
             written = ((FileTransfer) message).writeTo((DatagramChannel) connection.getChannel());
         } else {
@@ -628,6 +696,69 @@ public final class UDPNIOTransport extends NIOTransport
         return written;
     }
 
+    private long writeBatch(final UDPNIOConnection connection,
+            final SocketAddress dstAddress, final DatagramBatch batch)
+            throws IOException {
+        final DatagramChannel channel = (DatagramChannel) connection.getChannel();
+        long written = 0;
+
+        for (int i = batch.getWriteIndex(); i < batch.size(); i++) {
+            final Buffer datagram = batch.getDatagram(i);
+            final SocketAddress address = batch.getAddress(i) != null
+                    ? batch.getAddress(i)
+                    : dstAddress;
+            final int oldPos = datagram.position();
+
+            final int sent = address != null
+                    ? channel.send(datagram.toByteBuffer(), address)
+                    : channel.write(datagram.toByteBuffer());
+
+            if (sent == 0 && datagram.hasRemaining()) {
+                // the socket send buffer is full
+                break;
+            }
+
+            datagram.position(oldPos + sent);
+            connection.onWrite(datagram, sent);
+            batch.onDatagramWritten();
+            written += sent;
+        }
+
+        return written;
+    }
+
+    /**
+     * Returns the max number of datagrams to be read during one
+     * {@link IOEvent#READ} event.
+     *
+     * @see #setReadBatchSize(int)
+     * @since 2.3.18
+     */
+    public int getReadBatchSize() {
+        return readBatchSize;
+    }
+
+    /**
+     * Sets the max number of datagrams to be read during one
+     * {@link IOEvent#READ} event.
+     * If the value is greater than 1 - the datagrams, available on the channel,
+     * are drained into separate {@link Buffer}s and passed to the
+     * {@link org.glassfish.grizzly.filterchain.FilterChain} as a single
+     * {@link DatagramBatch} message, where each datagram is associated with
+     * its source address.
+     *
+     * @param readBatchSize the max number of datagrams to be read at once
+     * @since 2.3.18
+     */
+    public void setReadBatchSize(final int readBatchSize) {
+        if (readBatchSize <= 0) {
+            throw new IllegalArgumentException("readBatchSize should be positive");
+        }
+
+        this.readBatchSize = readBatchSize;
+        notifyProbesConfigChanged(this);
+    }
+
     @Override
     public ChannelConfigurator getChannelConfigurator() {
         final ChannelConfigurator cc = channelConfigurator;
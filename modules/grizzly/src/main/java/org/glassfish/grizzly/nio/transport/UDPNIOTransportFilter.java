@@ -79,6 +79,10 @@ public final class UDPNIOTransportFilter extends BaseFilter {
 
         final Buffer inBuffer = ctx.getMessage();
 
+        if (!isBlocking && inBuffer == null && transport.readBatchSize > 1) {
+            return handleReadBatch(ctx, connection);
+        }
+
         final ReadResult<Buffer, SocketAddress> readResult;
 
         if (!isBlocking) {
@@ -125,6 +129,22 @@ public final class UDPNIOTransportFilter extends BaseFilter {
         return ctx.getInvokeAction();
     }
 
+    private NextAction handleReadBatch(final FilterChainContext ctx,
+            final UDPNIOConnection connection) throws IOException {
+        final DatagramBatch batch = new DatagramBatch(
+                Math.min(transport.readBatchSize, 16));
+
+        if (transport.readBatch(connection, batch) < 0 || batch.isEmpty()) {
+            batch.release();
+            return ctx.getStopAction();
+        }
+
+        ctx.setMessage(batch);
+        ctx.setAddress(batch.getAddress(0));
+
+        return ctx.getInvokeAction();
+    }
+
     @Override
     public NextAction handleWrite(final FilterChainContext ctx)
             throws IOException {
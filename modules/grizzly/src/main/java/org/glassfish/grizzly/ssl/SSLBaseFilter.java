@@ -41,13 +41,19 @@
 package org.glassfish.grizzly.ssl;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Filter;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -57,6 +63,7 @@ import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 import javax.net.ssl.SSLEngineResult.Status;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLSession;
 import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.Context;
@@ -66,6 +73,8 @@ import org.glassfish.grizzly.IOEvent;
 import org.glassfish.grizzly.IOEventLifeCycleListener;
 import org.glassfish.grizzly.ProcessorExecutor;
 import org.glassfish.grizzly.ReadResult;
+import org.glassfish.grizzly.Transport;
+import org.glassfish.grizzly.asyncqueue.ChannelWritableMessage;
 import org.glassfish.grizzly.asyncqueue.MessageCloner;
 import org.glassfish.grizzly.filterchain.BaseFilter;
 import org.glassfish.grizzly.filterchain.FilterChain;
@@ -90,6 +99,10 @@ import static org.glassfish.grizzly.ssl.SSLUtils.*;
 public class SSLBaseFilter extends BaseFilter {
     private static final Logger LOGGER = Grizzly.logger(SSLBaseFilter.class);
     protected static final MessageCloner<Buffer> COPY_CLONER = new OnWriteCopyCloner();
+    
+    // the size of the FileTransfer content chunk, which is read and
+    // encrypted at once
+    private static final int FILE_TRANSFER_CHUNK_SIZE = 64 * 1024;
 
     private static final Allocator MM_ALLOCATOR = new Allocator() {
         @Override
@@ -123,6 +136,17 @@ public class SSLBaseFilter extends BaseFilter {
     
     private long handshakeTimeoutMillis = -1;
     
+    private final AtomicLong fullHandshakesCount = new AtomicLong();
+    private final AtomicLong abbreviatedHandshakesCount = new AtomicLong();
+    private final AtomicLong handshakesDurationMillis = new AtomicLong();
+    
+    private volatile Executor delegatedTaskExecutor;
+    private volatile int maxPendingDelegatedTasks = -1;
+    private final AtomicInteger pendingDelegatedTasksCount = new AtomicInteger();
+    private final AtomicLong rejectedDelegatedTasksCount = new AtomicLong();
+    
+    private volatile boolean isZeroCopy;
+    
     // the reason to be passed to a Connection, once the connection is getting
     // closed because its SSL session gets closed
     private IOException sslSessionClosedReason;
@@ -178,6 +202,155 @@ public class SSLBaseFilter extends BaseFilter {
         handshakeListeners.remove(listener);
     }
 
+    /**
+     * Returns the number of completed full handshakes, when a new SSL session
+     * has been negotiated.
+     *
+     * @since 2.3.18
+     */
+    public long getFullHandshakesCount() {
+        return fullHandshakesCount.get();
+    }
+
+    /**
+     * Returns the number of completed abbreviated handshakes, when
+     * a cached SSL session has been resumed.
+     *
+     * @since 2.3.18
+     */
+    public long getAbbreviatedHandshakesCount() {
+        return abbreviatedHandshakesCount.get();
+    }
+
+    /**
+     * Returns the average duration of the completed handshakes (both full
+     * and abbreviated) in the given {@link TimeUnit}, or <code>0</code>
+     * if no handshake has been completed yet.
+     *
+     * @since 2.3.18
+     */
+    public long getAverageHandshakeDuration(final TimeUnit timeUnit) {
+        final long count = fullHandshakesCount.get() +
+                abbreviatedHandshakesCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        
+        return timeUnit.convert(handshakesDurationMillis.get() / count,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the {@link Executor} used to run {@link SSLEngine} delegated
+     * tasks during non-blocking handshake, or <tt>null</tt>, if the tasks
+     * are executed by the thread, which processes the handshake (default).
+     *
+     * @since 2.3.18
+     */
+    public Executor getDelegatedTaskExecutor() {
+        return delegatedTaskExecutor;
+    }
+
+    /**
+     * Sets the {@link Executor} to run {@link SSLEngine} delegated tasks
+     * (certificate validation, key exchange computations) during non-blocking
+     * handshake. While the delegated task is being executed, the handshake
+     * of the {@link Connection} is suspended, and is resumed, once the task
+     * is completed, so the thread, which processes the handshake, is not
+     * blocked by CPU-heavy operations.
+     * 
+     * @param delegatedTaskExecutor the {@link Executor}, or <tt>null</tt> to
+     *        execute the delegated tasks in the thread, which processes
+     *        the handshake
+     *
+     * @since 2.3.18
+     */
+    public void setDelegatedTaskExecutor(final Executor delegatedTaskExecutor) {
+        this.delegatedTaskExecutor = delegatedTaskExecutor;
+    }
+
+    /**
+     * Returns the max number of delegated tasks, which could be pending in
+     * the delegated task {@link Executor} at the same time, <code>-1</code>
+     * means no limit (default).
+     *
+     * @since 2.3.18
+     */
+    public int getMaxPendingDelegatedTasks() {
+        return maxPendingDelegatedTasks;
+    }
+
+    /**
+     * Sets the max number of delegated tasks, which could be pending in
+     * the delegated task {@link Executor} at the same time.
+     * If the limit is reached, the delegated task is executed by the thread,
+     * which processes the handshake, as if there was no delegated task
+     * {@link Executor}.
+     * 
+     * @param maxPendingDelegatedTasks the limit, or <code>-1</code> means
+     *        no limit
+     *
+     * @since 2.3.18
+     */
+    public void setMaxPendingDelegatedTasks(final int maxPendingDelegatedTasks) {
+        this.maxPendingDelegatedTasks = maxPendingDelegatedTasks < 0
+                ? -1
+                : maxPendingDelegatedTasks;
+    }
+
+    /**
+     * Returns the number of delegated tasks, which are currently queued
+     * or being executed by the delegated task {@link Executor}.
+     *
+     * @since 2.3.18
+     */
+    public int getPendingDelegatedTasksCount() {
+        return pendingDelegatedTasksCount.get();
+    }
+
+    /**
+     * Returns the number of delegated tasks, which have been executed by
+     * the thread processing the handshake, because either
+     * the {@link #getMaxPendingDelegatedTasks()} limit has been reached or
+     * the delegated task {@link Executor} refused to accept them.
+     *
+     * @since 2.3.18
+     */
+    public long getRejectedDelegatedTasksCount() {
+        return rejectedDelegatedTasksCount.get();
+    }
+
+    /**
+     * Returns <tt>true</tt>, if the zero-copy mode is enabled, or
+     * <tt>false</tt> otherwise (default).
+     *
+     * @see #setZeroCopy(boolean)
+     * @since 2.3.18
+     */
+    public boolean isZeroCopy() {
+        return isZeroCopy;
+    }
+
+    /**
+     * Enables or disables the zero-copy mode.
+     * In this mode all the complete SSL records available in the input
+     * {@link Buffer} are unwrapped into one output {@link Buffer}, which is
+     * allocated by the {@link Connection}'s {@link MemoryManager} and sized
+     * to fit the records' content, instead of growing the output by
+     * {@link SSLConnectionContext#getAppBufferSize()} per record.
+     * Each record is passed to the {@link SSLEngine} as is, without copying
+     * the {@link CompositeBuffer} input into a contiguous buffer, unless
+     * the record spans several {@link CompositeBuffer} elements.
+     * The outbound {@link Buffer} chains are wrapped into one pre-sized
+     * output {@link Buffer} allocated by the {@link MemoryManager}, which is
+     * passed to the transport without extra copying.
+     *
+     * @since 2.3.18
+     */
+    public void setZeroCopy(final boolean isZeroCopy) {
+        this.isZeroCopy = isZeroCopy;
+    }
+
     /**
      * Returns the handshake timeout, <code>-1</code> if blocking handshake mode
      * is disabled (default).
@@ -273,8 +446,18 @@ public class SSLBaseFilter extends BaseFilter {
                 buffer = doHandshakeSync(sslCtx, ctx, (Buffer) ctx.getMessage(),
                         handshakeTimeoutMillis);
             } else {
-                buffer = makeInputRemainder(sslCtx, ctx,
-                        doHandshakeStep(sslCtx, ctx, (Buffer) ctx.getMessage()));
+                sslCtx.setDelegatedTaskOffloadAllowed(
+                        delegatedTaskExecutor != null);
+                try {
+                    buffer = makeInputRemainder(sslCtx, ctx,
+                            doHandshakeStep(sslCtx, ctx, (Buffer) ctx.getMessage()));
+                } finally {
+                    sslCtx.setDelegatedTaskOffloadAllowed(false);
+                }
+                
+                if (sslCtx.isDelegatedTaskPending()) {
+                    return offloadDelegatedTask(ctx, sslCtx, buffer);
+                }
             }
         
             final boolean hasRemaining = buffer != null && buffer.hasRemaining();
@@ -320,22 +503,45 @@ public class SSLBaseFilter extends BaseFilter {
     @Override
     public NextAction handleWrite(final FilterChainContext ctx) throws IOException {
         if (ctx.getMessage() instanceof FileTransfer) {
-            throw new IllegalStateException("TLS operations not supported with SendFile messages");
+            return writeFileTransfer(ctx);
         }
 
         final Connection connection = ctx.getConnection();
         
         synchronized(connection) {
-            final Buffer output =
-                    wrapAll(ctx, obtainSslConnectionContext(connection));
-
+            final SSLConnectionContext sslCtx =
+                    obtainSslConnectionContext(connection);
             final FilterChainContext.TransportContext transportContext =
                     ctx.getTransportContext();
+            
+            if (sslCtx.hasDeferredWrites()) {
+                // the preceding message hasn't been wrapped yet, so this one
+                // has to be wrapped after it, when it's being written
+                final Buffer input = ctx.getMessage();
+                final MessageCloner<Buffer> cloner =
+                        transportContext.getMessageCloner();
+                final DeferredWrite deferredWrite = new DeferredWrite(
+                        connection, sslCtx, null,
+                        cloner != null ? cloner.clone(connection, input) : input);
+                
+                ctx.write(null, deferredWrite,
+                        transportContext.getCompletionHandler(),
+                        transportContext.getPushBackHandler(),
+                        null,
+                        transportContext.isBlocking());
+                
+                return ctx.getStopAction();
+            }
+            
+            final boolean isZeroCopyLocal = isZeroCopy;
+            final Buffer output = isZeroCopyLocal
+                    ? wrapAllToSingleBuffer(ctx, sslCtx)
+                    : wrapAll(ctx, sslCtx);
 
             ctx.write(null, output,
                     transportContext.getCompletionHandler(),
                     transportContext.getPushBackHandler(),
-                    COPY_CLONER,
+                    isZeroCopyLocal ? null : COPY_CLONER,
                     transportContext.isBlocking());
 
             return ctx.getStopAction();
@@ -348,8 +554,16 @@ public class SSLBaseFilter extends BaseFilter {
             final SSLConnectionContext sslCtx) throws SSLException {
         Buffer input = ctx.getMessage();
         
+        final boolean isZeroCopyLocal = isZeroCopy;
         Buffer output = null;
         
+        if (isZeroCopyLocal) {
+            final int recordsSize = getCompleteRecordsSize(input);
+            if (recordsSize > 0) {
+                output = ctx.getMemoryManager().allocate(recordsSize);
+            }
+        }
+        
         boolean isClosed = false;
         
         _outter:
@@ -360,8 +574,9 @@ public class SSLBaseFilter extends BaseFilter {
                 break;
             }
 
-            final SSLConnectionContext.SslResult result =
-                    sslCtx.unwrap(input, output, MM_ALLOCATOR);
+            final SSLConnectionContext.SslResult result = isZeroCopyLocal
+                    ? sslCtx.unwrapRecord(len, input, output, MM_ALLOCATOR)
+                    : sslCtx.unwrap(input, output, MM_ALLOCATOR);
             
             if (isHandshaking(sslCtx.getSslEngine())) {
                 input = rehandshake(ctx, sslCtx);
@@ -418,6 +633,81 @@ public class SSLBaseFilter extends BaseFilter {
         return output;
     }
 
+    /**
+     * Wraps the message into one {@link Buffer} allocated by
+     * the {@link Connection}'s {@link MemoryManager}, so the result doesn't
+     * have to be copied, if it can't be written immediately.
+     */
+    protected Buffer wrapAllToSingleBuffer(final FilterChainContext ctx,
+            final SSLConnectionContext sslCtx) throws SSLException {
+        
+        final Buffer input = ctx.getMessage();
+        
+        final Buffer output = sslCtx.wrapAllToSingleBuffer(input, MM_ALLOCATOR);
+
+        input.tryDispose();
+
+        return output;
+    }
+
+    /**
+     * Writes the {@link FileTransfer} message. The File content can't be
+     * passed to the channel directly, because it has to be encrypted, so
+     * the message is queued as a single async write queue record, which
+     * reads and wraps the File content chunk by chunk, when the record is
+     * being written. The messages, written after the File, are wrapped
+     * after the File content, so the connection write order is kept.
+     * 
+     * Please note, this is a userspace fallback, not a zero-copy transfer:
+     * the File content is read into memory and encrypted by the
+     * {@link SSLEngine}, kernel TLS offload is not supported.
+     */
+    @SuppressWarnings("unchecked")
+    protected NextAction writeFileTransfer(final FilterChainContext ctx)
+            throws IOException {
+        final Connection connection = ctx.getConnection();
+        final FilterChainContext.TransportContext transportContext =
+                ctx.getTransportContext();
+        
+        synchronized (connection) {
+            final DeferredWrite deferredWrite = new DeferredWrite(connection,
+                    obtainSslConnectionContext(connection),
+                    (FileTransfer) ctx.getMessage(), null);
+            
+            ctx.write(null, deferredWrite,
+                    transportContext.getCompletionHandler(),
+                    transportContext.getPushBackHandler(),
+                    null,
+                    transportContext.isBlocking());
+        }
+        
+        return ctx.getStopAction();
+    }
+    
+    /**
+     * Returns the total size of the complete SSL records available in
+     * the input {@link Buffer}, including the records' headers, which is
+     * enough to hold the records' decrypted content.
+     */
+    private static int getCompleteRecordsSize(final Buffer input)
+            throws SSLException {
+        final int pos = input.position();
+        int size = 0;
+        
+        try {
+            int len;
+            while ((len = getSSLPacketSize(input)) != -1 &&
+                    input.remaining() >= len) {
+                size += len;
+                input.position(input.position() + len);
+            }
+        } finally {
+            input.position(pos);
+        }
+        
+        return size;
+    }
+
 //    protected Buffer doHandshakeStep1(final SSLConnectionContext sslCtx,
 //                                     final FilterChainContext ctx,
 //                                     Buffer inputBuffer)
@@ -638,6 +928,14 @@ public class SSLBaseFilter extends BaseFilter {
                         if (isLoggingFinest) {
                             LOGGER.log(Level.FINEST, "NEED_TASK Engine: {0}", sslEngine);
                         }
+                        
+                        if (sslCtx.isDelegatedTaskOffloadAllowed()) {
+                            // the task will be executed by the delegated task
+                            // executor, see offloadDelegatedTask(...)
+                            sslCtx.setDelegatedTaskPending(true);
+                            break _exitWhile;
+                        }
+                        
                         executeDelegatedTask(sslEngine);
                         handshakeStatus = sslEngine.getHandshakeStatus();
                         break;
@@ -680,6 +978,117 @@ public class SSLBaseFilter extends BaseFilter {
         return inputBuffer;
     }
     
+    /**
+     * Suspends the handshake and passes the pending {@link SSLEngine}
+     * delegated task to the delegated task {@link Executor}. Once the task
+     * is completed, the handshake is resumed with the remaining input.
+     * If the task can't be passed to the {@link Executor} - it's executed
+     * by the current thread.
+     */
+    private NextAction offloadDelegatedTask(final FilterChainContext ctx,
+            final SSLConnectionContext sslCtx, final Buffer remainder)
+            throws IOException {
+        
+        final Executor executor = delegatedTaskExecutor;
+        final int maxPending = maxPendingDelegatedTasks;
+        
+        final int pending = pendingDelegatedTasksCount.incrementAndGet();
+        if (executor == null || (maxPending >= 0 && pending > maxPending)) {
+            pendingDelegatedTasksCount.decrementAndGet();
+            return executeRejectedDelegatedTask(ctx, sslCtx, remainder);
+        }
+        
+        final NextAction suspendAction = ctx.getSuspendAction();
+        ctx.suspend();
+        
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        executeDelegatedTask(sslCtx.getSslEngine());
+                    } catch (Throwable t) {
+                        final SSLException e = new SSLException(
+                                "SSLEngine delegated task failed", t);
+                        notifyHandshakeFailed(ctx.getConnection(), e);
+                        ctx.getConnection().closeWithReason(e);
+                        if (remainder != null) {
+                            remainder.tryDispose();
+                        }
+                        
+                        // the suspended context won't be resumed
+                        ctx.completeAndRecycle();
+                        return;
+                    } finally {
+                        pendingDelegatedTasksCount.decrementAndGet();
+                        sslCtx.setDelegatedTaskPending(false);
+                    }
+                    
+                    ctx.setMessage(remainder);
+                    resumeHandshake(ctx);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingDelegatedTasksCount.decrementAndGet();
+            ctx.getInternalContext().resume();
+            return executeRejectedDelegatedTask(ctx, sslCtx, remainder);
+        }
+        
+        return suspendAction;
+    }
+    
+    /**
+     * Executes the delegated task, which couldn't be offloaded, in the current
+     * thread and continues the handshake.
+     */
+    private NextAction executeRejectedDelegatedTask(final FilterChainContext ctx,
+            final SSLConnectionContext sslCtx, final Buffer remainder)
+            throws IOException {
+        rejectedDelegatedTasksCount.incrementAndGet();
+        sslCtx.setDelegatedTaskPending(false);
+        
+        executeDelegatedTask(sslCtx.getSslEngine());
+        
+        ctx.setMessage(remainder);
+        return handleRead(ctx);
+    }
+    
+    /**
+     * Resumes the handshake, suspended by the delegated task offloading,
+     * in the thread the {@link Connection}'s {@link IOEvent#READ} is
+     * processed by (according to the {@link org.glassfish.grizzly.IOStrategy}),
+     * or in the {@link Transport}'s worker thread pool, so the rest of
+     * the handshake and the {@link FilterChain} processing don't occupy
+     * the delegated task {@link Executor}.
+     * If neither is available - the handshake is resumed by the current thread.
+     */
+    private static void resumeHandshake(final FilterChainContext ctx) {
+        final Connection connection = ctx.getConnection();
+        final Transport transport = connection.getTransport();
+        
+        Executor executor = transport.getIOStrategy()
+                .getThreadPoolFor(connection, IOEvent.READ);
+        if (executor == null) {
+            executor = transport.getWorkerThreadPool();
+        }
+        
+        if (executor != null) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        ctx.resume();
+                    }
+                });
+                
+                return;
+            } catch (RejectedExecutionException ignored) {
+            }
+        }
+        
+        ctx.resume();
+    }
+    
     /**
      * Performs an SSL renegotiation.
      *
@@ -900,6 +1309,9 @@ public class SSLBaseFilter extends BaseFilter {
     }
 
     protected void notifyHandshakeStart(final Connection connection) {
+        obtainSslConnectionContext(connection).setHandshakeStartTime(
+                System.currentTimeMillis());
+        
         if (!handshakeListeners.isEmpty()) {
             for (final HandshakeListener listener : handshakeListeners) {
                 listener.onStart(connection);
@@ -910,9 +1322,27 @@ public class SSLBaseFilter extends BaseFilter {
     protected void notifyHandshakeComplete(final Connection<?> connection,
                                           final SSLEngine sslEngine) {
 
+        final boolean isResumed = isSessionResumed(connection, sslEngine);
+        final SSLConnectionContext sslCtx = SSL_CTX_ATTR.get(connection);
+        if (sslCtx != null && sslCtx.getHandshakeStartTime() > 0) {
+            handshakesDurationMillis.addAndGet(
+                    System.currentTimeMillis() - sslCtx.getHandshakeStartTime());
+        }
+        
+        if (isResumed) {
+            abbreviatedHandshakesCount.incrementAndGet();
+        } else {
+            fullHandshakesCount.incrementAndGet();
+        }
+        
         if (!handshakeListeners.isEmpty()) {
             for (final HandshakeListener listener : handshakeListeners) {
-                listener.onComplete(connection);
+                if (listener instanceof SessionResumptionListener) {
+                    ((SessionResumptionListener) listener).onComplete(
+                            connection, isResumed);
+                } else {
+                    listener.onComplete(connection);
+                }
             }
         }
         
@@ -931,8 +1361,172 @@ public class SSLBaseFilter extends BaseFilter {
             final Throwable t) {
     }
     
+    /**
+     * Returns <tt>true</tt>, if the completed handshake has resumed a cached
+     * SSL session (abbreviated handshake), or <tt>false</tt>, if a new SSL
+     * session has been negotiated (full handshake).
+     * The session is considered resumed, if it had been created before
+     * the handshake was started.
+     */
+    private boolean isSessionResumed(final Connection<?> connection,
+            final SSLEngine sslEngine) {
+        final SSLConnectionContext sslCtx = SSL_CTX_ATTR.get(connection);
+        if (sslCtx == null) {
+            return false;
+        }
+        
+        final SSLSession session = sslEngine.getSession();
+        return session != null &&
+                session.getCreationTime() < sslCtx.getHandshakeStartTime();
+    }
+    
     // ----------------------------------------------------------- Inner Classes
 
+    /**
+     * The message, which is wrapped lazily, when the async write queue
+     * record is being written, so the messages are wrapped in the order
+     * they are written to the channel. The {@link FileTransfer} content
+     * is read and wrapped chunk by chunk, so no more than one chunk per
+     * {@link Connection} is kept in memory.
+     * 
+     * While the message is not completely wrapped, the messages written
+     * to the {@link Connection} after it are deferred as well.
+     * The message is external, so the transport doesn't aggregate it with
+     * the others.
+     */
+    private final class DeferredWrite implements ChannelWritableMessage {
+        private final Connection connection;
+        private final SSLConnectionContext sslCtx;
+        private final MemoryManager memoryManager;
+        
+        private FileTransfer fileTransfer;
+        private Buffer input;
+        // the wrapped chunk, which is being written
+        private Buffer output;
+        // true, if the whole content has been wrapped
+        private boolean isWrapped;
+
+        private DeferredWrite(final Connection connection,
+                final SSLConnectionContext sslCtx,
+                final FileTransfer fileTransfer, final Buffer input) {
+            this.connection = connection;
+            this.sslCtx = sslCtx;
+            this.memoryManager = connection.getMemoryManager();
+            this.fileTransfer = fileTransfer;
+            this.input = input;
+            
+            isWrapped = fileTransfer != null
+                    ? !fileTransfer.hasRemaining()
+                    : !input.hasRemaining();
+            if (!isWrapped) {
+                sslCtx.incDeferredWrites();
+            }
+        }
+
+        @Override
+        public long writeTo(final WritableByteChannel c) throws IOException {
+            if (output == null || !output.hasRemaining()) {
+                if (output != null) {
+                    output.tryDispose();
+                    output = null;
+                }
+                
+                if (isWrapped) {
+                    return 0;
+                }
+                
+                wrapNext();
+            }
+            
+            // the ByteBuffer might be a view or the Buffer's own ByteBuffer
+            final int pos = output.position();
+            final int written = c.write(output.toByteBuffer());
+            output.position(pos + written);
+            
+            return written;
+        }
+
+        @Override
+        public boolean hasRemaining() {
+            return !isWrapped || (output != null && output.hasRemaining());
+        }
+
+        @Override
+        public int remaining() {
+            long remaining = output != null ? output.remaining() : 0;
+            if (!isWrapped) {
+                remaining += fileTransfer != null
+                        ? fileTransfer.remaining()
+                        : input.remaining();
+            }
+            
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public boolean release() {
+            if (output != null) {
+                output.tryDispose();
+                output = null;
+            }
+            
+            if (fileTransfer != null) {
+                fileTransfer.release();
+                fileTransfer = null;
+            } else if (input != null) {
+                input.tryDispose();
+                input = null;
+            }
+            
+            if (!isWrapped) {
+                synchronized (connection) {
+                    isWrapped = true;
+                    sslCtx.decDeferredWrites();
+                }
+            }
+            
+            return true;
+        }
+
+        @Override
+        public boolean isExternal() {
+            return true;
+        }
+
+        private void wrapNext() throws IOException {
+            final Buffer chunk;
+            if (fileTransfer != null) {
+                chunk = memoryManager.allocate(
+                        Math.min(fileTransfer.remaining(), FILE_TRANSFER_CHUNK_SIZE));
+                final int pos = chunk.position();
+                final int read = fileTransfer.readTo(chunk.toByteBuffer());
+                if (read <= 0) {
+                    chunk.tryDispose();
+                    throw new EOFException("Unexpected end of file");
+                }
+                // the ByteBuffer might be a view or the Buffer's own ByteBuffer
+                chunk.limit(pos + read);
+                chunk.position(pos);
+            } else {
+                chunk = input;
+                input = null;
+            }
+            
+            try {
+                synchronized (connection) {
+                    output = sslCtx.wrapAllToSingleBuffer(chunk, MM_ALLOCATOR);
+                    
+                    if (fileTransfer == null || !fileTransfer.hasRemaining()) {
+                        isWrapped = true;
+                        sslCtx.decDeferredWrites();
+                    }
+                }
+            } finally {
+                chunk.tryDispose();
+            }
+        }
+    }
+
     public static class CertificateEvent implements FilterChainEvent {
 
         private static final String TYPE = "CERT_EVENT";
@@ -987,6 +1581,19 @@ public class SSLBaseFilter extends BaseFilter {
         public void onComplete(Connection connection);
     }
     
+    /**
+     * {@link HandshakeListener}, which gets notified whether the completed
+     * handshake was a full handshake or an abbreviated one (a cached SSL
+     * session has been resumed).
+     * {@link #onComplete(org.glassfish.grizzly.Connection, boolean)} is called
+     * instead of {@link #onComplete(org.glassfish.grizzly.Connection)}.
+     *
+     * @since 2.3.18
+     */
+    public static interface SessionResumptionListener extends HandshakeListener {
+        public void onComplete(Connection connection, boolean isResumed);
+    }
+    
     protected class SSLTransportFilterWrapper extends TransportFilter {
         protected final TransportFilter transportFilter;
 
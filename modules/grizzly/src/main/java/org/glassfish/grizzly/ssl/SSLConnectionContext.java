@@ -63,6 +63,8 @@ import org.glassfish.grizzly.memory.MemoryManager;
 public final class SSLConnectionContext {
     private static final Logger LOGGER = Grizzly.logger(SSLConnectionContext.class);
     private static final float BUFFER_SIZE_COEF;
+    // max SSL/TLS record plain text size (2^14)
+    private static final int MAX_PLAIN_TEXT_RECORD_SIZE = 16384;
     
     static {
         final String coef = System.getProperty(
@@ -96,6 +98,18 @@ public final class SSLConnectionContext {
     
     private final Connection connection;
     private FilterChain newConnectionFilterChain;
+    
+    // the time (in milliseconds) the last handshake has been started at
+    private long handshakeStartTime;
+    
+    // true, if the SSLEngine delegated task may be offloaded to the
+    // SSLBaseFilter's delegated task executor
+    private boolean isDelegatedTaskOffloadAllowed;
+    // true, if the handshake has been interrupted, because there is
+    // an SSLEngine delegated task to be executed
+    private boolean isDelegatedTaskPending;
+    // the number of the queued messages, which haven't been wrapped yet
+    private int deferredWritesCount;
 
     public SSLConnectionContext(Connection connection) {
         this.connection = connection;
@@ -123,6 +137,47 @@ public final class SSLConnectionContext {
         return isServerMode;
     }
     
+    long getHandshakeStartTime() {
+        return handshakeStartTime;
+    }
+
+    void setHandshakeStartTime(final long handshakeStartTime) {
+        this.handshakeStartTime = handshakeStartTime;
+    }
+
+    boolean isDelegatedTaskOffloadAllowed() {
+        return isDelegatedTaskOffloadAllowed;
+    }
+
+    void setDelegatedTaskOffloadAllowed(final boolean isDelegatedTaskOffloadAllowed) {
+        this.isDelegatedTaskOffloadAllowed = isDelegatedTaskOffloadAllowed;
+    }
+
+    boolean isDelegatedTaskPending() {
+        return isDelegatedTaskPending;
+    }
+
+    void setDelegatedTaskPending(final boolean isDelegatedTaskPending) {
+        this.isDelegatedTaskPending = isDelegatedTaskPending;
+    }
+
+    /**
+     * Returns <tt>true</tt> if there are queued messages, which haven't
+     * been wrapped yet, so the following messages have to be wrapped after
+     * them. The method has to be called under the {@link Connection} lock.
+     */
+    boolean hasDeferredWrites() {
+        return deferredWritesCount > 0;
+    }
+
+    void incDeferredWrites() {
+        deferredWritesCount++;
+    }
+
+    void decDeferredWrites() {
+        deferredWritesCount--;
+    }
+    
     void updateBufferSizes() {
         final SSLSession session = sslEngine.getSession();
         appBufferSize = session.getApplicationBufferSize();
@@ -170,7 +225,38 @@ public final class SSLConnectionContext {
             final Allocator allocator) {
             
         output = ensureBufferSize(output, appBufferSize, allocator);
+        return unwrap(input, input.toByteBuffer(), output, allocator);
+    }
 
+    /**
+     * Unwraps the single SSL record of the given length, which starts at
+     * the input's current position. Unlike {@link #unwrap(Buffer, Buffer, Allocator)},
+     * the output is not required to have {@link #getAppBufferSize()} bytes
+     * available, it's enough to have space for the record's content, and
+     * only the record's bytes are exposed to the {@link SSLEngine}, so
+     * a record located within one
+     * {@link org.glassfish.grizzly.memory.CompositeBuffer} element is
+     * unwrapped without copying.
+     */
+    SslResult unwrapRecord(final int recordLength, final Buffer input,
+            Buffer output, final Allocator allocator) {
+        
+        if (output == null) {
+            output = allocator.grow(this, null, recordLength);
+        } else if (output.remaining() < recordLength) {
+            output = allocator.grow(this, output,
+                    output.capacity() + (recordLength - output.remaining()));
+        }
+        
+        final int inPos = input.position();
+        return unwrap(input, input.toByteBuffer(inPos, inPos + recordLength),
+                output, allocator);
+    }
+    
+    private SslResult unwrap(final Buffer input,
+            final ByteBuffer inputByteBuffer, Buffer output,
+            final Allocator allocator) {
+        
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.log(Level.FINE, "unwrap engine: {0} input: {1} output: {2}",
                     new Object[] {sslEngine, input, output});
@@ -179,7 +265,6 @@ public final class SSLConnectionContext {
         final int inPos = input.position();
         final int outPos = output.position();
         
-        final ByteBuffer inputByteBuffer = input.toByteBuffer();
         final SSLEngineResult sslEngineResult;
         
         try {
@@ -226,6 +311,52 @@ public final class SSLConnectionContext {
         return new SslResult(output, sslEngineResult);
     }
 
+    /**
+     * Wraps the whole input into one output {@link Buffer} obtained from
+     * the given {@link Allocator}. The output is pre-sized to fit all the
+     * SSL records, so the records are written one after another without
+     * reallocation, and the input {@link Buffer} chain is passed to
+     * the {@link SSLEngine} as a gathered {@link ByteBuffer} array.
+     */
+    Buffer wrapAllToSingleBuffer(final Buffer input,
+            final Allocator allocator) throws SSLException {
+        final ByteBufferArray bba =
+                input.toByteBufferArray(inputByteBufferArray);
+        final ByteBuffer[] inputArray = bba.getArray();
+        final int inputArraySize = bba.size();
+        
+        final int records = Math.max(1,
+                (input.remaining() + MAX_PLAIN_TEXT_RECORD_SIZE - 1)
+                / MAX_PLAIN_TEXT_RECORD_SIZE);
+        
+        Buffer output = allocator.grow(this, null,
+                (records - 1) * netBufferSize +
+                (int) ((float) netBufferSize * BUFFER_SIZE_COEF));
+        
+        SslResult result = null;
+        try {
+            do {
+                result = wrap(input, inputArray, inputArraySize,
+                        output, allocator);
+                output = result.getOutput();
+
+                if (result.isError()) {
+                    throw result.getError();
+                }
+            } while (input.hasRemaining());
+            
+            lastOutputBuffer = null;
+            output.trim();
+            return output;
+        } finally {
+            bba.restore();
+            bba.reset();
+            if (result != null && result.isError()) {
+                output.dispose();
+            }
+        }
+    }
+    
     Buffer wrapAll(final Buffer input,
             final Allocator allocator) throws SSLException {
         final MemoryManager memoryManager = connection.getMemoryManager();
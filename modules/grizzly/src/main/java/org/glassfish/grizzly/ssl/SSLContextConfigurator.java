@@ -57,6 +57,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManagerFactory;
 import org.glassfish.grizzly.Grizzly;
 
@@ -121,6 +122,9 @@ public class SSLContextConfigurator {
 
     private String securityProtocol = "TLS";
 
+    private int sessionCacheSize = -1;
+    private int sessionTimeout = -1;
+
     /**
      * Default constructor. Reads configuration properties from
      * {@link System#getProperties()}. Calls {@link #SSLContextConfigurator(boolean)} with
@@ -319,6 +323,60 @@ public class SSLContextConfigurator {
         this.securityProtocol = securityProtocol;
     }
 
+    /**
+     * Returns the maximum number of SSL sessions cached by the created
+     * {@link SSLContext}, or <code>-1</code> if the JSSE provider's default
+     * is used.
+     *
+     * @since 2.3.18
+     */
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of SSL sessions to be cached by the created
+     * {@link SSLContext} (both server and client side session caches), so
+     * reconnecting peers could resume their sessions using abbreviated
+     * handshakes. The least recently used sessions are evicted, once the
+     * limit is reached.
+     *
+     * @param sessionCacheSize the cache size, <code>0</code> means no limit,
+     *          <code>-1</code> means the JSSE provider's default.
+     * @since 2.3.18
+     */
+    public void setSessionCacheSize(final int sessionCacheSize) {
+        if (sessionCacheSize < -1) {
+            throw new IllegalArgumentException("sessionCacheSize can't be less than -1");
+        }
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    /**
+     * Returns the cached SSL session timeout in seconds, or <code>-1</code>
+     * if the JSSE provider's default is used.
+     *
+     * @since 2.3.18
+     */
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * Sets the timeout (in seconds), after which the cached SSL session
+     * can't be resumed anymore and the peer has to pass the full handshake.
+     *
+     * @param sessionTimeout the timeout in seconds, <code>0</code> means
+     *          no timeout, <code>-1</code> means the JSSE provider's default.
+     * @since 2.3.18
+     */
+    public void setSessionTimeout(final int sessionTimeout) {
+        if (sessionTimeout < -1) {
+            throw new IllegalArgumentException("sessionTimeout can't be less than -1");
+        }
+        this.sessionTimeout = sessionTimeout;
+    }
+
     /**
      * Validates {@link SSLContextConfigurator} configuration.
      *
@@ -630,6 +688,7 @@ public class SSLContextConfigurator {
                     .getKeyManagers() : null,
                     trustManagerFactory != null ? trustManagerFactory
                             .getTrustManagers() : null, null);
+            configureSessionContexts(sslContext);
         } catch (KeyManagementException e) {
             LOGGER.log(Level.FINE, "Key management error.", e);
         } catch (NoSuchAlgorithmException e) {
@@ -639,6 +698,24 @@ public class SSLContextConfigurator {
         return sslContext;
     }
 
+    private void configureSessionContexts(final SSLContext sslContext) {
+        configureSessionContext(sslContext.getServerSessionContext());
+        configureSessionContext(sslContext.getClientSessionContext());
+    }
+
+    private void configureSessionContext(final SSLSessionContext sessionContext) {
+        if (sessionContext == null) {
+            return;
+        }
+        
+        if (sessionCacheSize != -1) {
+            sessionContext.setSessionCacheSize(sessionCacheSize);
+        }
+        if (sessionTimeout != -1) {
+            sessionContext.setSessionTimeout(sessionTimeout);
+        }
+    }
+
     public void retrieve(Properties props) {
         trustStoreProvider = props.getProperty(TRUST_STORE_PROVIDER);
         keyStoreProvider = props.getProperty(KEY_STORE_PROVIDER);
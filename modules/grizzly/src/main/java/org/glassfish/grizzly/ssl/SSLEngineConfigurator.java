@@ -52,6 +52,9 @@ import javax.net.ssl.SSLEngine;
  */
 public class SSLEngineConfigurator {
     private final Object sync = new Object();
+
+    // 0 - not checked yet, 1 - peer-aware SSLEngine creation is used, -1 - not
+    private volatile int peerAwareCreationState;
     
     protected volatile SSLContextConfigurator sslContextConfiguration;
     
@@ -433,4 +436,33 @@ public class SSLEngineConfigurator {
     public SSLEngineConfigurator copy() {
         return new SSLEngineConfigurator(this);
     }
+
+    /**
+     * Returns <tt>true</tt>, if the client-side {@link SSLEngine}s could be
+     * created using {@link #createSSLEngine(java.lang.String, int)}, or
+     * <tt>false</tt>, if this configurator's subclass customizes
+     * {@link #createSSLEngine()}, but not the peer-aware method, so
+     * {@link #createSSLEngine()} has to be used.
+     */
+    boolean isPeerAwareSSLEngineCreation() {
+        int state = peerAwareCreationState;
+        if (state == 0) {
+            state = -1;
+            try {
+                final Class<?> noArgDeclaringClass = getClass()
+                        .getMethod("createSSLEngine").getDeclaringClass();
+                final Class<?> peerAwareDeclaringClass = getClass()
+                        .getMethod("createSSLEngine", String.class, int.class)
+                        .getDeclaringClass();
+                if (noArgDeclaringClass.isAssignableFrom(peerAwareDeclaringClass)) {
+                    state = 1;
+                }
+            } catch (NoSuchMethodException ignored) {
+            }
+            
+            peerAwareCreationState = state;
+        }
+        
+        return state == 1;
+    }
 }
@@ -41,6 +41,8 @@
 package org.glassfish.grizzly.ssl;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.logging.Filter;
@@ -139,15 +141,21 @@ public class SSLFilter extends SSLBaseFilter {
     public NextAction handleWrite(final FilterChainContext ctx) throws IOException {
         final Connection connection = ctx.getConnection();
 
-        if (ctx.getMessage() instanceof FileTransfer) {
-            throw new IllegalStateException("TLS operations not supported with SendFile messages");
-        }
-
         synchronized (connection) {
             final SSLConnectionContext sslCtx =
                     obtainSslConnectionContext(connection);
             
             final SSLEngine sslEngine = sslCtx.getSslEngine();
+            
+            if (ctx.getMessage() instanceof FileTransfer) {
+                if (sslEngine == null || isHandshaking(sslEngine)) {
+                    throw new IllegalStateException("SendFile messages can't"
+                            + " be written before SSL handshake is complete");
+                }
+                
+                return writeFileTransfer(ctx);
+            }
+            
             if (sslEngine != null && !isHandshaking(sslEngine)) {
                 return sslCtx.isServerMode() ?
                         super.handleWrite(ctx) :
@@ -192,6 +200,56 @@ public class SSLFilter extends SSLBaseFilter {
         this.maxPendingBytes = maxPendingBytes;
     }
 
+    /**
+     * Creates the client-side {@link SSLEngine}, associated with the peer
+     * address, so the JSSE provider could resume the SSL session cached for
+     * the peer, if any, and the reconnecting client passes the abbreviated
+     * handshake.
+     * If the {@link SSLEngineConfigurator} subclass customizes only
+     * {@link SSLEngineConfigurator#createSSLEngine()} - the customized method
+     * is used and the peer address is not passed.
+     */
+    private static SSLEngine createSSLEngine(
+            final SSLEngineConfigurator sslEngineConfigurator,
+            final Connection<?> connection, final Object dstAddress) {
+        if (sslEngineConfigurator.isPeerAwareSSLEngineCreation()) {
+            final Object peerAddress = dstAddress != null
+                    ? dstAddress
+                    : connection.getPeerAddress();
+
+            if (peerAddress instanceof InetSocketAddress) {
+                final InetSocketAddress inetPeerAddress =
+                        (InetSocketAddress) peerAddress;
+                return sslEngineConfigurator.createSSLEngine(
+                        getHostString(inetPeerAddress),
+                        inetPeerAddress.getPort());
+            }
+        }
+        
+        return sslEngineConfigurator.createSSLEngine();
+    }
+
+    /**
+     * Returns the host name the address was created with, so the hostname
+     * endpoint identification and SNI work, or the IP address literal, if
+     * the host name is not known. Unlike
+     * {@link InetSocketAddress#getHostName()} never does the reverse lookup.
+     */
+    private static String getHostString(final InetSocketAddress address) {
+        final InetAddress inetAddress = address.getAddress();
+        if (inetAddress == null) { // unresolved
+            return address.getHostName();
+        }
+        
+        // InetAddress.toString() returns "hostname/literal IP address",
+        // the hostname is empty, if it is not known
+        final String addressString = inetAddress.toString();
+        final int slashIdx = addressString.indexOf('/');
+        return slashIdx > 0
+                ? addressString.substring(0, slashIdx)
+                : inetAddress.getHostAddress();
+    }
+
     public void handshake(final Connection connection,
                           final CompletionHandler<SSLEngine> completionHandler)
     throws IOException {
@@ -228,7 +286,8 @@ public class SSLFilter extends SSLBaseFilter {
         SSLEngine sslEngine = sslCtx.getSslEngine();
         
         if (sslEngine == null) {
-            sslEngine = sslEngineConfigurator.createSSLEngine();
+            sslEngine = createSSLEngine(sslEngineConfigurator, connection,
+                    dstAddress);
             sslCtx.configure(sslEngine);
         } else if (!isHandshaking(sslEngine)) { // if handshake haven't been started
             sslEngineConfigurator.configure(sslEngine);
@@ -0,0 +1,364 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.strategies;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.IOEvent;
+import org.glassfish.grizzly.IOEventLifeCycleListener;
+import org.glassfish.grizzly.Processor;
+import org.glassfish.grizzly.Transport;
+import org.glassfish.grizzly.TransportProbe;
+import org.glassfish.grizzly.utils.DataStructures;
+
+/**
+ * {@link org.glassfish.grizzly.IOStrategy}, which measures the time each
+ * {@link Processor} (normally {@link org.glassfish.grizzly.filterchain.FilterChain})
+ * spends processing {@link IOEvent#READ} events and, basing on
+ * the exponentially weighted moving average (EWMA) of that time, decides
+ * whether the {@link Processor}'s {@link IOEvent}s have to be processed in
+ * the selector thread (like {@link SameThreadIOStrategy}) or in a worker
+ * thread (like {@link WorkerThreadIOStrategy}).
+ *
+ * So the cheap {@link Processor}s get the same-thread latency, and the slow
+ * ones don't block the other {@link Connection}s served by the same selector
+ * thread.
+ *
+ * The {@link Processor} is switched to the worker thread dispatch, once its
+ * average processing time exceeds the threshold, and is switched back to the
+ * same-thread dispatch, once the average drops below half of the threshold.
+ * Each switch is reported via
+ * {@link TransportProbe.Ext#onDispatchModeChangeEvent(org.glassfish.grizzly.Transport, org.glassfish.grizzly.Processor, boolean)}.
+ *
+ * The dispatch decision is made before the {@link IOEvent} is processed, so
+ * the statistics is kept per {@link Processor} instance, not per request
+ * handler: all the requests processed by the same
+ * {@link org.glassfish.grizzly.filterchain.FilterChain} (for example all the
+ * HTTP handlers of a single listener) are dispatched the same way.
+ * At most {@link #MAX_TRACKED_PROCESSORS} {@link Processor}s are tracked,
+ * once the limit is reached an arbitrary {@link Processor}'s statistics is
+ * evicted, so it's not recommended to use the strategy with
+ * {@link Processor}s created per {@link Connection}.
+ *
+ * @since 2.3.18
+ */
+public final class AdaptiveIOStrategy extends AbstractIOStrategy {
+
+    private static final Logger logger = Grizzly.logger(AdaptiveIOStrategy.class);
+
+    /**
+     * The default processing time threshold (in microseconds), after which
+     * the {@link Processor}'s {@link IOEvent}s are dispatched to a worker thread.
+     */
+    public static final long DEFAULT_WORKER_THREAD_THRESHOLD_MICROS = 250;
+
+    /**
+     * The max number of {@link Processor}s, the strategy keeps
+     * the statistics for.
+     */
+    public static final int MAX_TRACKED_PROCESSORS = 64;
+
+    // EWMA weight of the new sample is 1/8
+    private static final int EWMA_SHIFT = 3;
+
+    private final long workerThreadThresholdNanos;
+
+    private final ConcurrentMap<Processor, ProcessorStats> statsMap =
+            DataStructures.<Processor, ProcessorStats>getConcurrentMap();
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public AdaptiveIOStrategy() {
+        this(DEFAULT_WORKER_THREAD_THRESHOLD_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @param workerThreadThreshold the average processing time, after which
+     *          the {@link Processor}'s {@link IOEvent}s are dispatched to
+     *          a worker thread.
+     * @param timeUnit the threshold {@link TimeUnit}.
+     */
+    public AdaptiveIOStrategy(final long workerThreadThreshold,
+            final TimeUnit timeUnit) {
+        if (workerThreadThreshold <= 0) {
+            throw new IllegalArgumentException("workerThreadThreshold should be positive");
+        }
+
+        workerThreadThresholdNanos = timeUnit.toNanos(workerThreadThreshold);
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    /**
+     * Returns the average processing time, after which the {@link Processor}'s
+     * {@link IOEvent}s are dispatched to a worker thread.
+     */
+    public long getWorkerThreadThreshold(final TimeUnit timeUnit) {
+        return timeUnit.convert(workerThreadThresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the {@link Processor}s, the strategy has statistics for.
+     */
+    public Collection<Processor> getProcessors() {
+        return new ArrayList<Processor>(statsMap.keySet());
+    }
+
+    /**
+     * Returns the {@link Processor}'s average {@link IOEvent#READ} processing
+     * time, or <tt>-1</tt>, if there is no statistics for the {@link Processor}.
+     */
+    public long getProcessingTime(final Processor processor,
+            final TimeUnit timeUnit) {
+        final ProcessorStats stats = statsMap.get(processor);
+        return stats != null
+                ? timeUnit.convert(stats.averageNanos, TimeUnit.NANOSECONDS)
+                : -1;
+    }
+
+    /**
+     * Returns <tt>true</tt>, if the {@link Processor}'s {@link IOEvent}s are
+     * dispatched to a worker thread, or <tt>false</tt> if they are processed in
+     * the selector thread.
+     */
+    public boolean isWorkerThread(final Processor processor) {
+        final ProcessorStats stats = statsMap.get(processor);
+        return stats != null && stats.isWorkerThread;
+    }
+
+
+    // ------------------------------------------------- Methods from IOStrategy
+
+
+    @Override
+    public boolean executeIoEvent(final Connection connection,
+            final IOEvent ioEvent, final boolean isIoEventEnabled)
+            throws IOException {
+
+        final boolean isReadOrWriteEvent = isReadWrite(ioEvent);
+
+        final IOEventLifeCycleListener listener;
+        if (isReadOrWriteEvent) {
+            if (isIoEventEnabled) {
+                connection.disableIOEvent(ioEvent);
+            }
+
+            listener = ENABLE_INTEREST_LIFECYCLE_LISTENER;
+        } else {
+            listener = null;
+        }
+
+        final ProcessorStats stats = getStats(connection, ioEvent);
+        final Executor threadPool = getThreadPoolFor(connection, ioEvent, stats);
+        if (threadPool != null) {
+            threadPool.execute(new AdaptiveRunnable(
+                    this, connection, ioEvent, listener, stats));
+        } else {
+            run0(connection, ioEvent, listener, stats);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Executor getThreadPoolFor(final Connection connection,
+            final IOEvent ioEvent) {
+        return getThreadPoolFor(connection, ioEvent,
+                getStats(connection, ioEvent));
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private Executor getThreadPoolFor(final Connection connection,
+            final IOEvent ioEvent, final ProcessorStats stats) {
+        return stats != null && stats.isWorkerThread
+                ? super.getThreadPoolFor(connection, ioEvent)
+                : null;
+    }
+
+    /**
+     * Returns the {@link ProcessorStats}, if the {@link IOEvent} is measured
+     * or dispatched according to the statistics, or <tt>null</tt> otherwise.
+     */
+    private ProcessorStats getStats(final Connection connection,
+            final IOEvent ioEvent) {
+        if (ioEvent != IOEvent.READ && ioEvent != IOEvent.CLOSED) {
+            return null;
+        }
+
+        final Processor processor = connection.obtainProcessor(ioEvent);
+        if (processor == null) {
+            return null;
+        }
+
+        ProcessorStats stats = statsMap.get(processor);
+        if (stats == null) {
+            evictIfFull();
+            
+            final ProcessorStats newStats = new ProcessorStats(processor);
+            stats = statsMap.putIfAbsent(processor, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * Evicts an arbitrary {@link Processor}'s statistics, if the max number
+     * of the tracked {@link Processor}s is reached.
+     */
+    private void evictIfFull() {
+        if (statsMap.size() >= MAX_TRACKED_PROCESSORS) {
+            final Iterator<Processor> it = statsMap.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private void run0(final Connection connection,
+                      final IOEvent ioEvent,
+                      final IOEventLifeCycleListener lifeCycleListener,
+                      final ProcessorStats stats) {
+
+        if (stats == null || ioEvent != IOEvent.READ) {
+            fireIOEvent(connection, ioEvent, lifeCycleListener, logger);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        fireIOEvent(connection, ioEvent, lifeCycleListener, logger);
+        onProcessed(connection, stats, System.nanoTime() - start);
+    }
+
+    private void onProcessed(final Connection connection,
+            final ProcessorStats stats, final long processingNanos) {
+        // the average is updated without synchronization, concurrent samples
+        // might be lost, which is fine for the dispatch decision
+        final long average = stats.averageNanos;
+        final long newAverage = average + ((processingNanos - average) >> EWMA_SHIFT);
+        stats.averageNanos = newAverage;
+
+        final boolean isWorkerThread = stats.isWorkerThread;
+        final boolean shouldBeWorkerThread = isWorkerThread
+                ? newAverage > (workerThreadThresholdNanos >> 1)
+                : newAverage > workerThreadThresholdNanos;
+
+        if (isWorkerThread != shouldBeWorkerThread) {
+            synchronized (stats) {
+                if (stats.isWorkerThread == shouldBeWorkerThread) {
+                    return;
+                }
+
+                stats.isWorkerThread = shouldBeWorkerThread;
+            }
+
+            notifyDispatchModeChanged(connection.getTransport(),
+                    stats.processor, shouldBeWorkerThread);
+        }
+    }
+
+    private static void notifyDispatchModeChanged(final Transport transport,
+            final Processor processor, final boolean isWorkerThread) {
+        final TransportProbe[] probes =
+                transport.getMonitoringConfig().getProbes();
+        if (probes != null) {
+            for (TransportProbe probe : probes) {
+                if (probe instanceof TransportProbe.Ext) {
+                    ((TransportProbe.Ext) probe).onDispatchModeChangeEvent(
+                            transport, processor, isWorkerThread);
+                }
+            }
+        }
+    }
+
+    private static final class ProcessorStats {
+        private final Processor processor;
+        private volatile long averageNanos;
+        private volatile boolean isWorkerThread;
+
+        private ProcessorStats(final Processor processor) {
+            this.processor = processor;
+        }
+    }
+
+    private static final class AdaptiveRunnable implements Runnable {
+        final AdaptiveIOStrategy strategy;
+        final Connection connection;
+        final IOEvent ioEvent;
+        final IOEventLifeCycleListener lifeCycleListener;
+        final ProcessorStats stats;
+
+        private AdaptiveRunnable(final AdaptiveIOStrategy strategy,
+                final Connection connection,
+                final IOEvent ioEvent,
+                final IOEventLifeCycleListener lifeCycleListener,
+                final ProcessorStats stats) {
+            this.strategy = strategy;
+            this.connection = connection;
+            this.ioEvent = ioEvent;
+            this.lifeCycleListener = lifeCycleListener;
+            this.stats = stats;
+        }
+
+        @Override
+        public void run() {
+            strategy.run0(connection, ioEvent, lifeCycleListener, stats);
+        }
+    }
+}
@@ -335,6 +335,7 @@ public abstract class AbstractThreadPool extends AbstractExecutorService
         if (delayedQueue != null) {
             worker.transactionExpirationTime =
                     System.currentTimeMillis() + transactionTimeoutMillis;
+            delayedQueue.reschedule(worker);
         }
 
         final ClassLoader initial = config.getInitialClassLoader();
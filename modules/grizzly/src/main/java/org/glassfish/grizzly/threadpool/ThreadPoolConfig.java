@@ -97,6 +97,7 @@ public final class ThreadPoolConfig {
     protected DelayedExecutor transactionMonitor;
     protected long transactionTimeoutMillis;
     protected ClassLoader initialClassLoader;
+    protected boolean isWorkStealing;
 
     /**
      * Thread pool probes
@@ -155,6 +156,7 @@ public final class ThreadPoolConfig {
         this.keepAliveTimeMillis   = cfg.keepAliveTimeMillis;
         this.mm              = cfg.mm;
         this.initialClassLoader = cfg.initialClassLoader;
+        this.isWorkStealing = cfg.isWorkStealing;
         
         this.threadPoolMonitoringConfig =
                 new DefaultMonitoringConfig<ThreadPoolProbe>(ThreadPoolProbe.class);
@@ -420,6 +422,35 @@ public final class ThreadPoolConfig {
         return this;
     }
 
+    /**
+     * @return <tt>true</tt> if the thread-pool has to be a
+     *  {@link WorkStealingThreadPool}, or <tt>false</tt> otherwise.
+     *
+     * @since 2.3.18
+     */
+    public boolean isWorkStealing() {
+        return isWorkStealing;
+    }
+
+    /**
+     * If <tt>true</tt>, the thread-pool will be a {@link WorkStealingThreadPool},
+     * where each worker thread has its own task queue and the tasks, queued
+     * by the same thread, are preferably processed by the same worker.
+     * The work-stealing thread-pool has {@link #getMaxPoolSize()} threads,
+     * the {@link #getQueue()} and {@link #getQueueLimit()} settings
+     * are not applied.
+     *
+     * @param isWorkStealing <tt>true</tt> to use work-stealing thread-pool
+     *
+     * @return the {@link ThreadPoolConfig}
+     *
+     * @since 2.3.18
+     */
+    public ThreadPoolConfig setWorkStealing(final boolean isWorkStealing) {
+        this.isWorkStealing = isWorkStealing;
+        return this;
+    }
+
     @Override
     public String toString() {
         return ThreadPoolConfig.class.getSimpleName() + " :\r\n"
@@ -434,6 +465,7 @@ public final class ThreadPoolConfig {
                 + "  transactionTimeoutMillis: " + transactionTimeoutMillis + "\r\n"
                 + "  priority: " + priority + "\r\n"
                 + "  isDaemon: " + isDaemon + "\r\n"
-                + "  initialClassLoader: " + initialClassLoader;
+                + "  initialClassLoader: " + initialClassLoader + "\r\n"
+                + "  isWorkStealing: " + isWorkStealing;
     }
 }
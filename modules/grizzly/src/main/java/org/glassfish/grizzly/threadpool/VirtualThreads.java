@@ -0,0 +1,176 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * Utility class, which checks if the runtime supports virtual {@link Thread}s
+ * (JDK 21+) and creates virtual thread based {@link Executor}s.
+ *
+ * The virtual threads API is accessed via reflection, so Grizzly could be
+ * compiled and run on older JDKs, where {@link #isAvailable()} returns
+ * <tt>false</tt>.
+ *
+ * @since 2.3.18
+ */
+public final class VirtualThreads {
+    private static final Logger LOGGER = Grizzly.logger(VirtualThreads.class);
+
+    private static final Class<?> BASE_VIRTUAL_THREAD_CLASS;
+    private static final Method OF_VIRTUAL_METHOD;
+    private static final Method BUILDER_NAME_METHOD;
+    private static final Method BUILDER_FACTORY_METHOD;
+
+    static {
+        Class<?> baseVirtualThreadClass = null;
+        Method ofVirtualMethod = null;
+        Method builderNameMethod = null;
+        Method builderFactoryMethod = null;
+
+        try {
+            ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderNameMethod = builderClass.getMethod("name", String.class, long.class);
+            builderFactoryMethod = builderClass.getMethod("factory");
+
+            // throws UnsupportedOperationException, if virtual threads
+            // are a preview feature, which is not enabled
+            ofVirtualMethod.invoke(null);
+
+            baseVirtualThreadClass = loadBaseVirtualThreadClass();
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, "Virtual threads are not supported", t);
+            baseVirtualThreadClass = null;
+            ofVirtualMethod = null;
+            builderNameMethod = null;
+            builderFactoryMethod = null;
+        }
+
+        BASE_VIRTUAL_THREAD_CLASS = baseVirtualThreadClass;
+        OF_VIRTUAL_METHOD = ofVirtualMethod;
+        BUILDER_NAME_METHOD = builderNameMethod;
+        BUILDER_FACTORY_METHOD = builderFactoryMethod;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns <tt>true</tt> if the runtime supports virtual {@link Thread}s,
+     * or <tt>false</tt> otherwise.
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL_METHOD != null;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the passed {@link Thread} is a virtual thread,
+     * or <tt>false</tt> otherwise.
+     */
+    public static boolean isVirtual(final Thread thread) {
+        return BASE_VIRTUAL_THREAD_CLASS != null
+                && BASE_VIRTUAL_THREAD_CLASS.isInstance(thread);
+    }
+
+    /**
+     * Creates the {@link ThreadFactory}, which produces virtual threads named
+     * <tt>namePrefix + counter</tt>.
+     *
+     * @param namePrefix the thread name prefix
+     * @return the virtual {@link Thread}s {@link ThreadFactory}
+     * @throws IllegalStateException if virtual threads are not supported
+     */
+    public static ThreadFactory newThreadFactory(final String namePrefix) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Virtual threads are not supported");
+        }
+
+        try {
+            final Object builder = BUILDER_NAME_METHOD.invoke(
+                    OF_VIRTUAL_METHOD.invoke(null), namePrefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY_METHOD.invoke(builder);
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    "Can not create virtual threads factory", e);
+        }
+    }
+
+    /**
+     * Creates the {@link Executor}, which executes each task in a new
+     * virtual thread.
+     *
+     * @param namePrefix the thread name prefix
+     * @return the virtual {@link Thread}s {@link Executor}
+     * @throws IllegalStateException if virtual threads are not supported
+     */
+    public static Executor newExecutor(final String namePrefix) {
+        return new VirtualThreadExecutor(newThreadFactory(namePrefix));
+    }
+
+    private static Class<?> loadBaseVirtualThreadClass()
+            throws ClassNotFoundException {
+        try {
+            // the common super class of the virtual thread implementations
+            return Class.forName("java.lang.BaseVirtualThread");
+        } catch (ClassNotFoundException e) {
+            return Class.forName("java.lang.VirtualThread");
+        }
+    }
+
+    private static final class VirtualThreadExecutor implements Executor {
+        private final ThreadFactory threadFactory;
+
+        private VirtualThreadExecutor(final ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            threadFactory.newThread(command).start();
+        }
+    }
+}
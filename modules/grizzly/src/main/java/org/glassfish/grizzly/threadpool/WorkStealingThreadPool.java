@@ -0,0 +1,353 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.threadpool;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed thread pool, where each worker thread has its own task queue.
+ *
+ * A task is queued to the queue of the worker, which is paired with the
+ * thread calling {@link #execute(java.lang.Runnable)}: a worker thread queues
+ * tasks to its own queue, other threads (like
+ * {@link org.glassfish.grizzly.nio.SelectorRunner} threads) are paired with
+ * the pool workers by the thread id hash.
+ * As a connection is always served by the same
+ * {@link org.glassfish.grizzly.nio.SelectorRunner}, the connection's tasks
+ * are preferably processed by the same worker thread.
+ *
+ * An idle worker steals tasks from the other workers' queues, so a busy
+ * worker doesn't delay the tasks queued to it. A worker, which finds more
+ * tasks in the queue it took a task from, wakes up an idle peer, so the
+ * backlog doesn't wait for a single worker.
+ *
+ * The per-worker queues are non-blocking {@link ConcurrentLinkedQueue}s,
+ * so queueing, polling and stealing never take a lock; the owner and the
+ * thieves both take the tasks from the queue's head, which keeps the
+ * tasks of a worker in the FIFO order.
+ *
+ * The pool is enabled via {@link ThreadPoolConfig#setWorkStealing(boolean)}.
+ * It runs {@link ThreadPoolConfig#getMaxPoolSize()} threads, the custom
+ * {@link ThreadPoolConfig#getQueue()} and
+ * {@link ThreadPoolConfig#getQueueLimit()} are not applied.
+ *
+ * @since 2.3.18
+ */
+public class WorkStealingThreadPool extends AbstractThreadPool {
+
+    private final StealingWorker[] stealingWorkers;
+    private final Queue<Runnable> queueView = new QueueView();
+
+    /**
+     * The worker running in the current thread. It's set only in the worker
+     * threads, which terminate with the pool, so the submitter threads
+     * don't keep references to the pool.
+     */
+    private static final ThreadLocal<StealingWorker> CURRENT_WORKER =
+            new ThreadLocal<StealingWorker>();
+
+    public WorkStealingThreadPool(final ThreadPoolConfig config) {
+        super(config);
+
+        final int poolSize = config.getMaxPoolSize();
+        stealingWorkers = new StealingWorker[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            stealingWorkers[i] = new StealingWorker(i);
+        }
+
+        synchronized (stateLock) {
+            for (StealingWorker worker : stealingWorkers) {
+                startWorker(worker);
+            }
+        }
+
+        ProbeNotifier.notifyThreadPoolStarted(this);
+        super.onMaxNumberOfThreadsReached();
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        if (command == null) {
+            throw new NullPointerException("command can't be null");
+        }
+
+        if (running) {
+            final StealingWorker worker = pairedWorker();
+            worker.queue.offer(command);
+
+            // doublecheck the pool is still running
+            if (!running && worker.queue.remove(command)) {
+                throw new RejectedExecutionException("ThreadPool is not running");
+            }
+
+            onTaskQueued(command);
+            signal(worker, command);
+            return;
+        }
+
+        throw new RejectedExecutionException("ThreadPool is not running");
+    }
+
+    /**
+     * Returns the {@link Queue} view of all the workers' queues.
+     */
+    @Override
+    public Queue<Runnable> getQueue() {
+        return queueView;
+    }
+
+    /**
+     * The workers stop, once the pool is not running and there are no tasks
+     * to steal, so there is no need to poison them, just wake them up.
+     */
+    @Override
+    protected void poisonAll() {
+        for (StealingWorker worker : stealingWorkers) {
+            final Thread thread = worker.t;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * Returns the worker, the current thread's tasks are queued to:
+     * the worker itself, if it's the pool's worker thread, or the worker
+     * selected by the thread id hash otherwise.
+     */
+    private StealingWorker pairedWorker() {
+        final StealingWorker current = CURRENT_WORKER.get();
+        if (current != null && stealingWorkers[current.index] == current) {
+            return current;
+        }
+
+        long h = Thread.currentThread().getId();
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+
+        return stealingWorkers[(int) ((h & Long.MAX_VALUE)
+                % stealingWorkers.length)];
+    }
+
+    /**
+     * Wakes up the worker, the task has been queued to, if it's idle.
+     * If the worker is busy, or the task is queued behind other tasks
+     * (the worker might be marked idle, but already woken up to process
+     * them) - wakes up an idle peer, so it can steal the task.
+     */
+    private void signal(final StealingWorker target, final Runnable task) {
+        if (target.isIdle) {
+            LockSupport.unpark(target.t);
+            if (target.queue.peek() == task) {
+                return;
+            }
+        }
+
+        signalPeer(target);
+    }
+
+    /**
+     * Wakes up an idle worker other than the given one.
+     */
+    private void signalPeer(final StealingWorker worker) {
+        final int length = stealingWorkers.length;
+        for (int i = 1; i < length; i++) {
+            final StealingWorker peer =
+                    stealingWorkers[(worker.index + i) % length];
+            if (peer.isIdle) {
+                LockSupport.unpark(peer.t);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Polls a task from the worker's own queue, or, if it's empty,
+     * steals a task from the other workers. If the queue, the task has
+     * been taken from, still has tasks - wakes up an idle peer to help.
+     */
+    private Runnable poll(final StealingWorker owner) {
+        final int length = stealingWorkers.length;
+        for (int i = 0; i < length; i++) {
+            final Queue<Runnable> queue =
+                    stealingWorkers[(owner.index + i) % length].queue;
+            final Runnable task = queue.poll();
+            if (task != null) {
+                if (queue.peek() != null) {
+                    signalPeer(owner);
+                }
+                
+                return task;
+            }
+        }
+
+        return null;
+    }
+
+    private final class StealingWorker extends Worker {
+        private final int index;
+        private final Queue<Runnable> queue =
+                new ConcurrentLinkedQueue<Runnable>();
+        private volatile boolean isIdle;
+
+        private StealingWorker(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            // the tasks queued by the worker itself go to its own queue
+            CURRENT_WORKER.set(this);
+            try {
+                super.run();
+            } finally {
+                CURRENT_WORKER.remove();
+            }
+        }
+
+        @Override
+        protected Runnable getTask() throws InterruptedException {
+            while (true) {
+                Runnable task = poll(this);
+                if (task != null) {
+                    return task;
+                }
+
+                isIdle = true;
+                try {
+                    // recheck after publishing the idle state
+                    task = poll(this);
+                    if (task != null) {
+                        return task;
+                    }
+
+                    if (!running) {
+                        return null;
+                    }
+
+                    LockSupport.park(this);
+                } finally {
+                    isIdle = false;
+                }
+            }
+        }
+    }
+
+    private final class QueueView extends AbstractQueue<Runnable> {
+
+        @Override
+        public boolean offer(final Runnable task) {
+            if (task == poison) {
+                return true;
+            }
+
+            final StealingWorker worker = pairedWorker();
+            worker.queue.offer(task);
+            signal(worker, task);
+            return true;
+        }
+
+        @Override
+        public Runnable poll() {
+            for (StealingWorker worker : stealingWorkers) {
+                final Runnable task = worker.queue.poll();
+                if (task != null) {
+                    return task;
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public Runnable peek() {
+            for (StealingWorker worker : stealingWorkers) {
+                final Runnable task = worker.queue.peek();
+                if (task != null) {
+                    return task;
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public boolean remove(final Object task) {
+            for (StealingWorker worker : stealingWorkers) {
+                if (worker.queue.remove(task)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (StealingWorker worker : stealingWorkers) {
+                size += worker.queue.size();
+            }
+
+            return size;
+        }
+
+        @Override
+        public Iterator<Runnable> iterator() {
+            final List<Runnable> snapshot = new ArrayList<Runnable>(size());
+            for (StealingWorker worker : stealingWorkers) {
+                snapshot.addAll(worker.queue);
+            }
+
+            // read-only snapshot
+            return Collections.unmodifiableList(snapshot).iterator();
+        }
+    }
+}
@@ -125,45 +125,55 @@ public class DelayedExecutor {
         return l1 != l2;
     }
 
-    private class DelayedRunnable implements Runnable {
-
-        @SuppressWarnings("unchecked")
-        @Override
-        public void run() {
-            while(isStarted) {
-                final long currentTimeMillis = System.currentTimeMillis();
+    /**
+     * Checks the timeouts of all the registered {@link DelayQueue}s' elements
+     * and passes the expired ones to the {@link Worker}s.
+     * The method is called by the executor's thread every check interval.
+     *
+     * @param currentTimeMillis the current time in milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    protected void checkQueues(final long currentTimeMillis) {
+        for (final DelayQueue delayQueue : queues) {
+            if (delayQueue.queue.isEmpty()) continue;
+            
+            final Resolver resolver = delayQueue.resolver;
+
+            for (Iterator it = delayQueue.queue.keySet().iterator(); it.hasNext(); ) {
+                final Object element = it.next();
+                final long timeoutMillis = resolver.getTimeoutMillis(element);
                 
-                for (final DelayQueue delayQueue : queues) {
-                    if (delayQueue.queue.isEmpty()) continue;
-                    
-                    final Resolver resolver = delayQueue.resolver;
-
-                    for (Iterator it = delayQueue.queue.keySet().iterator(); it.hasNext(); ) {
-                        final Object element = it.next();
-                        final long timeoutMillis = resolver.getTimeoutMillis(element);
-                        
-                        if (timeoutMillis == UNSET_TIMEOUT) {
-                            it.remove();
-                            if (wasModified(timeoutMillis,
-                                    resolver.getTimeoutMillis(element))) {                                
-                                delayQueue.queue.put(element, delayQueue);
-                            }
-                        } else if (currentTimeMillis - timeoutMillis >= 0) {
-                            it.remove();
-                            if (wasModified(timeoutMillis,
-                                    resolver.getTimeoutMillis(element))) {
+                if (timeoutMillis == UNSET_TIMEOUT) {
+                    it.remove();
+                    if (wasModified(timeoutMillis,
+                            resolver.getTimeoutMillis(element))) {                                
+                        delayQueue.queue.put(element, delayQueue);
+                    }
+                } else if (currentTimeMillis - timeoutMillis >= 0) {
+                    it.remove();
+                    if (wasModified(timeoutMillis,
+                            resolver.getTimeoutMillis(element))) {
+                        delayQueue.queue.put(element, delayQueue);
+                    } else {
+                        try {
+                            if (!delayQueue.worker.doWork(element)) {
                                 delayQueue.queue.put(element, delayQueue);
-                            } else {
-                                try {
-                                    if (!delayQueue.worker.doWork(element)) {
-                                        delayQueue.queue.put(element, delayQueue);
-                                    }
-                                } catch (Exception ignored) {
-                                }
                             }
+                        } catch (Exception ignored) {
                         }
                     }
                 }
+            }
+        }
+    }
+
+    private class DelayedRunnable implements Runnable {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void run() {
+            while(isStarted) {
+                checkQueues(System.currentTimeMillis());
 
                 synchronized(sync) {
                     if (!isStarted) return;
@@ -201,6 +211,22 @@ public class DelayedExecutor {
             resolver.removeTimeout(elem);
         }
 
+        /**
+         * Notifies the queue, that the element's timeout has been changed
+         * directly via the {@link Resolver}, not via {@link #add(Object, long, TimeUnit)}.
+         * The scanning implementation re-reads the timeouts on every check,
+         * so the method does nothing, but implementations, which check
+         * an element only when its timeout is expected to expire
+         * (like {@link HashedWheelDelayedExecutor}), rely on it to learn about
+         * the shortened timeouts.
+         *
+         * @param elem the element, which timeout has been changed
+         *
+         * @since 2.3.18
+         */
+        public void reschedule(final E elem) {
+        }
+
         public void destroy() {
             queues.remove(this);
         }
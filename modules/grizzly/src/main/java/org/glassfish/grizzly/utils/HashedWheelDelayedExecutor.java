@@ -0,0 +1,337 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DelayedExecutor} based on the hashed timing wheel.
+ *
+ * Unlike the {@link DelayedExecutor}, which checks the timeout of every
+ * registered element on every tick, this implementation places each element
+ * to the wheel's bucket, which corresponds to the element's timeout, so
+ * adding, removing and rescheduling an element costs O(1) and a tick checks
+ * only the elements, which are (or might be) expired.
+ *
+ * The timeouts, which are changed directly via the {@link DelayedExecutor.Resolver},
+ * are picked up lazily: if the timeout has been extended, the element is
+ * moved to the new bucket when the old one is checked.
+ * If the timeout has been shortened, {@link DelayQueue#reschedule(Object)}
+ * has to be called, otherwise the element will be processed not earlier than
+ * its previous timeout.
+ *
+ * @since 2.3.18
+ */
+public class HashedWheelDelayedExecutor extends DelayedExecutor {
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickMillis;
+    private final Entry[] wheel;
+    private final int mask;
+
+    // the entries added by the non-executor threads
+    private final Queue<Entry> pendingEntries =
+            new ConcurrentLinkedQueue<Entry>();
+
+    private final Queue<WheelDelayQueue> wheelQueues =
+            new ConcurrentLinkedQueue<WheelDelayQueue>();
+
+    private volatile long startTimeMillis = -1;
+    // the next tick to be processed, accessed by the executor's thread only
+    private long nextTick;
+
+    public HashedWheelDelayedExecutor(final ExecutorService threadPool) {
+        this(threadPool, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    public HashedWheelDelayedExecutor(final ExecutorService threadPool,
+            final long tickDuration, final TimeUnit timeunit) {
+        this(threadPool, tickDuration, timeunit, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param threadPool the thread pool to run the executor's thread
+     * @param tickDuration the wheel tick duration (the check interval)
+     * @param timeunit the tick duration {@link TimeUnit}
+     * @param wheelSize the number of the wheel buckets, will be rounded up
+     *        to the power of two
+     */
+    public HashedWheelDelayedExecutor(final ExecutorService threadPool,
+            final long tickDuration, final TimeUnit timeunit,
+            final int wheelSize) {
+        super(threadPool, tickDuration, timeunit);
+
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheel size has to be positive");
+        }
+
+        tickMillis = Math.max(1, TimeUnit.MILLISECONDS.convert(tickDuration, timeunit));
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        wheel = new Entry[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return the number of the wheel buckets
+     */
+    public int getWheelSize() {
+        return wheel.length;
+    }
+
+    @Override
+    public void start() {
+        if (startTimeMillis == -1) {
+            startTimeMillis = System.currentTimeMillis();
+        }
+
+        super.start();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+
+        WheelDelayQueue queue;
+        while ((queue = wheelQueues.poll()) != null) {
+            queue.destroy();
+        }
+
+        pendingEntries.clear();
+    }
+
+    @Override
+    public <E> DelayQueue<E> createDelayQueue(final Worker<E> worker,
+            final Resolver<E> resolver) {
+        final WheelDelayQueue<E> queue = new WheelDelayQueue<E>(worker, resolver);
+        wheelQueues.add(queue);
+
+        return queue;
+    }
+
+    @Override
+    protected void checkQueues(final long currentTimeMillis) {
+        if (startTimeMillis == -1) {
+            startTimeMillis = currentTimeMillis;
+        }
+
+        Entry entry;
+        while ((entry = pendingEntries.poll()) != null) {
+            if (entry.isActive()) {
+                insert(entry);
+            }
+        }
+
+        final long currentTick = (currentTimeMillis - startTimeMillis) / tickMillis;
+
+        while (nextTick <= currentTick) {
+            final int idx = (int) (nextTick++ & mask);
+
+            Entry e = wheel[idx];
+            wheel[idx] = null;
+
+            while (e != null) {
+                final Entry next = e.next;
+                e.next = null;
+
+                if (e.isActive()) {
+                    if (e.deadlineTick >= nextTick) {
+                        // the next round
+                        e.next = wheel[idx];
+                        wheel[idx] = e;
+                    } else {
+                        process(e, currentTimeMillis);
+                    }
+                }
+
+                e = next;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void process(final Entry entry, final long currentTimeMillis) {
+        final WheelDelayQueue queue = entry.queue;
+        final Resolver resolver = queue.resolver;
+        final Object element = entry.element;
+
+        final long timeoutMillis = resolver.getTimeoutMillis(element);
+
+        if (timeoutMillis == UNSET_TIMEOUT) {
+            if (queue.entries.remove(element, entry) &&
+                    timeoutMillis != resolver.getTimeoutMillis(element)) {
+                queue.schedule(element);
+            }
+        } else if (currentTimeMillis - timeoutMillis >= 0) {
+            if (!queue.entries.remove(element, entry)) {
+                // the element has been rescheduled or removed concurrently
+                return;
+            }
+            
+            if (timeoutMillis != resolver.getTimeoutMillis(element)) {
+                queue.schedule(element);
+            } else {
+                try {
+                    if (!queue.worker.doWork(element)) {
+                        queue.schedule(element);
+                    }
+                } catch (Exception ignored) {
+                }
+            }
+        } else {
+            // the timeout has been extended
+            entry.deadlineMillis = timeoutMillis;
+            insert(entry);
+        }
+    }
+
+    private void insert(final Entry entry) {
+        final long deadlineTick = Math.max(nextTick, toTick(entry.deadlineMillis));
+        entry.deadlineTick = deadlineTick;
+
+        final int idx = (int) (deadlineTick & mask);
+        entry.next = wheel[idx];
+        wheel[idx] = entry;
+    }
+
+    private long toTick(final long timeMillis) {
+        final long delta = timeMillis - startTimeMillis;
+        if (delta <= 0) {
+            return 0;
+        }
+
+        // ceil, so the element is not checked before its timeout
+        return delta / tickMillis + (delta % tickMillis != 0 ? 1 : 0);
+    }
+
+    private final class WheelDelayQueue<E> extends DelayQueue<E> {
+        private final ConcurrentMap<E, Entry> entries =
+                DataStructures.<E, Entry>getConcurrentMap();
+
+        private volatile boolean isDestroyed;
+
+        private WheelDelayQueue(final Worker<E> worker,
+                final Resolver<E> resolver) {
+            super(worker, resolver);
+        }
+
+        @Override
+        public void add(final E elem, final long delay, final TimeUnit timeUnit) {
+            if (delay >= 0) {
+                final long timeoutMillis = System.currentTimeMillis() +
+                        TimeUnit.MILLISECONDS.convert(delay, timeUnit);
+                resolver.setTimeoutMillis(elem, timeoutMillis);
+                schedule(elem, timeoutMillis);
+            }
+        }
+
+        @Override
+        public void remove(final E elem) {
+            resolver.removeTimeout(elem);
+            entries.remove(elem);
+        }
+
+        @Override
+        public void reschedule(final E elem) {
+            final long timeoutMillis = resolver.getTimeoutMillis(elem);
+            if (timeoutMillis == UNSET_TIMEOUT) {
+                return;
+            }
+
+            final Entry entry = entries.get(elem);
+            if (entry == null || entry.deadlineMillis - timeoutMillis > 0) {
+                schedule(elem, timeoutMillis);
+            }
+        }
+
+        @Override
+        public void destroy() {
+            isDestroyed = true;
+            entries.clear();
+            wheelQueues.remove(this);
+        }
+
+        private void schedule(final E elem) {
+            schedule(elem, resolver.getTimeoutMillis(elem));
+        }
+
+        private void schedule(final E elem, final long timeoutMillis) {
+            if (isDestroyed) {
+                return;
+            }
+
+            final Entry entry = new Entry(this, elem, timeoutMillis);
+            // the replaced entry, if any, becomes inactive
+            entries.put(elem, entry);
+            pendingEntries.offer(entry);
+        }
+    }
+
+    private static final class Entry {
+        private final WheelDelayQueue queue;
+        private final Object element;
+
+        private volatile long deadlineMillis;
+
+        // accessed by the executor's thread only
+        private long deadlineTick;
+        private Entry next;
+
+        private Entry(final WheelDelayQueue queue, final Object element,
+                final long deadlineMillis) {
+            this.queue = queue;
+            this.element = element;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        private boolean isActive() {
+            return !queue.isDestroyed && queue.entries.get(element) == this;
+        }
+    }
+}
@@ -297,7 +297,11 @@ public class IdleTimeoutFilter extends BaseFilter {
                             System.currentTimeMillis() + timeout;
                 }
 
-                idleRecord.timeoutMillis.compareAndSet(FOREVER_SPECIAL, timeoutToSet);
+                if (idleRecord.timeoutMillis.compareAndSet(FOREVER_SPECIAL, timeoutToSet)
+                        && timeoutToSet != 0 && timeoutToSet != FOREVER) {
+                    // let the queue know the timeout is not FOREVER anymore
+                    queue.reschedule(connection);
+                }
             }
         }
     } // END ContextCompletionListener
@@ -0,0 +1,114 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The <tt>long</tt> counter, which is updated frequently by many threads
+ * and read rarely (statistics).
+ *
+ * The counter consists of a fixed number of stripes, a thread updates the
+ * stripe selected by the thread id hash, so the threads mostly don't update
+ * the same memory, and the counter footprint doesn't depend on the number
+ * of threads (which matters for short-lived, for example virtual, threads).
+ * The {@link #get()} value is the sum of the stripes.
+ *
+ * @since 2.3.18
+ */
+public final class StripedLongCounter {
+    // the stripes are placed 8 longs (64 bytes) apart to avoid false sharing
+    private static final int STRIPE_SHIFT = 3;
+    private static final int MAX_STRIPES = 64;
+
+    private static final int STRIPES_NUM;
+    static {
+        final int cpus = Runtime.getRuntime().availableProcessors();
+        int n = 1;
+        while (n < cpus && n < MAX_STRIPES) {
+            n <<= 1;
+        }
+
+        STRIPES_NUM = n;
+    }
+
+    private final AtomicLongArray stripes =
+            new AtomicLongArray(STRIPES_NUM << STRIPE_SHIFT);
+
+    /**
+     * Adds the delta to the counter.
+     *
+     * @param delta the value to add
+     */
+    public void add(final long delta) {
+        stripes.addAndGet(stripeIndex(), delta);
+    }
+
+    /**
+     * Increments the counter.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * @return the counter value, which is the sum of the stripes.
+     *  The value is not an atomic snapshot, if the counter is being updated
+     *  concurrently.
+     */
+    public long get() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES_NUM; i++) {
+            sum += stripes.get(i << STRIPE_SHIFT);
+        }
+
+        return sum;
+    }
+
+    private static int stripeIndex() {
+        long h = Thread.currentThread().getId();
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+
+        return ((int) h & (STRIPES_NUM - 1)) << STRIPE_SHIFT;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChain;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.AdaptiveIOStrategy;
+import org.glassfish.grizzly.threadpool.Threads;
+import org.glassfish.grizzly.utils.Charsets;
+import org.glassfish.grizzly.utils.StringFilter;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link AdaptiveIOStrategy}.
+ */
+public class AdaptiveIOStrategyTest {
+    private static final int FAST_PORT = 7790;
+    private static final int SLOW_PORT = 7791;
+
+    @Test
+    public void testDispatchModes() throws Exception {
+        final AdaptiveIOStrategy strategy =
+                new AdaptiveIOStrategy(1, TimeUnit.MILLISECONDS);
+
+        final ProcessingFilter fastFilter = new ProcessingFilter(0);
+        final ProcessingFilter slowFilter = new ProcessingFilter(5);
+
+        final FilterChain fastChain = FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new StringFilter(Charsets.UTF8_CHARSET))
+                .add(fastFilter)
+                .build();
+        final FilterChain slowChain = FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new StringFilter(Charsets.UTF8_CHARSET))
+                .add(slowFilter)
+                .build();
+
+        final TCPNIOTransport fastTransport = TCPNIOTransportBuilder.newInstance()
+                .setIOStrategy(strategy)
+                .build();
+        fastTransport.setProcessor(fastChain);
+
+        final TCPNIOTransport slowTransport = TCPNIOTransportBuilder.newInstance()
+                .setIOStrategy(strategy)
+                .build();
+        slowTransport.setProcessor(slowChain);
+
+        final AtomicInteger workerThreadEvents = new AtomicInteger();
+        slowTransport.getMonitoringConfig().addProbes(new TransportProbe.Adapter() {
+            @Override
+            public void onDispatchModeChangeEvent(Transport transport,
+                    Processor processor, boolean isWorkerThread) {
+                if (processor == slowChain && isWorkerThread) {
+                    workerThreadEvents.incrementAndGet();
+                }
+            }
+        });
+
+        final BlockingQueue<String> echoQueue = new LinkedBlockingQueue<String>();
+        final FilterChain clientChain = FilterChainBuilder.stateless()
+                .add(new TransportFilter())
+                .add(new StringFilter(Charsets.UTF8_CHARSET))
+                .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx)
+                            throws IOException {
+                        echoQueue.add((String) ctx.getMessage());
+                        return ctx.getStopAction();
+                    }
+                })
+                .build();
+
+        Connection<?> fastConnection = null;
+        Connection<?> slowConnection = null;
+        try {
+            fastTransport.bind(FAST_PORT);
+            fastTransport.start();
+            slowTransport.bind(SLOW_PORT);
+            slowTransport.start();
+
+            final SocketConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(fastTransport)
+                    .processor(clientChain)
+                    .build();
+
+            fastConnection = connectorHandler.connect(
+                    new InetSocketAddress("localhost", FAST_PORT))
+                    .get(10, TimeUnit.SECONDS);
+            slowConnection = connectorHandler.connect(
+                    new InetSocketAddress("localhost", SLOW_PORT))
+                    .get(10, TimeUnit.SECONDS);
+
+            for (int i = 0; i < 50; i++) {
+                fastConnection.write("fast" + i);
+                assertEquals("fast" + i, echoQueue.poll(10, TimeUnit.SECONDS));
+
+                slowConnection.write("slow" + i);
+                assertEquals("slow" + i, echoQueue.poll(10, TimeUnit.SECONDS));
+            }
+
+            assertFalse(strategy.isWorkerThread(fastChain));
+            assertTrue(strategy.isWorkerThread(slowChain));
+            assertTrue(strategy.getProcessingTime(slowChain, TimeUnit.MICROSECONDS)
+                    > strategy.getProcessingTime(fastChain, TimeUnit.MICROSECONDS));
+            assertEquals(1, workerThreadEvents.get());
+
+            // fast chain is processed in the selector thread, slow - in a worker thread
+            assertTrue(fastFilter.isLastInSelectorThread.get());
+            assertFalse(slowFilter.isLastInSelectorThread.get());
+        } finally {
+            if (fastConnection != null) {
+                fastConnection.closeSilently();
+            }
+            if (slowConnection != null) {
+                slowConnection.closeSilently();
+            }
+
+            fastTransport.shutdownNow();
+            slowTransport.shutdownNow();
+        }
+    }
+
+    private static final class ProcessingFilter extends BaseFilter {
+        private final long processingMillis;
+        private final AtomicBoolean isLastInSelectorThread = new AtomicBoolean();
+
+        private ProcessingFilter(final long processingMillis) {
+            this.processingMillis = processingMillis;
+        }
+
+        @Override
+        public NextAction handleRead(final FilterChainContext ctx)
+                throws IOException {
+            isLastInSelectorThread.set(Threads.isService());
+
+            if (processingMillis > 0) {
+                try {
+                    Thread.sleep(processingMillis);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            ctx.write(ctx.getMessage());
+            return ctx.getStopAction();
+        }
+    }
+}
@@ -46,6 +46,7 @@ import org.glassfish.grizzly.attributes.Attribute;
 import org.glassfish.grizzly.attributes.AttributeBuilder;
 import org.glassfish.grizzly.attributes.AttributeHolder;
 import org.glassfish.grizzly.attributes.DefaultAttributeBuilder;
+import org.glassfish.grizzly.attributes.LockFreeAttributeBuilder;
 
 import static org.junit.Assert.*;
 import org.junit.Test;
@@ -63,20 +64,25 @@ public class AttributesTest {
     @Parameterized.Parameters
     public static Collection<Object[]> isSafe() {
         return Arrays.asList(new Object[][]{
-                    {Boolean.FALSE},
-                    {Boolean.TRUE}
+                    {Boolean.FALSE, Boolean.FALSE},
+                    {Boolean.TRUE, Boolean.FALSE},
+                    {Boolean.TRUE, Boolean.TRUE}
                 });
     }
     
     private final boolean isSafe;
+    private final boolean isLockFree;
     
-    public AttributesTest(final boolean isSafe) {
+    public AttributesTest(final boolean isSafe, final boolean isLockFree) {
         this.isSafe = isSafe;
+        this.isLockFree = isLockFree;
     }
     
     @Test
     public void testAttributes() {
-        AttributeBuilder builder = new DefaultAttributeBuilder();
+        AttributeBuilder builder = isLockFree
+                ? new LockFreeAttributeBuilder()
+                : new DefaultAttributeBuilder();
         AttributeHolder holder = isSafe
                 ? builder.createSafeAttributeHolder()
                 : builder.createUnsafeAttributeHolder();
@@ -118,4 +124,77 @@ public class AttributesTest {
             assertTrue(attrNames.contains(attrs[i].name()));
         }
     }
+    
+    @Test
+    public void testConcurrentSet() throws Exception {
+        final AttributeBuilder builder = isLockFree
+                ? new LockFreeAttributeBuilder()
+                : new DefaultAttributeBuilder();
+        final AttributeHolder holder = builder.createSafeAttributeHolder();
+        
+        final int threadsCount = 4;
+        final int attrPerThread = 64;
+        
+        final Attribute[] attrs = new Attribute[threadsCount * attrPerThread];
+        for (int i = 0; i < attrs.length; i++) {
+            attrs[i] = builder.createAttribute("concurrent-attribute-" + i);
+        }
+        
+        // each thread sets its own attributes, so the holder is grown concurrently
+        final Thread[] threads = new Thread[threadsCount];
+        for (int i = 0; i < threadsCount; i++) {
+            final int offset = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = offset; j < attrs.length; j += threadsCount) {
+                        attrs[j].set(holder, "value-" + j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        
+        for (int i = 0; i < attrs.length; i++) {
+            assertEquals("value-" + i, attrs[i].get(holder));
+        }
+        
+        assertEquals(attrs.length, holder.getAttributeNames().size());
+    }
+    
+    @Test
+    public void testFrozenLayout() {
+        if (!isLockFree) {
+            return;
+        }
+        
+        final LockFreeAttributeBuilder builder = new LockFreeAttributeBuilder();
+        final Attribute<String> attr1 = builder.createAttribute("attribute-1");
+        final Attribute<String> attr2 = builder.createAttribute("attribute-2");
+        assertFalse(builder.isLayoutFrozen());
+        
+        for (int i = 0; i < LockFreeAttributeBuilder.FREEZE_THRESHOLD; i++) {
+            builder.createSafeAttributeHolder();
+        }
+        assertTrue(builder.isLayoutFrozen());
+        
+        final AttributeHolder holder = builder.createSafeAttributeHolder();
+        attr1.set(holder, "value-1");
+        attr2.set(holder, "value-2");
+        
+        final AttributeHolder copy = builder.createSafeAttributeHolder();
+        copy.copyFrom(holder);
+        assertEquals("value-1", attr1.get(copy));
+        assertEquals("value-2", attr2.get(copy));
+        
+        // the attributes could be registered after the layout is frozen
+        final Attribute<String> attr3 = builder.createAttribute("attribute-3");
+        attr3.set(copy, "value-3");
+        assertEquals("value-3", attr3.get(copy));
+        assertEquals(3, copy.getAttributeNames().size());
+    }
 }
@@ -58,6 +58,7 @@ import org.glassfish.grizzly.utils.DelayFilter;
 import org.glassfish.grizzly.utils.EchoFilter;
 import org.glassfish.grizzly.utils.StringFilter;
 import org.glassfish.grizzly.compression.zip.GZipFilter;
+import org.glassfish.grizzly.compression.zip.ZipCodecPool;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.Arrays;
@@ -66,10 +67,14 @@ import java.util.Random;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -122,6 +127,28 @@ public class GZipTest {
         doTest(sb.toString());
     }
 
+    @Test
+    public void testZipCodecPool() throws Exception {
+        final Deflater deflater = ZipCodecPool.takeDeflater(Deflater.BEST_SPEED);
+        ZipCodecPool.releaseDeflater(deflater);
+        final long deflaterHits = ZipCodecPool.getDeflaterHits();
+        
+        final Deflater cachedDeflater =
+                ZipCodecPool.takeDeflater(Deflater.BEST_COMPRESSION);
+        assertSame(deflater, cachedDeflater);
+        assertEquals(deflaterHits + 1, ZipCodecPool.getDeflaterHits());
+        ZipCodecPool.releaseDeflater(cachedDeflater);
+        
+        final Inflater inflater = ZipCodecPool.takeInflater();
+        ZipCodecPool.releaseInflater(inflater);
+        final long inflaterHits = ZipCodecPool.getInflaterHits();
+        
+        final Inflater cachedInflater = ZipCodecPool.takeInflater();
+        assertSame(inflater, cachedInflater);
+        assertEquals(inflaterHits + 1, ZipCodecPool.getInflaterHits());
+        ZipCodecPool.releaseInflater(cachedInflater);
+    }
+    
     @Test
     public void testChunkedEcho() throws Exception {
         doTest(true, "Hello world");
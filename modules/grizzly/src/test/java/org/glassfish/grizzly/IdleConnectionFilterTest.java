@@ -42,6 +42,7 @@ package org.glassfish.grizzly;
 
 import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.glassfish.grizzly.filterchain.BaseFilter;
@@ -52,6 +53,7 @@ import org.glassfish.grizzly.filterchain.TransportFilter;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
 import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.glassfish.grizzly.utils.HashedWheelDelayedExecutor;
 import org.glassfish.grizzly.utils.IdleTimeoutFilter;
 
 /**
@@ -63,10 +65,20 @@ public class IdleConnectionFilterTest extends GrizzlyTestCase {
     public static final int PORT = 7782;
 
     public void testAcceptedConnectionIdleTimeout() throws Exception {
+        doTestAcceptedConnectionIdleTimeout(
+                IdleTimeoutFilter.createDefaultIdleDelayedExecutor());
+    }
+
+    public void testAcceptedConnectionIdleTimeoutHashedWheel() throws Exception {
+        doTestAcceptedConnectionIdleTimeout(new HashedWheelDelayedExecutor(
+                Executors.newSingleThreadExecutor(), 100, TimeUnit.MILLISECONDS));
+    }
+
+    private void doTestAcceptedConnectionIdleTimeout(
+            final DelayedExecutor timeoutExecutor) throws Exception {
         Connection connection = null;
 
         final CountDownLatch latch = new CountDownLatch(1);
-        final DelayedExecutor timeoutExecutor = IdleTimeoutFilter.createDefaultIdleDelayedExecutor();
         timeoutExecutor.start();
         IdleTimeoutFilter idleTimeoutFilter =
                 new IdleTimeoutFilter(timeoutExecutor, 2, TimeUnit.SECONDS);
@@ -40,7 +40,10 @@
 
 package org.glassfish.grizzly;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 
@@ -60,6 +63,7 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Random;
 import org.junit.runners.Parameterized.Parameters;
 import org.glassfish.grizzly.attributes.Attribute;
 import org.glassfish.grizzly.filterchain.Filter;
@@ -69,8 +73,10 @@ import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.filterchain.NextAction;
 import java.io.IOException;
 import java.net.URL;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.glassfish.grizzly.filterchain.TransportFilter;
@@ -78,18 +84,22 @@ import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.ssl.SSLBaseFilter;
 import org.glassfish.grizzly.ssl.SSLContextConfigurator;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.grizzly.ssl.SSLFilter;
 import org.glassfish.grizzly.ssl.SSLStreamReader;
 import org.glassfish.grizzly.ssl.SSLStreamWriter;
+import org.glassfish.grizzly.ssl.SSLUtils;
 import org.glassfish.grizzly.streams.StreamReader;
 import org.glassfish.grizzly.streams.StreamWriter;
 import org.glassfish.grizzly.utils.ChunkingFilter;
+import org.glassfish.grizzly.utils.DataStructures;
 import org.glassfish.grizzly.utils.EchoFilter;
 import org.glassfish.grizzly.utils.StringFilter;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.KeyManager;
@@ -261,6 +271,621 @@ public class SSLTest {
         doTestParallelWrites(100, 100);
     }
 
+    @Test
+    public void testSessionResumption() throws Exception {
+        final SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        sslContextConfigurator.setSessionCacheSize(16);
+        sslContextConfigurator.setSessionTimeout(60);
+        
+        if (!sslContextConfigurator.validateConfiguration(true)) {
+            fail("Failed to validate SSLContextConfiguration.");
+        }
+        
+        final SSLContext serverSSLContext = sslContextConfigurator.createSSLContext();
+        assertEquals(16, serverSSLContext.getServerSessionContext().getSessionCacheSize());
+        assertEquals(60, serverSSLContext.getServerSessionContext().getSessionTimeout());
+        
+        final String[] protocols = {"TLSv1.2"};
+        final SSLEngineConfigurator clientSSLEngineConfigurator =
+                new SSLEngineConfigurator(sslContextConfigurator.createSSLContext())
+                .setEnabledProtocols(protocols);
+        final SSLEngineConfigurator serverSSLEngineConfigurator =
+                new SSLEngineConfigurator(serverSSLContext, false, false, false)
+                .setEnabledProtocols(protocols);
+
+        final SSLFilter serverSSLFilter = new SSLFilter(serverSSLEngineConfigurator, null);
+        final BlockingQueue<Boolean> serverResumptions =
+                DataStructures.getLTQInstance(Boolean.class);
+        serverSSLFilter.addHandshakeListener(new SSLBaseFilter.SessionResumptionListener() {
+            @Override
+            public void onComplete(final Connection connection,
+                    final boolean isResumed) {
+                serverResumptions.add(isResumed);
+            }
+
+            @Override
+            public void onStart(final Connection connection) {
+            }
+
+            @Override
+            public void onComplete(final Connection connection) {
+                fail("onComplete(Connection, boolean) should have been called");
+            }
+        });
+        
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(serverSSLFilter);
+        filterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        final SSLFilter clientSSLFilter = new SSLFilter(null, clientSSLEngineConfigurator);
+        final BlockingQueue<String> clientResults =
+                DataStructures.getLTQInstance(String.class);
+        
+        FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+        clientChain.add(new TransportFilter());
+        clientChain.add(clientSSLFilter);
+        clientChain.add(new StringFilter());
+        clientChain.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                clientResults.add((String) ctx.getMessage());
+                return ctx.getStopAction();
+            }
+        });
+        
+        TCPNIOTransport cTransport =
+                TCPNIOTransportBuilder.newInstance().build();
+        cTransport.setProcessor(clientChain.build());
+        cTransport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+            cTransport.start();
+
+            for (int i = 0; i < 2; i++) {
+                final Connection connection = cTransport.connect(
+                        "localhost", PORT).get(10, TimeUnit.SECONDS);
+                try {
+                    connection.write("message-" + i);
+                    assertEquals("message-" + i,
+                            clientResults.poll(10, TimeUnit.SECONDS));
+                } finally {
+                    connection.closeSilently();
+                }
+            }
+
+            // the first connection passes the full handshake,
+            // the second one resumes the cached session
+            assertEquals(Boolean.FALSE, serverResumptions.poll(10, TimeUnit.SECONDS));
+            assertEquals(Boolean.TRUE, serverResumptions.poll(10, TimeUnit.SECONDS));
+            
+            assertEquals(1, serverSSLFilter.getFullHandshakesCount());
+            assertEquals(1, serverSSLFilter.getAbbreviatedHandshakesCount());
+            assertEquals(1, clientSSLFilter.getFullHandshakesCount());
+            assertEquals(1, clientSSLFilter.getAbbreviatedHandshakesCount());
+        } finally {
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClientSSLEngineCreation() throws Exception {
+        final SSLContextConfigurator sslContextConfigurator = createSSLContextConfigurator();
+        if (!sslContextConfigurator.validateConfiguration(true)) {
+            fail("Failed to validate SSLContextConfiguration.");
+        }
+        
+        final SSLContext sslContext = sslContextConfigurator.createSSLContext();
+        final AtomicInteger customEnginesCount = new AtomicInteger();
+        
+        // the configurator customizing createSSLEngine() only
+        final SSLEngineConfigurator customClientSSLEngineConfigurator =
+                new SSLEngineConfigurator(sslContext) {
+                    @Override
+                    public SSLEngine createSSLEngine() {
+                        customEnginesCount.incrementAndGet();
+                        return super.createSSLEngine();
+                    }
+                };
+        final SSLEngineConfigurator clientSSLEngineConfigurator =
+                new SSLEngineConfigurator(sslContext);
+        final SSLEngineConfigurator serverSSLEngineConfigurator =
+                new SSLEngineConfigurator(sslContext, false, false, false);
+
+        FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new SSLFilter(serverSSLEngineConfigurator, null));
+        filterChainBuilder.add(new EchoFilter());
+
+        TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            // the peer host name is passed to the engine
+            SSLEngine sslEngine = connectAndEcho(transport,
+                    clientSSLEngineConfigurator);
+            assertEquals("localhost", sslEngine.getPeerHost());
+            assertEquals(PORT, sslEngine.getPeerPort());
+            
+            // the customized createSSLEngine() is used
+            sslEngine = connectAndEcho(transport,
+                    customClientSSLEngineConfigurator);
+            assertEquals(1, customEnginesCount.get());
+            assertNull(sslEngine.getPeerHost());
+        } finally {
+            transport.shutdownNow();
+        }
+    }
+
+    private SSLEngine connectAndEcho(final TCPNIOTransport transport,
+            final SSLEngineConfigurator clientSSLEngineConfigurator)
+            throws Exception {
+        final BlockingQueue<String> clientResults =
+                DataStructures.getLTQInstance(String.class);
+        
+        FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+        clientChain.add(new TransportFilter());
+        clientChain.add(new SSLFilter(null, clientSSLEngineConfigurator));
+        clientChain.add(new StringFilter());
+        clientChain.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                clientResults.add((String) ctx.getMessage());
+                return ctx.getStopAction();
+            }
+        });
+        
+        final Connection<?> connection = TCPNIOConnectorHandler.builder(transport)
+                .processor(clientChain.build())
+                .build()
+                .connect("localhost", PORT).get(10, TimeUnit.SECONDS);
+        try {
+            connection.write("message");
+            assertEquals("message", clientResults.poll(10, TimeUnit.SECONDS));
+            return SSLUtils.getSSLEngine(connection);
+        } finally {
+            connection.closeSilently();
+        }
+    }
+
+    @Test
+    public void testDelegatedTaskExecutor() throws Exception {
+        final AtomicInteger executedTasks = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(2,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable r) {
+                        return new Thread(r, "delegated-task");
+                    }
+                });
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                executedTasks.incrementAndGet();
+                executorService.execute(command);
+            }
+        };
+        
+        final SSLFilter serverSSLFilter = new SSLFilter(
+                createSSLEngineConfigurator(true), null);
+        serverSSLFilter.setDelegatedTaskExecutor(executor);
+        serverSSLFilter.setMaxPendingDelegatedTasks(16);
+        
+        final BlockingQueue<String> handshakeCompleteThreads =
+                DataStructures.getLTQInstance(String.class);
+        serverSSLFilter.addHandshakeListener(new SSLBaseFilter.HandshakeListener() {
+            @Override
+            public void onStart(final Connection connection) {
+            }
+
+            @Override
+            public void onComplete(final Connection connection) {
+                handshakeCompleteThreads.add(Thread.currentThread().getName());
+            }
+        });
+        
+        final BlockingQueue<String> clientResults =
+                DataStructures.getLTQInstance(String.class);
+        final TCPNIOTransport transport = createEchoTransport(serverSSLFilter);
+        final TCPNIOTransport cTransport = createClientTransport(
+                new SSLFilter(null, createSSLEngineConfigurator(false)),
+                clientResults);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+            cTransport.start();
+
+            for (int i = 0; i < 3; i++) {
+                final Connection connection = cTransport.connect(
+                        "localhost", PORT).get(10, TimeUnit.SECONDS);
+                try {
+                    connection.write("message-" + i);
+                    assertEquals("message-" + i,
+                            clientResults.poll(10, TimeUnit.SECONDS));
+                } finally {
+                    connection.closeSilently();
+                }
+            }
+
+            assertTrue(executedTasks.get() > 0);
+            assertEquals(0, serverSSLFilter.getPendingDelegatedTasksCount());
+            assertEquals(0, serverSSLFilter.getRejectedDelegatedTasksCount());
+            
+            // the handshake is resumed by the transport's thread
+            for (String threadName : handshakeCompleteThreads) {
+                assertFalse(threadName, "delegated-task".equals(threadName));
+            }
+            assertEquals(3, serverSSLFilter.getFullHandshakesCount() +
+                    serverSSLFilter.getAbbreviatedHandshakesCount());
+            assertTrue(serverSSLFilter.getAverageHandshakeDuration(
+                    TimeUnit.MILLISECONDS) >= 0);
+        } finally {
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDelegatedTaskRejected() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(1);
+        
+        final SSLFilter serverSSLFilter = new SSLFilter(
+                createSSLEngineConfigurator(true), null);
+        serverSSLFilter.setDelegatedTaskExecutor(executorService);
+        serverSSLFilter.setMaxPendingDelegatedTasks(0);
+        
+        final BlockingQueue<String> clientResults =
+                DataStructures.getLTQInstance(String.class);
+        final TCPNIOTransport transport = createEchoTransport(serverSSLFilter);
+        final TCPNIOTransport cTransport = createClientTransport(
+                new SSLFilter(null, createSSLEngineConfigurator(false)),
+                clientResults);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+            cTransport.start();
+
+            final Connection<?> connection = cTransport.connect(
+                    "localhost", PORT).get(10, TimeUnit.SECONDS);
+            connection.write("message");
+            
+            // the rejected tasks are executed inline, the handshake completes
+            assertEquals("message", clientResults.poll(10, TimeUnit.SECONDS));
+            assertTrue(serverSSLFilter.getRejectedDelegatedTasksCount() > 0);
+            assertEquals(0, serverSSLFilter.getPendingDelegatedTasksCount());
+        } finally {
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testZeroCopy() throws Exception {
+        final SSLFilter serverSSLFilter = new SSLFilter(
+                createSSLEngineConfigurator(true), null);
+        serverSSLFilter.setZeroCopy(true);
+        final SSLFilter clientSSLFilter = new SSLFilter(
+                null, createSSLEngineConfigurator(false));
+        clientSSLFilter.setZeroCopy(true);
+        
+        final BlockingQueue<String> clientResults =
+                DataStructures.getLTQInstance(String.class);
+        final TCPNIOTransport transport = createEchoTransport(serverSSLFilter);
+        final TCPNIOTransport cTransport = createClientTransport(
+                clientSSLFilter, clientResults);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+            cTransport.start();
+
+            final Connection connection = cTransport.connect(
+                    "localhost", PORT).get(10, TimeUnit.SECONDS);
+            try {
+                // small messages, which are likely to be read in one chunk,
+                // and a message, which doesn't fit one SSL record
+                final String[] messages = new String[] {"message-0",
+                    "message-1", "message-2", createString(40000)};
+                for (String message : messages) {
+                    connection.write(message);
+                }
+                
+                for (String message : messages) {
+                    assertEquals(message,
+                            clientResults.poll(10, TimeUnit.SECONDS));
+                }
+            } finally {
+                connection.closeSilently();
+            }
+        } finally {
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFileTransfer() throws Exception {
+        final int fileSize = 300 * 1024 + 17;
+        final byte[] content = new byte[fileSize];
+        new Random().nextBytes(content);
+        
+        final File file = File.createTempFile("grizzly-ssl-test", ".tmp");
+        file.deleteOnExit();
+        final FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(content);
+        } finally {
+            fos.close();
+        }
+        
+        final FutureImpl<WriteResult> serverWriteFuture =
+                Futures.createSafeFuture();
+        
+        final FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new SSLFilter(
+                createSSLEngineConfigurator(true), null));
+        filterChainBuilder.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                ctx.write(new FileTransfer(file),
+                        Futures.toCompletionHandler(serverWriteFuture));
+                return ctx.getStopAction();
+            }
+        });
+
+        final TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(manager);
+        
+        final FutureImpl<byte[]> clientFuture = Futures.createSafeFuture();
+        final FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+        clientChain.add(new TransportFilter());
+        clientChain.add(new SSLFilter(null, createSSLEngineConfigurator(false)));
+        clientChain.add(new BaseFilter() {
+            private final byte[] received = new byte[fileSize];
+            private int receivedCount;
+            
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                final Buffer buffer = ctx.getMessage();
+                final int len = buffer.remaining();
+                buffer.get(received, receivedCount, len);
+                receivedCount += len;
+                buffer.tryDispose();
+                
+                if (receivedCount == fileSize) {
+                    clientFuture.result(received);
+                }
+                
+                return ctx.getStopAction();
+            }
+        });
+        
+        final TCPNIOTransport cTransport =
+                TCPNIOTransportBuilder.newInstance().build();
+        cTransport.setProcessor(clientChain.build());
+        cTransport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+            cTransport.start();
+
+            final Connection connection = cTransport.connect(
+                    "localhost", PORT).get(10, TimeUnit.SECONDS);
+            try {
+                connection.write(Buffers.wrap(manager, "get"));
+                
+                assertNotNull(serverWriteFuture.get(10, TimeUnit.SECONDS));
+                assertTrue(Arrays.equals(content,
+                        clientFuture.get(10, TimeUnit.SECONDS)));
+            } finally {
+                connection.closeSilently();
+            }
+        } finally {
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testFileTransferWriteOrder() throws Exception {
+        final int fileSize = 300 * 1024 + 17;
+        final byte[] content = new byte[fileSize];
+        new Random().nextBytes(content);
+        final byte[] trailer = "END-OF-TRANSFER".getBytes("ASCII");
+        final int totalSize = fileSize + trailer.length;
+        
+        final File file = File.createTempFile("grizzly-ssl-test", ".tmp");
+        file.deleteOnExit();
+        final FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(content);
+        } finally {
+            fos.close();
+        }
+        
+        final FutureImpl<WriteResult> serverWriteFuture =
+                Futures.createSafeFuture();
+        
+        final FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(new SSLFilter(
+                createSSLEngineConfigurator(true), null));
+        filterChainBuilder.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                // the trailer and the close have to wait for the whole file
+                ctx.write(new FileTransfer(file),
+                        Futures.toCompletionHandler(serverWriteFuture));
+                ctx.write(Buffers.wrap(ctx.getMemoryManager(), trailer));
+                ctx.getConnection().closeSilently();
+                return ctx.getStopAction();
+            }
+        });
+
+        final TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(manager);
+        
+        final byte[] received = new byte[totalSize];
+        final AtomicInteger receivedCount = new AtomicInteger();
+        final FutureImpl<Integer> clientFuture = Futures.createSafeFuture();
+        final FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+        clientChain.add(new TransportFilter());
+        clientChain.add(new SSLFilter(null, createSSLEngineConfigurator(false)));
+        clientChain.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                final Buffer buffer = ctx.getMessage();
+                final int len = buffer.remaining();
+                final int count = receivedCount.get();
+                if (count + len > totalSize) {
+                    clientFuture.failure(new IllegalStateException(
+                            "Unexpected data"));
+                } else {
+                    buffer.get(received, count, len);
+                    receivedCount.addAndGet(len);
+                }
+                buffer.tryDispose();
+                
+                return ctx.getStopAction();
+            }
+
+            @Override
+            public NextAction handleClose(final FilterChainContext ctx)
+                    throws IOException {
+                clientFuture.result(receivedCount.get());
+                return ctx.getStopAction();
+            }
+        });
+        
+        final TCPNIOTransport cTransport =
+                TCPNIOTransportBuilder.newInstance().build();
+        cTransport.setProcessor(clientChain.build());
+        cTransport.setMemoryManager(manager);
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+            cTransport.start();
+
+            final Connection connection = cTransport.connect(
+                    "localhost", PORT).get(10, TimeUnit.SECONDS);
+            try {
+                connection.write(Buffers.wrap(manager, "get"));
+                
+                // the total number of the bytes written (including SSL
+                // records overhead) is reported
+                final WriteResult result =
+                        serverWriteFuture.get(10, TimeUnit.SECONDS);
+                assertTrue(result.getWrittenSize() >= fileSize);
+                
+                // the connection is closed after all the data is received
+                assertEquals(totalSize,
+                        (int) clientFuture.get(10, TimeUnit.SECONDS));
+                assertTrue(Arrays.equals(content,
+                        Arrays.copyOf(received, fileSize)));
+                assertTrue(Arrays.equals(trailer,
+                        Arrays.copyOfRange(received, fileSize, totalSize)));
+            } finally {
+                connection.closeSilently();
+            }
+        } finally {
+            cTransport.shutdownNow();
+            transport.shutdownNow();
+            file.delete();
+        }
+    }
+
+    private static String createString(final int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        
+        return sb.toString();
+    }
+    
+    private SSLEngineConfigurator createSSLEngineConfigurator(
+            final boolean isServer) {
+        final SSLContextConfigurator sslContextConfigurator =
+                createSSLContextConfigurator();
+        
+        if (!sslContextConfigurator.validateConfiguration(true)) {
+            fail("Failed to validate SSLContextConfiguration.");
+        }
+        
+        return isServer
+                ? new SSLEngineConfigurator(
+                        sslContextConfigurator.createSSLContext(),
+                        false, false, false)
+                : new SSLEngineConfigurator(
+                        sslContextConfigurator.createSSLContext());
+    }
+    
+    private TCPNIOTransport createEchoTransport(final SSLFilter sslFilter) {
+        final FilterChainBuilder filterChainBuilder = FilterChainBuilder.stateless();
+        filterChainBuilder.add(new TransportFilter());
+        filterChainBuilder.add(sslFilter);
+        filterChainBuilder.add(new EchoFilter());
+
+        final TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(filterChainBuilder.build());
+        transport.setMemoryManager(manager);
+        return transport;
+    }
+    
+    private TCPNIOTransport createClientTransport(final SSLFilter sslFilter,
+            final BlockingQueue<String> results) {
+        final FilterChainBuilder clientChain = FilterChainBuilder.stateless();
+        clientChain.add(new TransportFilter());
+        clientChain.add(sslFilter);
+        clientChain.add(new StringFilter());
+        clientChain.add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx)
+                    throws IOException {
+                results.add((String) ctx.getMessage());
+                return ctx.getStopAction();
+            }
+        });
+        
+        final TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(clientChain.build());
+        transport.setMemoryManager(manager);
+        return transport;
+    }
+
     /**
      * Added for GRIZZLY-983.
      */
@@ -42,6 +42,7 @@ package org.glassfish.grizzly;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.util.Arrays;
 import java.util.concurrent.BlockingQueue;
@@ -49,6 +50,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -62,6 +64,7 @@ import org.glassfish.grizzly.filterchain.TransportFilter;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
 import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.nio.AbstractNIOConnectionDistributor;
 import org.glassfish.grizzly.nio.NIOConnection;
 import org.glassfish.grizzly.nio.NIOTransport;
@@ -194,6 +197,44 @@ public class TCPNIOTransportTest {
         }
     }
 
+    @Test
+    public void testAcceptorChannels() throws Exception {
+        Connection connection = null;
+        TCPNIOTransport transport =
+                TCPNIOTransportBuilder.newInstance()
+                .setAcceptorChannelsCount(4)
+                .build();
+        try {
+            // if SO_REUSEPORT isn't supported - a single channel is bound
+            final Connection serverConnection = transport.bind(PORT);
+            transport.start();
+
+            for (int i = 0; i < 16; i++) {
+                Future<Connection> future = transport.connect("localhost", PORT);
+                connection = future.get(10, TimeUnit.SECONDS);
+                assertTrue(connection != null);
+                connection.closeSilently();
+            }
+
+            // unbinding the server connection has to close all the acceptors
+            transport.unbind(serverConnection);
+
+            Future<Connection> future = transport.connect("localhost", PORT);
+            try {
+                connection = future.get(10, TimeUnit.SECONDS);
+                assertTrue("Server connection should be closed!", false);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+
+            transport.shutdownNow();
+        }
+    }
+
     @Test
     public void testClose() throws Exception {
         final BlockingQueue<Connection> acceptedQueue = DataStructures.getLTQInstance();
@@ -406,6 +447,217 @@ public class TCPNIOTransportTest {
         doTestParallelWrites(100, 100000, true);
     }
 
+    @Test
+    public void testWrittenBytesCopyStatistics() throws Exception {
+        final int size = 1000;
+        final FutureImpl<Integer> receivedFuture = SafeFutureImpl.create();
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setProcessor(FilterChainBuilder.stateless()
+                        .add(new TransportFilter())
+                        .add(new EchoFilter())
+                        .build())
+                .build();
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            SocketConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .processor(FilterChainBuilder.stateless()
+                            .add(new TransportFilter())
+                            .add(new BaseFilter() {
+                        private int received;
+
+                        @Override
+                        public NextAction handleRead(final FilterChainContext ctx)
+                                throws IOException {
+                            final Buffer buffer = ctx.getMessage();
+                            received += buffer.remaining();
+                            buffer.tryDispose();
+
+                            if (received == size * 2) {
+                                receivedFuture.result(received);
+                            }
+
+                            return ctx.getStopAction();
+                        }
+                    }).build())
+                    .build();
+
+            Future<Connection> future = connectorHandler.connect("localhost", PORT);
+            final Connection<?> connection = future.get(10, TimeUnit.SECONDS);
+
+            // heap buffer is copied to the direct staging buffer
+            connection.write(Buffers.wrap(transport.getMemoryManager(),
+                    new byte[size]));
+            // direct buffer is written as it is
+            connection.write(new ByteBufferWrapper(ByteBuffer.allocateDirect(size)));
+
+            assertEquals(size * 2, (int) receivedFuture.get(10, TimeUnit.SECONDS));
+
+            // client heap write + echoed heap buffers
+            assertTrue(transport.getWrittenBytesCopied() >= size * 3);
+            assertEquals(size, transport.getWrittenBytesZeroCopy());
+        } finally {
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteCorking() throws Exception {
+        final int messagesCount = 10;
+        final AtomicInteger completedWrites = new AtomicInteger();
+        final FutureImpl<Boolean> writesCompletedFuture = SafeFutureImpl.create();
+        final FutureImpl<Integer> completedDuringReadFuture = SafeFutureImpl.create();
+        final BlockingQueue<String> resultQueue = new LinkedBlockingQueue<String>();
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setWriteCorking(true)
+                .setProcessor(FilterChainBuilder.stateless()
+                        .add(new TransportFilter())
+                        .add(new StringFilter())
+                        .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(final FilterChainContext ctx)
+                            throws IOException {
+                        final String request = ctx.getMessage();
+                        for (int i = 0; i < messagesCount; i++) {
+                            ctx.write(request + i,
+                                    new EmptyCompletionHandler<WriteResult>() {
+                                @Override
+                                public void completed(final WriteResult result) {
+                                    if (completedWrites.incrementAndGet() == messagesCount) {
+                                        writesCompletedFuture.result(Boolean.TRUE);
+                                    }
+                                }
+                            });
+                        }
+
+                        // the writes have to be postponed till the READ is processed
+                        completedDuringReadFuture.result(completedWrites.get());
+                        return ctx.getStopAction();
+                    }
+                }).build())
+                .build();
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            SocketConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .processor(FilterChainBuilder.stateless()
+                            .add(new TransportFilter())
+                            .add(new StringFilter())
+                            .add(new BaseFilter() {
+                        @Override
+                        public NextAction handleRead(final FilterChainContext ctx)
+                                throws IOException {
+                            resultQueue.add((String) ctx.getMessage());
+                            return ctx.getStopAction();
+                        }
+                    }).build())
+                    .build();
+
+            Future<Connection> future = connectorHandler.connect("localhost", PORT);
+            final Connection<?> connection = future.get(10, TimeUnit.SECONDS);
+            connection.write("message");
+
+            for (int i = 0; i < messagesCount; i++) {
+                assertEquals("message" + i, resultQueue.poll(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(0, (int) completedDuringReadFuture.get(10, TimeUnit.SECONDS));
+            assertTrue(writesCompletedFuture.get(10, TimeUnit.SECONDS));
+        } finally {
+            transport.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAdaptiveReadBufferSizing() throws Exception {
+        final int minSize = 256;
+        final int bigMessageSize = 64 * 1024;
+        final BlockingQueue<Integer> readBufferSizes =
+                new LinkedBlockingQueue<Integer>();
+        final BlockingQueue<Integer> receivedSizes =
+                new LinkedBlockingQueue<Integer>();
+
+        TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setAdaptiveReadBufferSizing(true)
+                .setMinAdaptiveReadBufferSize(minSize)
+                .setProcessor(FilterChainBuilder.stateless()
+                        .add(new TransportFilter())
+                        .add(new EchoFilter())
+                        .build())
+                .build();
+        transport.getMonitoringConfig().addProbes(new TransportProbe.Adapter() {
+            @Override
+            public void onReadBufferSizeChangeEvent(Transport transport,
+                    Connection connection, int readBufferSize) {
+                readBufferSizes.add(readBufferSize);
+            }
+        });
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            SocketConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .processor(FilterChainBuilder.stateless()
+                            .add(new TransportFilter())
+                            .add(new BaseFilter() {
+                        @Override
+                        public NextAction handleRead(final FilterChainContext ctx)
+                                throws IOException {
+                            final Buffer buffer = ctx.getMessage();
+                            receivedSizes.add(buffer.remaining());
+                            buffer.tryDispose();
+                            return ctx.getStopAction();
+                        }
+                    }).build())
+                    .build();
+
+            Future<Connection> future = connectorHandler.connect("localhost", PORT);
+            final Connection<?> connection = future.get(10, TimeUnit.SECONDS);
+
+            // small reads shrink the read buffer down to the min size
+            for (int i = 0; i < 10; i++) {
+                connection.write(Buffers.wrap(transport.getMemoryManager(), "ping"));
+                int received = 0;
+                while (received < 4) {
+                    final Integer size = receivedSizes.poll(10, TimeUnit.SECONDS);
+                    assertNotNull(size);
+                    received += size;
+                }
+            }
+
+            assertTrue(readBufferSizes.contains(minSize));
+
+            // big message makes the read buffer grow
+            readBufferSizes.clear();
+            connection.write(Buffers.wrap(transport.getMemoryManager(),
+                    new byte[bigMessageSize]));
+            int received = 0;
+            while (received < bigMessageSize) {
+                final Integer size = receivedSizes.poll(10, TimeUnit.SECONDS);
+                assertNotNull(size);
+                received += size;
+            }
+
+            boolean isGrown = false;
+            for (Integer size : readBufferSizes) {
+                isGrown |= size > minSize;
+            }
+            assertTrue(isGrown);
+        } finally {
+            transport.shutdownNow();
+        }
+    }
+
 
     // --------------------------------------------------------- Private Methods
 
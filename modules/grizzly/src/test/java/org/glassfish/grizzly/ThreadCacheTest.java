@@ -40,6 +40,8 @@
 
 package org.glassfish.grizzly;
 
+import java.util.concurrent.atomic.AtomicReference;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -85,4 +87,39 @@ public class ThreadCacheTest {
 
     }
 
+    @Test
+    public void testVirtualThread() throws Exception {
+        assertFalse(VirtualThreads.isVirtual(Thread.currentThread()));
+        
+        if (!VirtualThreads.isAvailable()) {
+            return;
+        }
+        
+        final ThreadCache.CachedTypeIndex<Object> CACHE_IDX =
+            ThreadCache.obtainIndex("testVirtualThread", Object.class, 1);
+        
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final Thread thread = VirtualThreads.newThreadFactory("test-").newThread(
+                new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    assertTrue(VirtualThreads.isVirtual(Thread.currentThread()));
+                    
+                    // objects are not cached on virtual threads
+                    assertFalse(ThreadCache.putToCache(CACHE_IDX, new Object()));
+                    assertNull(ThreadCache.getFromCache(CACHE_IDX));
+                    assertNull(ThreadCache.takeFromCache(CACHE_IDX));
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        });
+        
+        thread.start();
+        thread.join(10000);
+        
+        assertNull(error.get());
+    }
 }
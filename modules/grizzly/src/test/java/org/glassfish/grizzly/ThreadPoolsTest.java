@@ -42,15 +42,22 @@ package org.glassfish.grizzly;
 
 import org.glassfish.grizzly.threadpool.AbstractThreadPool;
 import org.glassfish.grizzly.threadpool.FixedThreadPool;
+import org.glassfish.grizzly.threadpool.GrizzlyExecutorService;
 import org.glassfish.grizzly.threadpool.SyncThreadPool;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
+import org.glassfish.grizzly.threadpool.WorkStealingThreadPool;
 import org.junit.Test;
 
 import java.lang.reflect.Field;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
 import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
@@ -121,4 +128,137 @@ public class ThreadPoolsTest {
             tcpTransport.shutdownNow();
         }
     }    
+
+    @Test
+    public void testWorkStealingThreadPool() throws Exception {
+        final int producersCount = 4;
+        final int tasksPerProducer = 1000;
+        final int tasksCount = producersCount * tasksPerProducer;
+        
+        final AtomicInteger queuedCounter = new AtomicInteger();
+        final CountDownLatch completedLatch = new CountDownLatch(tasksCount + 2);
+        
+        final ThreadPoolConfig config = ThreadPoolConfig.defaultConfig()
+                .setCorePoolSize(4)
+                .setMaxPoolSize(4)
+                .setWorkStealing(true);
+        config.getInitialMonitoringConfig().addProbes(new ThreadPoolProbe.Adapter() {
+            @Override
+            public void onTaskQueueEvent(AbstractThreadPool threadPool, Runnable task) {
+                queuedCounter.incrementAndGet();
+            }
+
+            @Override
+            public void onTaskCompleteEvent(AbstractThreadPool threadPool, Runnable task) {
+                completedLatch.countDown();
+            }
+        });
+        
+        final GrizzlyExecutorService executorService =
+                GrizzlyExecutorService.createInstance(config);
+        
+        Field poolField = GrizzlyExecutorService.class.getDeclaredField("pool");
+        poolField.setAccessible(true);
+        assertTrue(poolField.get(executorService) instanceof WorkStealingThreadPool);
+        
+        try {
+            // the tasks queued by the same thread go to the same worker,
+            // so the second task has to be stolen by another worker
+            final CountDownLatch blockLatch = new CountDownLatch(1);
+            final CountDownLatch stolenLatch = new CountDownLatch(1);
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        blockLatch.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            });
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    stolenLatch.countDown();
+                }
+            });
+            
+            assertTrue("The task has not been stolen",
+                    stolenLatch.await(10, TimeUnit.SECONDS));
+            blockLatch.countDown();
+            
+            final Thread[] producers = new Thread[producersCount];
+            for (int i = 0; i < producersCount; i++) {
+                producers[i] = new Thread() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < tasksPerProducer; j++) {
+                            executorService.execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                }
+                            });
+                        }
+                    }
+                };
+                producers[i].start();
+            }
+            
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            
+            assertTrue(completedLatch.await(10, TimeUnit.SECONDS));
+            assertEquals(tasksCount + 2, queuedCounter.get());
+        } finally {
+            executorService.shutdown();
+        }
+        
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWorkStealingBacklogWakeup() throws Exception {
+        final ThreadPoolConfig config = ThreadPoolConfig.defaultConfig()
+                .setCorePoolSize(4)
+                .setMaxPoolSize(4)
+                .setWorkStealing(true);
+        final GrizzlyExecutorService executorService =
+                GrizzlyExecutorService.createInstance(config);
+        
+        try {
+            for (int i = 0; i < 20; i++) {
+                // the worker, the tasks are queued to, might be still marked
+                // idle while it's waking up to process the blocking task,
+                // the quick task has to be picked up by a peer anyway
+                final CountDownLatch blockLatch = new CountDownLatch(1);
+                final CountDownLatch quickLatch = new CountDownLatch(1);
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            blockLatch.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                });
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        quickLatch.countDown();
+                    }
+                });
+                
+                try {
+                    assertTrue("The quick task is stuck behind the blocking one, round #" + i,
+                            quickLatch.await(1, TimeUnit.SECONDS));
+                } finally {
+                    blockLatch.countDown();
+                }
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+    }
 }
@@ -43,10 +43,15 @@ package org.glassfish.grizzly;
 import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.glassfish.grizzly.filterchain.*;
 import org.glassfish.grizzly.memory.ByteBufferWrapper;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.nio.transport.DatagramBatch;
 import org.glassfish.grizzly.nio.transport.UDPNIOConnectorHandler;
 import org.glassfish.grizzly.nio.transport.UDPNIOTransport;
 import org.glassfish.grizzly.nio.transport.UDPNIOTransportBuilder;
@@ -126,4 +131,85 @@ public class UDPNIOTransportTest {
             transport.shutdownNow();
         }
     }    
+
+    @Test
+    public void testReadWriteBatch() throws Exception {
+        final int datagramsCount = 64;
+        
+        final UDPNIOTransport transport = UDPNIOTransportBuilder.newInstance()
+                .setReadBatchSize(8)
+                .build();
+        assertEquals(8, transport.getReadBatchSize());
+
+        final AtomicInteger receivedCounter = new AtomicInteger();
+        
+        // echo each received batch back, each datagram to its source address
+        transport.setProcessor(FilterChainBuilder.stateless()
+            .add(new TransportFilter())
+            .add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                final DatagramBatch batch = ctx.getMessage();
+                assertFalse(batch.isEmpty());
+                assertTrue(batch.size() <= 8);
+                assertEquals(batch.getAddress(0), ctx.getAddress());
+                
+                receivedCounter.addAndGet(batch.size());
+                ctx.write(batch);
+                return ctx.getStopAction();
+            }
+        }).build());
+
+        final BlockingQueue<String> echoQueue = new LinkedBlockingQueue<String>();
+        
+        final SocketConnectorHandler connectorHandler = UDPNIOConnectorHandler
+                .builder(transport)
+                .processor(FilterChainBuilder.stateless()
+                    .add(new TransportFilter())
+                    .add(new BaseFilter() {
+                    @Override
+                    public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                        final DatagramBatch batch = ctx.getMessage();
+                        for (int i = 0; i < batch.size(); i++) {
+                            echoQueue.add(batch.getDatagram(i).toStringContent());
+                        }
+                        batch.release();
+                        return ctx.getStopAction();
+                    }
+                }).build())
+                .build();
+
+        Connection<?> connection = null;
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final Future<Connection> connectFuture = connectorHandler.connect(
+                    new InetSocketAddress("localhost", PORT));
+            connection = connectFuture.get(10, TimeUnit.SECONDS);
+
+            final DatagramBatch outBatch = new DatagramBatch();
+            for (int i = 0; i < datagramsCount; i++) {
+                outBatch.add(Buffers.wrap(transport.getMemoryManager(),
+                        "Datagram-" + i), null);
+            }
+            assertEquals(datagramsCount, outBatch.size());
+            
+            connection.write(outBatch);
+
+            for (int i = 0; i < datagramsCount; i++) {
+                final String echo = echoQueue.poll(10, TimeUnit.SECONDS);
+                assertNotNull("Timeout waiting for datagram #" + i, echo);
+                assertTrue(echo.startsWith("Datagram-"));
+            }
+            
+            assertEquals(datagramsCount, receivedCounter.get());
+        } finally {
+            if (connection != null) {
+                connection.closeSilently();
+            }
+            
+            transport.shutdownNow();
+        }
+    }
 }
@@ -54,6 +54,7 @@ public class AbstractMemoryManagerTest {
                 {0},
                 {1},
                 {2},
+                {3},
         });
     }
 
@@ -68,6 +69,9 @@ public class AbstractMemoryManagerTest {
             case 2:
                 mm = createPooledMemoryManager();
                 break;
+            case 3:
+                mm = createSlabMemoryManager();
+                break;
             default:
                 throw new IllegalStateException("Unknown memory manager type");
         }
@@ -77,6 +81,10 @@ public class AbstractMemoryManagerTest {
         return new PooledMemoryManager();
     }
 
+    protected SlabMemoryManager createSlabMemoryManager() {
+        return new SlabMemoryManager();
+    }
+
     protected ByteBufferManager createByteBufferManager() {
         return new ByteBufferManager();
     }
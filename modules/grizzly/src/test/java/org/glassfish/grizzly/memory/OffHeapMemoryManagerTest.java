@@ -0,0 +1,240 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.impl.FutureImpl;
+import org.glassfish.grizzly.impl.SafeFutureImpl;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.utils.EchoFilter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link OffHeapMemoryManager} tests.
+ */
+public class OffHeapMemoryManagerTest {
+    private static final int PORT = 7788;
+
+    @Test
+    public void testAllocateAndDispose() {
+        final OffHeapMemoryManager mm = new OffHeapMemoryManager();
+
+        final Buffer b = mm.allocate(1024);
+        assertTrue(b instanceof OffHeapBuffer);
+        assertTrue(b.isDirect());
+        assertTrue(b.allowBufferDispose());
+        assertEquals(1024, b.capacity());
+        assertEquals(1024, mm.getAllocatedMemory());
+        if (OffHeapMemory.isRaw()) {
+            assertTrue(((OffHeapBuffer) b).address() != 0);
+        }
+
+        b.putInt(0xCAFEBABE);
+        b.flip();
+        assertEquals(0xCAFEBABE, b.getInt());
+
+        assertTrue(b.tryDispose());
+        assertEquals(0, mm.getAllocatedMemory());
+
+        try {
+            b.get(0);
+            fail("IllegalStateException is expected");
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
+    @Test
+    public void testDerivedBuffersReferenceCounting() {
+        final OffHeapMemoryManager mm = new OffHeapMemoryManager();
+
+        final OffHeapBuffer b = (OffHeapBuffer) mm.allocate(1024);
+        b.put(0, (byte) 'a');
+        b.put(512, (byte) 'b');
+
+        final Buffer tail = b.split(512);
+        final Buffer duplicate = b.duplicate();
+        assertEquals(3, b.refCount());
+        assertEquals('b', tail.get(0));
+        if (OffHeapMemory.isRaw()) {
+            assertEquals(b.address() + 512, ((OffHeapBuffer) tail).address());
+        }
+
+        b.dispose();
+        assertEquals(1024, mm.getAllocatedMemory());
+        assertEquals('a', duplicate.get(0));
+
+        duplicate.dispose();
+        assertEquals(1024, mm.getAllocatedMemory());
+
+        tail.dispose();
+        assertEquals(0, mm.getAllocatedMemory());
+    }
+
+    @Test
+    public void testReallocate() {
+        final OffHeapMemoryManager mm = new OffHeapMemoryManager();
+
+        Buffer b = mm.allocate(16);
+        b.put((byte) 'a');
+        b = mm.reallocate(b, 32);
+        assertEquals(32, b.capacity());
+        assertEquals(1, b.position());
+        assertEquals('a', b.get(0));
+        assertEquals(32, mm.getAllocatedMemory());
+
+        b = mm.reallocate(b, 8);
+        assertEquals(32, b.capacity());
+        assertEquals(8, b.limit());
+
+        assertSame(Buffers.EMPTY_BUFFER, mm.reallocate(b, 0));
+        assertEquals(0, mm.getAllocatedMemory());
+    }
+
+    @Test
+    public void testCompositeBuffer() {
+        final OffHeapMemoryManager mm = new OffHeapMemoryManager();
+
+        final CompositeBuffer cb = CompositeBuffer.newBuffer(mm);
+        cb.allowInternalBuffersDispose(true);
+        cb.allowBufferDispose(true);
+        cb.append(mm.allocate(4).put(Buffers.wrap(mm, "abcd")).flip());
+        cb.append(mm.allocate(4).put(Buffers.wrap(mm, "efgh")).flip());
+
+        assertEquals("abcdefgh", cb.toStringContent());
+        assertEquals(2, cb.toByteBufferArray().size());
+
+        final Buffer tail = cb.split(2);
+        assertEquals("cdefgh", tail.toStringContent());
+
+        cb.tryDispose();
+        tail.tryDispose();
+        assertEquals(0, mm.getAllocatedMemory());
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        final OffHeapMemoryManager mm = new OffHeapMemoryManager();
+        mm.setLeakDetectionSamplingInterval(1);
+
+        mm.allocate(1024);
+        assertEquals(1024, mm.getAllocatedMemory());
+
+        int released = 0;
+        for (int i = 0; i < 50 && released == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            released = mm.releaseLeaks();
+        }
+
+        assertEquals(1, released);
+        assertEquals(0, mm.getAllocatedMemory());
+    }
+
+    @Test
+    public void testTransportEcho() throws Exception {
+        final OffHeapMemoryManager mm = new OffHeapMemoryManager();
+        final String message = "Hello OffHeapBuffer";
+
+        final FutureImpl<String> resultFuture = SafeFutureImpl.create();
+        final StringBuilder received = new StringBuilder();
+
+        final TCPNIOTransport transport = TCPNIOTransportBuilder.newInstance()
+                .setMemoryManager(mm)
+                .setProcessor(FilterChainBuilder.stateless()
+                        .add(new TransportFilter())
+                        .add(new EchoFilter())
+                        .build())
+                .build();
+
+        try {
+            transport.bind(PORT);
+            transport.start();
+
+            final TCPNIOConnectorHandler connectorHandler =
+                    TCPNIOConnectorHandler.builder(transport)
+                    .processor(FilterChainBuilder.stateless()
+                            .add(new TransportFilter())
+                            .add(new BaseFilter() {
+                        @Override
+                        public NextAction handleRead(final FilterChainContext ctx)
+                                throws IOException {
+                            final Buffer buffer = ctx.getMessage();
+                            received.append(buffer.toStringContent());
+                            buffer.tryDispose();
+
+                            if (received.length() >= message.length()) {
+                                resultFuture.result(received.toString());
+                            }
+
+                            return ctx.getStopAction();
+                        }
+                    }).build())
+                    .build();
+
+            final Future<Connection> connectFuture =
+                    connectorHandler.connect("localhost", PORT);
+            final Connection<?> connection = connectFuture.get(10, TimeUnit.SECONDS);
+
+            final Buffer buffer = mm.allocate(message.length());
+            buffer.put(message.getBytes("ASCII"));
+            buffer.flip();
+            connection.write(buffer);
+
+            assertEquals(message, resultFuture.get(10, TimeUnit.SECONDS));
+            connection.closeSilently();
+        } finally {
+            transport.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,525 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.memory;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.glassfish.grizzly.Buffer;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import static org.glassfish.grizzly.memory.SlabMemoryManager.*;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class SlabMemoryManagerTest {
+
+    @Parameters
+    public static Collection<Object[]> isDirect() {
+        return Arrays.asList(new Object[][]{
+                    {Boolean.FALSE},
+                    {Boolean.TRUE}
+                });
+    }
+
+    private final boolean isDirect;
+
+    public SlabMemoryManagerTest(boolean isDirect) {
+        this.isDirect = isDirect;
+    }
+
+    @Test
+    public void testDefaultInitialization() throws Exception {
+        final long maxArenaSize = (long) (Runtime.getRuntime().maxMemory()
+                * DEFAULT_HEAP_USAGE_PERCENTAGE);
+
+        SlabMemoryManager mm = new SlabMemoryManager(isDirect);
+        SlabMemoryManager.SizeClass[] sizeClasses = mm.getSizeClasses();
+        assertEquals(DEFAULT_NUMBER_OF_SIZE_CLASSES, sizeClasses.length);
+        assertEquals(DEFAULT_MAGAZINE_SIZE, mm.getMagazineSize());
+        assertEquals(DEFAULT_RETURN_BATCH_SIZE, mm.getReturnBatchSize());
+
+        int bufSize = DEFAULT_BASE_BUFFER_SIZE;
+        long arenaSize = 0;
+        for (SlabMemoryManager.SizeClass sizeClass : sizeClasses) {
+            assertEquals(bufSize, sizeClass.getBufferSize());
+            assertEquals(0, sizeClass.getBuffersCount());
+            arenaSize += (long) sizeClass.getMaxBuffersCount() * bufSize;
+            bufSize <<= DEFAULT_GROWTH_FACTOR;
+        }
+
+        assertTrue(arenaSize + " <= " + maxArenaSize + " failed",
+                arenaSize <= maxArenaSize);
+        assertEquals(isDirect, mm.willAllocateDirect(1));
+    }
+
+    @Test
+    public void testInvalidConstructorArguments() {
+        final long arenaSize = 1024 * 1024;
+        final int[][] invalid = {
+            // baseBufferSize, numberOfSizeClasses, growthFactor, magazineSize, returnBatchSize
+            {0, 1, 0, 32, 16},
+            {1000, 1, 0, 32, 16},
+            {4096, 0, 0, 32, 16},
+            {4096, 2, 0, 32, 16},
+            {4096, 2, -1, 32, 16},
+            {4096, 2, 3, 32, 16},
+            {4096, 1, 0, 0, 16},
+            {4096, 1, 0, 32, 0},
+            {4096, 1, 0, 32, 33},
+        };
+
+        for (int[] args : invalid) {
+            try {
+                new SlabMemoryManager(args[0], args[1], args[2], args[3],
+                        args[4], arenaSize, isDirect);
+                fail("IllegalArgumentException expected for " + Arrays.toString(args));
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        try {
+            new SlabMemoryManager(4096, 1, 0, 32, 16, -1, isDirect);
+            fail("IllegalArgumentException expected for negative maxArenaSize");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void testSimpleAllocationAndDispose() throws Exception {
+        final SlabMemoryManager mm = newMemoryManager(1, 1024 * 1024);
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        // allocate a buffer and validate the configuration of said buffer
+        Buffer b = mm.allocate(4096);
+        assertEquals(4096, b.remaining());
+        assertTrue(!b.isComposite());
+        assertTrue(b.allowBufferDispose());
+        assertEquals(DEFAULT_BASE_BUFFER_SIZE, b.capacity());
+        assertEquals(isDirect, b.isDirect());
+
+        // the magazine is empty, so the buffer has to be created
+        assertEquals(1, probe.bufferAllocated.get());
+        assertEquals(0, probe.bufferAllocatedFromPool.get());
+        assertEquals(0, probe.bufferReleasedToPool.get());
+        assertEquals(1, mm.getSizeClasses()[0].getBuffersCount());
+
+        b.tryDispose();
+        assertEquals(1, probe.bufferReleasedToPool.get());
+        assertEquals(1, mm.localElementsCount(0));
+
+        // the same buffer has to be reused
+        final Buffer b2 = mm.allocate(100);
+        assertEquals(1, probe.bufferAllocated.get());
+        assertEquals(1, probe.bufferAllocatedFromPool.get());
+        assertEquals(0, mm.localElementsCount(0));
+        assertEquals(1, mm.getSizeClasses()[0].getBuffersCount());
+
+        b2.tryDispose();
+        assertEquals(2, probe.bufferReleasedToPool.get());
+    }
+
+    @Test
+    public void testSimpleCompositeAllocationAndDispose() throws Exception {
+        final SlabMemoryManager mm = newMemoryManager(1, 1024 * 1024);
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        Buffer b = mm.allocate(6000);
+        assertEquals(6000, b.remaining());
+        assertTrue(b.isComposite());
+        assertTrue(b.allowBufferDispose());
+        assertEquals(2 * DEFAULT_BASE_BUFFER_SIZE, b.capacity());
+        assertEquals(2, probe.bufferAllocated.get());
+
+        b.tryDispose();
+        assertEquals(2, probe.bufferReleasedToPool.get());
+        assertEquals(2, mm.localElementsCount(0));
+
+        // exact multiple of the max buffer size doesn't need an extra buffer
+        b = mm.allocate(2 * DEFAULT_BASE_BUFFER_SIZE);
+        assertEquals(2 * DEFAULT_BASE_BUFFER_SIZE, b.capacity());
+        assertEquals(2, probe.bufferAllocatedFromPool.get());
+        b.tryDispose();
+    }
+
+    @Test
+    public void testReallocate() throws Exception {
+        final SlabMemoryManager mm = new SlabMemoryManager(
+                DEFAULT_BASE_BUFFER_SIZE, 2, 2, DEFAULT_MAGAZINE_SIZE,
+                DEFAULT_RETURN_BATCH_SIZE, 1024 * 1024, isDirect);
+
+        // grow within the size classes
+        Buffer b = mm.allocate(100);
+        b.put((byte) 'a');
+        b = mm.reallocate(b, 10000);
+        assertFalse(b.isComposite());
+        assertEquals(16384, b.capacity());
+        assertEquals(1, b.position());
+        assertEquals(10000, b.limit());
+        assertEquals('a', b.get(0));
+
+        // shrink to the smaller size class
+        b = mm.reallocate(b, 200);
+        assertEquals(DEFAULT_BASE_BUFFER_SIZE, b.capacity());
+        assertEquals(1, b.position());
+        assertEquals(200, b.limit());
+        assertEquals('a', b.get(0));
+
+        // shrink within the same size class
+        b = mm.reallocate(b, 100);
+        assertEquals(DEFAULT_BASE_BUFFER_SIZE, b.capacity());
+        assertEquals(100, b.limit());
+
+        // grow beyond the max size class
+        b = mm.reallocate(b, 20000);
+        assertTrue(b.isComposite());
+        assertEquals(1, b.position());
+        assertEquals(20000, b.limit());
+        assertEquals('a', b.get(0));
+
+        b = mm.reallocate(b, 0);
+        assertSame(Buffers.EMPTY_BUFFER, b);
+    }
+
+    @Test
+    public void testSplitAndDispose() throws Exception {
+        final SlabMemoryManager mm = newMemoryManager(1, 1024 * 1024);
+
+        final Buffer b = mm.allocate(4096);
+        final Buffer tail = b.split(1024);
+
+        // the slab buffer has to be returned only once both parts are disposed
+        b.tryDispose();
+        assertEquals(0, mm.localElementsCount(0));
+        tail.tryDispose();
+        assertEquals(1, mm.localElementsCount(0));
+
+        final Buffer b2 = mm.allocate(4096);
+        assertEquals(DEFAULT_BASE_BUFFER_SIZE, b2.capacity());
+        assertEquals(0, b2.position());
+        assertEquals(4096, b2.limit());
+        b2.tryDispose();
+    }
+
+    @Test
+    public void testMagazineSizeLimit() throws Exception {
+        final SlabMemoryManager mm = new SlabMemoryManager(
+                DEFAULT_BASE_BUFFER_SIZE, 1, 0, 4, 2, 1024 * 1024, isDirect);
+
+        final Buffer[] buffers = new Buffer[6];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = mm.allocate(100);
+        }
+        assertEquals(6, mm.getSizeClasses()[0].getBuffersCount());
+
+        for (Buffer buffer : buffers) {
+            buffer.tryDispose();
+        }
+
+        // the buffers, which don't fit the magazine, are released to the arena
+        assertEquals(4, mm.localElementsCount(0));
+        assertEquals(4, mm.getSizeClasses()[0].getBuffersCount());
+    }
+
+    @Test
+    public void testArenaCap() throws Exception {
+        // the arena fits only two buffers
+        final SlabMemoryManager mm = newMemoryManager(1,
+                2 * DEFAULT_BASE_BUFFER_SIZE);
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        final Buffer[] buffers = new Buffer[3];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = mm.allocate(100);
+        }
+
+        assertEquals(3, probe.bufferAllocated.get());
+        assertEquals(2, mm.getSizeClasses()[0].getBuffersCount());
+
+        for (Buffer buffer : buffers) {
+            buffer.tryDispose();
+        }
+
+        // the buffer allocated above the cap isn't pooled
+        assertEquals(2, probe.bufferReleasedToPool.get());
+        assertEquals(2, mm.localElementsCount(0));
+        assertEquals(2, mm.getSizeClasses()[0].getBuffersCount());
+    }
+
+    @Test
+    public void testRemoteReleaseIsBatched() throws Exception {
+        final int batchSize = 4;
+        final SlabMemoryManager mm = new SlabMemoryManager(
+                DEFAULT_BASE_BUFFER_SIZE, 1, 0, 16, batchSize, 1024 * 1024,
+                isDirect);
+
+        final TestProbe probe = new TestProbe();
+        mm.getMonitoringConfig().addProbes(probe);
+
+        final List<Buffer> buffers = new ArrayList<Buffer>();
+        for (int i = 0; i < batchSize * 2 - 1; i++) {
+            buffers.add(mm.allocate(100));
+        }
+
+        // release the buffers on the other thread
+        runInThread(new Runnable() {
+            @Override
+            public void run() {
+                for (Buffer buffer : buffers) {
+                    buffer.tryDispose();
+                }
+            }
+        });
+
+        assertEquals(buffers.size(), probe.bufferReleasedToPool.get());
+        assertEquals(0, mm.localElementsCount(0));
+
+        // only the full batch has been returned to this thread
+        for (int i = 0; i < batchSize; i++) {
+            assertTrue(containsSame(buffers, mm.allocate(100)));
+        }
+        assertEquals(batchSize, probe.bufferAllocatedFromPool.get());
+        assertEquals(buffers.size(), probe.bufferAllocated.get());
+
+        mm.allocate(100);
+        assertEquals(buffers.size() + 1, probe.bufferAllocated.get());
+    }
+
+    @Test
+    public void testDeadThreadMagazineRelease() throws Exception {
+        final SlabMemoryManager mm = newMemoryManager(1,
+                4 * DEFAULT_BASE_BUFFER_SIZE);
+
+        final AtomicReference<Buffer> inUse = new AtomicReference<Buffer>();
+
+        final Thread t = runInThread(new Runnable() {
+            @Override
+            public void run() {
+                final Buffer[] buffers = new Buffer[3];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = mm.allocate(100);
+                }
+
+                buffers[0].tryDispose();
+                buffers[1].tryDispose();
+                inUse.set(buffers[2]);
+            }
+        });
+        t.join();
+
+        assertEquals(3, mm.getSizeClasses()[0].getBuffersCount());
+        assertTrue(mm.releaseDeadMagazines());
+        assertEquals(1, mm.getSizeClasses()[0].getBuffersCount());
+
+        // the owner is gone, so the buffer is released to the arena
+        inUse.get().tryDispose();
+        assertEquals(0, mm.getSizeClasses()[0].getBuffersCount());
+        assertFalse(mm.releaseDeadMagazines());
+    }
+
+    @Test
+    public void stressTest() throws Exception {
+        final int sizeClassesNum = 3;
+        final int numTestThreads =
+                Runtime.getRuntime().availableProcessors() * 4;
+        final SlabMemoryManager mm = new SlabMemoryManager(
+                4096, sizeClassesNum, 1, DEFAULT_MAGAZINE_SIZE,
+                DEFAULT_RETURN_BATCH_SIZE, 64 * 1024 * 1024, isDirect);
+
+        final CountDownLatch latch = new CountDownLatch(numTestThreads);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        // every thread releases half of its buffers and passes the other half
+        // to the next thread to be released there
+        final List<BlockingQueue<Buffer>> queues =
+                new ArrayList<BlockingQueue<Buffer>>();
+        for (int i = 0; i < numTestThreads; i++) {
+            queues.add(new ArrayBlockingQueue<Buffer>(1024));
+        }
+
+        final Thread[] threads = new Thread[numTestThreads];
+        for (int i = 0; i < numTestThreads; i++) {
+            final int thread = i;
+            threads[i] = new Thread(new Runnable() {
+                final Random random = new Random(thread);
+
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 50000; j++) {
+                            final Buffer b = mm.allocate(random.nextInt(9000) + 1);
+                            final Buffer b1 = mm.allocate(random.nextInt(33000) + 1);
+                            b.put(0, (byte) j);
+                            assertTrue("Buffer=" + b, b.tryDispose());
+
+                            if (!queues.get((thread + 1) % numTestThreads).offer(b1)) {
+                                assertTrue("Buffer=" + b1, b1.tryDispose());
+                            }
+
+                            final Buffer remote = queues.get(thread).poll();
+                            if (remote != null) {
+                                assertTrue("Buffer=" + remote, remote.tryDispose());
+                            }
+                        }
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+            threads[i].setName("Stress-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+
+        assertTrue(latch.await(10, TimeUnit.MINUTES));
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (SlabMemoryManager.SizeClass sizeClass : mm.getSizeClasses()) {
+            assertTrue(sizeClass.toString(), sizeClass.getBuffersCount()
+                    <= sizeClass.getMaxBuffersCount());
+        }
+
+        // all the test threads are terminated, so once their magazines are
+        // released and the buffers left in the queues are disposed,
+        // nothing has to remain pooled
+        assertTrue(mm.releaseDeadMagazines());
+        for (BlockingQueue<Buffer> queue : queues) {
+            Buffer b;
+            while ((b = queue.poll()) != null) {
+                assertTrue(b.tryDispose());
+            }
+        }
+
+        assertEquals(0, totalBuffersCount(mm));
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private SlabMemoryManager newMemoryManager(final int sizeClasses,
+            final long maxArenaSize) {
+        return new SlabMemoryManager(DEFAULT_BASE_BUFFER_SIZE, sizeClasses,
+                sizeClasses > 1 ? DEFAULT_GROWTH_FACTOR : 0,
+                DEFAULT_MAGAZINE_SIZE, DEFAULT_RETURN_BATCH_SIZE,
+                maxArenaSize, isDirect);
+    }
+
+    private static int totalBuffersCount(final SlabMemoryManager mm) {
+        int count = 0;
+        for (SlabMemoryManager.SizeClass sizeClass : mm.getSizeClasses()) {
+            count += sizeClass.getBuffersCount();
+        }
+
+        return count;
+    }
+
+    private static boolean containsSame(final List<Buffer> buffers,
+            final Buffer buffer) {
+        for (Buffer b : buffers) {
+            if (b == buffer) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Thread runInThread(final Runnable r) throws Exception {
+        final Thread t = new Thread(r);
+        t.start();
+        t.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(t.isAlive());
+
+        return t;
+    }
+
+
+    // ---------------------------------------------------------- Nested Classes
+
+
+    static final class TestProbe implements MemoryProbe {
+        AtomicInteger bufferAllocated = new AtomicInteger();
+        AtomicInteger bufferAllocatedFromPool = new AtomicInteger();
+        AtomicInteger bufferReleasedToPool = new AtomicInteger();
+
+        @Override
+        public void onBufferAllocateEvent(int size) {
+            bufferAllocated.incrementAndGet();
+        }
+
+        @Override
+        public void onBufferAllocateFromPoolEvent(int size) {
+            bufferAllocatedFromPool.incrementAndGet();
+        }
+
+        @Override
+        public void onBufferReleaseToPoolEvent(int size) {
+            bufferReleasedToPool.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.utils;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link HashedWheelDelayedExecutor} tests.
+ */
+public class HashedWheelDelayedExecutorTest {
+    private static final long TICK_MILLIS = 10;
+
+    private ExecutorService threadPool;
+    private HashedWheelDelayedExecutor executor;
+    private final BlockingQueue<Element> expired =
+            new LinkedBlockingQueue<Element>();
+
+    @Before
+    public void setUp() {
+        threadPool = Executors.newSingleThreadExecutor();
+        executor = new HashedWheelDelayedExecutor(threadPool,
+                TICK_MILLIS, TimeUnit.MILLISECONDS, 16);
+        executor.start();
+    }
+
+    @After
+    public void tearDown() {
+        executor.destroy();
+        threadPool.shutdownNow();
+    }
+
+    @Test
+    public void testWheelSize() {
+        assertEquals(16, executor.getWheelSize());
+        assertEquals(128, new HashedWheelDelayedExecutor(threadPool,
+                1, TimeUnit.SECONDS, 100).getWheelSize());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final DelayedExecutor.DelayQueue<Element> queue = createQueue(true);
+
+        final Element e1 = new Element();
+        final Element e2 = new Element();
+        final long start = System.currentTimeMillis();
+        queue.add(e1, 50, TimeUnit.MILLISECONDS);
+        // longer than the wheel revolution
+        queue.add(e2, 400, TimeUnit.MILLISECONDS);
+
+        assertSame(e1, expired.poll(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 50);
+
+        assertSame(e2, expired.poll(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 400);
+        assertEquals(1, e1.worked.get());
+        assertEquals(1, e2.worked.get());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        final DelayedExecutor.DelayQueue<Element> queue = createQueue(true);
+
+        final Element e1 = new Element();
+        final Element e2 = new Element();
+        queue.add(e1, 50, TimeUnit.MILLISECONDS);
+        queue.add(e2, 100, TimeUnit.MILLISECONDS);
+        queue.remove(e1);
+
+        assertSame(e2, expired.poll(5, TimeUnit.SECONDS));
+        assertEquals(0, e1.worked.get());
+    }
+
+    @Test
+    public void testTimeoutExtendedViaResolver() throws Exception {
+        final DelayedExecutor.DelayQueue<Element> queue = createQueue(true);
+
+        final Element e = new Element();
+        final long start = System.currentTimeMillis();
+        queue.add(e, 50, TimeUnit.MILLISECONDS);
+        e.timeoutMillis = start + 300;
+
+        assertSame(e, expired.poll(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 300);
+    }
+
+    @Test
+    public void testReschedule() throws Exception {
+        final DelayedExecutor.DelayQueue<Element> queue = createQueue(true);
+
+        final Element e = new Element();
+        final long start = System.currentTimeMillis();
+        queue.add(e, Long.MAX_VALUE / 2, TimeUnit.MILLISECONDS);
+        e.timeoutMillis = start + 50;
+        queue.reschedule(e);
+
+        assertSame(e, expired.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, e.worked.get());
+    }
+
+    @Test
+    public void testWorkRetry() throws Exception {
+        final DelayedExecutor.DelayQueue<Element> queue = createQueue(false);
+
+        final Element e = new Element();
+        queue.add(e, 10, TimeUnit.MILLISECONDS);
+
+        // the element stays in the queue until the worker returns true
+        assertSame(e, expired.poll(5, TimeUnit.SECONDS));
+        assertSame(e, expired.poll(5, TimeUnit.SECONDS));
+        queue.remove(e);
+
+        final int worked = e.worked.get();
+        Thread.sleep(TICK_MILLIS * 10);
+        assertEquals(worked, e.worked.get());
+    }
+
+    @Test
+    public void testDestroyQueue() throws Exception {
+        final DelayedExecutor.DelayQueue<Element> queue = createQueue(true);
+
+        final Element e = new Element();
+        queue.add(e, 20, TimeUnit.MILLISECONDS);
+        queue.destroy();
+
+        assertNull(expired.poll(TICK_MILLIS * 10, TimeUnit.MILLISECONDS));
+    }
+
+    private DelayedExecutor.DelayQueue<Element> createQueue(final boolean workResult) {
+        return executor.createDelayQueue(
+                new DelayedExecutor.Worker<Element>() {
+                    @Override
+                    public boolean doWork(final Element element) {
+                        element.worked.incrementAndGet();
+                        expired.add(element);
+                        return workResult;
+                    }
+                },
+                new DelayedExecutor.Resolver<Element>() {
+                    @Override
+                    public boolean removeTimeout(final Element element) {
+                        element.timeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+                        return true;
+                    }
+
+                    @Override
+                    public long getTimeoutMillis(final Element element) {
+                        return element.timeoutMillis;
+                    }
+
+                    @Override
+                    public void setTimeoutMillis(final Element element,
+                            final long timeoutMillis) {
+                        element.timeoutMillis = timeoutMillis;
+                    }
+                });
+    }
+
+    private static final class Element {
+        private volatile long timeoutMillis = DelayedExecutor.UNSET_TIMEOUT;
+        private final AtomicInteger worked = new AtomicInteger();
+    }
+}
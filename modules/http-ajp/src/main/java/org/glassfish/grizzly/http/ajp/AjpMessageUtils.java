@@ -42,6 +42,7 @@ package org.glassfish.grizzly.http.ajp;
 import org.glassfish.grizzly.memory.Buffers;
 import java.io.IOException;
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.HeadersTemplate;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.http.util.Ascii;
@@ -437,6 +438,11 @@ final class AjpMessageUtils {
             encodedBuffer = putShort(mm, encodedBuffer, 0);
         } else {
             final MimeHeaders headers = httpResponsePacket.getHeaders();
+            final HeadersTemplate headersTemplate = httpResponsePacket.getHeadersTemplate();
+            if (headersTemplate != null) {
+                // the template headers, which are not overridden
+                headersTemplate.copyTo(headers);
+            }
             final String contentType = httpResponsePacket.getContentType();
             if (contentType != null) {
                 headers.setValue("Content-Type").setString(contentType);
@@ -58,6 +58,9 @@ import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import org.glassfish.grizzly.filterchain.FilterChainContext;
 import org.glassfish.grizzly.filterchain.NextAction;
 import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.http.HeadersTemplate;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.http.server.HttpHandler;
 import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.grizzly.http.server.Request;
@@ -68,6 +71,7 @@ import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
 import org.glassfish.grizzly.ssl.SSLSupport;
+import org.glassfish.grizzly.utils.Charsets;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -239,6 +243,33 @@ public class BasicAjpTest extends AjpTestBase {
         Assert.assertEquals(AjpConstants.JK_AJP13_END_RESPONSE, ajpResponse.getType());
     }
 
+    @Test
+    public void testHeadersTemplate() throws Exception {
+        final HeadersTemplate headersTemplate = HeadersTemplate.builder()
+                .header("Server", "Grizzly")
+                .header("Cache-Control", "no-cache")
+                .build();
+
+        final HttpRequestPacket request = HttpRequestPacket.builder()
+                .method("GET").uri("/").protocol("HTTP/1.1").build();
+        final HttpResponsePacket response = HttpResponsePacket.builder(request)
+                .status(200)
+                .header("Server", "Other")
+                .headersTemplate(headersTemplate)
+                .build();
+
+        final Buffer encoded = AjpMessageUtils.encodeHeaders(
+                MemoryManager.DEFAULT_MEMORY_MANAGER, response);
+        final String headers = encoded.toStringContent(Charsets.ASCII_CHARSET,
+                0, encoded.limit());
+
+        // the explicit header overrides the template one
+        assertTrue(headers.contains("Other"));
+        assertFalse(headers.contains("Grizzly"));
+        assertTrue(headers.contains("Cache-Control"));
+        assertTrue(headers.contains("no-cache"));
+    }
+
     @Test
     public void testPingPong() throws Exception {
         startHttpServer(new HttpHandler() {
@@ -39,6 +39,9 @@
  */
 package org.glassfish.grizzly.http.server;
 
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.http.AdaptiveCompressionPolicy;
 import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
 import org.glassfish.grizzly.http.CompressionConfig.CompressionModeI;
@@ -54,13 +57,65 @@ import java.util.Arrays;
 
 
 public class CompressionEncodingFilter implements EncodingFilter {
+    // the content-coding selected for the request, shared by all
+    // the filters, so the Accept-Encoding is parsed once per request
+    private static final Attribute<ContentCodingSelection> CONTENT_CODING_SELECTION_ATTR =
+            Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+            CompressionEncodingFilter.class.getName() + ".content-coding-selection");
+    
     private final CompressionConfig compressionConfig;
     private final String[] aliases;
+    
+    // the aliases of all the content-codings, the response might be
+    // compressed with, in the server preference order
+    private final String[][] contentCodingsAliases;
+    // the index of this filter's content-coding in contentCodingsAliases
+    private final int contentCodingIdx;
 
     public CompressionEncodingFilter(final CompressionConfig compressionConfig,
             final String[] aliases) {
         this.compressionConfig = new CompressionConfig(compressionConfig);
         this.aliases = Arrays.copyOf(aliases, aliases.length);
+        this.contentCodingsAliases = null;
+        this.contentCodingIdx = -1;
+    }
+
+    /**
+     * Constructs the filter, which applies its content-coding only if it's
+     * the one preferred by the client among all the content-codings
+     * supported by the server, based on the Accept-Encoding q-values.
+     * 
+     * @param compressionConfig {@link CompressionConfig}
+     * @param aliases the aliases of this filter's content-coding
+     * @param contentCodingsAliases the aliases of all the content-codings
+     *        supported by the server (including this filter's one) in
+     *        the server preference order, which is used if the client
+     *        assigns the same q-value to several content-codings
+     * 
+     * @see CompressionConfig#selectContentEncoding(HttpRequestPacket, String[][])
+     * @since 2.3.18
+     */
+    public CompressionEncodingFilter(final CompressionConfig compressionConfig,
+            final String[] aliases, final String[][] contentCodingsAliases) {
+        this.compressionConfig = new CompressionConfig(compressionConfig);
+        this.aliases = Arrays.copyOf(aliases, aliases.length);
+        this.contentCodingsAliases = new String[contentCodingsAliases.length][];
+        
+        int idx = -1;
+        for (int i = 0; i < contentCodingsAliases.length; i++) {
+            this.contentCodingsAliases[i] = Arrays.copyOf(
+                    contentCodingsAliases[i], contentCodingsAliases[i].length);
+            if (idx == -1 && Arrays.equals(aliases, contentCodingsAliases[i])) {
+                idx = i;
+            }
+        }
+        
+        if (idx == -1) {
+            throw new IllegalArgumentException(
+                    "contentCodingsAliases have to contain the filter aliases");
+        }
+        
+        this.contentCodingIdx = idx;
     }
     
     /**
@@ -92,6 +147,8 @@ public class CompressionEncodingFilter implements EncodingFilter {
         compressionConfig.setNoCompressionUserAgents(noCompressionUserAgents);
         
         this.aliases = Arrays.copyOf(aliases, aliases.length);
+        this.contentCodingsAliases = null;
+        this.contentCodingIdx = -1;
     }
 
     @Override
@@ -102,8 +159,14 @@ public class CompressionEncodingFilter implements EncodingFilter {
         }
         
         assert httpPacket instanceof HttpResponsePacket;
-        return canCompressHttpResponse((HttpResponsePacket) httpPacket,
-                compressionConfig, aliases);
+        final HttpResponsePacket response = (HttpResponsePacket) httpPacket;
+        if (contentCodingsAliases != null &&
+                selectContentEncoding(response.getRequest()) != contentCodingIdx) {
+            // the client prefers another content-coding
+            return false;
+        }
+        
+        return canCompressHttpResponse(response, compressionConfig, aliases);
     }
 
     @Override
@@ -111,6 +174,26 @@ public class CompressionEncodingFilter implements EncodingFilter {
         return false;
     }
     
+    /**
+     * Returns the index of the content-coding, preferred by the client,
+     * in <tt>contentCodingsAliases</tt>. The selection is computed by the
+     * first filter and reused by the other filters with the same
+     * <tt>contentCodingsAliases</tt>.
+     */
+    private int selectContentEncoding(final HttpRequestPacket request) {
+        ContentCodingSelection selection =
+                CONTENT_CODING_SELECTION_ATTR.get(request);
+        if (selection == null
+                || !selection.isFor(contentCodingsAliases)) {
+            selection = new ContentCodingSelection(contentCodingsAliases,
+                    CompressionConfig.selectContentEncoding(request,
+                    contentCodingsAliases));
+            CONTENT_CODING_SELECTION_ATTR.set(request, selection);
+        }
+        
+        return selection.contentCodingIdx;
+    }
+    
     /**
      * Returns <tt>true</tt> if the {@link HttpResponsePacket} could be
      * compressed, or <tt>false</tt> otherwise.
@@ -153,7 +236,9 @@ public class CompressionEncodingFilter implements EncodingFilter {
         if (contentLength == -1
                 || contentLength >= compressionConfig.getCompressionMinSize()) {
 
-            if (compressionConfig.checkMimeType(response.getContentType())) {
+            if (compressionConfig.checkMimeType(response.getContentType())
+                    && checkAdaptiveCompressionPolicy(response,
+                    compressionConfig)) {
                 response.setChunked(true);
                 response.setContentLength(-1);
                 return true;
@@ -161,5 +246,50 @@ public class CompressionEncodingFilter implements EncodingFilter {
         }
 
         return false;
-    }    
+    }
+    
+    /**
+     * Returns <tt>false</tt> if the {@link AdaptiveCompressionPolicy} decided
+     * not to compress the {@link HttpResponsePacket}, or <tt>true</tt>
+     * otherwise. If the policy has chosen a non-default compression level,
+     * the level is assigned to the {@link HttpResponsePacket}.
+     */
+    private static boolean checkAdaptiveCompressionPolicy(
+            final HttpResponsePacket response,
+            final CompressionConfig compressionConfig) {
+        final AdaptiveCompressionPolicy policy =
+                compressionConfig.getAdaptiveCompressionPolicy();
+        if (policy == null) {
+            return true;
+        }
+        
+        final int level = policy.getCompressionLevel(response);
+        if (level == AdaptiveCompressionPolicy.NO_COMPRESSION) {
+            return false;
+        }
+        
+        if (level != AdaptiveCompressionPolicy.DEFAULT_COMPRESSION) {
+            CompressionConfig.setCompressionLevel(response, level);
+        }
+        
+        return true;
+    }
+    
+    private static final class ContentCodingSelection {
+        private final String[][] contentCodingsAliases;
+        private final int contentCodingIdx;
+
+        private ContentCodingSelection(final String[][] contentCodingsAliases,
+                final int contentCodingIdx) {
+            this.contentCodingsAliases = contentCodingsAliases;
+            this.contentCodingIdx = contentCodingIdx;
+        }
+        
+        private boolean isFor(final String[][] contentCodingsAliases) {
+            // each filter keeps its own copy of the aliases
+            return this.contentCodingsAliases == contentCodingsAliases
+                    || Arrays.deepEquals(this.contentCodingsAliases,
+                    contentCodingsAliases);
+        }
+    }
 }
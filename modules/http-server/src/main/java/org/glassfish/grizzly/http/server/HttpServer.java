@@ -69,6 +69,7 @@ import org.glassfish.grizzly.attributes.AttributeBuilder;
 import org.glassfish.grizzly.filterchain.FilterChain;
 import org.glassfish.grizzly.filterchain.FilterChainBuilder;
 import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.http.AdaptiveCompressionPolicy;
 import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
 import org.glassfish.grizzly.http.ContentEncoding;
@@ -89,6 +90,7 @@ import org.glassfish.grizzly.threadpool.DefaultWorkerThread;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
 import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.glassfish.grizzly.utils.HashedWheelDelayedExecutor;
 import org.glassfish.grizzly.utils.Futures;
 import org.glassfish.grizzly.utils.IdleTimeoutFilter;
 
@@ -262,7 +264,9 @@ public class HttpServer {
         
         configureAuxThreadPool();
 
-        delayedExecutor = new DelayedExecutor(auxExecutorService);
+        delayedExecutor = serverConfig.isHashedWheelTimerEnabled()
+                ? new HashedWheelDelayedExecutor(auxExecutorService)
+                : new DelayedExecutor(auxExecutorService);
         delayedExecutor.start();
 
         for (final NetworkListener listener : listeners.values()) {
@@ -673,6 +677,15 @@ public class HttpServer {
             
             httpServerCodecFilter.getMonitoringConfig().addProbes(
                     serverConfig.getMonitoringConfig().getHttpConfig().getProbes());
+            
+            final AdaptiveCompressionPolicy compressionPolicy =
+                    listener.getCompressionConfig().getAdaptiveCompressionPolicy();
+            if (compressionPolicy != null && !contentEncodings.isEmpty()) {
+                httpServerCodecFilter.getMonitoringConfig().addProbes(
+                        compressionPolicy.getHttpProbe());
+                listener.getTransport().getThreadPoolMonitoringConfig().addProbes(
+                        compressionPolicy.getThreadPoolProbe());
+            }
             builder.add(httpServerCodecFilter);
             
             builder.add(new IdleTimeoutFilter(delayedExecutor,
@@ -750,14 +763,23 @@ public class HttpServer {
         final CompressionConfig compressionConfig = listener.getCompressionConfig();
         
         if (compressionConfig.getCompressionMode() != CompressionMode.OFF) {
+            // the content-coding is selected based on the Accept-Encoding
+            // q-values, gzip is preferred if q-values are equal
+            final String[][] contentCodingsAliases = {
+                GZipContentEncoding.getGzipAliases(),
+                LZMAContentEncoding.getLzmaAliases()
+            };
+            
             final ContentEncoding gzipContentEncoding = new GZipContentEncoding(
                 GZipContentEncoding.DEFAULT_IN_BUFFER_SIZE,
                 GZipContentEncoding.DEFAULT_OUT_BUFFER_SIZE,
                 new CompressionEncodingFilter(compressionConfig,
-                    GZipContentEncoding.getGzipAliases()));
+                    GZipContentEncoding.getGzipAliases(),
+                    contentCodingsAliases));
             final ContentEncoding lzmaEncoding = new LZMAContentEncoding(
                     new CompressionEncodingFilter(compressionConfig,
-                    LZMAContentEncoding.getLzmaAliases()));
+                    LZMAContentEncoding.getLzmaAliases(),
+                    contentCodingsAliases));
             final Set<ContentEncoding> set = new HashSet<ContentEncoding>(2);
             set.add(gzipContentEncoding);
             set.add(lzmaEncoding);
@@ -670,6 +670,30 @@ public class NetworkListener {
         transport.getAsyncQueueIO().getWriter().setMaxPendingBytesPerConnection(maxPendingBytes);
         }
 
+    /**
+     * @return the number of server channels, which will be bound to this
+     *  listener's port using SO_REUSEPORT.
+     *
+     * @see TCPNIOTransport#getAcceptorChannelsCount()
+     */
+    public int getAcceptorChannelsCount() {
+        return transport.getAcceptorChannelsCount();
+    }
+
+    /**
+     * Sets the number of server channels, which will be bound to this
+     * listener's port using SO_REUSEPORT, so accepting of new connections
+     * is spread among several selector threads.
+     * The value has to be set before the listener is started.
+     *
+     * @param acceptorChannelsCount the number of server channels.
+     *
+     * @see TCPNIOTransport#setAcceptorChannelsCount(int)
+     */
+    public void setAcceptorChannelsCount(final int acceptorChannelsCount) {
+        transport.setAcceptorChannelsCount(acceptorChannelsCount);
+    }
+
     // ---------------------------------------------------------- Public Methods
 
     /**
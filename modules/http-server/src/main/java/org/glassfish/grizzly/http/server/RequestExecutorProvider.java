@@ -41,6 +41,7 @@ package org.glassfish.grizzly.http.server;
 
 import java.util.concurrent.Executor;
 import org.glassfish.grizzly.threadpool.Threads;
+import org.glassfish.grizzly.threadpool.VirtualThreads;
 
 /**
  * An implementation of this interface will be  responsible for executing
@@ -94,4 +95,38 @@ public interface RequestExecutorProvider {
             return request.getContext().getConnection().getTransport().getWorkerThreadPool();
         }
     }
+
+    /**
+     * The {@link RequestExecutorProvider} implementation, which executes the
+     * user code in a new virtual {@link Thread} per {@link Request}
+     * (see {@link VirtualThreads}), so {@link HttpHandler}s could block
+     * without occupying worker threads. If the current {@link Thread} is
+     * a virtual thread already (for example the
+     * {@link org.glassfish.grizzly.strategies.VirtualThreadIOStrategy} is used) -
+     * <tt>null</tt> will be returned to force the user code to be executed on
+     * the current {@link Thread}.
+     * If the runtime doesn't support virtual threads, the implementation
+     * behaves like {@link WorkerThreadProvider}.
+     *
+     * @since 2.3.18
+     */
+    public static class VirtualThreadProvider extends WorkerThreadProvider {
+        private final Executor virtualThreadExecutor =
+                VirtualThreads.isAvailable()
+                ? VirtualThreads.newExecutor("Grizzly-virtual-request-")
+                : null;
+
+        @Override
+        public Executor getExecutor(final Request request) {
+            if (virtualThreadExecutor == null) {
+                return super.getExecutor(request);
+            }
+
+            if (VirtualThreads.isVirtual(Thread.currentThread())) {
+                return null; // Execute in the current thread
+            }
+
+            return virtualThreadExecutor;
+        }
+    }
 }
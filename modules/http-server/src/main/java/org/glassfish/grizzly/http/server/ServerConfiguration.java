@@ -53,6 +53,8 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.glassfish.grizzly.utils.DataStructures;
+import org.glassfish.grizzly.utils.DelayedExecutor;
+import org.glassfish.grizzly.utils.HashedWheelDelayedExecutor;
 
 /**
  * Configuration options for a particular {@link HttpServer} instance.
@@ -96,6 +98,10 @@ public class ServerConfiguration extends ServerFilterConfiguration {
      * close the connection.
      */
     private long maxPayloadRemainderToSkip = -1;
+
+    // true, if the idle, keep-alive and other timeouts have to be tracked
+    // by the HashedWheelDelayedExecutor
+    private boolean hashedWheelTimerEnabled;
     
     final Object handlersSync = new Object();
     
@@ -409,4 +415,32 @@ public class ServerConfiguration extends ServerFilterConfiguration {
     public void setMaxPayloadRemainderToSkip(long maxPayloadRemainderToSkip) {
         this.maxPayloadRemainderToSkip = maxPayloadRemainderToSkip;
     }    
+
+    /**
+     * @return <tt>true</tt>, if the {@link HttpServer} tracks the connection
+     * idle, keep-alive, suspended response and file cache timeouts using the
+     * {@link HashedWheelDelayedExecutor}, or <tt>false</tt> if the scanning
+     * {@link DelayedExecutor} is used.
+     * 
+     * @since 2.3.18
+     */
+    public boolean isHashedWheelTimerEnabled() {
+        return hashedWheelTimerEnabled;
+    }
+
+    /**
+     * Enables/disables the {@link HashedWheelDelayedExecutor} usage for the
+     * timeouts tracking. The {@link HashedWheelDelayedExecutor} costs O(1)
+     * per timeout added, removed or expired, so it's recommended for the
+     * servers with a big number of connections, the scanning
+     * {@link DelayedExecutor} checks all the registered timeouts once a second.
+     * The value is applied when the {@link HttpServer} is started.
+     * 
+     * @param hashedWheelTimerEnabled <tt>true</tt> to use the
+     * {@link HashedWheelDelayedExecutor}
+     * @since 2.3.18
+     */
+    public void setHashedWheelTimerEnabled(boolean hashedWheelTimerEnabled) {
+        this.hashedWheelTimerEnabled = hashedWheelTimerEnabled;
+    }
 } // END ServerConfiguration
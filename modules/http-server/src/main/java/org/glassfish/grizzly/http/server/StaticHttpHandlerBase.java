@@ -122,6 +122,8 @@ public abstract class StaticHttpHandlerBase extends HttpHandler {
         final long length = file.length();
         response.setContentLengthLong(length);
         response.addDateHeader(Header.Date, System.currentTimeMillis());
+        // over TLS the file content is read into memory and encrypted anyway,
+        // so the FileTransfer gives no gain comparing to the buffers
         if (!response.isSendFileEnabled() || response.getRequest().isSecure()) {
             sendUsingBuffers(response, file);
         } else {
@@ -42,8 +42,12 @@ package org.glassfish.grizzly.http.server;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Random;
+import java.util.zip.Deflater;
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.AdaptiveCompressionPolicy;
+import org.glassfish.grizzly.http.CompressionConfig;
 import org.glassfish.grizzly.http.CompressionConfig.CompressionMode;
+import org.glassfish.grizzly.http.HttpProbe;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.http.Method;
@@ -51,12 +55,14 @@ import org.glassfish.grizzly.http.Protocol;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.memory.Buffers;
 import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
 import org.glassfish.grizzly.utils.Charsets;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -135,6 +141,119 @@ public class CompressionEncodingFilterTest {
         assertFalse(filter.applyEncoding(response));
     }
 
+    @Test
+    public void testContentEncodingSelection() throws Exception {
+        final String[][] contentCodingsAliases = {
+            new String[] {"gzip"}, new String[] {"lzma"}};
+        final CompressionConfig config = new CompressionConfig();
+        config.setCompressionMode(CompressionMode.ON);
+        config.setCompressionMinSize(1);
+        
+        final CompressionEncodingFilter gzipFilter =
+                new CompressionEncodingFilter(config,
+                                              new String[] {"gzip"},
+                                              contentCodingsAliases);
+        final CompressionEncodingFilter lzmaFilter =
+                new CompressionEncodingFilter(config,
+                                              new String[] {"lzma"},
+                                              contentCodingsAliases);
+        
+        HttpRequestPacket request = setAcceptEncoding(
+                HttpRequestPacket.builder().method(Method.GET).protocol(Protocol.HTTP_1_1).uri("/").build(),
+                "lzma, gzip");
+        HttpResponsePacket response = HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1).build();
+        assertTrue(gzipFilter.applyEncoding(response));
+        assertFalse(lzmaFilter.applyEncoding(response));
+        
+        request = setAcceptEncoding(
+                HttpRequestPacket.builder().method(Method.GET).protocol(Protocol.HTTP_1_1).uri("/").build(),
+                "gzip;q=0.5, lzma;q=0.8");
+        response = HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1).build();
+        assertFalse(gzipFilter.applyEncoding(response));
+        assertTrue(lzmaFilter.applyEncoding(response));
+        
+        request = setAcceptEncoding(
+                HttpRequestPacket.builder().method(Method.GET).protocol(Protocol.HTTP_1_1).uri("/").build(),
+                "gzip;q=0, *;q=0.3");
+        response = HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1).build();
+        assertFalse(gzipFilter.applyEncoding(response));
+        assertTrue(lzmaFilter.applyEncoding(response));
+    }
+
+    @Test
+    public void testAdaptiveCompressionPolicy() throws Exception {
+        final double[] cpuLoad = {0.1};
+        final AdaptiveCompressionPolicy policy = new AdaptiveCompressionPolicy() {
+            @Override
+            protected double sampleCpuLoad() {
+                return cpuLoad[0];
+            }
+        };
+        policy.setCpuLoadSampleInterval(0);
+        policy.setReducedLevelQueueSize(2);
+        policy.setMaxQueueSize(4);
+        policy.setMinRatioSampleSize(1000);
+        policy.setRatioProbeInterval(2);
+        
+        final CompressionConfig config = new CompressionConfig();
+        config.setCompressionMode(CompressionMode.ON);
+        config.setCompressionMinSize(1);
+        config.setAdaptiveCompressionPolicy(policy);
+        
+        final CompressionEncodingFilter filter =
+                new CompressionEncodingFilter(config, new String[] {"gzip"});
+        
+        HttpResponsePacket response = createResponse("text/html");
+        assertTrue(filter.applyEncoding(response));
+        assertEquals(-1, CompressionConfig.getCompressionLevel(response));
+        
+        // CPU load
+        cpuLoad[0] = 0.8;
+        response = createResponse("text/html");
+        assertTrue(filter.applyEncoding(response));
+        assertEquals(Deflater.BEST_SPEED, CompressionConfig.getCompressionLevel(response));
+        
+        cpuLoad[0] = 0.95;
+        assertFalse(filter.applyEncoding(createResponse("text/html")));
+        cpuLoad[0] = 0.1;
+        
+        // worker thread pool queue
+        final ThreadPoolProbe threadPoolProbe = policy.getThreadPoolProbe();
+        for (int i = 0; i < 2; i++) {
+            threadPoolProbe.onTaskQueueEvent(null, null);
+        }
+        response = createResponse("text/html");
+        assertTrue(filter.applyEncoding(response));
+        assertEquals(Deflater.BEST_SPEED, CompressionConfig.getCompressionLevel(response));
+        
+        for (int i = 0; i < 2; i++) {
+            threadPoolProbe.onTaskQueueEvent(null, null);
+        }
+        assertFalse(filter.applyEncoding(createResponse("text/html")));
+        
+        for (int i = 0; i < 4; i++) {
+            threadPoolProbe.onTaskDequeueEvent(null, null);
+        }
+        assertTrue(filter.applyEncoding(createResponse("text/html")));
+        assertEquals(2, policy.getReducedLevelCount());
+        assertEquals(2, policy.getSkippedByLoadCount());
+        
+        // compression ratio
+        final HttpProbe httpProbe = policy.getHttpProbe();
+        response = createResponse("image/png");
+        httpProbe.onContentEncodingSerializeEvent(null, response,
+                Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, new byte[1000]), null);
+        httpProbe.onContentEncodingSerializeResultEvent(null, response,
+                Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, new byte[990]), null);
+        assertEquals(0.99, policy.getCompressionRatio("image/png"), 0.001);
+        
+        assertFalse(filter.applyEncoding(createResponse("image/png; q=1")));
+        // the mime-type is re-probed periodically
+        assertTrue(filter.applyEncoding(createResponse("image/png")));
+        assertEquals(1, policy.getSkippedByRatioCount());
+        assertTrue(filter.applyEncoding(createResponse("text/html")));
+    }
+
     @Test
     public void testMinSizeSetting() throws Exception {
 
@@ -157,6 +276,14 @@ public class CompressionEncodingFilterTest {
         assertTrue(filter.applyEncoding(response));
     }
 
+    private HttpResponsePacket createResponse(final String contentType) {
+        final HttpRequestPacket request = setAcceptEncoding(
+                HttpRequestPacket.builder().method(Method.GET).protocol(Protocol.HTTP_1_1).uri("/").build(),
+                "gzip");
+        return HttpResponsePacket.builder(request).protocol(Protocol.HTTP_1_1)
+                .contentType(contentType).build();
+    }
+
     private HttpRequestPacket setAcceptEncoding(HttpRequestPacket request, String acceptEncoding) {
         switch (headerType) {
             case String: {
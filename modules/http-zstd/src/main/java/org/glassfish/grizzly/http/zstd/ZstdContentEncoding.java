@@ -0,0 +1,412 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.zstd;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.http.ContentEncoding;
+import org.glassfish.grizzly.http.EncodingFilter;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpHeader;
+import org.glassfish.grizzly.http.ParsingResult;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * Zstandard (<tt>zstd</tt>, RFC 8878) {@link ContentEncoding} implementation.
+ *
+ * The encoder and decoder state is kept per {@link HttpHeader}, so the same
+ * {@link ZstdContentEncoding} instance may be shared by all the connections.
+ * The native zstd streams are closed, when the last {@link HttpContent} of
+ * the message is processed; the streams of the abandoned messages are
+ * released by their finalizers.
+ *
+ * @since 2.3.18
+ */
+public class ZstdContentEncoding implements ContentEncoding {
+
+    private static final String[] ALIASES = { "zstd" };
+
+    public static final String NAME = "zstd";
+
+    /**
+     * The default compression level, the same as the zstd library default.
+     */
+    public static final int DEFAULT_COMPRESSION_LEVEL = 3;
+
+    private static final int READ_CHUNK_SIZE = 8192;
+
+    private static final Attribute<EncoderState> ENCODER_STATE_ATTR =
+            Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+            ZstdContentEncoding.class.getName() + ".encoder");
+    private static final Attribute<DecoderState> DECODER_STATE_ATTR =
+            Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+            ZstdContentEncoding.class.getName() + ".decoder");
+
+    private final int compressionLevel;
+
+    private final EncodingFilter encodingFilter;
+
+
+    // ------------------------------------------------------------ Constructors
+
+
+    public ZstdContentEncoding() {
+        this(null);
+    }
+
+    public ZstdContentEncoding(final EncodingFilter encodingFilter) {
+        this(DEFAULT_COMPRESSION_LEVEL, encodingFilter);
+    }
+
+    public ZstdContentEncoding(final int compressionLevel,
+                               final EncodingFilter encodingFilter) {
+        this.compressionLevel = compressionLevel;
+        if (encodingFilter != null) {
+            this.encodingFilter = encodingFilter;
+        } else {
+            this.encodingFilter = new EncodingFilter() {
+                @Override
+                public boolean applyEncoding(final HttpHeader httpPacket) {
+                    return false;
+                }
+
+                @Override
+                public boolean applyDecoding(final HttpHeader httpPacket) {
+                    return true;
+                }
+            };
+        }
+    }
+
+
+    // -------------------------------------------- Methods from ContentEncoding
+
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String[] getAliases() {
+        return ALIASES.clone();
+    }
+
+    public static String[] getZstdAliases() {
+        return ALIASES.clone();
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    @Override
+    public boolean wantDecode(final HttpHeader header) {
+        return encodingFilter.applyDecoding(header);
+    }
+
+    @Override
+    public boolean wantEncode(final HttpHeader header) {
+        return encodingFilter.applyEncoding(header);
+    }
+
+    @Override
+    public ParsingResult decode(final Connection connection,
+                                final HttpContent httpContent) {
+        final HttpHeader httpHeader = httpContent.getHttpHeader();
+        final Buffer input = httpContent.getContent();
+        final boolean isLast = httpContent.isLast();
+
+        DecoderState state = DECODER_STATE_ATTR.get(httpHeader);
+        try {
+            if (state == null) {
+                state = new DecoderState();
+                DECODER_STATE_ATTR.set(httpHeader, state);
+            }
+
+            final byte[] decoded = state.decode(input);
+            input.tryDispose();
+
+            if (isLast) {
+                DECODER_STATE_ATTR.remove(httpHeader);
+                state.close();
+            } else if (decoded == null) {
+                return ParsingResult.create(null, null);
+            }
+
+            httpContent.setContent(decoded != null
+                    ? Buffers.wrap(memoryManager(connection), decoded)
+                    : Buffers.EMPTY_BUFFER);
+            return ParsingResult.create(httpContent, null);
+        } catch (IOException e) {
+            DECODER_STATE_ATTR.remove(httpHeader);
+            if (state != null) {
+                state.closeSilently();
+            }
+            throw new IllegalStateException("Zstd decode error", e);
+        }
+    }
+
+    @Override
+    public HttpContent encode(final Connection connection,
+                              final HttpContent httpContent) {
+        final HttpHeader httpHeader = httpContent.getHttpHeader();
+        final Buffer input = httpContent.getContent();
+
+        final boolean isLast = httpContent.isLast();
+        if (!(isLast || input.hasRemaining())) {
+            // the content is empty and is not last
+            return httpContent;
+        }
+
+        EncoderState state = ENCODER_STATE_ATTR.get(httpHeader);
+        try {
+            if (state == null) {
+                state = new EncoderState(compressionLevel);
+                ENCODER_STATE_ATTR.set(httpHeader, state);
+            }
+
+            state.write(input);
+            input.tryDispose();
+
+            if (isLast) {
+                ENCODER_STATE_ATTR.remove(httpHeader);
+                state.close();
+            }
+
+            final byte[] encoded = state.drain();
+            if (encoded != null) {
+                httpContent.setContent(
+                        Buffers.wrap(memoryManager(connection), encoded));
+                return httpContent;
+            } else if (isLast) {
+                httpContent.setContent(Buffers.EMPTY_BUFFER);
+                return httpContent;
+            } else {
+                return null;
+            }
+        } catch (IOException e) {
+            ENCODER_STATE_ATTR.remove(httpHeader);
+            if (state != null) {
+                state.closeSilently();
+            }
+            throw new IllegalStateException("Zstd encode error", e);
+        }
+    }
+
+
+    // ---------------------------------------------------------- Public Methods
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ZstdContentEncoding that = (ZstdContentEncoding) o;
+
+        if (compressionLevel != that.compressionLevel)
+            return false;
+        if (encodingFilter != null ? !encodingFilter.equals(that.encodingFilter) : that.encodingFilter != null)
+            return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = compressionLevel;
+        result = 31 * result + (encodingFilter != null ? encodingFilter.hashCode() : 0);
+        return result;
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static MemoryManager memoryManager(final Connection connection) {
+        return connection != null
+                ? connection.getMemoryManager()
+                : MemoryManager.DEFAULT_MEMORY_MANAGER;
+    }
+
+    private static void writeTo(final Buffer buffer, final ZstdOutputStream out)
+            throws IOException {
+        final int remaining = buffer.remaining();
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    remaining);
+        } else {
+            final byte[] bytes = new byte[remaining];
+            buffer.get(bytes);
+            out.write(bytes);
+        }
+    }
+
+
+    // ----------------------------------------------------------- Inner Classes
+
+
+    /**
+     * The compressed bytes sink, which is drained after each encode step.
+     */
+    private static final class ByteSink extends ByteArrayOutputStream {
+        byte[] drain() {
+            if (count == 0) {
+                return null;
+            }
+
+            final byte[] bytes = Arrays.copyOf(buf, count);
+            reset();
+            return bytes;
+        }
+    }
+
+    private static final class EncoderState {
+        private final ByteSink sink = new ByteSink();
+        private final ZstdOutputStream out;
+
+        EncoderState(final int compressionLevel) throws IOException {
+            out = new ZstdOutputStream(sink, compressionLevel);
+        }
+
+        void write(final Buffer input) throws IOException {
+            if (input.hasRemaining()) {
+                writeTo(input, out);
+            }
+        }
+
+        byte[] drain() {
+            return sink.drain();
+        }
+
+        void close() throws IOException {
+            // writes the frame epilogue to the sink
+            out.close();
+        }
+
+        void closeSilently() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * The compressed bytes source, which exposes the current
+     * {@link HttpContent} chunk and reports the end of stream, once the chunk
+     * is consumed. The decompressing stream works in the continuous mode, so
+     * it returns the data decoded so far and waits for the next chunk.
+     */
+    private static final class ChunkSource extends InputStream {
+        private Buffer buffer;
+
+        @Override
+        public int read() throws IOException {
+            return buffer != null && buffer.hasRemaining()
+                    ? buffer.get() & 0xFF
+                    : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (buffer == null || !buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer != null ? buffer.remaining() : 0;
+        }
+    }
+
+    private static final class DecoderState {
+        private final ChunkSource source = new ChunkSource();
+        private final ZstdInputStream in;
+        private final byte[] chunk = new byte[READ_CHUNK_SIZE];
+        private final ByteSink sink = new ByteSink();
+
+        DecoderState() throws IOException {
+            in = new ZstdInputStream(source);
+            in.setContinuous(true);
+        }
+
+        byte[] decode(final Buffer input) throws IOException {
+            source.buffer = input;
+            try {
+                int n;
+                while ((n = in.read(chunk, 0, chunk.length)) > 0) {
+                    sink.write(chunk, 0, n);
+                }
+            } finally {
+                source.buffer = null;
+            }
+
+            return sink.drain();
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+
+        void closeSilently() {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
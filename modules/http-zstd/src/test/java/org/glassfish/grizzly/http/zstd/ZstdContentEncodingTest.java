@@ -0,0 +1,213 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http.zstd;
+
+import com.github.luben.zstd.Zstd;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.HttpContent;
+import org.glassfish.grizzly.http.HttpRequestPacket;
+import org.glassfish.grizzly.http.HttpResponsePacket;
+import org.glassfish.grizzly.http.ParsingResult;
+import org.glassfish.grizzly.http.Protocol;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ZstdContentEncoding} tests.
+ */
+public class ZstdContentEncodingTest {
+
+    private static final MemoryManager MM = MemoryManager.DEFAULT_MEMORY_MANAGER;
+
+    @Test
+    public void testEncodeChunks() throws Exception {
+        final byte[] content = generateContent(100000);
+        final ZstdContentEncoding encoding = new ZstdContentEncoding();
+        final HttpResponsePacket response = newResponse();
+
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        for (int offs = 0; offs < content.length; offs += 1000) {
+            final int len = Math.min(1000, content.length - offs);
+            final HttpContent result = encoding.encode(null,
+                    newContent(response, content, offs, len, false));
+            if (result != null) {
+                append(encoded, result.getContent());
+            }
+        }
+
+        final HttpContent last = encoding.encode(null,
+                newContent(response, content, 0, 0, true));
+        assertNotNull(last);
+        assertTrue(last.isLast());
+        append(encoded, last.getContent());
+
+        final byte[] compressed = encoded.toByteArray();
+        assertTrue(compressed.length < content.length);
+        assertArrayEquals(content, Zstd.decompress(compressed, content.length));
+    }
+
+    @Test
+    public void testDecodeChunks() throws Exception {
+        final byte[] content = generateContent(100000);
+        final byte[] compressed = Zstd.compress(content);
+
+        final ZstdContentEncoding encoding = new ZstdContentEncoding();
+        final HttpResponsePacket response = newResponse();
+
+        final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        for (int offs = 0; offs < compressed.length; offs += 100) {
+            final int len = Math.min(100, compressed.length - offs);
+            final boolean isLast = offs + len == compressed.length;
+            final ParsingResult result = encoding.decode(null,
+                    newContent(response, compressed, offs, len, isLast));
+            assertNull(result.getRemainderBuffer());
+
+            final HttpContent httpContent = result.getHttpContent();
+            if (httpContent != null) {
+                append(decoded, httpContent.getContent());
+            } else {
+                assertFalse(isLast);
+            }
+        }
+
+        assertArrayEquals(content, decoded.toByteArray());
+    }
+
+    @Test
+    public void testEncodeDecode() throws Exception {
+        final byte[] content = generateContent(20000);
+        final ZstdContentEncoding encoding = new ZstdContentEncoding(1, null);
+
+        final HttpResponsePacket encodedResponse = newResponse();
+        final HttpContent encoded = encoding.encode(null,
+                newContent(encodedResponse, content, 0, content.length, true));
+        final byte[] compressed = toBytes(encoded.getContent());
+
+        final HttpResponsePacket decodedResponse = newResponse();
+        final ParsingResult result = encoding.decode(null,
+                newContent(decodedResponse, compressed, 0, compressed.length, true));
+
+        assertArrayEquals(content, toBytes(result.getHttpContent().getContent()));
+    }
+
+    @Test
+    public void testDecodeCorruptedContent() throws Exception {
+        final ZstdContentEncoding encoding = new ZstdContentEncoding();
+        final byte[] garbage = generateContent(100);
+
+        try {
+            encoding.decode(null, newContent(newResponse(), garbage, 0,
+                    garbage.length, true));
+            fail("IllegalStateException is expected");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testAliases() {
+        final ZstdContentEncoding encoding = new ZstdContentEncoding();
+        assertEquals("zstd", encoding.getName());
+        assertArrayEquals(new String[] {"zstd"}, encoding.getAliases());
+        assertEquals(ZstdContentEncoding.DEFAULT_COMPRESSION_LEVEL,
+                encoding.getCompressionLevel());
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+
+    private static HttpResponsePacket newResponse() {
+        final HttpRequestPacket request = HttpRequestPacket.builder()
+                .method("GET")
+                .uri("/path")
+                .protocol(Protocol.HTTP_1_1)
+                .build();
+
+        return HttpResponsePacket.builder(request)
+                .protocol(Protocol.HTTP_1_1)
+                .status(200)
+                .build();
+    }
+
+    private static HttpContent newContent(final HttpResponsePacket response,
+                                          final byte[] bytes,
+                                          final int offs,
+                                          final int len,
+                                          final boolean isLast) {
+        final Buffer buffer = len > 0
+                ? Buffers.wrap(MM, Arrays.copyOfRange(bytes, offs, offs + len))
+                : Buffers.EMPTY_BUFFER;
+
+        return HttpContent.builder(response)
+                .content(buffer)
+                .last(isLast)
+                .build();
+    }
+
+    private static void append(final ByteArrayOutputStream out,
+                               final Buffer buffer) {
+        final byte[] bytes = toBytes(buffer);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] toBytes(final Buffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] generateContent(final int size) {
+        final Random r = new Random(size);
+        final byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            // compressible content
+            bytes[i] = (byte) ('a' + r.nextInt(8));
+        }
+
+        return bytes;
+    }
+}
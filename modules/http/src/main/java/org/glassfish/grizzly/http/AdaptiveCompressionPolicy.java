@@ -0,0 +1,503 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.threadpool.AbstractThreadPool;
+import org.glassfish.grizzly.threadpool.ThreadPoolProbe;
+
+/**
+ * The compression policy, which adapts the HTTP response compression to the
+ * server load. The compression level is lowered, or the compression is
+ * skipped completely, if the worker thread pool task queue grows or the
+ * CPU load passes the configured thresholds, because under saturation it's
+ * cheaper to send more bytes than to add compression latency.
+ *
+ * The policy also tracks the compression ratio per response mime-type, so
+ * the mime-types, which don't compress well, are skipped automatically.
+ * Skipped mime-types are periodically re-probed, in case their content has
+ * changed.
+ *
+ * The statistics are collected by the {@link ThreadPoolProbe} and
+ * {@link HttpProbe} returned by {@link #getThreadPoolProbe()} and
+ * {@link #getHttpProbe()}, which have to be registered on the worker thread
+ * pool and {@link HttpCodecFilter} monitoring configs respectively.
+ *
+ * The CPU load is calculated as the system load average divided by
+ * the number of available processors, so <tt>1.0</tt> means all the CPUs
+ * are busy.
+ *
+ * @see CompressionConfig#setAdaptiveCompressionPolicy(AdaptiveCompressionPolicy)
+ * @since 2.3.18
+ */
+public class AdaptiveCompressionPolicy {
+    /**
+     * The compression level returned by {@link #getCompressionLevel(HttpResponsePacket)},
+     * if the response is not supposed to be compressed.
+     */
+    public static final int NO_COMPRESSION = Deflater.NO_COMPRESSION;
+
+    /**
+     * The compression level returned by {@link #getCompressionLevel(HttpResponsePacket)},
+     * if the response is supposed to be compressed using the default level.
+     */
+    public static final int DEFAULT_COMPRESSION = Deflater.DEFAULT_COMPRESSION;
+
+    // the max number of mime-types to track the compression ratio for
+    private static final int MAX_TRACKED_MIME_TYPES = 256;
+
+    private static final OperatingSystemMXBean OS_MX_BEAN =
+            ManagementFactory.getOperatingSystemMXBean();
+
+    private int reducedCompressionLevel = Deflater.BEST_SPEED;
+    private int reducedLevelQueueSize = 16;
+    private int maxQueueSize = 64;
+    private double reducedLevelCpuLoad = 0.75;
+    private double maxCpuLoad = 0.9;
+    private long cpuLoadSampleInterval = 1000;
+    private double maxCompressionRatio = 0.9;
+    private long minRatioSampleSize = 64 * 1024;
+    private int ratioProbeInterval = 64;
+
+    // the current number of tasks in the worker thread pool queue
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private volatile double cpuLoad = -1;
+    private volatile long cpuLoadTimestamp;
+
+    private final ConcurrentMap<String, MimeTypeStats> mimeTypeStats =
+            new ConcurrentHashMap<String, MimeTypeStats>();
+
+    private final AtomicLong reducedLevelCount = new AtomicLong();
+    private final AtomicLong skippedByLoadCount = new AtomicLong();
+    private final AtomicLong skippedByRatioCount = new AtomicLong();
+
+    private final ThreadPoolProbe threadPoolProbe = new ThreadPoolProbe.Adapter() {
+
+        @Override
+        public void onTaskQueueEvent(final AbstractThreadPool threadPool,
+                final Runnable task) {
+            queueSize.incrementAndGet();
+        }
+
+        @Override
+        public void onTaskDequeueEvent(final AbstractThreadPool threadPool,
+                final Runnable task) {
+            queueSize.decrementAndGet();
+        }
+    };
+
+    private final HttpProbe httpProbe = new HttpProbe.Adapter() {
+
+        @Override
+        public void onContentEncodingSerializeEvent(final Connection connection,
+                final HttpHeader header, final Buffer buffer,
+                final ContentEncoding contentEncoding) {
+            if (!header.isRequest() && buffer != null) {
+                final MimeTypeStats stats =
+                        getMimeTypeStats(header.getContentType(), true);
+                if (stats != null) {
+                    stats.onEncodeInput(buffer.remaining());
+                }
+            }
+        }
+
+        @Override
+        public void onContentEncodingSerializeResultEvent(
+                final Connection connection, final HttpHeader header,
+                final Buffer result, final ContentEncoding contentEncoding) {
+            if (!header.isRequest() && result != null) {
+                final MimeTypeStats stats =
+                        getMimeTypeStats(header.getContentType(), true);
+                if (stats != null) {
+                    stats.onEncodeOutput(result.remaining());
+                }
+            }
+        }
+    };
+
+    /**
+     * Returns the compression level to be used for the given
+     * {@link HttpResponsePacket}: {@link #NO_COMPRESSION} if the response
+     * should be sent uncompressed, {@link #DEFAULT_COMPRESSION}, or
+     * the reduced compression level if the server is getting saturated.
+     */
+    public int getCompressionLevel(final HttpResponsePacket response) {
+        final MimeTypeStats stats =
+                getMimeTypeStats(response.getContentType(), false);
+        if (stats != null && !stats.isCompressionEffective()) {
+            skippedByRatioCount.incrementAndGet();
+            return NO_COMPRESSION;
+        }
+
+        final int currentQueueSize = queueSize.get();
+        final double currentCpuLoad = getCpuLoad();
+
+        if (isExceeded(currentQueueSize, maxQueueSize)
+                || isExceeded(currentCpuLoad, maxCpuLoad)) {
+            skippedByLoadCount.incrementAndGet();
+            return NO_COMPRESSION;
+        }
+
+        if (isExceeded(currentQueueSize, reducedLevelQueueSize)
+                || isExceeded(currentCpuLoad, reducedLevelCpuLoad)) {
+            reducedLevelCount.incrementAndGet();
+            return reducedCompressionLevel;
+        }
+
+        return DEFAULT_COMPRESSION;
+    }
+
+    /**
+     * Returns the {@link ThreadPoolProbe}, which tracks the worker thread pool
+     * queue size. The probe has to be registered on the worker thread pool
+     * monitoring config.
+     */
+    public ThreadPoolProbe getThreadPoolProbe() {
+        return threadPoolProbe;
+    }
+
+    /**
+     * Returns the {@link HttpProbe}, which tracks the compression ratio per
+     * mime-type. The probe has to be registered on the {@link HttpCodecFilter}
+     * monitoring config.
+     */
+    public HttpProbe getHttpProbe() {
+        return httpProbe;
+    }
+
+    /**
+     * Returns the compression level, which is used when the server
+     * load passes the "reduced level" thresholds.
+     */
+    public int getReducedCompressionLevel() {
+        return reducedCompressionLevel;
+    }
+
+    /**
+     * Sets the compression level (1-9), which is used when the server
+     * load passes the "reduced level" thresholds.
+     * The default value is {@link Deflater#BEST_SPEED}.
+     */
+    public void setReducedCompressionLevel(final int reducedCompressionLevel) {
+        if (reducedCompressionLevel < 1 || reducedCompressionLevel > 9) {
+            throw new IllegalArgumentException(
+                    "Invalid compression level: " + reducedCompressionLevel);
+        }
+
+        this.reducedCompressionLevel = reducedCompressionLevel;
+    }
+
+    /**
+     * Returns the worker thread pool queue size, starting from which
+     * the reduced compression level is used.
+     */
+    public int getReducedLevelQueueSize() {
+        return reducedLevelQueueSize;
+    }
+
+    /**
+     * Sets the worker thread pool queue size, starting from which
+     * the reduced compression level is used.
+     * A negative value disables the check. The default value is <tt>16</tt>.
+     */
+    public void setReducedLevelQueueSize(final int reducedLevelQueueSize) {
+        this.reducedLevelQueueSize = reducedLevelQueueSize;
+    }
+
+    /**
+     * Returns the worker thread pool queue size, starting from which
+     * responses are not compressed.
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Sets the worker thread pool queue size, starting from which
+     * responses are not compressed.
+     * A negative value disables the check. The default value is <tt>64</tt>.
+     */
+    public void setMaxQueueSize(final int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Returns the CPU load, starting from which the reduced compression level
+     * is used.
+     */
+    public double getReducedLevelCpuLoad() {
+        return reducedLevelCpuLoad;
+    }
+
+    /**
+     * Sets the CPU load, starting from which the reduced compression level
+     * is used.
+     * A negative value disables the check. The default value is <tt>0.75</tt>.
+     */
+    public void setReducedLevelCpuLoad(final double reducedLevelCpuLoad) {
+        this.reducedLevelCpuLoad = reducedLevelCpuLoad;
+    }
+
+    /**
+     * Returns the CPU load, starting from which responses are not compressed.
+     */
+    public double getMaxCpuLoad() {
+        return maxCpuLoad;
+    }
+
+    /**
+     * Sets the CPU load, starting from which responses are not compressed.
+     * A negative value disables the check. The default value is <tt>0.9</tt>.
+     */
+    public void setMaxCpuLoad(final double maxCpuLoad) {
+        this.maxCpuLoad = maxCpuLoad;
+    }
+
+    /**
+     * Returns the interval (in milliseconds), the CPU load is sampled with.
+     */
+    public long getCpuLoadSampleInterval() {
+        return cpuLoadSampleInterval;
+    }
+
+    /**
+     * Sets the interval (in milliseconds), the CPU load is sampled with.
+     * The default value is <tt>1000</tt>.
+     */
+    public void setCpuLoadSampleInterval(final long cpuLoadSampleInterval) {
+        this.cpuLoadSampleInterval = cpuLoadSampleInterval;
+    }
+
+    /**
+     * Returns the max compressed-to-original size ratio, for which
+     * a mime-type is considered compressible.
+     */
+    public double getMaxCompressionRatio() {
+        return maxCompressionRatio;
+    }
+
+    /**
+     * Sets the max compressed-to-original size ratio, for which
+     * a mime-type is considered compressible. Mime-types with the worse
+     * observed ratio are not compressed.
+     * The default value is <tt>0.9</tt>.
+     */
+    public void setMaxCompressionRatio(final double maxCompressionRatio) {
+        this.maxCompressionRatio = maxCompressionRatio;
+    }
+
+    /**
+     * Returns the number of bytes, which have to be compressed for a mime-type
+     * before its compression ratio is taken into account.
+     */
+    public long getMinRatioSampleSize() {
+        return minRatioSampleSize;
+    }
+
+    /**
+     * Sets the number of bytes, which have to be compressed for a mime-type
+     * before its compression ratio is taken into account.
+     * The default value is <tt>65536</tt>.
+     */
+    public void setMinRatioSampleSize(final long minRatioSampleSize) {
+        this.minRatioSampleSize = minRatioSampleSize;
+    }
+
+    /**
+     * Returns how often a mime-type skipped due to its compression ratio
+     * is re-probed: every N-th response of such a mime-type is compressed.
+     */
+    public int getRatioProbeInterval() {
+        return ratioProbeInterval;
+    }
+
+    /**
+     * Sets how often a mime-type skipped due to its compression ratio
+     * is re-probed: every N-th response of such a mime-type is compressed.
+     * The default value is <tt>64</tt>.
+     */
+    public void setRatioProbeInterval(final int ratioProbeInterval) {
+        if (ratioProbeInterval <= 0) {
+            throw new IllegalArgumentException(
+                    "ratioProbeInterval has to be positive");
+        }
+
+        this.ratioProbeInterval = ratioProbeInterval;
+    }
+
+    /**
+     * Returns the current worker thread pool queue size.
+     */
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    /**
+     * Returns the observed compressed-to-original size ratio for
+     * the mime-type, or <tt>-1</tt> if the mime-type hasn't been compressed.
+     */
+    public double getCompressionRatio(final String mimeType) {
+        final MimeTypeStats stats = getMimeTypeStats(mimeType, false);
+        return stats != null ? stats.getRatio() : -1;
+    }
+
+    /**
+     * Returns the number of responses compressed with the reduced
+     * compression level.
+     */
+    public long getReducedLevelCount() {
+        return reducedLevelCount.get();
+    }
+
+    /**
+     * Returns the number of responses, which haven't been compressed
+     * because of the server load.
+     */
+    public long getSkippedByLoadCount() {
+        return skippedByLoadCount.get();
+    }
+
+    /**
+     * Returns the number of responses, which haven't been compressed
+     * because of their mime-type compression ratio.
+     */
+    public long getSkippedByRatioCount() {
+        return skippedByRatioCount.get();
+    }
+
+    /**
+     * Returns the CPU load sampled not earlier than
+     * {@link #getCpuLoadSampleInterval()} milliseconds ago.
+     */
+    public double getCpuLoad() {
+        final long now = System.currentTimeMillis();
+        if (now - cpuLoadTimestamp >= cpuLoadSampleInterval) {
+            cpuLoadTimestamp = now;
+            cpuLoad = sampleCpuLoad();
+        }
+
+        return cpuLoad;
+    }
+
+    /**
+     * Samples the current CPU load, returns a negative value if the CPU load
+     * is not available.
+     */
+    protected double sampleCpuLoad() {
+        final double loadAverage = OS_MX_BEAN.getSystemLoadAverage();
+        return loadAverage >= 0
+                ? loadAverage / OS_MX_BEAN.getAvailableProcessors()
+                : -1;
+    }
+
+    private MimeTypeStats getMimeTypeStats(final String contentType,
+            final boolean create) {
+        if (contentType == null) {
+            return null;
+        }
+
+        final int paramsIdx = contentType.indexOf(';');
+        final String mimeType = paramsIdx == -1
+                ? contentType
+                : contentType.substring(0, paramsIdx).trim();
+
+        MimeTypeStats stats = mimeTypeStats.get(mimeType);
+        if (stats == null && create
+                && mimeTypeStats.size() < MAX_TRACKED_MIME_TYPES) {
+            final MimeTypeStats newStats = new MimeTypeStats();
+            stats = mimeTypeStats.putIfAbsent(mimeType, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+
+        return stats;
+    }
+
+    private static boolean isExceeded(final double value,
+            final double threshold) {
+        return threshold >= 0 && value >= 0 && value >= threshold;
+    }
+
+    private final class MimeTypeStats {
+        private final AtomicLong bytesIn = new AtomicLong();
+        private final AtomicLong bytesOut = new AtomicLong();
+        private final AtomicInteger skippedCounter = new AtomicInteger();
+
+        private void onEncodeInput(final int size) {
+            final long in = bytesIn.addAndGet(size);
+
+            // decay the old statistics, so the ratio follows content changes
+            if (in > minRatioSampleSize * 16) {
+                bytesIn.addAndGet(-in / 2);
+                bytesOut.addAndGet(-bytesOut.get() / 2);
+            }
+        }
+
+        private void onEncodeOutput(final int size) {
+            bytesOut.addAndGet(size);
+        }
+
+        private double getRatio() {
+            final long in = bytesIn.get();
+            return in > 0 ? (double) bytesOut.get() / in : -1;
+        }
+
+        private boolean isCompressionEffective() {
+            if (bytesIn.get() < minRatioSampleSize
+                    || getRatio() <= maxCompressionRatio) {
+                return true;
+            }
+
+            // re-probe the mime-type periodically
+            return skippedCounter.incrementAndGet() % ratioProbeInterval == 0;
+        }
+    }
+}
@@ -42,6 +42,11 @@ package org.glassfish.grizzly.http;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Set;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
+import org.glassfish.grizzly.http.util.BufferChunk;
+import org.glassfish.grizzly.http.util.ByteChunk;
+import org.glassfish.grizzly.http.util.CharChunk;
 import org.glassfish.grizzly.http.util.DataChunk;
 import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpUtils;
@@ -90,6 +95,10 @@ public final class CompressionConfig {
         }
     }
     
+    private static final Attribute<Integer> COMPRESSION_LEVEL_ATTR =
+            Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute(
+            CompressionConfig.class.getName() + ".compression-level");
+    
     // compression mode
     private CompressionMode compressionMode;
     // the min size of the entities, which will be compressed
@@ -100,6 +109,8 @@ public final class CompressionConfig {
     // the user-agents, for which the payload will never be compressed
     private final ArraySet<String> noCompressionUserAgents =
             new ArraySet<String>(String.class);
+    // the policy, which adapts the compression to the server load
+    private AdaptiveCompressionPolicy adaptiveCompressionPolicy;
 
     public CompressionConfig() {
         compressionMode = CompressionMode.OFF;
@@ -136,6 +147,7 @@ public final class CompressionConfig {
         compressionMinSize = compression.compressionMinSize;
         setCompressableMimeTypes(compression.compressableMimeTypes);
         setNoCompressionUserAgents(compression.noCompressionUserAgents);
+        adaptiveCompressionPolicy = compression.adaptiveCompressionPolicy;
     }
     
     /**
@@ -252,6 +264,55 @@ public final class CompressionConfig {
         }
     }
     
+    /**
+     * Returns the {@link AdaptiveCompressionPolicy}, or <tt>null</tt> if
+     * the compression doesn't depend on the server load.
+     * 
+     * @since 2.3.18
+     */
+    public AdaptiveCompressionPolicy getAdaptiveCompressionPolicy() {
+        return adaptiveCompressionPolicy;
+    }
+
+    /**
+     * Sets the {@link AdaptiveCompressionPolicy}, which may lower the
+     * compression level or skip the compression depending on the server load
+     * and the compression ratio observed for the response mime-type.
+     * 
+     * Please note, unlike other settings, the policy is not copied, so
+     * CompressionConfig copies share the same policy and its statistics.
+     * 
+     * @since 2.3.18
+     */
+    public void setAdaptiveCompressionPolicy(
+            final AdaptiveCompressionPolicy adaptiveCompressionPolicy) {
+        this.adaptiveCompressionPolicy = adaptiveCompressionPolicy;
+    }
+    
+    /**
+     * Returns the compression level, which has been assigned to the
+     * {@link HttpHeader} using {@link #setCompressionLevel(HttpHeader, int)},
+     * or <tt>-1</tt> (the default compression level), if none.
+     * 
+     * @since 2.3.18
+     */
+    public static int getCompressionLevel(final HttpHeader httpHeader) {
+        final Integer level = COMPRESSION_LEVEL_ATTR.get(httpHeader);
+        return level != null ? level : -1;
+    }
+    
+    /**
+     * Assigns the compression level (0-9) to be used by the content-encoding
+     * applied to the {@link HttpHeader} packet. Content-encodings, which
+     * don't support compression levels, ignore this setting.
+     * 
+     * @since 2.3.18
+     */
+    public static void setCompressionLevel(final HttpHeader httpHeader,
+            final int level) {
+        COMPRESSION_LEVEL_ATTR.set(httpHeader, level);
+    }
+    
     /**
      * Returns <tt>true</tt> if a client, based on its {@link HttpRequestPacket},
      * could be responded with compressed data, or <tt>false</tt> otherwise.
@@ -324,44 +385,202 @@ public final class CompressionConfig {
         return true;
     }
     
+    /**
+     * Returns the index of the content-coding, which should be used to
+     * compress the response to the given {@link HttpRequestPacket}.
+     * The content-coding with the highest quality value (q-value) in
+     * the request's Accept-Encoding header is selected. If several
+     * content-codings have the same q-value, the one, which comes first in
+     * the <tt>contentCodingsAliases</tt> array is selected, so the array
+     * order represents the server preference.
+     * 
+     * @param request client-side {@link HttpRequestPacket}
+     * @param contentCodingsAliases the aliases of each content-coding
+     *        supported by the server
+     * @return the index of the selected content-coding in
+     *         the <tt>contentCodingsAliases</tt> array, or <tt>-1</tt>
+     *         if none of the content-codings is acceptable for the client
+     * 
+     * @since 2.3.18
+     */
+    public static int selectContentEncoding(final HttpRequestPacket request,
+            final String[]... contentCodingsAliases) {
+        int selectedIdx = -1;
+        float selectedQValue = 0;
+        
+        for (int i = 0; i < contentCodingsAliases.length; i++) {
+            final float qValue = getAcceptEncodingQValue(request,
+                    contentCodingsAliases[i]);
+            if (qValue > selectedQValue) {
+                selectedIdx = i;
+                selectedQValue = qValue;
+            }
+        }
+        
+        return selectedIdx;
+    }
+    
+    /**
+     * Returns the quality value (q-value), the client has assigned to
+     * the content-coding with the given aliases in the Accept-Encoding header
+     * of its {@link HttpRequestPacket}. If several aliases are listed -
+     * the max q-value is returned. If none of the aliases is listed, the
+     * q-value of the "*" entry (if present) is returned.
+     * 
+     * @param request client-side {@link HttpRequestPacket}
+     * @param aliases content-coding aliases
+     * @return the q-value in the range [0, 1], or <tt>-1</tt> if
+     *         the content-coding is not listed in the Accept-Encoding header
+     * 
+     * @since 2.3.18
+     */
+    public static float getAcceptEncodingQValue(
+            final HttpRequestPacket request, final String[] aliases) {
+        final DataChunk acceptEncoding =
+                request.getHeaders().getValue(Header.AcceptEncoding);
+        if (acceptEncoding == null || acceptEncoding.isNull()) {
+            return -1;
+        }
+        
+        final int len = acceptEncoding.getLength();
+        
+        float qValue = -1;
+        float wildcardQValue = -1;
+        
+        // the header is parsed in place, no matter if it's represented as
+        // a Buffer, bytes, chars or String
+        int entryStart = 0;
+        while (entryStart < len) {
+            final int entryEnd = indexOf(acceptEncoding, ',', entryStart, len);
+            final int nameEnd = indexOf(acceptEncoding, ';', entryStart, entryEnd);
+            
+            final int nameStart = skipSpaces(acceptEncoding, entryStart, nameEnd);
+            final int nameLength =
+                    trimSpaces(acceptEncoding, nameStart, nameEnd) - nameStart;
+            
+            if (nameLength > 0) {
+                if (nameLength == 1 && charAt(acceptEncoding, nameStart) == '*') {
+                    wildcardQValue = parseQValue(acceptEncoding, nameEnd, entryEnd);
+                } else if (indexOfRegion(aliases, acceptEncoding,
+                        nameStart, nameLength) != -1) {
+                    qValue = Math.max(qValue,
+                            parseQValue(acceptEncoding, nameEnd, entryEnd));
+                }
+            }
+            
+            entryStart = entryEnd + 1;
+        }
+        
+        return qValue != -1 ? qValue : wildcardQValue;
+    }
+    
     private static boolean isClientSupportContentEncoding(
             HttpRequestPacket request, final String[] aliases) {
-        // Check if browser support gzip encoding
-        final DataChunk acceptEncodingDC =
-                request.getHeaders().getValue(Header.AcceptEncoding);
-        if (acceptEncodingDC == null) {
-            return false;
+        return getAcceptEncodingQValue(request, aliases) > 0;
+    }
+    
+    /**
+     * Parses the q-value among the Accept-Encoding entry parameters,
+     * located between <tt>paramsStart</tt> and <tt>paramsEnd</tt>.
+     * Returns <tt>1</tt> if the q-value is not specified, or <tt>0</tt>
+     * if it's invalid.
+     */
+    private static float parseQValue(final DataChunk acceptEncoding,
+            final int paramsStart, final int paramsEnd) {
+        int paramStart = paramsStart;
+        while (paramStart < paramsEnd) {
+            final int paramEnd = indexOf(acceptEncoding, ';',
+                    paramStart + 1, paramsEnd);
+            
+            final int nameStart = skipSpaces(acceptEncoding, paramStart + 1, paramEnd);
+            if (nameStart + 1 < paramEnd
+                    && (charAt(acceptEncoding, nameStart) == 'q'
+                    || charAt(acceptEncoding, nameStart) == 'Q')) {
+                final int eqIdx = skipSpaces(acceptEncoding, nameStart + 1, paramEnd);
+                if (eqIdx < paramEnd && charAt(acceptEncoding, eqIdx) == '=') {
+                    final int valueStart = skipSpaces(acceptEncoding, eqIdx + 1, paramEnd);
+                    final int valueEnd = trimSpaces(acceptEncoding, valueStart, paramEnd);
+                    // returns 0 if the q-value is invalid
+                    return HttpUtils.convertQValueToFloat(acceptEncoding,
+                            valueStart, valueEnd);
+                }
+            }
+            
+            paramStart = paramEnd;
         }
-        String alias = null;
-        int idx = -1;
-        for (int i = 0, len = aliases.length; i < len; i++) {
-            alias = aliases[i];
-            idx = acceptEncodingDC.indexOf(alias, 0);
-            if (idx != -1) {
-                break;
+        
+        return 1;
+    }
+    
+    /**
+     * Returns the index of the first <tt>c</tt> in the DataChunk region
+     * [<tt>start</tt>, <tt>end</tt>), or <tt>end</tt> if there is none.
+     */
+    private static int indexOf(final DataChunk dc, final char c,
+            final int start, final int end) {
+        final int idx = dc.indexOf(c, start);
+        return idx == -1 || idx > end ? end : idx;
+    }
+    
+    private static int charAt(final DataChunk dc, final int idx) {
+        switch (dc.getType()) {
+            case Buffer: {
+                final BufferChunk bc = dc.getBufferChunk();
+                return bc.getBuffer().get(bc.getStart() + idx) & 0xFF;
             }
+            case Bytes: {
+                final ByteChunk bc = dc.getByteChunk();
+                return bc.getBuffer()[bc.getStart() + idx] & 0xFF;
+            }
+            case Chars: {
+                final CharChunk cc = dc.getCharChunk();
+                return cc.getBuffer()[cc.getStart() + idx];
+            }
+            case String:
+                return dc.toString().charAt(idx);
+            default:
+                throw new IllegalStateException("Unexpected type: " + dc.getType());
         }
-
-        if (idx == -1) {
-            return false;
+    }
+    
+    private static int skipSpaces(final DataChunk dc, int start, final int end) {
+        while (start < end && Character.isWhitespace(charAt(dc, start))) {
+            start++;
+        }
+        
+        return start;
+    }
+    
+    private static int trimSpaces(final DataChunk dc, final int start, int end) {
+        while (end > start && Character.isWhitespace(charAt(dc, end - 1))) {
+            end--;
         }
-
-        assert alias != null;
         
-        // we only care about q=0/q=0.0.  If present, the user-agent
-        // doesn't support this particular compression.
-        int qvalueStart = acceptEncodingDC.indexOf(';', idx + alias.length());
-        if (qvalueStart != -1) {
-            qvalueStart = acceptEncodingDC.indexOf('=', qvalueStart);
-            final int commaIdx = acceptEncodingDC.indexOf(',', qvalueStart);
-            final int qvalueEnd = commaIdx != -1 ? commaIdx : acceptEncodingDC.getLength();
-            if (HttpUtils.convertQValueToFloat(acceptEncodingDC,
-                    qvalueStart + 1,
-                    qvalueEnd) == 0.0f) {
+        return end;
+    }
+    
+    private static int indexOfRegion(final String[] aliases, final DataChunk dc,
+            final int start, final int length) {
+        for (int i = 0; i < aliases.length; i++) {
+            final String alias = aliases[i];
+            if (alias.length() == length
+                    && regionMatchesIgnoreCase(dc, start, alias)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean regionMatchesIgnoreCase(final DataChunk dc,
+            final int start, final String s) {
+        final int len = s.length();
+        for (int i = 0; i < len; i++) {
+            final char c1 = (char) charAt(dc, start + i);
+            final char c2 = s.charAt(i);
+            if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
                 return false;
             }
         }
-
         return true;
     }
     
@@ -192,6 +192,13 @@ public class GZipContentEncoding implements ContentEncoding {
             return httpContent;
         }
 
+        final int compressionLevel =
+                CompressionConfig.getCompressionLevel(httpHeader);
+        if (compressionLevel != -1) {
+            // ignored if the compression has already been started
+            encoder.setCompressionLevel(httpHeader, compressionLevel);
+        }
+        
         final TransformationResult<Buffer, Buffer> result =
                 encoder.transform(httpHeader, input);
 
@@ -0,0 +1,325 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.HttpCodecUtils;
+import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.memory.MemoryManager;
+
+/**
+ * The immutable set of HTTP headers, which is serialized once, when the
+ * template is built, and then copied as is into every {@link HttpHeader}
+ * the template is assigned to (see {@link HttpHeader#setHeadersTemplate(HeadersTemplate)}).
+ *
+ * The template is supposed to hold the headers, which have the same values
+ * for all the responses of a handler, like Server or Cache-Control, so they
+ * don't have to be set and serialized for each response. The headers, which
+ * are managed by the HTTP codec per message (Content-Length,
+ * Transfer-Encoding, Content-Encoding, Connection, Upgrade and Date) can't
+ * be a part of the template, they are still serialized per message.
+ * Content-Type can't be a part of the template either, because it's
+ * a property of the {@link HttpHeader} (see
+ * {@link HttpHeader#setContentType(String)}), which is checked by the
+ * compression and other filters.
+ *
+ * The template headers are defaults: if the {@link HttpHeader} contains
+ * a header with the same name as one of the template headers - the
+ * {@link HttpHeader}'s one takes precedence and the template one is not
+ * serialized. The template headers, which are not overridden, are visible
+ * via {@link HttpHeader#getHeader(String)} and
+ * {@link HttpHeader#containsHeader(String)}.
+ *
+ * The template is thread-safe and could be shared among connections.
+ *
+ * @since 2.3.18
+ */
+public final class HeadersTemplate {
+    private static final Header[] CODEC_MANAGED_HEADERS = {
+        Header.ContentLength, Header.TransferEncoding, Header.ContentEncoding,
+        Header.Connection, Header.Upgrade, Header.Date
+    };
+
+    private final String[] names;
+    private final String[] values;
+    // the serialized "name: value\r\n" lines
+    private final byte[] serialized;
+    // lineOffsets[i] is the offset of the i-th line in the serialized array,
+    // lineOffsets[size()] is the serialized array length
+    private final int[] lineOffsets;
+
+    private HeadersTemplate(final List<String> names, final List<String> values) {
+        this.names = names.toArray(new String[names.size()]);
+        this.values = values.toArray(new String[values.size()]);
+
+        int size = 0;
+        for (int i = 0; i < this.names.length; i++) {
+            size += this.names[i].length() + this.values[i].length() + 4;
+        }
+
+        serialized = new byte[size];
+        lineOffsets = new int[this.names.length + 1];
+        int offs = 0;
+        for (int i = 0; i < this.names.length; i++) {
+            lineOffsets[i] = offs;
+            offs = putString(this.names[i], serialized, offs);
+            serialized[offs++] = ':';
+            serialized[offs++] = ' ';
+            offs = putString(this.values[i], serialized, offs);
+            serialized[offs++] = '\r';
+            serialized[offs++] = '\n';
+        }
+        lineOffsets[this.names.length] = offs;
+    }
+
+    /**
+     * Returns the {@link Builder}, which is used to create a new
+     * <tt>HeadersTemplate</tt>.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the number of headers in the template.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of the header at the given position.
+     */
+    public String getName(final int idx) {
+        return names[idx];
+    }
+
+    /**
+     * Returns the value of the header at the given position.
+     */
+    public String getValue(final int idx) {
+        return values[idx];
+    }
+
+    /**
+     * Returns the value of the header with the given name, or <tt>null</tt>
+     * if the template doesn't have such header.
+     */
+    public String getValue(final String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name)) {
+                return values[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the size of the serialized template in bytes.
+     */
+    public int getSerializedSize() {
+        return serialized.length;
+    }
+
+    /**
+     * Copies the template headers, which are not overridden by the
+     * same-named {@link MimeHeaders}, to the passed {@link MimeHeaders}.
+     * The method is used by the codecs, which don't serialize HTTP/1.x
+     * headers, like AJP or SPDY.
+     *
+     * @param mimeHeaders the HTTP message {@link MimeHeaders}
+     */
+    public void copyTo(final MimeHeaders mimeHeaders) {
+        for (int i = 0; i < names.length; i++) {
+            if (mimeHeaders.indexOf(names[i], 0) == -1) {
+                mimeHeaders.addValue(names[i]).setString(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Puts the serialized template headers, which are not overridden by the
+     * same-named {@link MimeHeaders}, to the output {@link Buffer}.
+     */
+    Buffer serialize(final MemoryManager memoryManager, Buffer buffer,
+            final MimeHeaders mimeHeaders) {
+        if (mimeHeaders.size() == 0) {
+            return HttpCodecUtils.put(memoryManager, buffer, serialized);
+        }
+
+        // copy the ranges of the lines, which are not overridden
+        int start = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (mimeHeaders.indexOf(names[i], 0) != -1) {
+                if (lineOffsets[i] > start) {
+                    buffer = HttpCodecUtils.put(memoryManager, buffer,
+                            serialized, start, lineOffsets[i] - start);
+                }
+                start = lineOffsets[i + 1];
+            }
+        }
+
+        if (serialized.length > start) {
+            buffer = HttpCodecUtils.put(memoryManager, buffer, serialized,
+                    start, serialized.length - start);
+        }
+
+        return buffer;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(serialized.length + 32);
+        sb.append("HeadersTemplate {");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(names[i]).append(": ").append(values[i]);
+        }
+
+        return sb.append('}').toString();
+    }
+
+    private static int putString(final String s, final byte[] dst, int offs) {
+        final int len = s.length();
+        for (int i = 0; i < len; i++) {
+            dst[offs++] = (byte) s.charAt(i);
+        }
+
+        return offs;
+    }
+
+    /**
+     * <tt>HeadersTemplate</tt> builder.
+     */
+    public static final class Builder {
+        private final List<String> names = new ArrayList<String>();
+        private final List<String> values = new ArrayList<String>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the header to the template.
+         *
+         * @param name the header name
+         * @param value the header value
+         * @throws IllegalArgumentException if the header is Content-Type
+         *         or is managed by the HTTP codec, or the name or value
+         *         contains characters, which are not allowed
+         */
+        public Builder header(final String name, final String value) {
+            checkName(name);
+            checkValue(value);
+
+            names.add(name);
+            values.add(value);
+            return this;
+        }
+
+        /**
+         * Adds the header to the template.
+         *
+         * @param header the {@link Header}
+         * @param value the header value
+         * @throws IllegalArgumentException if the header is Content-Type
+         *         or is managed by the HTTP codec, or the value contains
+         *         characters, which are not allowed
+         */
+        public Builder header(final Header header, final String value) {
+            return header(header.toString(), value);
+        }
+
+        /**
+         * Builds the <tt>HeadersTemplate</tt>.
+         */
+        public HeadersTemplate build() {
+            return new HeadersTemplate(names, values);
+        }
+
+        private static void checkName(final String name) {
+            if (name == null || name.length() == 0) {
+                throw new IllegalArgumentException("Header name can't be empty");
+            }
+
+            for (Header header : CODEC_MANAGED_HEADERS) {
+                if (header.toString().equalsIgnoreCase(name)) {
+                    throw new IllegalArgumentException("Header " + name
+                            + " is managed by HTTP codec and can't be a part of the template");
+                }
+            }
+            
+            if (Header.ContentType.toString().equalsIgnoreCase(name)) {
+                throw new IllegalArgumentException("Header " + name
+                        + " can't be a part of the template, use HttpHeader.setContentType(String)");
+            }
+
+            final int len = name.length();
+            for (int i = 0; i < len; i++) {
+                final char c = name.charAt(i);
+                if (c <= ' ' || c >= 0x7F || c == ':') {
+                    throw new IllegalArgumentException(
+                            "Illegal character in the header name: " + name);
+                }
+            }
+        }
+
+        private static void checkValue(final String value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Header value can't be null");
+            }
+
+            final int len = value.length();
+            for (int i = 0; i < len; i++) {
+                final char c = value.charAt(i);
+                if (c == '\r' || c == '\n' || c > 0xFF) {
+                    throw new IllegalArgumentException(
+                            "Illegal character in the header value: " + value);
+                }
+            }
+        }
+    }
+}
@@ -1430,6 +1430,12 @@ public abstract class HttpCodecFilter extends HttpBaseFilter
                     httpHeader);
 
             final MimeHeaders mimeHeaders = httpHeader.getHeaders();
+            final HeadersTemplate headersTemplate = httpHeader.getHeadersTemplate();
+            if (headersTemplate != null) {
+                encodedBuffer = headersTemplate.serialize(memoryManager,
+                        encodedBuffer, mimeHeaders);
+            }
+            
             final byte[] tempEncodingBuffer = httpHeader.getTempHeaderEncodingBuffer();
             encodedBuffer = encodeMimeHeaders(memoryManager, encodedBuffer, mimeHeaders, tempEncodingBuffer);
             onHttpHeadersEncoded(httpHeader, ctx);
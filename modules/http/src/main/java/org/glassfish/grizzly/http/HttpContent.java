@@ -154,7 +154,15 @@ public class HttpContent extends HttpPacket
         return content;
     }
 
-    protected final void setContent(Buffer content) {
+    /**
+     * Sets the HTTP content chunk {@link Buffer}.
+     * The method is used by the {@link ContentEncoding} implementations
+     * to replace the chunk with its encoded or decoded representation.
+     *
+     * @param content {@link Buffer}.
+     * @since 2.3.18
+     */
+    public final void setContent(Buffer content) {
         this.content = content;
     }
 
@@ -124,6 +124,8 @@ public abstract class HttpHeader extends HttpPacket
      */
     private boolean chunkingAllowed;
 
+    private HeadersTemplate headersTemplate;
+
     public HttpHeader() {
         this(new MimeHeaders());
     }
@@ -291,6 +293,29 @@ public abstract class HttpHeader extends HttpPacket
         this.isSkipRemainder = isSkipRemainder;
     }
 
+    /**
+     * Returns the {@link HeadersTemplate}, which will be serialized along
+     * with this HTTP message headers, or <tt>null</tt>, if none.
+     * 
+     * @since 2.3.18
+     */
+    public HeadersTemplate getHeadersTemplate() {
+        return headersTemplate;
+    }
+
+    /**
+     * Sets the {@link HeadersTemplate}, which will be serialized along
+     * with this HTTP message headers. The headers set on this HTTP message
+     * take precedence over the same-named template headers.
+     * 
+     * @param headersTemplate {@link HeadersTemplate}
+     * 
+     * @since 2.3.18
+     */
+    public void setHeadersTemplate(final HeadersTemplate headersTemplate) {
+        this.headersTemplate = headersTemplate;
+    }
+
     /**
      * Returns <tt>true</tt>, if HTTP packet payload
      * was detected as broken due to unexpected error occurred during 
@@ -604,7 +629,14 @@ public abstract class HttpHeader extends HttpPacket
         }
         
         String result = handleGetSpecialHeader(name);
-        return (result != null) ? result : headers.getHeader(name);
+        if (result == null) {
+            result = headers.getHeader(name);
+            if (result == null && headersTemplate != null) {
+                result = headersTemplate.getValue(name);
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -616,7 +648,14 @@ public abstract class HttpHeader extends HttpPacket
             return null;
         }
         String result = handleGetSpecialHeader(header);
-        return (result != null) ? result : headers.getHeader(header);
+        if (result == null) {
+            result = headers.getHeader(header);
+            if (result == null && headersTemplate != null) {
+                result = headersTemplate.getValue(header.toString());
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -745,7 +784,8 @@ public abstract class HttpHeader extends HttpPacket
         }
         final String result = handleGetSpecialHeader(name);
         
-        return result != null || headers.getHeader(name) != null;
+        return result != null || headers.getHeader(name) != null
+                || (headersTemplate != null && headersTemplate.getValue(name) != null);
     }
 
     /**
@@ -757,7 +797,9 @@ public abstract class HttpHeader extends HttpPacket
             return false;
         }
         final String result = handleGetSpecialHeader(header);
-        return result != null || headers.getHeader(header) != null;
+        return result != null || headers.getHeader(header) != null
+                || (headersTemplate != null
+                        && headersTemplate.getValue(header.toString()) != null);
     }
 
     /**
@@ -863,6 +905,7 @@ public abstract class HttpHeader extends HttpPacket
         contentLength = -1;
         contentType.reset();
         chunkingAllowed = false;
+        headersTemplate = null;
         transferEncoding = null;
         isExpectContent = true;
         upgrade.recycle();
@@ -1037,6 +1080,7 @@ public abstract class HttpHeader extends HttpPacket
         protected String contentType;
         protected String upgrade;
         protected MimeHeaders mimeHeaders;
+        protected HeadersTemplate headersTemplate;
 
         /**
          * Set the HTTP message protocol version.
@@ -1111,6 +1155,19 @@ public abstract class HttpHeader extends HttpPacket
             return (T) this;
         }
 
+        /**
+         * Set the {@link HeadersTemplate} to be serialized along with
+         * the HTTP message headers.
+         *
+         * @param headersTemplate {@link HeadersTemplate}.
+         * @since 2.3.18
+         */
+        @SuppressWarnings({"unchecked"})
+        public final T headersTemplate(HeadersTemplate headersTemplate) {
+            this.headersTemplate = headersTemplate;
+            return (T) this;
+        }
+
         /**
          * Add the HTTP mime header.
          *
@@ -1211,6 +1268,9 @@ public abstract class HttpHeader extends HttpPacket
             if (mimeHeaders != null && mimeHeaders.size() > 0) {
                 httpHeader.getHeaders().copyFrom(mimeHeaders);
             }
+            if (headersTemplate != null) {
+                httpHeader.setHeadersTemplate(headersTemplate);
+            }
 
             return httpHeader;
         }
@@ -1222,6 +1282,7 @@ public abstract class HttpHeader extends HttpPacket
             contentLength = null;
             contentType = null;
             upgrade = null;
+            headersTemplate = null;
             mimeHeaders.recycle();
         }
 
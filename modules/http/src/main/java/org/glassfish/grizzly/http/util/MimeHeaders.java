@@ -60,6 +60,7 @@ package org.glassfish.grizzly.http.util;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.Iterator;
 import org.glassfish.grizzly.Buffer;
 
@@ -96,9 +97,13 @@ an overhead that is not needed in most cases )
 Apache seems to be using a similar method for storing and manipulating
 headers.
 
+Large header sets (proxies and CDNs may add dozens of headers) are
+hashed lazily: once the number of headers and the number of lookups pass
+the INDEX_MIN_HEADERS and INDEX_MIN_LOOKUPS thresholds, an open-addressing
+index over the header names is built and the name lookups stop scanning
+all the headers. Small header sets keep the linear scan.
+
 Future enhancements:
-- hash the headers the first time a header is requested ( i.e. if the
-servlet needs direct access to headers).
 - scan "common" values ( length, cookies, etc ) during the parse
 ( addHeader hook )
 
@@ -137,6 +142,18 @@ public class MimeHeaders {
      *  XXX  make it configurable ( fine-tuning of web-apps )
      */
     public static final int DEFAULT_HEADER_SIZE = 8;
+
+    /**
+     * The min number of headers, for which the name lookup index is built.
+     */
+    private static final int INDEX_MIN_HEADERS = Integer.getInteger(
+            MimeHeaders.class.getName() + ".index-min-headers", 16);
+
+    /**
+     * The number of name lookups, after which the name lookup index is built.
+     */
+    private static final int INDEX_MIN_LOOKUPS = Integer.getInteger(
+            MimeHeaders.class.getName() + ".index-min-lookups", 4);
     /**
      * The header fields.
      */
@@ -148,6 +165,28 @@ public class MimeHeaders {
 
     private int maxNumHeaders = MAX_NUM_HEADERS_DEFAULT;
 
+    /**
+     * The open-addressing name lookup index: the header index + 1 (0 means
+     * an empty slot) and the lower-case hash of the header name per slot.
+     * The index doesn't track header name changes made directly via
+     * {@link #getName(int)}.
+     */
+    private int[] indexSlots;
+    private int[] indexHashes;
+    /**
+     * The number of indexed headers, or -1 if the index is not built.
+     */
+    private int indexedCount = -1;
+    /**
+     * The number of name lookups since the headers were cleared.
+     */
+    private int lookupCount;
+    /**
+     * <tt>true</tt> if some header name is not US-ASCII, so the index
+     * can't be used.
+     */
+    private boolean isIndexDisabled;
+
     /**
      * The header names {@link Iterable}.
      */
@@ -181,6 +220,9 @@ public class MimeHeaders {
             headers[i].recycle();
         }
         count = 0;
+        indexedCount = -1;
+        lookupCount = 0;
+        isIndexDisabled = false;
     }
 
     /**
@@ -204,6 +246,7 @@ public class MimeHeaders {
         }
         this.maxNumHeaders = source.maxNumHeaders;
         this.count = source.count;
+        this.indexedCount = -1;
         if (headers.length < count) {
 
             MimeHeaderField tmp[] = new MimeHeaderField[count * 2];
@@ -310,13 +353,15 @@ public class MimeHeaders {
      * Find the index of a header with the given name.
      */
     public int indexOf(String name, int fromIndex) {
-        // We can use a hash - but it's not clear how much
-        // benefit you can get - there is an  overhead
-        // and the number of headers is small (4-5 ?)
-        // Another problem is that we'll pay the overhead
-        // of constructing the hashtable
-
-        // A custom search tree may be better
+        // the headers are hashed only if the header set is large
+        // and the lookups are frequent
+        if (isIndexUsable()) {
+            final int idx = indexOfIndexed(name, fromIndex);
+            if (idx != -2) {
+                return idx;
+            }
+        }
+        
         for (int i = fromIndex; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCase(name)) {
                 return i;
@@ -329,14 +374,13 @@ public class MimeHeaders {
      * Find the index of a header with the given name.
      */
     public int indexOf(final Header header, final int fromIndex) {
-        // We can use a hash - but it's not clear how much
-        // benefit you can get - there is an  overhead
-        // and the number of headers is small (4-5 ?)
-        // Another problem is that we'll pay the overhead
-        // of constructing the hashtable
-
-        // A custom search tree may be better
+        // the headers are hashed only if the header set is large
+        // and the lookups are frequent
         final byte[] bytes = header.getLowerCaseBytes();
+        if (isIndexUsable()) {
+            return indexOfIndexed(bytes, fromIndex);
+        }
+        
         for (int i = fromIndex; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
                 return i;
@@ -460,7 +504,8 @@ public class MimeHeaders {
      * if this .
      */
     public DataChunk setValue(final String name) {
-        for (int i = 0; i < count; i++) {
+        final int first = isIndexUsable() ? indexOfIndexed(name, 0) : -2;
+        for (int i = first != -2 ? (first != -1 ? first : count) : 0; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCase(name)) {
                 for (int j = i + 1; j < count; j++) {
                     if (headers[j].getName().equalsIgnoreCase(name)) {
@@ -483,7 +528,8 @@ public class MimeHeaders {
      */
     public DataChunk setValue(final Header header) {
         final byte[] bytes = header.getLowerCaseBytes();
-        for (int i = 0; i < count; i++) {
+        final int first = isIndexUsable() ? indexOfIndexed(bytes, 0) : 0;
+        for (int i = first != -1 ? first : count; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
                 for (int j = i + 1; j < count; j++) {
                     if (headers[j].getName().equalsIgnoreCaseLowerCase(bytes)) {
@@ -506,6 +552,13 @@ public class MimeHeaders {
      * in the header, an arbitrary one is returned.
      */
     public DataChunk getValue(String name) {
+        if (isIndexUsable()) {
+            final int idx = indexOfIndexed(name, 0);
+            if (idx != -2) {
+                return idx != -1 ? headers[idx].getValue() : null;
+            }
+        }
+        
         for (int i = 0; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCase(name)) {
                 return headers[i].getValue();
@@ -521,6 +574,11 @@ public class MimeHeaders {
      */
     public DataChunk getValue(final Header header) {
         final byte[] bytes = header.getLowerCaseBytes();
+        if (isIndexUsable()) {
+            final int idx = indexOfIndexed(bytes, 0);
+            return idx != -1 ? headers[idx].getValue() : null;
+        }
+        
         for (int i = 0; i < count; i++) {
             if (headers[i].getName().equalsIgnoreCaseLowerCase(bytes)) {
                 return headers[i].getValue();
@@ -637,6 +695,199 @@ public class MimeHeaders {
         headers[idx] = headers[count - 1];
         headers[count - 1] = mh;
         count--;
+        // the headers have been reordered, the index will be rebuilt
+        indexedCount = -1;
+    }
+
+    // ------------------------------------------------------ Name lookup index
+
+    /**
+     * Returns <tt>true</tt> if the name lookup index could be used, building
+     * or updating the index if needed.
+     */
+    private boolean isIndexUsable() {
+        if (indexedCount == -1) {
+            if (isIndexDisabled || count < INDEX_MIN_HEADERS
+                    || ++lookupCount <= INDEX_MIN_LOOKUPS) {
+                return false;
+            }
+            
+            buildIndex();
+        } else if (indexedCount < count) {
+            // the headers have been added since the last lookup
+            if ((count << 1) > indexSlots.length) {
+                buildIndex();
+            } else {
+                while (indexedCount < count) {
+                    if (!addToIndex(indexedCount)) {
+                        disableIndex();
+                        break;
+                    }
+                    
+                    indexedCount++;
+                }
+            }
+        }
+        
+        return indexedCount != -1;
+    }
+
+    private void buildIndex() {
+        int capacity = INDEX_MIN_HEADERS << 1;
+        while (capacity < (count << 1)) {
+            capacity <<= 1;
+        }
+        
+        if (indexSlots == null || indexSlots.length < capacity) {
+            indexSlots = new int[capacity];
+            indexHashes = new int[capacity];
+        } else {
+            Arrays.fill(indexSlots, 0);
+        }
+        
+        for (int i = 0; i < count; i++) {
+            if (!addToIndex(i)) {
+                disableIndex();
+                return;
+            }
+        }
+        
+        indexedCount = count;
+    }
+
+    private void disableIndex() {
+        isIndexDisabled = true;
+        indexedCount = -1;
+    }
+    
+    /**
+     * Adds the header to the index, returns <tt>false</tt> if the header
+     * name is not US-ASCII.
+     */
+    private boolean addToIndex(final int idx) {
+        final DataChunk name = headers[idx].getName();
+        int hash = 0;
+        switch (name.getType()) {
+            case Bytes: {
+                final ByteChunk bc = name.getByteChunk();
+                final byte[] buffer = bc.getBuffer();
+                for (int i = bc.getStart(), end = bc.getEnd(); i < end; i++) {
+                    final int c = buffer[i];
+                    if (c < 0) {
+                        return false;
+                    }
+                    hash = hash * 31 + Ascii.toLower(c);
+                }
+                break;
+            }
+            case Buffer: {
+                final BufferChunk bc = name.getBufferChunk();
+                final Buffer buffer = bc.getBuffer();
+                for (int i = bc.getStart(), end = bc.getEnd(); i < end; i++) {
+                    final int c = buffer.get(i);
+                    if (c < 0) {
+                        return false;
+                    }
+                    hash = hash * 31 + Ascii.toLower(c);
+                }
+                break;
+            }
+            case Chars: {
+                final CharChunk cc = name.getCharChunk();
+                final char[] buffer = cc.getBuffer();
+                for (int i = cc.getStart(), end = cc.getEnd(); i < end; i++) {
+                    final int c = buffer[i];
+                    if (c > 0x7F) {
+                        return false;
+                    }
+                    hash = hash * 31 + Ascii.toLower(c);
+                }
+                break;
+            }
+            case String: {
+                final String s = name.toString();
+                for (int i = 0, len = s.length(); i < len; i++) {
+                    final int c = s.charAt(i);
+                    if (c > 0x7F) {
+                        return false;
+                    }
+                    hash = hash * 31 + Ascii.toLower(c);
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        
+        final int mask = indexSlots.length - 1;
+        int slot = spread(hash) & mask;
+        while (indexSlots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        
+        indexSlots[slot] = idx + 1;
+        indexHashes[slot] = hash;
+        return true;
+    }
+    
+    /**
+     * Returns the index of the first header with the given name starting
+     * from <tt>fromIndex</tt>, <tt>-1</tt> if there is no such header, or
+     * <tt>-2</tt> if the name is not US-ASCII, so the index can't be used.
+     */
+    private int indexOfIndexed(final String name, final int fromIndex) {
+        int hash = 0;
+        for (int i = 0, len = name.length(); i < len; i++) {
+            final int c = name.charAt(i);
+            if (c > 0x7F) {
+                return -2;
+            }
+            hash = hash * 31 + Ascii.toLower(c);
+        }
+        
+        final int mask = indexSlots.length - 1;
+        int result = -1;
+        for (int slot = spread(hash) & mask; indexSlots[slot] != 0;
+                slot = (slot + 1) & mask) {
+            final int idx = indexSlots[slot] - 1;
+            if (indexHashes[slot] == hash && idx >= fromIndex
+                    && (result == -1 || idx < result)
+                    && headers[idx].getName().equalsIgnoreCase(name)) {
+                result = idx;
+            }
+        }
+        
+        return result;
+    }
+
+    /**
+     * Returns the index of the first header with the given lower-case name
+     * starting from <tt>fromIndex</tt>, or <tt>-1</tt> if there is no such
+     * header.
+     */
+    private int indexOfIndexed(final byte[] lowerCaseName, final int fromIndex) {
+        int hash = 0;
+        for (byte b : lowerCaseName) {
+            hash = hash * 31 + b;
+        }
+        
+        final int mask = indexSlots.length - 1;
+        int result = -1;
+        for (int slot = spread(hash) & mask; indexSlots[slot] != 0;
+                slot = (slot + 1) & mask) {
+            final int idx = indexSlots[slot] - 1;
+            if (indexHashes[slot] == hash && idx >= fromIndex
+                    && (result == -1 || idx < result)
+                    && headers[idx].getName().equalsIgnoreCaseLowerCase(lowerCaseName)) {
+                result = idx;
+            }
+        }
+        
+        return result;
+    }
+    
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
     }
 
 
@@ -51,6 +51,7 @@ import org.glassfish.grizzly.filterchain.NextAction;
 import org.glassfish.grizzly.filterchain.TransportFilter;
 import org.glassfish.grizzly.utils.Charsets;
 import org.glassfish.grizzly.http.util.DataChunk;
+import org.glassfish.grizzly.http.util.Header;
 import org.glassfish.grizzly.http.util.HttpStatus;
 import org.glassfish.grizzly.impl.FutureImpl;
 import org.glassfish.grizzly.impl.SafeFutureImpl;
@@ -83,6 +84,48 @@ public class CompressionSemanticsTest extends TestCase {
 
     private final FutureImpl<Throwable> exception = SafeFutureImpl.create();
 
+    public void testAcceptEncodingQValues() throws Throwable {
+        final String[] gzip = {"gzip", "x-gzip"};
+        final String[] lzma = {"lzma"};
+        final String[] br = {"br"};
+        
+        HttpRequestPacket request = createRequest("br;q=1.0, gzip;q=0.5, lzma;q=0.8");
+        assertEquals(0.5f, CompressionConfig.getAcceptEncodingQValue(request, gzip));
+        assertEquals(0.8f, CompressionConfig.getAcceptEncodingQValue(request, lzma));
+        assertEquals(2, CompressionConfig.selectContentEncoding(request, gzip, lzma, br));
+        assertEquals(1, CompressionConfig.selectContentEncoding(request, gzip, lzma));
+        
+        // equal q-values: the server preference wins
+        request = createRequest("lzma, x-gzip");
+        assertEquals(0, CompressionConfig.selectContentEncoding(request, gzip, lzma));
+        assertEquals(0, CompressionConfig.selectContentEncoding(request, lzma, gzip));
+        
+        // q=0 means "not acceptable", aliases are not matched as substrings
+        request = createRequest("gzip;q=0, xlzma, *;q=0.1");
+        assertEquals(0f, CompressionConfig.getAcceptEncodingQValue(request, gzip));
+        assertEquals(0.1f, CompressionConfig.getAcceptEncodingQValue(request, lzma));
+        assertEquals(1, CompressionConfig.selectContentEncoding(request, gzip, lzma));
+        
+        request = createRequest("identity");
+        assertEquals(-1f, CompressionConfig.getAcceptEncodingQValue(request, gzip));
+        assertEquals(-1, CompressionConfig.selectContentEncoding(request, gzip, lzma));
+        
+        // the header is parsed in place, as it comes from the parser
+        request = createRequest(null);
+        final byte[] value = "xx BR;q=0.3 , X-GZIP ; Q = 0.7, lzma;q=abc".getBytes(Charsets.ASCII_CHARSET);
+        request.getHeaders().addValue(Header.AcceptEncoding).setBuffer(
+                Buffers.wrap(MemoryManager.DEFAULT_MEMORY_MANAGER, value), 3, value.length);
+        assertEquals(0.3f, CompressionConfig.getAcceptEncodingQValue(request, br));
+        assertEquals(0.7f, CompressionConfig.getAcceptEncodingQValue(request, gzip));
+        assertEquals(0f, CompressionConfig.getAcceptEncodingQValue(request, lzma));
+        assertEquals(0, CompressionConfig.selectContentEncoding(request, gzip, lzma, br));
+        
+        request = createRequest(null);
+        request.getHeaders().addValue(Header.AcceptEncoding).setBytes(value, 3, value.length);
+        assertEquals(0.7f, CompressionConfig.getAcceptEncodingQValue(request, gzip));
+        assertEquals(0f, CompressionConfig.getAcceptEncodingQValue(request, lzma));
+    }
+    
     public void testImplicitContentLength() throws Throwable {
         ContentEncoding gzipServerContentEncoding =
                 getGzipServerContentEncoding();
@@ -468,6 +511,17 @@ public class CompressionSemanticsTest extends TestCase {
     }
 
 
+    private static HttpRequestPacket createRequest(final String acceptEncoding) {
+        final HttpRequestPacket.Builder builder = HttpRequestPacket.builder()
+                .method("GET")
+                .uri("/path")
+                .protocol(Protocol.HTTP_1_1);
+        if (acceptEncoding != null) {
+            builder.header("accept-encoding", acceptEncoding);
+        }
+        return builder.build();
+    }
+    
     private static final class ExpectedResult {
 
         private int statusCode = -1;
@@ -102,6 +102,59 @@ public class HttpResponsePacketTest extends TestCase {
         assertEquals("text/xml", response.getHeader(Header.ContentType));
     }
 
+    public void testHeadersTemplate() throws Exception {
+        final HeadersTemplate template = HeadersTemplate.builder()
+                .header("Server", "Grizzly")
+                .header(Header.CacheControl, "no-cache")
+                .build();
+        
+        assertEquals(2, template.size());
+        assertEquals("Grizzly", template.getValue("server"));
+        assertNull(template.getValue("X-Header"));
+        assertEquals("Server: Grizzly\r\nCache-Control: no-cache\r\n".length(),
+                template.getSerializedSize());
+        
+        response.setHeadersTemplate(template);
+        assertSame(template, response.getHeadersTemplate());
+        assertEquals("Grizzly", response.getHeader("Server"));
+        assertTrue(response.containsHeader(Header.CacheControl));
+        
+        // the explicit header overrides the template one
+        response.setHeader("Server", "Other");
+        assertEquals("Other", response.getHeader(Header.Server));
+        
+        final MimeHeaders headers = new MimeHeaders();
+        headers.addValue("Server").setString("Other");
+        template.copyTo(headers);
+        assertEquals(2, headers.size());
+        assertEquals("Other", headers.getHeader("Server"));
+        assertEquals("no-cache", headers.getHeader("Cache-Control"));
+        
+        try {
+            HeadersTemplate.builder().header(Header.ContentLength, "10");
+            fail("Content-Length must not be allowed in the template");
+        } catch (IllegalArgumentException expected) {
+        }
+        
+        try {
+            HeadersTemplate.builder().header("content-type", "text/plain");
+            fail("Content-Type must not be allowed in the template");
+        } catch (IllegalArgumentException expected) {
+        }
+        
+        try {
+            HeadersTemplate.builder().header("X-Header", "a\r\nb");
+            fail("CRLF must not be allowed in the header value");
+        } catch (IllegalArgumentException expected) {
+        }
+        
+        try {
+            HeadersTemplate.builder().header("X Header", "a");
+            fail("Space must not be allowed in the header name");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
     /**
      * http://java.net/jira/browse/GRIZZLY-1295
      * "NullPointer while trying to get next value via ValuesIterator in MimeHeaders"
@@ -575,6 +575,53 @@ public class HttpSemanticsTest extends TestCase {
         });
     }
     
+    public void testHeadersTemplate() throws Throwable {
+        final HeadersTemplate headersTemplate = HeadersTemplate.builder()
+                .header("Server", "Grizzly")
+                .header("Cache-Control", "no-cache")
+                .build();
+        
+        final HttpRequestPacket request = HttpRequestPacket.builder()
+                .method("GET")
+                .uri("/path")
+                .chunked(false)
+                .header("Host", "localhost:" + PORT)
+                .protocol("HTTP/1.1")
+                .build();
+
+        ExpectedResult result = new ExpectedResult();
+        result.setProtocol("HTTP/1.1");
+        result.setStatusCode(200);
+        result.addHeader("Content-Type", "application/json");
+        result.addHeader("Server", "Other");
+        result.addHeader("Cache-Control", "no-cache");
+        result.addHeader("X-Dynamic", "1");
+        result.addHeader("Content-Length", "2");
+        result.setStatusMessage("ok");
+        result.appendContent("{}");
+        doTest(request, result, new BaseFilter() {
+            @Override
+            public NextAction handleRead(FilterChainContext ctx) throws IOException {
+                HttpRequestPacket request =
+                        (HttpRequestPacket)
+                                ((HttpContent) ctx.getMessage()).getHttpHeader();
+                HttpResponsePacket response = request.getResponse();
+                HttpStatus.OK_200.setValues(response);
+                response.setHeadersTemplate(headersTemplate);
+                response.setContentType("application/json");
+                // the explicit headers override the template ones
+                response.setHeader("Server", "Other");
+                response.setHeader("X-Dynamic", "1");
+                MemoryManager mm = ctx.getMemoryManager();
+                HttpContent content = response.httpContentBuilder().content(Buffers.wrap(mm, "{}")).build();
+                content.setLast(true);
+                ctx.write(content);
+                ctx.flush(new FlushAndCloseHandler());
+                return ctx.getStopAction();
+            }
+        });
+    }
+    
     public void testContentLengthDuplicationSame() throws Throwable {
 
         String requestString = "POST /path HTTP/1.1\r\n"
@@ -0,0 +1,193 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * https://glassfish.dev.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.grizzly.http;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.util.Header;
+import org.glassfish.grizzly.http.util.MimeHeaders;
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.utils.Charsets;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link MimeHeaders} name lookups, including the large header sets,
+ * which are looked up using the hashed index.
+ */
+public class MimeHeadersTest {
+    private static final int HEADERS_COUNT = 64;
+    
+    @Test
+    public void testSmallHeaderSet() {
+        final MimeHeaders headers = new MimeHeaders();
+        headers.addValue("Host").setString("localhost");
+        headers.addValue(Header.Accept).setString("*/*");
+        
+        for (int i = 0; i < 32; i++) {
+            assertEquals("localhost", headers.getHeader("HOST"));
+            assertEquals("*/*", headers.getHeader(Header.Accept));
+            assertNull(headers.getHeader("X-Missing"));
+        }
+    }
+    
+    @Test
+    public void testLargeHeaderSet() {
+        final MimeHeaders headers = new MimeHeaders();
+        headers.setMaxNumHeaders(-1);
+        addHeaders(headers);
+        
+        for (int round = 0; round < 4; round++) {
+            checkHeaders(headers);
+        }
+    }
+
+    @Test
+    public void testLargeHeaderSetModifications() {
+        final MimeHeaders headers = new MimeHeaders();
+        headers.setMaxNumHeaders(-1);
+        addHeaders(headers);
+        checkHeaders(headers);
+        checkHeaders(headers);
+        
+        // append after the index has been built
+        headers.addValue("X-Appended").setString("appended");
+        assertEquals("appended", headers.getHeader("x-appended"));
+        checkHeaders(headers);
+        
+        // multi-valued header
+        headers.addValue("x-header-3").setString("second");
+        int idx = headers.indexOf("X-Header-3", 0);
+        assertEquals("value-3", headers.getValue(idx).toString());
+        idx = headers.indexOf("X-HEADER-3", idx + 1);
+        assertEquals("second", headers.getValue(idx).toString());
+        assertEquals(-1, headers.indexOf("x-header-3", idx + 1));
+        
+        // set removes the duplicates
+        headers.setValue("X-Header-3").setString("single");
+        assertEquals("single", headers.getHeader("x-header-3"));
+        idx = headers.indexOf("x-header-3", 0);
+        assertEquals(-1, headers.indexOf("x-header-3", idx + 1));
+        
+        // remove reorders the headers
+        headers.removeHeader("X-Header-0");
+        assertNull(headers.getHeader("x-header-0"));
+        assertEquals("value-1", headers.getHeader("X-Header-1"));
+        assertEquals("appended", headers.getHeader("X-Appended"));
+        
+        headers.addValue("X-Header-0").setString("re-added");
+        assertEquals("re-added", headers.getHeader("x-header-0"));
+        
+        headers.setValue(Header.Host).setString("example.com");
+        assertEquals("example.com", headers.getHeader("host"));
+        assertEquals("example.com", headers.getHeader(Header.Host));
+        
+        headers.clear();
+        assertEquals(0, headers.size());
+        assertNull(headers.getHeader("X-Header-1"));
+        assertNull(headers.getHeader(Header.Host));
+        
+        addHeaders(headers);
+        checkHeaders(headers);
+        checkHeaders(headers);
+    }
+    
+    @Test
+    public void testLargeHeaderSetNonAsciiName() {
+        final MimeHeaders headers = new MimeHeaders();
+        headers.setMaxNumHeaders(-1);
+        addHeaders(headers);
+        headers.addValue("X-\u00c4").setString("non-ascii");
+        
+        for (int round = 0; round < 4; round++) {
+            checkHeaders(headers);
+            assertEquals("non-ascii", headers.getHeader("X-\u00c4"));
+        }
+    }
+
+    private static void addHeaders(final MimeHeaders headers) {
+        final MemoryManager mm = MemoryManager.DEFAULT_MEMORY_MANAGER;
+        
+        for (int i = 0; i < HEADERS_COUNT; i++) {
+            final String name = "X-Header-" + i;
+            final String value = "value-" + i;
+            switch (i % 4) {
+                case 0:
+                    headers.addValue(name).setString(value);
+                    break;
+                case 1: {
+                    final byte[] bytes = ("GARBAGE" + name).getBytes(
+                            Charsets.ASCII_CHARSET);
+                    headers.addValue(bytes, 7, name.length()).setString(value);
+                    break;
+                }
+                case 2: {
+                    final Buffer buffer = Buffers.wrap(mm, "GARBAGE" + name);
+                    headers.addValue(buffer, 7, name.length()).setString(value);
+                    break;
+                }
+                default: {
+                    final char[] chars = name.toCharArray();
+                    headers.addValue("tmp").setString(value);
+                    headers.getName(headers.size() - 1).setChars(chars, 0, chars.length);
+                }
+            }
+        }
+        
+        headers.addValue(Header.Host).setString("localhost");
+    }
+    
+    private static void checkHeaders(final MimeHeaders headers) {
+        for (int i = 0; i < HEADERS_COUNT; i++) {
+            final String value = "value-" + i;
+            assertEquals(value, headers.getHeader("x-header-" + i));
+            assertEquals(value, headers.getHeader("X-HEADER-" + i));
+            assertTrue(headers.contains("X-Header-" + i));
+        }
+        
+        assertEquals("localhost", headers.getHeader(Header.Host));
+        assertEquals("localhost", headers.getHeader("HOST"));
+        assertNull(headers.getHeader("X-Missing"));
+        assertNull(headers.getHeader(Header.Cookie));
+        assertEquals(-1, headers.indexOf(Header.Cookie, 0));
+    }
+}
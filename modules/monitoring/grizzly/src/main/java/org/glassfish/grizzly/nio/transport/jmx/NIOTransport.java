@@ -44,16 +44,20 @@ import org.glassfish.grizzly.Buffer;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.ConnectionProbe;
 import org.glassfish.grizzly.IOEvent;
+import org.glassfish.grizzly.IOStrategy;
+import org.glassfish.grizzly.Processor;
 import org.glassfish.grizzly.Transport;
 import org.glassfish.grizzly.TransportProbe;
 import org.glassfish.grizzly.monitoring.jmx.JmxObject;
 import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.strategies.AdaptiveIOStrategy;
 import org.glassfish.grizzly.threadpool.GrizzlyExecutorService;
 import java.util.Date;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.glassfish.gmbal.Description;
@@ -90,6 +94,8 @@ public class NIOTransport extends JmxObject {
     private final AtomicInteger openConnectionsNum = new AtomicInteger();
     private final AtomicLong totalConnectionsNum = new AtomicLong();
 
+    private final AtomicLong dispatchModeChangesNum = new AtomicLong();
+
     private GrizzlyJmxManager mom;
     
     private MemoryManager currentMemoryManager;
@@ -174,6 +180,41 @@ public class NIOTransport extends JmxObject {
         return getType(transport.getIOStrategy());
     }
 
+    @ManagedAttribute(id="io-strategy-dispatch")
+    @Description("The per Processor dispatch mode and average processing time (in microseconds), if the adaptive IOStrategy is used")
+    public String getIOStrategyDispatch() {
+        final IOStrategy strategy = transport.getIOStrategy();
+        if (!(strategy instanceof AdaptiveIOStrategy)) {
+            return "N/A";
+        }
+
+        final AdaptiveIOStrategy adaptiveStrategy = (AdaptiveIOStrategy) strategy;
+        final StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (Processor processor : adaptiveStrategy.getProcessors()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+
+            sb.append(processor).append('=')
+                    .append(adaptiveStrategy.isWorkerThread(processor)
+                    ? "worker-thread"
+                    : "same-thread")
+                    .append(" (")
+                    .append(adaptiveStrategy.getProcessingTime(processor,
+                    TimeUnit.MICROSECONDS))
+                    .append(')');
+        }
+
+        return sb.append(']').toString();
+    }
+
+    @ManagedAttribute(id="io-strategy-dispatch-changes-count")
+    @Description("The number of times the adaptive IOStrategy changed a Processor's dispatch mode")
+    public long getIOStrategyDispatchChangesCount() {
+        return dispatchModeChangesNum.get();
+    }
+
     @ManagedAttribute(id="channel-distributor")
     public String getChannelDistributor() {
         return getType(transport.getNIOChannelDistributor());
@@ -299,7 +340,7 @@ public class NIOTransport extends JmxObject {
         }
     }
 
-    private class JmxTransportProbe implements TransportProbe {
+    private class JmxTransportProbe implements TransportProbe.Ext {
 
         @Override
         public void onBeforeStartEvent(Transport transport) {
@@ -352,6 +393,17 @@ public class NIOTransport extends JmxObject {
                 rebuildSubTree();
             }
         }
+
+        @Override
+        public void onReadBufferSizeChangeEvent(Transport transport,
+                Connection connection, int readBufferSize) {
+        }
+
+        @Override
+        public void onDispatchModeChangeEvent(Transport transport,
+                Processor processor, boolean isWorkerThread) {
+            dispatchModeChangesNum.incrementAndGet();
+        }
     }
 
     private class JmxConnectionProbe implements ConnectionProbe {
@@ -90,4 +90,22 @@ public class TCPNIOTransport extends NIOTransport {
     public int getConnectTimeout() {
         return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).getConnectionTimeout();
     }
+
+    @ManagedAttribute(id="acceptor-channels-count")
+    @Description("The number of server channels bound to the same address using SO_REUSEPORT")
+    public int getAcceptorChannelsCount() {
+        return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).getAcceptorChannelsCount();
+    }
+
+    @ManagedAttribute(id="written-bytes-copied")
+    @Description("The number of bytes copied from heap to direct buffers before being written")
+    public long getWrittenBytesCopied() {
+        return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).getWrittenBytesCopied();
+    }
+
+    @ManagedAttribute(id="written-bytes-zero-copy")
+    @Description("The number of bytes written directly from direct buffers")
+    public long getWrittenBytesZeroCopy() {
+        return ((org.glassfish.grizzly.nio.transport.TCPNIOTransport) transport).getWrittenBytesZeroCopy();
+    }
 }
@@ -44,6 +44,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.http.HeadersTemplate;
 import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.HttpResponsePacket;
 import org.glassfish.grizzly.http.util.Ascii;
@@ -81,6 +82,11 @@ class SpdyEncoderUtils {
         final Buffer plainBuffer = mm.allocate(2048);
         
         final MimeHeaders headers = response.getHeaders();
+        final HeadersTemplate headersTemplate = response.getHeadersTemplate();
+        if (headersTemplate != null) {
+            // the template headers, which are not overridden
+            headersTemplate.copyTo(headers);
+        }
         
         headers.removeHeader(Header.Connection);
         headers.removeHeader(Header.KeepAlive);
@@ -173,6 +179,11 @@ class SpdyEncoderUtils {
         // ---------------------------------------------------------------
 
         final MimeHeaders headers = request.getHeaders();
+        final HeadersTemplate headersTemplate = request.getHeadersTemplate();
+        if (headersTemplate != null) {
+            // the template headers, which are not overridden
+            headersTemplate.copyTo(headers);
+        }
         
         final String hostHeader = headers.getHeader(Header.Host);
         final byte[] hostHeaderBytes;
@@ -298,6 +309,11 @@ class SpdyEncoderUtils {
         // ---------------------------------------------------------------
 
         final MimeHeaders headers = response.getHeaders();
+        final HeadersTemplate headersTemplate = response.getHeadersTemplate();
+        if (headersTemplate != null) {
+            // the template headers, which are not overridden
+            headersTemplate.copyTo(headers);
+        }
         
         final String hostHeader = headers.getHeader(Header.Host);
         final byte[] hostHeaderBytes;